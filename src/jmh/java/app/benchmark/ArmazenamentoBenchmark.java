@@ -0,0 +1,86 @@
+package app.benchmark;
+
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Armazenamento em objetos (padrão) comparado com o colunar, com 1 milhão de alunos.
+ *
+ * Mede o custo de ler (cada leitura no modo colunar cria o Aluno a partir das colunas),
+ * percorrer e gravar. A pegada de memória (bytes retidos por aluno no repositório
+ * inteiro, medidos após GC) é impressa no início de cada trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ArmazenamentoBenchmark {
+
+    @Param({"OBJETOS", "COLUNAR"})
+    private AlunoRepository.Armazenamento armazenamento;
+
+    @Param({"1000000"})
+    private int tamanho;
+
+    private AlunoRepository repositorio;
+
+    @Setup(Level.Trial)
+    public void preparar() throws InterruptedException {
+        long antes = memoriaUsada();
+        repositorio = Dados.repositorio(tamanho, armazenamento);
+        long depois = memoriaUsada();
+        System.out.printf("%n%s: %.1f bytes por aluno (repositório inteiro, com índices)%n",
+                armazenamento, (double) (depois - antes) / tamanho);
+    }
+
+    @Benchmark
+    public Aluno buscarPorId() {
+        return repositorio.buscarPorId(idAleatorio());
+    }
+
+    @Benchmark
+    public void salvarAtualizacao() {
+        repositorio.salvar(Dados.atualizacao(idAleatorio()));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long listarTodos() {
+        long soma = 0;
+        for (Aluno aluno : repositorio.listarTodos()) {
+            soma += aluno.getIdade();
+        }
+        return soma;
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private int idAleatorio() {
+        return ThreadLocalRandom.current().nextInt(1, tamanho + 1);
+    }
+
+    private static long memoriaUsada() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
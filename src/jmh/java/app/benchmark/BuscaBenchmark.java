@@ -0,0 +1,103 @@
+package app.benchmark;
+
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Busca por prefixo (GET /alunos/search) com 100 mil e 1 milhão de alunos.
+ *
+ * Os nomes combinam prenomes e sobrenomes comuns (com acentos), então os tokens se
+ * repetem como em dados reais: "ma" casa com centenas de milhares de alunos, "maria"
+ * com dezenas de milhares e "jo sil" exige os dois termos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class BuscaBenchmark {
+    private static final String[] PRENOMES = {
+        "Maria", "José", "Ana", "João", "Antônio", "Francisco", "Carlos", "Paulo", "Pedro", "Lucas",
+        "Luiz", "Marcos", "Luís", "Gabriel", "Rafael", "Márcia", "Daniel", "Marcelo", "Bruno", "Eduardo",
+        "Juliana", "Fernanda", "Patrícia", "Aline", "Sandra", "Camila", "Amanda", "Bruna", "Jéssica", "Letícia"
+    };
+    private static final String[] SOBRENOMES = {
+        "Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira", "Lima", "Gomes",
+        "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes", "Soares", "Fernandes", "Vieira", "Barbosa",
+        "Rocha", "Dias", "Nascimento", "Andrade", "Moreira", "Nunes", "Marques", "Machado", "Mendes", "Freitas"
+    };
+
+    @Param({"100000", "1000000"})
+    private int tamanho;
+
+    private AlunoRepository repositorio;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        List<Aluno> lote = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            String prenome = PRENOMES[aleatorio.nextInt(PRENOMES.length)];
+            String meio = SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)];
+            String sobrenome = SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)];
+            String email = (prenome + "." + sobrenome + i + "@escola.edu").toLowerCase();
+            lote.add(new Aluno(prenome + " " + meio + " " + sobrenome, 18 + i % 40, email, "Curso " + i % 20));
+        }
+        repositorio = new AlunoRepository();
+        repositorio.salvarLote(lote);
+    }
+
+    @Benchmark
+    public List<Aluno> prefixoCurto() {
+        return repositorio.buscar("ma", 10);
+    }
+
+    @Benchmark
+    public List<Aluno> palavraInteira() {
+        return repositorio.buscar("maria", 10);
+    }
+
+    @Benchmark
+    public List<Aluno> semAcento() {
+        return repositorio.buscar("leticia", 10);
+    }
+
+    @Benchmark
+    public List<Aluno> doisTermos() {
+        return repositorio.buscar("jo sil", 10);
+    }
+
+    @Benchmark
+    public List<Aluno> tresTermos() {
+        return repositorio.buscar("maria santos nasc", 10);
+    }
+
+    @Benchmark
+    public List<Aluno> email() {
+        return repositorio.buscar("ana.silva12", 10);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Aluno> doisTermosQuatroThreads() {
+        return repositorio.buscar("jo sil", 10);
+    }
+}
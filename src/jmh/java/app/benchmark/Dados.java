@@ -0,0 +1,73 @@
+package app.benchmark;
+
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import app.repository.Persistencia;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dados sintéticos compartilhados pelos benchmarks.
+ */
+final class Dados {
+
+    private Dados() {
+    }
+
+    /**
+     * @param indice Número do aluno (a partir de 0)
+     * @return Aluno novo (ID = 0) com email único
+     */
+    static Aluno aluno(int indice) {
+        return new Aluno("Aluno " + indice, 18 + indice % 40, "aluno" + indice + "@x.com", "Curso " + indice % 20);
+    }
+
+    /**
+     * @param quantidade Quantidade de alunos
+     * @return Repositório em memória com IDs de 1 a quantidade
+     */
+    static AlunoRepository repositorio(int quantidade) {
+        return repositorio(quantidade, AlunoRepository.Armazenamento.OBJETOS);
+    }
+
+    /**
+     * @param quantidade Quantidade de alunos
+     * @param armazenamento Formato do mapa principal
+     * @return Repositório em memória com IDs de 1 a quantidade
+     */
+    static AlunoRepository repositorio(int quantidade, AlunoRepository.Armazenamento armazenamento) {
+        AlunoRepository repositorio = new AlunoRepository(Persistencia.NENHUMA, armazenamento);
+        List<Aluno> lote = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            lote.add(aluno(i));
+        }
+        repositorio.salvarLote(lote);
+        return repositorio;
+    }
+
+    /**
+     * @param id ID de um aluno criado por repositorio()
+     * @return Nova versão do aluno, com o mesmo email e outra idade
+     */
+    static Aluno atualizacao(int id) {
+        int indice = id - 1;
+        Aluno aluno = new Aluno("Aluno " + indice, 18 + (indice + 1) % 40, "aluno" + indice + "@x.com",
+                "Curso " + indice % 20);
+        aluno.setId(id);
+        return aluno;
+    }
+
+    /**
+     * @param quantidade Quantidade de alunos
+     * @return Lista de alunos com IDs de 1 a quantidade
+     */
+    static List<Aluno> lista(int quantidade) {
+        List<Aluno> alunos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Aluno aluno = aluno(i);
+            aluno.setId(i + 1);
+            alunos.add(aluno);
+        }
+        return alunos;
+    }
+}
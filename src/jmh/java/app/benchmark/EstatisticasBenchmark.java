@@ -0,0 +1,70 @@
+package app.benchmark;
+
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import app.repository.EstatisticasAlunos;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GET /alunos/stats: leitura dos agregados mantidos a cada escrita, comparada com o
+ * cálculo equivalente percorrendo todos os alunos (o que um relatório faria sem eles),
+ * e o custo da verificação paralela que recalcula e corrige os agregados.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class EstatisticasBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int tamanho;
+
+    private AlunoRepository repositorio;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        repositorio = Dados.repositorio(tamanho);
+    }
+
+    @Benchmark
+    public EstatisticasAlunos agregados() {
+        return repositorio.estatisticas();
+    }
+
+    @Benchmark
+    public Map<String, long[]> percorrendoTodos() {
+        // quantidade, soma, mínimo e máximo por curso
+        Map<String, long[]> porCurso = new HashMap<>();
+        for (Aluno aluno : repositorio.listarTodos()) {
+            long[] grupo = porCurso.computeIfAbsent(aluno.getCurso(),
+                    curso -> new long[] {0, 0, Long.MAX_VALUE, Long.MIN_VALUE});
+            grupo[0]++;
+            grupo[1] += aluno.getIdade();
+            grupo[2] = Math.min(grupo[2], aluno.getIdade());
+            grupo[3] = Math.max(grupo[3], aluno.getIdade());
+        }
+        return porCurso;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int verificar() {
+        return repositorio.verificarEstatisticas();
+    }
+}
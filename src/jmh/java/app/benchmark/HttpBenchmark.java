@@ -0,0 +1,122 @@
+package app.benchmark;
+
+import app.AlunoHttpHandler;
+import app.http.Roteador;
+import app.service.AlunoService;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ponta a ponta: requisições HTTP reais (conexões keep-alive) contra um HttpServer
+ * no mesmo processo, com o roteador e o AlunoHttpHandler montados em /api/alunos.
+ * Usa TCP_NODELAY no servidor, como o WebServer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class HttpBenchmark {
+    private static final int ALUNOS = 10_000;
+    private static final byte[] CORPO_POST =
+            "{\"nome\":\"Ana\",\"idade\":20,\"email\":\"%s@x.com\",\"curso\":\"ADS\"}".getBytes(StandardCharsets.UTF_8);
+
+    private AlunoHttpHandler handler;
+    private HttpServer servidor;
+    private ExecutorService executor;
+    private String base;
+
+    @Setup
+    public void iniciar() throws IOException {
+        AlunoService service = new AlunoService(Dados.repositorio(ALUNOS));
+        Roteador roteador = new Roteador();
+        handler = new AlunoHttpHandler(service);
+        handler.registrarRotas(roteador, "/api/alunos");
+
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.createContext("/", roteador);
+        executor = Executors.newFixedThreadPool(4);
+        servidor.setExecutor(executor);
+        servidor.start();
+        base = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/api/alunos";
+    }
+
+    @TearDown
+    public void parar() {
+        servidor.stop(0);
+        executor.shutdownNow();
+        handler.close();
+    }
+
+    @Benchmark
+    public int buscarPorId() throws IOException {
+        return get(base + "/" + ThreadLocalRandom.current().nextInt(1, ALUNOS + 1));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int buscarPorIdQuatroThreads() throws IOException {
+        return get(base + "/" + ThreadLocalRandom.current().nextInt(1, ALUNOS + 1));
+    }
+
+    @Benchmark
+    public int listarPaginaCem() throws IOException {
+        return get(base + "?limit=100&after=" + ThreadLocalRandom.current().nextInt(0, ALUNOS - 100));
+    }
+
+    @Benchmark
+    public int adicionar() throws IOException {
+        String email = "bench" + ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+        byte[] corpo = new String(CORPO_POST, StandardCharsets.UTF_8).replace("%s", email)
+                .getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection conexao = (HttpURLConnection) new URL(base).openConnection();
+        conexao.setRequestMethod("POST");
+        conexao.setDoOutput(true);
+        conexao.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream os = conexao.getOutputStream()) {
+            os.write(corpo);
+        }
+        return consumir(conexao);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static int get(String url) throws IOException {
+        return consumir((HttpURLConnection) new URL(url).openConnection());
+    }
+
+    /**
+     * Lê a resposta inteira (necessário para a conexão voltar ao pool keep-alive).
+     * @return Quantidade de bytes do corpo
+     */
+    private static int consumir(HttpURLConnection conexao) throws IOException {
+        int status = conexao.getResponseCode();
+        try (InputStream in = status < 400 ? conexao.getInputStream() : conexao.getErrorStream()) {
+            return in == null ? 0 : in.readAllBytes().length;
+        }
+    }
+}
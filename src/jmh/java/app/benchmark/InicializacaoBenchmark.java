@@ -0,0 +1,129 @@
+package app.benchmark;
+
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import app.repository.JournalPersistencia;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tempo de inicialização do repositório pelo journal: snapshot com "tamanho" alunos mais
+ * um log com "cauda" atualizações posteriores a ele. Cada medição é uma inicialização
+ * completa (snapshot mapeado, reaplicação do log e reconstrução dos índices).
+ *
+ * Os arquivos são gerados uma vez por trial, direto pela persistência (sem montar um
+ * repositório). Com 10 milhões de alunos o repositório precisa de vários GB de heap; em
+ * máquinas menores, reduza o tamanho (ex: -Djmh.args="InicializacaoBenchmark -p tamanho=1000000
+ * -jvmArgs -Xmx4g").
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx16g")
+@State(Scope.Benchmark)
+public class InicializacaoBenchmark {
+
+    @Param({"10000000"})
+    private int tamanho;
+
+    // Atualizações gravadas no log depois do snapshot
+    @Param({"1000000"})
+    private int cauda;
+
+    @Param({"OBJETOS", "COLUNAR"})
+    private AlunoRepository.Armazenamento armazenamento;
+
+    private Path diretorio;
+    private JournalPersistencia journal;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException, InterruptedException {
+        diretorio = Files.createTempDirectory("inicializacao-benchmark");
+
+        // Snapshot: com limite de 1 byte, o primeiro grupo gravado já pede um snapshot
+        // do estado vinculado (gerado sob demanda, sem ficar na memória)
+        try (JournalPersistencia gerador = new JournalPersistencia(diretorio, 1)) {
+            gerador.carregar(aluno -> { }, id -> { });
+            gerador.vincularEstado(() -> alunos(tamanho));
+            gerador.registrarInsercao(comId(tamanho));
+            gerador.confirmar();
+            while (Files.exists(diretorio.resolve("journal-0.log"))) {
+                Thread.sleep(50);
+            }
+        }
+
+        // Cauda do log: um fsync por grupo de atualizações
+        try (JournalPersistencia gerador = new JournalPersistencia(diretorio, Long.MAX_VALUE)) {
+            gerador.carregar(aluno -> { }, id -> { });
+            for (int i = 0; i < cauda; i++) {
+                gerador.registrarAtualizacao(Dados.atualizacao(1 + i % tamanho));
+                if (i % 10_000 == 9_999) gerador.confirmar();
+            }
+            gerador.confirmar();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void fechar() {
+        journal.close();
+        journal = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void apagar() throws IOException {
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(arquivo);
+            }
+        }
+    }
+
+    @Benchmark
+    public int inicializar() {
+        journal = new JournalPersistencia(diretorio, Long.MAX_VALUE);
+        return new AlunoRepository(journal, armazenamento).listarTodos().size();
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static Aluno comId(int id) {
+        Aluno aluno = Dados.aluno(id - 1);
+        aluno.setId(id);
+        return aluno;
+    }
+
+    private static Iterator<Aluno> alunos(int quantidade) {
+        return new Iterator<>() {
+            private int proximo = 1;
+
+            @Override
+            public boolean hasNext() {
+                return proximo <= quantidade;
+            }
+
+            @Override
+            public Aluno next() {
+                return comId(proximo++);
+            }
+        };
+    }
+}
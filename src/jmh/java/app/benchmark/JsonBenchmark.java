@@ -0,0 +1,83 @@
+package app.benchmark;
+
+import app.json.AlunoJson;
+import app.json.CacheJsonAlunos;
+import app.json.EscritorJson;
+import app.json.LeitorAlunoJson;
+import app.model.Aluno;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialização (AlunoJson/EscritorJson, usada nas respostas do AlunoHttpHandler)
+ * e leitura do corpo do POST (LeitorAlunoJson, que substituiu o antigo extrairValorJson).
+ * As variantes "ComCache" copiam os bytes já codificados do CacheJsonAlunos (acerto).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+    private static final byte[] CORPO_POST =
+            "{\"nome\":\"Ana Luíza\",\"idade\":20,\"email\":\"ana@x.com\",\"curso\":\"Análise e Desenvolvimento\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    private final EscritorJson escritor = new EscritorJson();
+    private final CacheJsonAlunos cache = new CacheJsonAlunos(1024 * 1024);
+    private Aluno aluno;
+    private List<Aluno> pagina;
+
+    @Setup
+    public void preparar() {
+        aluno = Dados.lista(1).get(0);
+        pagina = Dados.lista(100);
+    }
+
+    @Benchmark
+    public int escreverAluno() {
+        escritor.limpar();
+        AlunoJson.escrever(escritor, aluno);
+        return escritor.tamanho();
+    }
+
+    @Benchmark
+    public int escreverPaginaCem() {
+        escritor.limpar();
+        AlunoJson.escreverLista(escritor, pagina);
+        return escritor.tamanho();
+    }
+
+    @Benchmark
+    public int escreverAlunoComCache() {
+        escritor.limpar();
+        cache.escrever(escritor, aluno);
+        return escritor.tamanho();
+    }
+
+    @Benchmark
+    public int escreverPaginaCemComCache() {
+        escritor.limpar();
+        cache.escreverLista(escritor, pagina);
+        return escritor.tamanho();
+    }
+
+    @Benchmark
+    public Aluno lerCorpoPost() throws IOException {
+        return LeitorAlunoJson.lerUnico(new ByteArrayInputStream(CORPO_POST), LeitorAlunoJson.LIMITE_PADRAO);
+    }
+}
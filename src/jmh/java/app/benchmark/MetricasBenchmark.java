@@ -0,0 +1,76 @@
+package app.benchmark;
+
+import app.metricas.Histograma;
+import app.metricas.Metricas;
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo da instrumentação de métricas.
+ *
+ * Compara uma medição vazia (dois System.nanoTime) com o registro no histograma
+ * (uma e oito threads), o registro completo de uma rota HTTP e buscarPorId, que já
+ * inclui o temporizador do repositório.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricasBenchmark {
+    private static final int ALUNOS = 100_000;
+
+    private final Histograma histograma = new Histograma();
+    private final Metricas.Rota rota = Metricas.rota("benchmark");
+    private AlunoRepository repositorio;
+
+    @Setup
+    public void preparar() {
+        repositorio = new AlunoRepository();
+        for (int i = 0; i < ALUNOS; i++) {
+            repositorio.salvar(new Aluno("Aluno " + i, 18 + i % 40, "aluno" + i + "@x.com", "Curso " + i % 20));
+        }
+    }
+
+    @Benchmark
+    public long nanoTimeDuplo() {
+        long inicio = System.nanoTime();
+        return System.nanoTime() - inicio;
+    }
+
+    @Benchmark
+    public void histogramaUmaThread() {
+        histograma.registrar(ThreadLocalRandom.current().nextLong(1_000, 10_000_000));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void histogramaOitoThreads() {
+        histograma.registrar(ThreadLocalRandom.current().nextLong(1_000, 10_000_000));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void rotaOitoThreads() {
+        rota.registrar(200, 512, ThreadLocalRandom.current().nextLong(1_000, 10_000_000));
+    }
+
+    @Benchmark
+    public Aluno buscarPorIdInstrumentado() {
+        return repositorio.buscarPorId(ThreadLocalRandom.current().nextInt(1, ALUNOS + 1));
+    }
+}
@@ -0,0 +1,351 @@
+package app.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Motores HTTP com muitas conexões simultâneas: jdk (HttpServer) e nio (laços de eventos próprios).
+ *
+ * O servidor é o app.WebServer completo (roteador, filtros, admissão), em outro processo
+ * com -Dalunos.http.motor: com 10 000 conexões, cliente e servidor separados ficam cada
+ * um abaixo do limite de arquivos abertos. Ele recebe ALUNOS alunos por POST /api/alunos/batch.
+ *
+ * O cliente abre "conexoes" conexões keep-alive com um único Selector. Cada operação é uma
+ * onda: "profundidade" GETs /api/alunos/{id} em pipelining em todas as conexões, e a espera
+ * por todas as respostas. Ao final de cada trial imprime requisições por segundo, respostas
+ * diferentes de 200 e conexões refeitas (fechadas pelo servidor).
+ *
+ * Os limites de proteção da aplicação (taxa por cliente, fila do pool e espera máxima na
+ * fila) são aumentados para medir o motor e não a admissão; o HttpServer do JDK também
+ * recebe -Dsun.net.httpserver.maxIdleConnections acima do número de conexões, senão
+ * fecharia as que passam do limite a cada resposta.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MotorBenchmark {
+    private static final int ALUNOS = 10_000;
+    // Conexões abertas de cada vez (a fila de conexões pendentes do servidor é 4096)
+    private static final int CONEXOES_POR_LOTE = 1000;
+    private static final long ESPERA_MAXIMA_MS = 30_000;
+
+    @Param({"jdk", "nio"})
+    private String motor;
+
+    @Param({"1000", "10000"})
+    private int conexoes;
+
+    @Param({"1", "16"})
+    private int profundidade;
+
+    private Process servidor;
+    private int porta;
+    private Selector seletor;
+    private final List<Conexao> abertas = new ArrayList<>();
+
+    private long requisicoes;
+    private long erros;
+    private long reconexoes;
+    private long nanos;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException, InterruptedException {
+        try (ServerSocket livre = new ServerSocket(0)) {
+            porta = livre.getLocalPort();
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        servidor = new ProcessBuilder(java,
+                "-Dalunos.http.motor=" + motor,
+                "-Dalunos.http.porta=" + porta,
+                "-Dalunos.http.backlog=4096",
+                "-Dalunos.http.fila=" + (conexoes * 2),
+                "-Dalunos.admissao.taxa=100000000",
+                "-Dalunos.admissao.esperaMaximaMs=60000",
+                "-Dsun.net.httpserver.maxIdleConnections=" + (conexoes * 2),
+                "-cp", System.getProperty("java.class.path"), "app.WebServer")
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        aguardarServidor();
+        importarAlunos();
+
+        seletor = Selector.open();
+        for (int inicio = 0; inicio < conexoes; inicio += CONEXOES_POR_LOTE) {
+            conectarLote(Math.min(CONEXOES_POR_LOTE, conexoes - inicio));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void parar() throws IOException, InterruptedException {
+        double segundos = nanos / 1e9;
+        System.out.printf(Locale.ROOT, "%n%s, %d conexões, profundidade %d: %.0f requisições/s"
+                        + " (%d requisições, %d respostas diferentes de 200, %d conexões refeitas)%n",
+                motor, conexoes, profundidade, requisicoes / segundos, requisicoes, erros, reconexoes);
+        for (Conexao conexao : abertas) {
+            conexao.canal.close();
+        }
+        abertas.clear();
+        seletor.close();
+        servidor.destroy();
+        servidor.waitFor(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Uma onda: profundidade requisições em cada conexão.
+     * @return Respostas recebidas
+     */
+    @Benchmark
+    public long onda() throws IOException {
+        long inicio = System.nanoTime();
+        long faltam = 0;
+        for (Conexao conexao : abertas) {
+            conexao.pedir(profundidade);
+            faltam += profundidade;
+        }
+        long respostas = 0;
+        while (faltam > 0) {
+            if (seletor.select(ESPERA_MAXIMA_MS) == 0) {
+                throw new IOException("Sem respostas há " + ESPERA_MAXIMA_MS + " ms (" + faltam + " pendentes)");
+            }
+            Iterator<SelectionKey> prontas = seletor.selectedKeys().iterator();
+            while (prontas.hasNext()) {
+                SelectionKey chave = prontas.next();
+                prontas.remove();
+                Conexao conexao = (Conexao) chave.attachment();
+                if (chave.isValid() && chave.isWritable()) conexao.escrever();
+                if (chave.isValid() && chave.isReadable()) {
+                    int recebidas = conexao.ler();
+                    if (recebidas < 0) {
+                        // Servidor fechou: as que faltavam nessa conexão são pedidas de novo
+                        int perdidas = conexao.pendentes;
+                        reconectar(conexao);
+                        conexao.pedir(perdidas);
+                    } else {
+                        respostas += recebidas;
+                        faltam -= recebidas;
+                    }
+                }
+            }
+        }
+        requisicoes += respostas;
+        nanos += System.nanoTime() - inicio;
+        return respostas;
+    }
+
+    // ========== PREPARAÇÃO ==========
+
+    private void aguardarServidor() throws IOException, InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (true) {
+            try {
+                // Só verifica se a porta já aceita conexões
+                new Socket(InetAddress.getLoopbackAddress(), porta).close();
+                return;
+            } catch (IOException e) {
+                if (System.nanoTime() > limite || !servidor.isAlive()) throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private void importarAlunos() throws IOException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < ALUNOS; i++) {
+            ndjson.append(String.format(Locale.ROOT,
+                    "{\"nome\":\"Aluno %d\",\"idade\":%d,\"email\":\"aluno%d@x.com\",\"curso\":\"Curso %d\"}%n",
+                    i, 18 + i % 40, i, i % 20));
+        }
+        HttpURLConnection http = (HttpURLConnection)
+                new URL("http://127.0.0.1:" + porta + "/api/alunos/batch").openConnection();
+        http.setRequestMethod("POST");
+        http.setDoOutput(true);
+        http.setRequestProperty("Content-Type", "application/x-ndjson");
+        try (OutputStream os = http.getOutputStream()) {
+            os.write(ndjson.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        if (http.getResponseCode() != 200) throw new IOException("Importação falhou: " + http.getResponseCode());
+        http.getInputStream().readAllBytes();
+    }
+
+    /**
+     * Inicia as conexões do lote sem bloquear e espera todas completarem.
+     */
+    private void conectarLote(int quantidade) throws IOException {
+        InetSocketAddress endereco = new InetSocketAddress(InetAddress.getLoopbackAddress(), porta);
+        int faltam = quantidade;
+        for (int i = 0; i < quantidade; i++) {
+            SocketChannel canal = SocketChannel.open();
+            canal.configureBlocking(false);
+            canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Conexao conexao = new Conexao(canal);
+            abertas.add(conexao);
+            if (canal.connect(endereco)) {
+                conexao.chave = canal.register(seletor, 0, conexao);
+                faltam--;
+            } else {
+                conexao.chave = canal.register(seletor, SelectionKey.OP_CONNECT, conexao);
+            }
+        }
+        while (faltam > 0) {
+            if (seletor.select(ESPERA_MAXIMA_MS) == 0) throw new IOException("Conexões não completaram");
+            Iterator<SelectionKey> prontas = seletor.selectedKeys().iterator();
+            while (prontas.hasNext()) {
+                SelectionKey chave = prontas.next();
+                prontas.remove();
+                if (chave.isConnectable() && ((SocketChannel) chave.channel()).finishConnect()) {
+                    chave.interestOps(0);
+                    faltam--;
+                }
+            }
+        }
+    }
+
+    private void reconectar(Conexao conexao) throws IOException {
+        reconexoes++;
+        conexao.chave.cancel();
+        conexao.canal.close();
+        SocketChannel canal = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta));
+        canal.configureBlocking(false);
+        canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        seletor.selectNow(); // conclui o cancelamento da chave antiga
+        conexao.canal = canal;
+        conexao.chave = canal.register(seletor, 0, conexao);
+        conexao.entrada.clear();
+        conexao.pendentes = 0;
+    }
+
+    // ========== CLIENTE ==========
+
+    /**
+     * Conexão do cliente: requisições a enviar e respostas a interpretar.
+     */
+    private final class Conexao {
+        SocketChannel canal;
+        SelectionKey chave;
+        final ByteBuffer saida = ByteBuffer.allocate(4 * 1024);
+        final ByteBuffer entrada = ByteBuffer.allocate(16 * 1024);
+        int pendentes;
+
+        Conexao(SocketChannel canal) {
+            this.canal = canal;
+        }
+
+        /**
+         * Envia as requisições em pipelining (o restante, se o socket encher, sai no OP_WRITE).
+         */
+        void pedir(int quantidade) throws IOException {
+            saida.clear();
+            for (int i = 0; i < quantidade; i++) {
+                int id = ThreadLocalRandom.current().nextInt(1, ALUNOS + 1);
+                saida.put(("GET /api/alunos/" + id + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+            }
+            saida.flip();
+            pendentes += quantidade;
+            escrever();
+        }
+
+        void escrever() throws IOException {
+            canal.write(saida);
+            chave.interestOps(saida.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        /**
+         * @return Respostas completas recebidas, ou -1 se o servidor fechou a conexão
+         */
+        int ler() throws IOException {
+            int lidos;
+            try {
+                lidos = canal.read(entrada);
+            } catch (IOException e) {
+                lidos = -1;
+            }
+            if (lidos < 0) return -1;
+            entrada.flip();
+            int completas = 0;
+            while (true) {
+                int tamanho = tamanhoResposta(entrada);
+                if (tamanho < 0) break;
+                if (status(entrada) != 200) erros++;
+                entrada.position(entrada.position() + tamanho);
+                completas++;
+            }
+            entrada.compact();
+            pendentes -= completas;
+            return completas;
+        }
+    }
+
+    /**
+     * @return Tamanho da resposta no início do buffer (cabeçalhos + Content-Length), ou -1 se incompleta
+     */
+    private static int tamanhoResposta(ByteBuffer buffer) {
+        byte[] dados = buffer.array();
+        int inicio = buffer.position();
+        int fim = buffer.limit();
+        long conteudo = 0;
+        int linha = inicio;
+        for (int i = inicio; i + 1 < fim; i++) {
+            if (dados[i] != '\r' || dados[i + 1] != '\n') continue;
+            if (i == linha) {
+                int total = i + 2 - inicio + (int) conteudo;
+                return fim - inicio >= total ? total : -1;
+            }
+            if (comecaCom(dados, linha, i, "content-length:")) {
+                conteudo = Long.parseLong(new String(dados, linha + 15, i - linha - 15, StandardCharsets.US_ASCII).trim());
+            }
+            linha = i + 2;
+            i++;
+        }
+        return -1;
+    }
+
+    private static boolean comecaCom(byte[] dados, int inicio, int fim, String prefixo) {
+        if (fim - inicio < prefixo.length()) return false;
+        for (int i = 0; i < prefixo.length(); i++) {
+            if (Character.toLowerCase(dados[inicio + i]) != prefixo.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static int status(ByteBuffer buffer) {
+        int p = buffer.position() + 9; // "HTTP/1.1 "
+        byte[] dados = buffer.array();
+        return (dados[p] - '0') * 100 + (dados[p + 1] - '0') * 10 + (dados[p + 2] - '0');
+    }
+}
@@ -0,0 +1,115 @@
+package app.benchmark;
+
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operações do AlunoRepository com 1 mil, 100 mil e 1 milhão de alunos,
+ * com uma e com quatro threads.
+ *
+ * salvarERemover insere um aluno novo e o remove em seguida, mantendo o tamanho
+ * do repositório constante durante a medição.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RepositorioBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int tamanho;
+
+    private AlunoRepository repositorio;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        repositorio = Dados.repositorio(tamanho);
+    }
+
+    @Benchmark
+    public Aluno buscarPorId() {
+        return repositorio.buscarPorId(idAleatorio());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Aluno buscarPorIdQuatroThreads() {
+        return repositorio.buscarPorId(idAleatorio());
+    }
+
+    @Benchmark
+    public void salvarAtualizacao() {
+        repositorio.salvar(Dados.atualizacao(idAleatorio()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void salvarAtualizacaoQuatroThreads() {
+        repositorio.salvar(Dados.atualizacao(idAleatorio()));
+    }
+
+    @Benchmark
+    public boolean salvarERemover() {
+        return inserirERemover();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean salvarERemoverQuatroThreads() {
+        return inserirERemover();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int listarTodos() {
+        return percorrer(repositorio.listarTodos());
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int listarTodosQuatroThreads() {
+        return percorrer(repositorio.listarTodos());
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Percorre o snapshot inteiro (obtê-lo é O(1); o custo de leitura está na iteração).
+     */
+    private static int percorrer(Iterable<Aluno> alunos) {
+        int soma = 0;
+        for (Aluno aluno : alunos) {
+            soma += aluno.getId();
+        }
+        return soma;
+    }
+
+    private boolean inserirERemover() {
+        long sufixo = ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+        Aluno aluno = new Aluno("Temporario", 20, "tmp" + sufixo + "@x.com", "Curso 0");
+        repositorio.salvar(aluno);
+        return repositorio.remover(aluno.getId());
+    }
+
+    private int idAleatorio() {
+        return ThreadLocalRandom.current().nextInt(1, tamanho + 1);
+    }
+}
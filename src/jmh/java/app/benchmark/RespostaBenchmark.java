@@ -0,0 +1,245 @@
+package app.benchmark;
+
+import app.AlunoHttpHandler;
+import app.http.Roteador;
+import app.service.AlunoService;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bytes na rede e requisições por conexão da API, com e sem Accept-Encoding: gzip.
+ *
+ * Usa um cliente HTTP/1.1 mínimo sobre Socket para contar exatamente os bytes recebidos
+ * (cabeçalhos e corpo, como chegam pela rede) e quantas conexões foram abertas: o cliente
+ * reutiliza a conexão até o servidor fechá-la. Os totais são impressos ao final de cada trial.
+ *
+ * O cenário "comErros" intercala leituras com POSTs de 100 KB rejeitados (JSON inválido)
+ * e caminhos inexistentes, o que antes fazia o servidor fechar a conexão a cada erro.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class RespostaBenchmark {
+    private static final int ALUNOS = 10_000;
+    private static final byte[] CORPO_INVALIDO = new byte[100 * 1024];
+
+    static {
+        Arrays.fill(CORPO_INVALIDO, (byte) 'x');
+    }
+
+    @Param({"identity", "gzip"})
+    private String codificacao;
+
+    private AlunoHttpHandler handler;
+    private HttpServer servidor;
+    private ExecutorService executor;
+    private Cliente cliente;
+    private int passo;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException {
+        AlunoService service = new AlunoService(Dados.repositorio(ALUNOS));
+        Roteador roteador = new Roteador();
+        handler = new AlunoHttpHandler(service);
+        handler.registrarRotas(roteador, "/api/alunos");
+
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.createContext("/", roteador);
+        executor = Executors.newFixedThreadPool(4);
+        servidor.setExecutor(executor);
+        servidor.start();
+        cliente = new Cliente(servidor.getAddress().getPort(), codificacao);
+    }
+
+    @TearDown(Level.Trial)
+    public void parar() throws IOException {
+        System.out.printf(Locale.ROOT, "%n%s: %.0f bytes recebidos por requisição, %.1f requisições por conexão"
+                        + " (%d requisições, %d conexões, %d falhas)%n",
+                codificacao, (double) cliente.bytesRecebidos / cliente.requisicoes,
+                (double) cliente.requisicoes / cliente.conexoes,
+                cliente.requisicoes, cliente.conexoes, cliente.falhas);
+        cliente.fechar();
+        servidor.stop(0);
+        executor.shutdownNow();
+        handler.close();
+    }
+
+    @Benchmark
+    public int buscarPorId() throws IOException {
+        return cliente.get("/api/alunos/" + ThreadLocalRandom.current().nextInt(1, ALUNOS + 1));
+    }
+
+    @Benchmark
+    public int listarPaginaMil() throws IOException {
+        return cliente.get("/api/alunos?limit=1000&after=" + ThreadLocalRandom.current().nextInt(0, ALUNOS - 1000));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int listarTodos() throws IOException {
+        return cliente.get("/api/alunos");
+    }
+
+    @Benchmark
+    public int comErros() throws IOException {
+        return switch (passo++ & 3) {
+            case 0 -> cliente.enviar("POST", "/api/alunos", CORPO_INVALIDO);
+            case 1 -> cliente.get("/nao/existe");
+            default -> cliente.get("/api/alunos?limit=100&after=" + ThreadLocalRandom.current().nextInt(0, ALUNOS - 100));
+        };
+    }
+
+    // ========== CLIENTE ==========
+
+    /**
+     * Cliente HTTP/1.1 keep-alive que conta os bytes recebidos e as conexões abertas.
+     */
+    private static final class Cliente {
+        private final int porta;
+        private final String codificacao;
+        private final byte[] linha = new byte[8 * 1024];
+        private Socket socket;
+        private InputStream entrada;
+        private OutputStream saida;
+
+        long bytesRecebidos;
+        long requisicoes;
+        long conexoes;
+        long falhas;
+
+        Cliente(int porta, String codificacao) {
+            this.porta = porta;
+            this.codificacao = codificacao;
+        }
+
+        int get(String caminho) throws IOException {
+            return enviar("GET", caminho, null);
+        }
+
+        /**
+         * Envia a requisição e lê a resposta inteira.
+         * @return Status HTTP, ou -1 se a conexão caiu no meio (contada como falha)
+         */
+        int enviar(String metodo, String caminho, byte[] corpo) throws IOException {
+            if (socket == null) conectar();
+            requisicoes++;
+            String cabecalhos = metodo + " " + caminho + " HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Accept-Encoding: " + codificacao + "\r\n"
+                    + (corpo == null ? "" : "Content-Type: application/json\r\nContent-Length: " + corpo.length + "\r\n")
+                    + "\r\n";
+            try {
+                saida.write(cabecalhos.getBytes(StandardCharsets.US_ASCII));
+                if (corpo != null) saida.write(corpo);
+                saida.flush();
+                return lerResposta();
+            } catch (IOException e) {
+                falhas++;
+                fechar();
+                return -1;
+            }
+        }
+
+        private int lerResposta() throws IOException {
+            String statusLinha = lerLinha();
+            int status = Integer.parseInt(statusLinha.substring(9, 12));
+            long tamanho = -1;
+            boolean chunked = false;
+            boolean fecharDepois = false;
+            for (String cabecalho = lerLinha(); !cabecalho.isEmpty(); cabecalho = lerLinha()) {
+                String minusculo = cabecalho.toLowerCase(Locale.ROOT);
+                if (minusculo.startsWith("content-length:")) tamanho = Long.parseLong(minusculo.substring(15).trim());
+                if (minusculo.startsWith("transfer-encoding:") && minusculo.contains("chunked")) chunked = true;
+                if (minusculo.startsWith("connection:") && minusculo.contains("close")) fecharDepois = true;
+            }
+            if (status == 100) return lerResposta();
+            if (chunked) {
+                for (long bloco = Long.parseLong(lerLinha().trim(), 16); bloco > 0;
+                     bloco = Long.parseLong(lerLinha().trim(), 16)) {
+                    pular(bloco);
+                    lerLinha();
+                }
+                lerLinha();
+            } else if (tamanho > 0) {
+                pular(tamanho);
+            }
+            if (fecharDepois) fechar();
+            return status;
+        }
+
+        private String lerLinha() throws IOException {
+            int tamanho = 0;
+            int b;
+            while ((b = entrada.read()) != '\n') {
+                if (b < 0) throw new IOException("Conexão fechada pelo servidor");
+                if (b != '\r' && tamanho < linha.length) linha[tamanho++] = (byte) b;
+            }
+            return new String(linha, 0, tamanho, StandardCharsets.US_ASCII);
+        }
+
+        private void pular(long quantidade) throws IOException {
+            while (quantidade > 0) {
+                int lidos = entrada.read(linha, 0, (int) Math.min(linha.length, quantidade));
+                if (lidos < 0) throw new IOException("Conexão fechada pelo servidor");
+                quantidade -= lidos;
+            }
+        }
+
+        private void conectar() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), porta);
+            socket.setTcpNoDelay(true);
+            conexoes++;
+            // Conta os bytes como chegam do socket, antes do buffer
+            entrada = new BufferedInputStream(new FilterInputStream(socket.getInputStream()) {
+                @Override
+                public int read() throws IOException {
+                    int b = in.read();
+                    if (b >= 0) bytesRecebidos++;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int inicio, int tamanho) throws IOException {
+                    int lidos = in.read(b, inicio, tamanho);
+                    if (lidos > 0) bytesRecebidos += lidos;
+                    return lidos;
+                }
+            }, 64 * 1024);
+            saida = socket.getOutputStream();
+        }
+
+        void fechar() throws IOException {
+            if (socket != null) socket.close();
+            socket = null;
+        }
+    }
+}
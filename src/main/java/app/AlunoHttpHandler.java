@@ -2,169 +2,522 @@ package app;
 
 // Importações necessárias
 import app.controller.AlunoController;  // Controller para operações com alunos
+import app.http.EventosAlunos;          // Feed de alterações (Server-Sent Events)
+import app.http.ParametrosConsulta;     // Parâmetros decodificados da query string
+import app.http.RespostaHttp;           // Envio com compressão negociada (gzip/deflate)
+import app.http.Roteador;               // Tabela de rotas pré-compilada
+import app.importacao.ImportadorAlunos; // Importação em lote (NDJSON/CSV)
+import app.importacao.ResultadoImportacao; // Relatório da importação em lote
+import app.json.AlunoJson;              // Serializador JSON do aluno
+import app.json.CacheJsonAlunos;        // Cache dos bytes JSON de cada aluno (por ID e versão)
+import app.json.CamposAluno;            // Campos parciais lidos do corpo do PATCH
+import app.json.EscritorJson;           // Buffer reutilizável para escrever JSON em UTF-8
+import app.json.EstatisticasJson;       // Serializador das estatísticas por curso
+import app.json.JsonInvalidoException;  // Erro de JSON malformado no corpo da requisição
+import app.json.LeitorAlunoJson;        // Leitor JSON de passada única para o corpo do POST
+import app.metricas.Metricas;           // Registro de métricas (contador de erros internos)
 import app.model.Aluno;                 // Modelo/entidade Aluno
+import app.repository.AlunoRepository; // Constante de atualização incondicional
+import app.repository.EmailDuplicadoException; // Erro de email já cadastrado
+import app.repository.Instantaneo;      // Snapshot imutável e versionado dos alunos
+import app.repository.PersistenciaIndisponivelException; // Persistência sem gravar (503)
+import app.repository.SomenteLeituraException; // Escrita recebida por uma réplica
+import app.repository.VersaoConflitanteException; // Erro de versão desatualizada (If-Match)
 import app.service.AlunoService;        // Serviço de negócios para alunos
 import com.sun.net.httpserver.HttpExchange;  // Representa uma troca HTTP (request/response)
 import com.sun.net.httpserver.HttpHandler;   // Interface para lidar com requisições HTTP
 import java.io.IOException;             // Para tratamento de erros de I/O
 import java.io.InputStream;             // Para ler dados de entrada
 import java.io.OutputStream;            // Para escrever dados de saída
-import java.nio.charset.StandardCharsets; // Para codificação de caracteres
 import java.util.List;                  // Para trabalhar com listas
+import java.util.Map;                   // Para trabalhar com mapas
+import java.util.concurrent.atomic.LongAdder; // Contador sem contenção entre threads
 
 /**
  * Handler HTTP para manipular requisições relacionadas a alunos.
  * Implementa as operações CRUD (Create, Read, Update, Delete) via API REST.
+ *
+ * As rotas são registradas em um Roteador (registrarRotas), sob qualquer prefixo
+ * (ex: /api/alunos). Usado diretamente como HttpHandler, atende em /alunos.
+ *
+ * Cada aluno tem uma versão, enviada no campo "versao" e na ETag de GET/PUT/PATCH
+ * /alunos/{id}. PUT e PATCH aceitam a versão lida no cabeçalho If-Match (ou no campo
+ * "versao" do corpo) e respondem 412 se o aluno foi alterado nesse meio tempo.
+ *
+ * Em uma réplica de leitura (ver app.replicacao), as rotas de escrita respondem 405.
+ *
+ * close() encerra o feed de alterações (GET /alunos/events) e desconecta seus clientes.
  */
-public class AlunoHttpHandler implements HttpHandler {
+public class AlunoHttpHandler implements HttpHandler, AutoCloseable {
     
+    // Quantidade de bytes acumulada antes de descarregar cada bloco no streaming
+    private static final int TAMANHO_BUFFER = 8 * 1024;
+    // Tamanho de página padrão e máximo para GET /alunos?limit=
+    private static final int LIMITE_PADRAO = 100;
+    private static final int LIMITE_MAXIMO = 1000;
+    // Quantidade padrão e máxima de resultados em GET /alunos/search?q=
+    private static final int RESULTADOS_PADRAO = 10;
+    private static final int RESULTADOS_MAXIMO = 100;
+    // Tamanho máximo aceito para o corpo de POST, PUT e PATCH /alunos
+    private static final int LIMITE_CORPO = LeitorAlunoJson.LIMITE_PADRAO;
+
+    // Erros inesperados (500), exportados em /metrics
+    private static final LongAdder ERROS_INTERNOS = Metricas.contador("http_erros_internos");
+
     // Controller que gerencia as operações com alunos
     private final AlunoController controller;
+    // Importador usado em POST /alunos/batch
+    private final ImportadorAlunos importador;
+    // Feed usado em GET /alunos/events
+    private final EventosAlunos eventos;
+    // JSON já codificado dos alunos lidos com frequência (GET /alunos/{id} e listas)
+    private final CacheJsonAlunos cacheJson = CacheJsonAlunos.daConfiguracao();
+    
+    // Rotas usadas quando o handler é registrado diretamente no servidor (em /alunos)
+    private final Roteador rotas = new Roteador();
     
     /**
      * Construtor que inicializa o controller com suas dependências.
      */
     public AlunoHttpHandler() {
-        // Inicializa o controller com uma instância de AlunoService
-        this.controller = new AlunoController(new AlunoService());
+        this(new AlunoService());
+    }
+
+    /**
+     * Construtor que usa um AlunoService já existente (compartilhado com o restante da aplicação).
+     * @param service Serviço de alunos
+     */
+    public AlunoHttpHandler(AlunoService service) {
+        // Inicializa o controller e o importador com a mesma instância de AlunoService
+        this.controller = new AlunoController(service);
+        this.importador = new ImportadorAlunos(service);
+        this.eventos = new EventosAlunos(controller.alteracoes());
+        // Cada alteração no repositório libera o JSON antigo do aluno
+        controller.alteracoes().aoPublicar(alteracao -> cacheJson.invalidar(alteracao.id()));
+        registrarRotas(rotas, "/alunos");
+    }
+
+    /**
+     * Encerra o feed de alterações e desconecta os clientes dele.
+     */
+    @Override
+    public void close() {
+        eventos.close();
+    }
+
+    /**
+     * Registra as rotas da API de alunos no roteador.
+     * @param roteador Roteador de destino
+     * @param base Prefixo das rotas (ex: "/api/alunos")
+     */
+    public void registrarRotas(Roteador roteador, String base) {
+        roteador.rota("GET", base, (exchange, id) -> executar(exchange, id, this::listar))
+                .rota("POST", base, (exchange, id) -> executar(exchange, id, this::adicionar))
+                .rota("POST", base + "/batch", (exchange, id) -> executar(exchange, id, this::importar))
+                .rota("GET", base + "/search", (exchange, id) -> executar(exchange, id, this::pesquisar))
+                .rota("GET", base + "/events", eventos::responder)
+                .rota("GET", base + "/stats", (exchange, id) -> executar(exchange, id, this::estatisticas))
+                .rota("POST", base + "/stats/verificar", (exchange, id) -> executar(exchange, id, this::verificarEstatisticas))
+                .rota("GET", base + "/{id}", (exchange, id) -> executar(exchange, id, this::buscar))
+                .rota("PUT", base + "/{id}", (exchange, id) -> executar(exchange, id, this::substituir))
+                .rota("PATCH", base + "/{id}", (exchange, id) -> executar(exchange, id, this::alterar))
+                .rota("DELETE", base + "/{id}", (exchange, id) -> executar(exchange, id, this::remover));
     }
 
     /**
-     * Método principal que processa cada requisição HTTP.
+     * Método principal que processa cada requisição HTTP (handler registrado em /alunos).
      * @param exchange Objeto que contém os dados da requisição e resposta
      * @throws IOException Se ocorrer erro durante o processamento
      */
     @Override
     public void handle(HttpExchange exchange) throws IOException {
+        rotas.handle(exchange);
+    }
+
+    /**
+     * Operação de uma rota: escreve a resposta no buffer e devolve o status HTTP.
+     */
+    @FunctionalInterface
+    private interface Operacao {
+        /**
+         * @return Código de status HTTP ou -1 se a resposta já foi enviada (streaming)
+         */
+        int executar(HttpExchange exchange, int id, EscritorJson response) throws IOException;
+    }
+
+    /**
+     * Executa a operação, envia a resposta e converte as exceções em status HTTP.
+     * @param exchange Objeto HTTP exchange
+     * @param id ID extraído da URL (-1 se a rota não tiver)
+     * @param operacao Operação da rota
+     * @throws IOException Se ocorrer erro durante o processamento
+     */
+    private void executar(HttpExchange exchange, int id, Operacao operacao) throws IOException {
         try {
-            String response = "";       // Resposta a ser enviada
-            int statusCode = 200;       // Código de status HTTP padrão (OK)
-            String method = exchange.getRequestMethod(); // Método HTTP (GET, POST, etc.)
-            String path = exchange.getRequestURI().getPath(); // Caminho da URL
+            // Resposta a ser enviada, escrita em um buffer reaproveitado pela thread
+            EscritorJson response = EscritorJson.daThread();
 
             // Configura o cabeçalho para indicar que a resposta será em JSON
             exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
 
-            // Verifica o método HTTP e o caminho para determinar a ação
-            if ("GET".equals(method)) {
-                if (path.equals("/alunos")) {
-                    // GET /alunos - Lista todos os alunos
-                    response = listarAlunos();
-                } else if (path.matches("/alunos/\\d+")) {
-                    // GET /alunos/{id} - Busca um aluno específico
-                    int id = extrairIdDaUrl(path);
-                    response = buscarAlunoPorId(id);
-                    if (response.equals("null")) {
-                        statusCode = 404; // Not Found
-                        response = "{\"erro\":\"Aluno não encontrado\"}";
-                    }
-                }
-            } 
-            else if ("POST".equals(method) && path.equals("/alunos")) {
-                // POST /alunos - Adiciona um novo aluno
-                response = adicionarAluno(exchange.getRequestBody());
-                statusCode = 201; // Created
-            }
-            else if ("DELETE".equals(method) && path.matches("/alunos/\\d+")) {
-                // DELETE /alunos/{id} - Remove um aluno
-                int id = extrairIdDaUrl(path);
-                if (removerAluno(id)) {
-                    response = "{\"mensagem\":\"Aluno removido com sucesso\"}";
-                } else {
-                    response = "{\"erro\":\"Aluno não encontrado\"}";
-                    statusCode = 404; // Not Found
-                }
-            }
-            else {
-                // Método não suportado
-                response = "{\"erro\":\"Método não suportado\"}";
-                statusCode = 405; // Method Not Allowed
-            }
+            int statusCode = operacao.executar(exchange, id, response);
+            if (statusCode < 0) return;
 
-            // Converte a resposta para bytes e envia
-            byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
-            exchange.sendResponseHeaders(statusCode, responseBytes.length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(responseBytes);
-            }
+            // Envia os bytes já codificados direto do buffer (comprimidos se o cliente aceitar)
+            RespostaHttp.enviar(exchange, statusCode, response);
             
+        } catch (EmailDuplicadoException e) {
+            // Email já pertence a outro aluno
+            enviarErro(exchange, 409, e.getMessage()); // Conflict
+        } catch (VersaoConflitanteException e) {
+            // If-Match com uma versão que não é mais a atual
+            enviarErro(exchange, 412, e.getMessage()); // Precondition Failed
+        } catch (SomenteLeituraException e) {
+            // Réplica de leitura: as escritas vão para o líder
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+            enviarErro(exchange, 405, e.getMessage()); // Method Not Allowed
+        } catch (PersistenciaIndisponivelException e) {
+            // Banco ou journal sem gravar: a escrita não foi aplicada nem confirmada
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            enviarErro(exchange, 503, e.getMessage()); // Service Unavailable
+        } catch (JsonInvalidoException e) {
+            // Corpo da requisição malformado ou incompleto
+            enviarErro(exchange, 400, e.getMessage()); // Bad Request
+        } catch (NumberFormatException e) {
+            // Parâmetro numérico inválido (ex: ?idadeMin=abc)
+            enviarErro(exchange, 400, "Parâmetro numérico inválido"); // Bad Request
         } catch (Exception e) {
-            // Tratamento de erros genéricos
+            // Tratamento de erros genéricos (contados em /metrics)
+            ERROS_INTERNOS.increment();
             e.printStackTrace();
-            String errorResponse = "{\"erro\":\"" + e.getMessage() + "\"}";
-            byte[] errorBytes = errorResponse.getBytes(StandardCharsets.UTF_8);
-            exchange.sendResponseHeaders(500, errorBytes.length); // Internal Server Error
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(errorBytes);
+            if (exchange.getResponseCode() != -1) {
+                // Os cabeçalhos já foram enviados (streaming): a exceção faz o servidor derrubar a
+                // conexão; fechar a exchange terminaria o chunked normalmente, e o cliente
+                // receberia um corpo truncado como se estivesse completo
+                throw new IOException("Resposta interrompida", e);
             }
+            enviarErro(exchange, 500, String.valueOf(e.getMessage())); // Internal Server Error
         }
     }
 
+    // ========== ROTAS ==========
+
     /**
-     * Lista todos os alunos em formato JSON.
-     * @return String JSON contendo array de alunos
+     * GET /alunos - Lista todos em streaming, ou pagina/filtra conforme a query string.
      */
-    private String listarAlunos() {
-        StringBuilder sb = new StringBuilder("[");
-        List<Aluno> alunos = controller.listarAlunos();
-        
-        // Converte cada aluno para JSON e adiciona ao array
-        for (Aluno aluno : alunos) {
-            sb.append(String.format(
-                "{\"id\":%d,\"nome\":\"%s\",\"idade\":%d,\"email\":\"%s\",\"curso\":\"%s\"},",
-                aluno.getId(), aluno.getNome(), aluno.getIdade(), aluno.getEmail(), aluno.getCurso()
-            ));
+    private int listar(HttpExchange exchange, int id, EscritorJson response) throws IOException {
+        Map<String, String> parametros = ParametrosConsulta.extrair(exchange.getRequestURI().getRawQuery());
+        if (parametros.isEmpty()) {
+            // Lista todos os alunos em streaming (sem montar a resposta em memória)
+            transmitirAlunos(exchange, response);
+            return -1;
         }
-        
-        // Remove a vírgula extra do último elemento
-        if (alunos.size() > 0) {
-            sb.deleteCharAt(sb.length()-1);
+        // ?limit=&after= (paginação) ou ?curso=, ?email=, ?idadeMin=&idadeMax= (filtros)
+        listarAlunos(exchange, parametros, response);
+        return 200;
+    }
+
+    /**
+     * GET /alunos/search?q=&limit= - Busca por prefixo em nome e email (autocompletar),
+     * com os resultados mais relevantes primeiro.
+     */
+    private int pesquisar(HttpExchange exchange, int id, EscritorJson response) {
+        Map<String, String> parametros = ParametrosConsulta.extrair(exchange.getRequestURI().getRawQuery());
+        String consulta = parametros.get("q");
+        if (consulta == null) {
+            escreverErro(response, "Parâmetro obrigatório ausente: q");
+            return 400; // Bad Request
         }
-        sb.append("]");
-        
-        return sb.toString();
+        int limite = Integer.parseInt(parametros.getOrDefault("limit", String.valueOf(RESULTADOS_PADRAO)));
+        limite = Math.max(1, Math.min(limite, RESULTADOS_MAXIMO));
+        cacheJson.escreverLista(response, controller.buscarAlunos(consulta, limite));
+        return 200;
     }
 
     /**
-     * Busca um aluno por ID e retorna em formato JSON.
-     * @param id ID do aluno a ser buscado
-     * @return String JSON com dados do aluno ou "null" se não encontrado
+     * GET /alunos/stats - Quantidade, idades (média, mínima, máxima) e faixas etárias
+     * no total e por curso, lidas dos agregados do repositório (sem percorrer os alunos).
      */
-    private String buscarAlunoPorId(int id) {
+    private int estatisticas(HttpExchange exchange, int id, EscritorJson response) {
+        EstatisticasJson.escrever(response, controller.estatisticasAlunos());
+        return 200;
+    }
+
+    /**
+     * POST /alunos/stats/verificar - Recalcula as estatísticas a partir dos alunos e
+     * corrige divergências nos agregados.
+     */
+    private int verificarEstatisticas(HttpExchange exchange, int id, EscritorJson response) {
+        long inicio = System.nanoTime();
+        int corrigidos = controller.verificarEstatisticas();
+        response.escreverBruto("{\"gruposCorrigidos\":").escreverInt(corrigidos)
+                .escreverBruto(",\"duracaoMs\":").escreverLong((System.nanoTime() - inicio) / 1_000_000)
+                .escreverByte('}');
+        return 200;
+    }
+
+    /**
+     * GET /alunos/{id} - Busca um aluno específico (com ETag e If-None-Match).
+     */
+    private int buscar(HttpExchange exchange, int id, EscritorJson response) throws IOException {
         Aluno aluno = controller.buscarAlunoPorId(id);
-        if (aluno == null) return "null";
-        
-        return String.format(
-            "{\"id\":%d,\"nome\":\"%s\",\"idade\":%d,\"email\":\"%s\",\"curso\":\"%s\"}",
-            aluno.getId(), aluno.getNome(), aluno.getIdade(), aluno.getEmail(), aluno.getCurso()
-        );
+        if (aluno == null) {
+            escreverErro(response, "Aluno não encontrado");
+            return 404; // Not Found
+        }
+        String etag = etag(aluno);
+        exchange.getResponseHeaders().set("ETag", etag);
+        String seNenhum = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (seNenhum != null && (seNenhum.contains(etag) || seNenhum.trim().equals("*"))) {
+            exchange.sendResponseHeaders(304, -1); // Not Modified
+            exchange.close();
+            return -1;
+        }
+        cacheJson.escrever(response, aluno);
+        return 200;
+    }
+
+    /**
+     * POST /alunos - Adiciona um novo aluno.
+     */
+    private int adicionar(HttpExchange exchange, int id, EscritorJson response) throws IOException {
+        adicionarAluno(exchange.getRequestBody(), response);
+        return 201; // Created
+    }
+
+    /**
+     * PUT /alunos/{id} - Substitui todos os dados de um aluno.
+     */
+    private int substituir(HttpExchange exchange, int id, EscritorJson response) throws IOException {
+        Aluno aluno = LeitorAlunoJson.lerUnico(exchange.getRequestBody(), LIMITE_CORPO);
+        aluno.setId(id);
+        return responderAtualizacao(exchange, controller.atualizarAluno(aluno,
+                versaoEsperada(exchange, aluno.getVersao())), response);
+    }
+
+    /**
+     * PATCH /alunos/{id} - Altera somente os campos enviados.
+     * Sem versão esperada, a alteração é aplicada sobre o registro mais recente: se outra
+     * escrita acontecer entre a leitura e a gravação, lê de novo e tenta outra vez.
+     */
+    private int alterar(HttpExchange exchange, int id, EscritorJson response) throws IOException {
+        CamposAluno campos = LeitorAlunoJson.lerCampos(exchange.getRequestBody(), LIMITE_CORPO);
+        long esperada = versaoEsperada(exchange, campos.versao());
+        while (true) {
+            Aluno atual = controller.buscarAlunoPorId(id);
+            if (atual == null) return responderAtualizacao(exchange, null, response);
+            boolean condicional = esperada != AlunoRepository.QUALQUER_VERSAO;
+            try {
+                Aluno gravado = controller.atualizarAluno(campos.aplicarEm(atual),
+                        condicional ? esperada : atual.getVersao());
+                return responderAtualizacao(exchange, gravado, response);
+            } catch (VersaoConflitanteException e) {
+                if (condicional) throw e;
+            }
+        }
+    }
+
+    /**
+     * POST /alunos/batch - Importa alunos em lote (NDJSON ou CSV).
+     */
+    private int importar(HttpExchange exchange, int id, EscritorJson response) throws IOException {
+        importarAlunos(exchange, response);
+        return 200;
+    }
+
+    /**
+     * DELETE /alunos/{id} - Remove um aluno.
+     */
+    private int remover(HttpExchange exchange, int id, EscritorJson response) {
+        if (removerAluno(id)) {
+            response.escreverBruto("{\"mensagem\":\"Aluno removido com sucesso\"}");
+            return 200;
+        }
+        escreverErro(response, "Aluno não encontrado");
+        return 404; // Not Found
+    }
+
+    /**
+     * Transmite todos os alunos como um array JSON usando chunked transfer encoding.
+     * As linhas são acumuladas no buffer e descarregadas no stream sempre que ele
+     * passa de TAMANHO_BUFFER, então a memória usada não cresce com a quantidade de alunos.
+     * A lista vem de um snapshot: a resposta é consistente mesmo com escritas concorrentes,
+     * e a ETag (versão do snapshot) permite GET condicional com If-None-Match (304).
+     * @param exchange Objeto HTTP exchange
+     * @param buffer Buffer reaproveitado para montar os blocos
+     * @throws IOException Se houver erro ao escrever a resposta
+     */
+    private void transmitirAlunos(HttpExchange exchange, EscritorJson buffer) throws IOException {
+        Instantaneo alunos = controller.listarAlunos();
+        String etag = alunos.etag();
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        String seNenhum = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (seNenhum != null && (seNenhum.contains(etag) || seNenhum.trim().equals("*"))) {
+            exchange.sendResponseHeaders(304, -1); // Not Modified: nada mudou desde a última leitura
+            exchange.close();
+            return;
+        }
+
+        OutputStream os = RespostaHttp.transmitir(exchange, 200);
+        try {
+            buffer.escreverByte('[');
+            boolean primeiro = true;
+            for (Aluno aluno : alunos) {
+                if (!primeiro) buffer.escreverByte(',');
+                // Só usa os trechos em cache: guardar todos os alunos apenas expulsaria os frequentes
+                cacheJson.escreverSemGuardar(buffer, aluno);
+                primeiro = false;
+                if (buffer.tamanho() >= TAMANHO_BUFFER) {
+                    buffer.escreverEm(os);
+                    buffer.limpar();
+                }
+            }
+            buffer.escreverByte(']');
+            buffer.escreverEm(os);
+        } catch (IOException | RuntimeException e) {
+            // Sem fechar: o fim do chunked (e o rodapé gzip) faria o array truncado parecer completo
+            RespostaHttp.abortar(os);
+            throw e;
+        }
+        os.close();
+    }
+
+    /**
+     * Lista os alunos em formato JSON, paginando ou aplicando o filtro informado na query string.
+     * Os filtros usam os índices do repositório, então custam O(resultado).
+     * Na paginação, o cursor "after" é o último ID recebido; quando há mais páginas,
+     * o cabeçalho Link (rel="next") aponta para a próxima.
+     * @param exchange Objeto HTTP exchange (para o cabeçalho Link)
+     * @param parametros Parâmetros da query string (limit, after, curso, email, idadeMin, idadeMax)
+     * @param response Buffer onde o array JSON é escrito
+     */
+    private void listarAlunos(HttpExchange exchange, Map<String, String> parametros, EscritorJson response) {
+        List<Aluno> alunos;
+        if (parametros.containsKey("email")) {
+            Aluno aluno = controller.buscarAlunoPorEmail(parametros.get("email"));
+            alunos = aluno == null ? List.of() : List.of(aluno);
+        } else if (parametros.containsKey("curso")) {
+            alunos = controller.listarAlunosPorCurso(parametros.get("curso"));
+        } else if (parametros.containsKey("idadeMin") || parametros.containsKey("idadeMax")) {
+            int idadeMinima = Integer.parseInt(parametros.getOrDefault("idadeMin", String.valueOf(Integer.MIN_VALUE)));
+            int idadeMaxima = Integer.parseInt(parametros.getOrDefault("idadeMax", String.valueOf(Integer.MAX_VALUE)));
+            alunos = controller.listarAlunosPorFaixaEtaria(idadeMinima, idadeMaxima);
+        } else {
+            int aposId = Integer.parseInt(parametros.getOrDefault("after", "0"));
+            int limite = Integer.parseInt(parametros.getOrDefault("limit", String.valueOf(LIMITE_PADRAO)));
+            limite = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+            alunos = controller.listarAlunosPagina(aposId, limite);
+            if (alunos.size() == limite) {
+                int ultimoId = alunos.get(alunos.size() - 1).getId();
+                exchange.getResponseHeaders().set("Link",
+                        "<" + exchange.getRequestURI().getPath() + "?after=" + ultimoId + "&limit=" + limite + ">; rel=\"next\"");
+            }
+        }
+
+        // Converte cada aluno para JSON e adiciona ao array
+        cacheJson.escreverLista(response, alunos);
+    }
+
+    /**
+     * Escreve o aluno atualizado com a nova ETag, ou o erro 404 se ele não existe.
+     * @param exchange Objeto HTTP exchange (para o cabeçalho ETag)
+     * @param aluno Aluno gravado ou null se o ID não existe
+     * @param response Buffer onde o JSON é escrito
+     * @return Código de status HTTP
+     */
+    private int responderAtualizacao(HttpExchange exchange, Aluno aluno, EscritorJson response) {
+        if (aluno == null) {
+            escreverErro(response, "Aluno não encontrado");
+            return 404; // Not Found
+        }
+        exchange.getResponseHeaders().set("ETag", etag(aluno));
+        AlunoJson.escrever(response, aluno);
+        return 200;
+    }
+
+    /**
+     * Obtém a versão que o cliente espera encontrar: a do cabeçalho If-Match
+     * ("*" aceita qualquer uma) ou, sem o cabeçalho, a do campo "versao" do corpo.
+     * Uma ETag que não é de aluno nunca corresponde à versão atual (412).
+     * @param exchange Objeto HTTP exchange
+     * @param versaoCorpo Versão informada no corpo (0 se ausente)
+     * @return Versão esperada ou AlunoRepository.QUALQUER_VERSAO
+     */
+    private long versaoEsperada(HttpExchange exchange, long versaoCorpo) {
+        String seCorresponder = exchange.getRequestHeaders().getFirst("If-Match");
+        if (seCorresponder == null) {
+            return versaoCorpo > 0 ? versaoCorpo : AlunoRepository.QUALQUER_VERSAO;
+        }
+        String etag = seCorresponder.trim();
+        if (etag.equals("*")) return AlunoRepository.QUALQUER_VERSAO;
+        if (etag.startsWith("W/")) etag = etag.substring(2);
+        if (etag.length() >= 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            etag = etag.substring(1, etag.length() - 1);
+        }
+        try {
+            return Long.parseLong(etag);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return ETag forte do aluno (a versão entre aspas)
+     */
+    private static String etag(Aluno aluno) {
+        return "\"" + aluno.getVersao() + "\"";
     }
 
     /**
      * Adiciona um novo aluno a partir dos dados do corpo da requisição.
      * @param requestBody Stream com os dados do aluno em JSON
-     * @return String JSON com os dados do aluno criado
+     * @param response Buffer onde o JSON do aluno criado é escrito
      * @throws IOException Se ocorrer erro ao ler o corpo da requisição
+     * @throws JsonInvalidoException Se o corpo não for um JSON de aluno válido
      */
-    private String adicionarAluno(InputStream requestBody) throws IOException {
-        // Lê todo o corpo da requisição
-        String body = new String(requestBody.readAllBytes(), StandardCharsets.UTF_8);
-        
-        // Extrai os valores do JSON manualmente (simplificado)
-        String nome = extrairValorJson(body, "nome");
-        int idade = Integer.parseInt(extrairValorJson(body, "idade"));
-        String email = extrairValorJson(body, "email");
-        String curso = extrairValorJson(body, "curso");
+    private void adicionarAluno(InputStream requestBody, EscritorJson response) throws IOException {
+        // Lê o corpo em uma única passada, direto do stream (limitado a LIMITE_CORPO bytes)
+        Aluno aluno = LeitorAlunoJson.lerUnico(requestBody, LIMITE_CORPO);
         
-        // Cria e salva o novo aluno
-        Aluno aluno = new Aluno(nome, idade, email, curso);
+        // Salva o novo aluno
         controller.adicionarAluno(aluno);
         
         // Retorna os dados do aluno criado
-        return String.format(
-            "{\"id\":%d,\"nome\":\"%s\",\"idade\":%d,\"email\":\"%s\",\"curso\":\"%s\"}",
-            aluno.getId(), aluno.getNome(), aluno.getIdade(), aluno.getEmail(), aluno.getCurso()
-        );
+        AlunoJson.escrever(response, aluno);
+    }
+
+    /**
+     * Importa alunos em lote a partir do corpo da requisição e escreve o relatório.
+     * O formato é escolhido pelo Content-Type: text/csv para CSV, qualquer outro para NDJSON.
+     * @param exchange Objeto HTTP exchange
+     * @param response Buffer onde o relatório JSON é escrito
+     * @throws IOException Se ocorrer erro ao ler o corpo da requisição
+     */
+    private void importarAlunos(HttpExchange exchange, EscritorJson response) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        ImportadorAlunos.Formato formato = contentType != null && contentType.contains("csv")
+                ? ImportadorAlunos.Formato.CSV
+                : ImportadorAlunos.Formato.NDJSON;
+        ResultadoImportacao resultado = importador.importar(exchange.getRequestBody(), formato);
+
+        response.escreverBruto("{\"importados\":").escreverInt(resultado.getImportados())
+                .escreverBruto(",\"rejeitados\":").escreverInt(resultado.getRejeitados())
+                .escreverBruto(",\"erros\":[");
+        boolean primeiro = true;
+        for (ResultadoImportacao.ErroLinha erro : resultado.getErros()) {
+            if (!primeiro) response.escreverByte(',');
+            response.escreverBruto("{\"linha\":").escreverInt(erro.linha())
+                    .escreverBruto(",\"erro\":").escreverTexto(erro.mensagem())
+                    .escreverByte('}');
+            primeiro = false;
+        }
+        response.escreverByte(']');
+        if (resultado.getInterrupcao() != null) {
+            // A gravação parou no meio: as linhas depois do último lote não foram lidas
+            response.escreverBruto(",\"interrompida\":").escreverTexto(resultado.getInterrupcao());
+        }
+        response.escreverByte('}');
     }
 
     /**
@@ -177,25 +530,25 @@ public class AlunoHttpHandler implements HttpHandler {
     }
 
     /**
-     * Extrai o ID da URL no formato /alunos/{id}.
-     * @param path Caminho da URL
-     * @return ID extraído
+     * Envia uma resposta de erro em JSON com o status informado.
+     * @param exchange Objeto HTTP exchange
+     * @param statusCode Código de status HTTP
+     * @param mensagem Mensagem de erro
+     * @throws IOException Se houver erro ao enviar a resposta
      */
-    private int extrairIdDaUrl(String path) {
-        String[] parts = path.split("/");
-        return Integer.parseInt(parts[2]);
+    private void enviarErro(HttpExchange exchange, int statusCode, String mensagem) throws IOException {
+        EscritorJson erro = EscritorJson.daThread();
+        escreverErro(erro, mensagem);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        RespostaHttp.enviar(exchange, statusCode, erro);
     }
 
     /**
-     * Extrai o valor de uma propriedade de um JSON simples.
-     * @param json String contendo o JSON
-     * @param key Nome da propriedade a ser extraída
-     * @return Valor da propriedade
+     * Escreve o objeto de erro padrão ({"erro": "..."}), com a mensagem escapada.
+     * @param escritor Buffer de destino
+     * @param mensagem Mensagem de erro
      */
-    private String extrairValorJson(String json, String key) {
-        String keyPattern = "\"" + key + "\":\"";
-        int startIndex = json.indexOf(keyPattern) + keyPattern.length();
-        int endIndex = json.indexOf("\"", startIndex);
-        return json.substring(startIndex, endIndex);
+    private void escreverErro(EscritorJson escritor, String mensagem) {
+        escritor.escreverBruto("{\"erro\":").escreverTexto(mensagem).escreverByte('}');
     }
-}
\ No newline at end of file
+}
@@ -2,14 +2,23 @@
 package app;
 
 // Importações necessárias para o servidor HTTP e manipulação de arquivos
-import com.sun.net.httpserver.HttpServer;       // Classe principal do servidor HTTP
+import app.http.CacheAtivos;                    // Cache em memória dos arquivos estáticos
+import app.http.ControleAdmissao;               // Limite de taxa por cliente e de concorrência por rota
+import app.http.EndpointMetricas;               // Exportação das métricas em /metrics
+import app.http.ExecutorHttp;                   // Executor configurável e filtro de sobrecarga (503)
+import app.http.MotorHttp;                      // Motor HTTP (jdk ou nio, -Dalunos.http.motor)
+import app.http.RespostaHttp;                   // Envio das respostas (encerra a exchange de forma consistente)
+import app.http.Roteador;                       // Tabela de rotas pré-compilada
+import app.replicacao.Replicacao;               // Replicação líder/réplica entre processos
+import app.repository.AlunoRepository;          // Armazenamento dos alunos em memória
+import app.repository.Persistencia;             // Persistência escolhida por -Dalunos.persistencia
+import app.service.AlunoService;                // Serviço de negócios para alunos
 import com.sun.net.httpserver.HttpHandler;      // Interface para lidar com requisições
 import com.sun.net.httpserver.HttpExchange;     // Representa uma troca HTTP (request/response)
 import java.net.InetSocketAddress;              // Para definir endereço e porta do servidor
 import java.io.IOException;                     // Para tratamento de erros de I/O
-import java.io.OutputStream;                    // Para escrever respostas HTTP
-import java.io.File;                            // Para manipular arquivos do sistema
-import java.nio.file.Files;                     // Para ler conteúdo de arquivos
+import java.nio.charset.StandardCharsets;       // Para codificar as mensagens de erro em UTF-8
+import java.util.List;                          // Lista de filtros do motor
 
 /**
  * Classe principal que inicia um servidor web simples.
@@ -27,52 +36,60 @@ public class WebServer {
      * @throws IOException Se houver erro ao iniciar o servidor
      */
     public static void main(String[] args) throws IOException {
-        // Cria um servidor HTTP na porta 8080
-        // O segundo parâmetro (0) define o tamanho da fila de conexões pendentes
-        HttpServer server = HttpServer.create(new InetSocketAddress(8080), 0);
+        // Porta do servidor (padrão 8080; -Dalunos.http.porta para mudar)
+        int porta = Integer.getInteger("alunos.http.porta", 8080);
+        
+        // Ativa TCP_NODELAY nas conexões do motor jdk (o nio sempre ativa): o HttpServer escreve cabeçalhos e corpo
+        // separadamente e, com o algoritmo de Nagle, respostas pequenas em keep-alive esperavam ~40 ms pelo ACK atrasado
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        
+        // Carrega os arquivos da interface uma única vez (ou do classpath, se a pasta não existir)
+        CacheAtivos ativos = new CacheAtivos("src/main/resources/web", "/web");
+        
+        // Um único repositório, compartilhado pelo serviço (todas as rotas da API) e pela replicação;
+        // a persistência (banco ou journal) é aberta só aqui
+        AlunoRepository repositorio = new AlunoRepository(Persistencia.daConfiguracao());
+        AlunoService service = new AlunoService(repositorio);
+        
+        // Papel na replicação (-Dalunos.replicacao.papel=lider ou seguidor; a réplica só aceita leituras)
+        Replicacao replicacao = Replicacao.daConfiguracao(repositorio);
         
         /**
-         * Configura a rota principal ("/") que serve a página inicial.
-         * Usa uma expressão lambda para implementar HttpHandler.
+         * Tabela de rotas montada uma vez na inicialização:
+         * - /api/alunos... : API REST de alunos (usada pelo app.js); qualquer outro /api/... é 404 em JSON
+         * - /metrics       : métricas (Prometheus ou ?formato=json)
+         * - /admin/admissao: limites do controle de admissão (só loopback ou com chave)
+         * - /admin/replicacao: papel na replicação, sequências e atraso das réplicas
+         * - demais caminhos: arquivos estáticos ("/" serve a página inicial)
          */
-        server.createContext("/", exchange -> {
-            try {
-                // Carrega o arquivo HTML da página inicial
-                File file = new File("src/main/resources/web/index.html");
-                
-                // Lê todo o conteúdo do arquivo para memória
-                byte[] bytes = Files.readAllBytes(file.toPath());
-                
-                // Define o cabeçalho Content-Type como HTML
-                exchange.getResponseHeaders().set("Content-Type", "text/html");
-                
-                // Envia os cabeçalhos HTTP com status 200 (OK) e tamanho do conteúdo
-                exchange.sendResponseHeaders(200, bytes.length);
-                
-                // Obtém o stream de saída e escreve o conteúdo do arquivo
-                OutputStream os = exchange.getResponseBody();
-                os.write(bytes);
-                os.close();
-            } catch (IOException e) {
-                // Log simples em caso de erro
-                e.printStackTrace();
-            }
-        });
+        ControleAdmissao admissao = ControleAdmissao.daConfiguracao();
+        Roteador roteador = new Roteador().admissao(admissao).reservar("/api");
+        new AlunoHttpHandler(service).registrarRotas(roteador, "/api/alunos");
+        roteador.rota("GET", "/metrics", EndpointMetricas::responder);
+        roteador.rota("GET", "/admin/admissao", admissao::responder)
+                .rota("POST", "/admin/admissao", admissao::responder);
+        roteador.rota("GET", "/admin/replicacao", replicacao::responder);
+        roteador.padrao(new StaticFileHandler(ativos));
         
         /**
-         * Configura rota para arquivos estáticos (CSS, JS, imagens)
-         * Usa a classe StaticFileHandler para servir os arquivos
+         * Cria o servidor HTTP na porta escolhida (-Dalunos.http.motor=jdk, padrão, ou nio).
+         * Todo o despacho é feito pelo roteador; antes dele, o 503 do pool e depois a espera
+         * máxima na fila e a taxa por cliente (429). O executor é o de ExecutorHttp (pool
+         * limitado por padrão) e a fila de conexões pendentes vem de -Dalunos.http.backlog.
          */
-        server.createContext("/static", new StaticFileHandler("src/main/resources/web"));
+        MotorHttp server = MotorHttp.daConfiguracao(new InetSocketAddress(porta), roteador,
+                List.of(ExecutorHttp.FILTRO_SOBRECARGA, admissao.filtro()));
         
-        // Define o executor de threads como null (usa o padrão)
-        server.setExecutor(null);
+        // Abre a porta das réplicas (líder) ou a conexão com o líder (réplica)
+        replicacao.iniciar();
         
         // Inicia o servidor
-        server.start();
+        server.iniciar();
         
         // Mensagem indicando que o servidor está rodando
-        System.out.println("Servidor rodando em http://localhost:8080");
+        System.out.println("Servidor rodando em http://localhost:" + porta);
     }
 }
 
@@ -82,15 +99,15 @@ public class WebServer {
  */
 class StaticFileHandler implements HttpHandler {
     
-    // Diretório base onde os arquivos estáticos estão armazenados
-    private final String baseDir;
+    // Cache com os arquivos estáticos já carregados na memória
+    private final CacheAtivos ativos;
     
     /**
-     * Construtor que recebe o diretório base dos arquivos estáticos.
-     * @param baseDir Caminho para a pasta com os arquivos estáticos
+     * Construtor que recebe o cache dos arquivos estáticos.
+     * @param ativos Cache com os arquivos da pasta web
      */
-    public StaticFileHandler(String baseDir) {
-        this.baseDir = baseDir;
+    public StaticFileHandler(CacheAtivos ativos) {
+        this.ativos = ativos;
     }
     
     /**
@@ -100,51 +117,45 @@ class StaticFileHandler implements HttpHandler {
      */
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        // Obtém o caminho da requisição (ex: /static/css/style.css)
+        // Arquivos estáticos só podem ser lidos
+        String metodo = exchange.getRequestMethod();
+        if (!metodo.equals("GET") && !metodo.equals("HEAD")) {
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+            sendError(exchange, 405, "Método não suportado");
+            return;
+        }
+        
+        // Obtém o caminho da requisição (ex: /css/style.css)
         String path = exchange.getRequestURI().getPath();
         
-        // Remove o prefixo "/static/" para obter o caminho relativo do arquivo
-        path = path.replace("/static/", "");
+        // "/" serve a página inicial; o prefixo "/static/" (antigo) é aceito por compatibilidade
+        if (path.equals("/")) {
+            path = "index.html";
+        } else if (path.startsWith("/static/")) {
+            path = path.substring("/static/".length());
+        } else {
+            path = path.substring(1);
+        }
         
         try {
-            // Cria um objeto File representando o arquivo solicitado
-            // getCanonicalFile() resolve caminhos relativos e links simbólicos
-            File file = new File(baseDir + File.separator + path).getCanonicalFile();
-            
             /**
              * Verificação de segurança:
              * Impede acesso a arquivos fora do diretório base (Directory Traversal)
              */
-            if (!file.getPath().startsWith(new File(baseDir).getCanonicalPath())) {
+            if (path.contains("..")) {
                 sendError(exchange, 403, "Acesso negado");
                 return;
             }
             
-            // Verifica se o arquivo existe
-            if (!file.exists()) {
+            // Busca o arquivo no cache (nenhum acesso a disco)
+            CacheAtivos.Ativo ativo = ativos.buscar(path);
+            if (ativo == null) {
                 sendError(exchange, 404, "Arquivo não encontrado");
                 return;
             }
             
-            // Lê o conteúdo do arquivo para memória
-            byte[] bytes = Files.readAllBytes(file.toPath());
-            
-            // Determina o tipo MIME baseado na extensão do arquivo
-            String mimeType = "text/plain"; // Padrão
-            if (path.endsWith(".css")) mimeType = "text/css";
-            if (path.endsWith(".js")) mimeType = "application/javascript";
-            if (path.endsWith(".png")) mimeType = "image/png";
-            
-            // Define o cabeçalho Content-Type apropriado
-            exchange.getResponseHeaders().set("Content-Type", mimeType);
-            
-            // Envia os cabeçalhos HTTP com status 200 (OK)
-            exchange.sendResponseHeaders(200, bytes.length);
-            
-            // Escreve o conteúdo do arquivo na resposta
-            OutputStream os = exchange.getResponseBody();
-            os.write(bytes);
-            os.close();
+            // Envia o arquivo (304 se o navegador já tiver a mesma versão)
+            ativos.responder(exchange, ativo);
         } catch (Exception e) {
             // Em caso de erro genérico, retorna status 500
             sendError(exchange, 500, "Erro interno: " + e.getMessage());
@@ -159,10 +170,7 @@ class StaticFileHandler implements HttpHandler {
      * @throws IOException Se houver erro ao enviar a resposta
      */
     private void sendError(HttpExchange exchange, int code, String message) throws IOException {
-        byte[] response = message.getBytes();
-        exchange.sendResponseHeaders(code, response.length);
-        OutputStream os = exchange.getResponseBody();
-        os.write(response);
-        os.close();
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        RespostaHttp.enviar(exchange, code, message.getBytes(StandardCharsets.UTF_8));
     }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package app.controller;
 
 import app.model.Aluno;
+import app.repository.EstatisticasAlunos;
+import app.repository.Instantaneo;
+import app.repository.RegistroAlteracoes;
 import app.service.AlunoService;
 import java.util.List;
 import java.util.Scanner;
@@ -43,18 +46,58 @@ public class AlunoController {
 
     // ========== MÉTODOS PARA API HTTP (caso necessário) ==========
     
-    public List<Aluno> listarAlunos() {
+    public Instantaneo listarAlunos() {
         return service.listarTodos();
     }
 
+    public List<Aluno> listarAlunosPagina(int aposId, int limite) {
+        return service.listarPagina(aposId, limite);
+    }
+
+    public Iterable<Aluno> percorrerAlunos() {
+        return service.percorrerTodos();
+    }
+
     public Aluno buscarAlunoPorId(int id) {
         return service.buscarPorId(id);
     }
 
+    public Aluno buscarAlunoPorEmail(String email) {
+        return service.buscarPorEmail(email);
+    }
+
+    public List<Aluno> listarAlunosPorCurso(String curso) {
+        return service.listarPorCurso(curso);
+    }
+
+    public List<Aluno> listarAlunosPorFaixaEtaria(int idadeMinima, int idadeMaxima) {
+        return service.listarPorFaixaEtaria(idadeMinima, idadeMaxima);
+    }
+
     public void adicionarAluno(Aluno aluno) {
         service.salvar(aluno);
     }
 
+    public RegistroAlteracoes alteracoes() {
+        return service.alteracoes();
+    }
+
+    public List<Aluno> buscarAlunos(String consulta, int limite) {
+        return service.buscar(consulta, limite);
+    }
+
+    public EstatisticasAlunos estatisticasAlunos() {
+        return service.estatisticas();
+    }
+
+    public int verificarEstatisticas() {
+        return service.verificarEstatisticas();
+    }
+
+    public Aluno atualizarAluno(Aluno aluno, long versaoEsperada) {
+        return service.atualizar(aluno, versaoEsperada);
+    }
+
     public boolean removerAluno(int id) {
         return service.remover(id);
     }
@@ -136,7 +179,7 @@ public class AlunoController {
 
     private void listarAlunosConsole() {
         System.out.println("\n--- LISTA DE ALUNOS ---");
-        List<Aluno> alunos = service.listarTodos();
+        Instantaneo alunos = service.listarTodos();
         if (alunos.isEmpty()) {
             System.out.println("Nenhum aluno cadastrado.");
             return;
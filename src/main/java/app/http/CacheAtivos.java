@@ -0,0 +1,385 @@
+package app.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache em memória dos arquivos estáticos da interface web.
+ *
+ * Cada arquivo é lido uma única vez (da pasta src/main/resources/web ou, se ela não
+ * existir, do classpath em /web) e guardado junto com:
+ * - ETag forte (hash SHA-256 do conteúdo), usada para responder 304 a If-None-Match
+ * - variante gzip pré-comprimida (para tipos de texto, se ficar menor)
+ * - variante brotli, se existir um arquivo .br ao lado do original
+ * - Content-Type e Cache-Control já calculados
+ *
+ * Assim, servir a interface não faz nenhum acesso a disco. No modo de desenvolvimento
+ * (-Dalunos.dev=true) um WatchService invalida os arquivos alterados, que são relidos
+ * na próxima requisição.
+ *
+ * Arquivos grandes (acima de -Dalunos.estatico.limiteKb, padrão 1024) não ficam na memória:
+ * o corpo é transferido direto do FileChannel, então o uso de heap não depende do tamanho
+ * do arquivo. Requisições com Range/If-Range recebem 206 com apenas o trecho pedido.
+ */
+public class CacheAtivos {
+    // Cache-Control: HTML sempre revalida (ETag); demais arquivos podem ficar 1 hora no cliente
+    private static final String CACHE_HTML = "no-cache";
+    private static final String CACHE_ESTATICO = "public, max-age=3600";
+
+    // Arquivos maiores que isso são servidos do disco (FileChannel) em vez da memória
+    private static final long LIMITE_MEMORIA = Long.getLong("alunos.estatico.limiteKb", 1024) * 1024;
+
+    // Resultado de intervalo() quando o Range pedido está fora do arquivo (416)
+    private static final long[] INSATISFAZIVEL = new long[0];
+
+    // Caminhos inexistentes no classpath lembrados para não procurar de novo; o conjunto é
+    // limitado (esvaziado ao encher) para que URLs aleatórias não façam a memória crescer
+    private static final int LIMITE_AUSENTES = 1024;
+
+    /**
+     * Arquivo com todas as variantes prontas para envio.
+     * Para arquivos grandes, conteudo é null e o corpo é lido de "arquivo" a cada envio.
+     */
+    public record Ativo(byte[] conteudo, byte[] gzip, byte[] brotli, Path arquivo, long tamanho,
+                        String etag, String contentType, String cacheControl) { }
+
+    private final Path diretorio;            // null quando os arquivos vêm do classpath
+    private final String prefixoClasspath;
+    private final boolean dev;
+    private final Map<String, Ativo> ativos = new ConcurrentHashMap<>();
+    private final Set<String> ausentes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Cria o cache lendo da pasta informada ou, se ela não existir, do classpath.
+     * @param diretorio Pasta com os arquivos estáticos
+     * @param prefixoClasspath Prefixo usado no classpath (ex: "/web")
+     * @throws IOException Se houver erro ao carregar os arquivos da pasta
+     */
+    public CacheAtivos(String diretorio, String prefixoClasspath) throws IOException {
+        Path pasta = Path.of(diretorio).toAbsolutePath().normalize();
+        this.diretorio = Files.isDirectory(pasta) ? pasta : null;
+        this.prefixoClasspath = prefixoClasspath;
+        this.dev = Boolean.getBoolean("alunos.dev");
+        if (this.diretorio != null) {
+            carregarDiretorio();
+            if (dev) observarAlteracoes();
+        }
+    }
+
+    /**
+     * Busca um arquivo pelo caminho relativo (ex: "css/style.css").
+     * @param caminho Caminho relativo, sem barra inicial
+     * @return O arquivo ou null se não existir (ou tentar sair da pasta base)
+     * @throws IOException Se houver erro ao carregar o arquivo
+     */
+    public Ativo buscar(String caminho) throws IOException {
+        Ativo ativo = ativos.get(caminho);
+        if (ativo != null || (diretorio != null && !dev) || ausentes.contains(caminho)) return ativo;
+        // Classpath é lido sob demanda; no modo dev, arquivos novos/alterados são relidos
+        ativo = carregar(caminho);
+        if (ativo != null) {
+            ativos.put(caminho, ativo);
+        } else if (diretorio == null) {
+            // O classpath não muda: a ausência pode ser lembrada. No modo dev não, porque
+            // o arquivo pode ser criado depois do primeiro 404
+            if (ausentes.size() >= LIMITE_AUSENTES) ausentes.clear();
+            ausentes.add(caminho);
+        }
+        return ativo;
+    }
+
+    /**
+     * Envia o arquivo respeitando If-None-Match (304), Accept-Encoding (br/gzip)
+     * e Range/If-Range (206).
+     * @param exchange Objeto HTTP exchange
+     * @param ativo Arquivo a ser enviado
+     * @throws IOException Se houver erro ao enviar a resposta
+     */
+    public void responder(HttpExchange exchange, Ativo ativo) throws IOException {
+        Headers requisicao = exchange.getRequestHeaders();
+        Headers resposta = exchange.getResponseHeaders();
+        String aceita = requisicao.getFirst("Accept-Encoding");
+
+        // If-Range: o trecho só vale se o cliente ainda tiver a versão atual do arquivo
+        String range = requisicao.getFirst("Range");
+        String seRange = requisicao.getFirst("If-Range");
+        if (range != null && seRange != null && !seRange.trim().equals(ativo.etag())) {
+            range = null;
+        }
+
+        byte[] corpo = ativo.conteudo();
+        String etag = ativo.etag();
+        String codificacao = null;
+        if (range == null) {
+            // Trechos (Range) são sempre da representação sem compressão
+            if (ativo.brotli() != null && RespostaHttp.aceita(aceita, "br")) {
+                corpo = ativo.brotli();
+                codificacao = "br";
+            } else if (ativo.gzip() != null && RespostaHttp.aceita(aceita, "gzip")) {
+                corpo = ativo.gzip();
+                codificacao = "gzip";
+            }
+        }
+        if (codificacao != null) {
+            // Cada representação tem a sua ETag forte
+            etag = etag.substring(0, etag.length() - 1) + "-" + codificacao + "\"";
+            resposta.set("Content-Encoding", codificacao);
+        }
+
+        resposta.set("Content-Type", ativo.contentType());
+        resposta.set("ETag", etag);
+        resposta.set("Cache-Control", dev ? "no-cache" : ativo.cacheControl());
+        resposta.set("Accept-Ranges", "bytes");
+        if (ativo.gzip() != null || ativo.brotli() != null) {
+            resposta.set("Vary", "Accept-Encoding");
+        }
+
+        String seNenhum = requisicao.getFirst("If-None-Match");
+        if (seNenhum != null && (seNenhum.contains(etag) || seNenhum.trim().equals("*"))) {
+            resposta.remove("Content-Encoding");
+            exchange.sendResponseHeaders(304, -1); // Not Modified: sem corpo
+            exchange.close();
+            return;
+        }
+
+        long tamanho = corpo != null ? corpo.length : ativo.tamanho();
+        long inicio = 0;
+        long comprimento = tamanho;
+        int status = 200;
+        if (range != null) {
+            long[] intervalo = intervalo(range, tamanho);
+            if (intervalo == INSATISFAZIVEL) {
+                resposta.set("Content-Range", "bytes */" + tamanho);
+                exchange.sendResponseHeaders(416, -1); // Range Not Satisfiable
+                exchange.close();
+                return;
+            }
+            if (intervalo != null) {
+                inicio = intervalo[0];
+                comprimento = intervalo[1] - intervalo[0] + 1;
+                status = 206; // Partial Content
+                resposta.set("Content-Range", "bytes " + intervalo[0] + "-" + intervalo[1] + "/" + tamanho);
+            }
+        }
+
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            resposta.set("Content-Length", String.valueOf(comprimento));
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        // -1 indica corpo vazio; com 0 o servidor usaria chunked
+        exchange.sendResponseHeaders(status, comprimento == 0 ? -1 : comprimento);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (corpo != null) {
+                // Os arrays do cache nunca são alterados: podem ir para o socket sem cópia
+                SaidaDireta.enviar(os, corpo, (int) inicio, (int) comprimento);
+            } else {
+                transferir(ativo.arquivo(), inicio, comprimento, os);
+            }
+        }
+    }
+
+    // ========== CARGA ==========
+
+    private void carregarDiretorio() throws IOException {
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                if (Files.isRegularFile(arquivo) && !arquivo.toString().endsWith(".br")) {
+                    String caminho = relativo(arquivo);
+                    ativos.put(caminho, carregar(caminho));
+                }
+            }
+        }
+    }
+
+    /**
+     * Lê o arquivo (da pasta ou do classpath) e prepara as variantes.
+     * @return O arquivo ou null se ele não existir
+     */
+    private Ativo carregar(String caminho) throws IOException {
+        byte[] conteudo;
+        byte[] brotli = null;
+        if (diretorio != null) {
+            Path arquivo = diretorio.resolve(caminho).normalize();
+            // Verificação de segurança: impede acesso fora da pasta base (Directory Traversal)
+            if (!arquivo.startsWith(diretorio) || !Files.isRegularFile(arquivo)) return null;
+            long tamanho = Files.size(arquivo);
+            if (tamanho > LIMITE_MEMORIA) {
+                // Arquivo grande: guarda só os metadados; ETag a partir de data de modificação e tamanho
+                long modificado = Files.getLastModifiedTime(arquivo).toMillis();
+                String etag = "\"" + Long.toHexString(modificado) + "-" + Long.toHexString(tamanho) + "\"";
+                return new Ativo(null, null, null, arquivo, tamanho, etag, tipoMime(caminho), CACHE_ESTATICO);
+            }
+            conteudo = Files.readAllBytes(arquivo);
+            Path br = arquivo.resolveSibling(arquivo.getFileName() + ".br");
+            if (Files.isRegularFile(br)) brotli = Files.readAllBytes(br);
+        } else {
+            if (caminho.contains("..")) return null;
+            try (InputStream in = CacheAtivos.class.getResourceAsStream(prefixoClasspath + "/" + caminho)) {
+                if (in == null) return null;
+                conteudo = in.readAllBytes();
+            }
+            try (InputStream in = CacheAtivos.class.getResourceAsStream(prefixoClasspath + "/" + caminho + ".br")) {
+                if (in != null) brotli = in.readAllBytes();
+            }
+        }
+        String contentType = tipoMime(caminho);
+        byte[] gzip = comprimivel(contentType) ? gzip(conteudo) : null;
+        String cacheControl = contentType.startsWith("text/html") ? CACHE_HTML : CACHE_ESTATICO;
+        return new Ativo(conteudo, gzip, brotli, null, conteudo.length, etag(conteudo), contentType, cacheControl);
+    }
+
+    /**
+     * Observa a pasta (e subpastas) e descarta do cache os arquivos alterados.
+     */
+    private void observarAlteracoes() throws IOException {
+        WatchService observador = FileSystems.getDefault().newWatchService();
+        try (Stream<Path> pastas = Files.walk(diretorio)) {
+            for (Path pasta : (Iterable<Path>) pastas::iterator) {
+                if (Files.isDirectory(pasta)) {
+                    pasta.register(observador, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                }
+            }
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey chave = observador.take();
+                    Path pasta = (Path) chave.watchable();
+                    chave.pollEvents().forEach(evento -> {
+                        Path alterado = pasta.resolve((Path) evento.context());
+                        String caminho = relativo(alterado);
+                        ativos.remove(caminho.endsWith(".br") ? caminho.substring(0, caminho.length() - 3) : caminho);
+                    });
+                    chave.reset();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Encerrando
+            }
+        }, "cache-ativos-dev");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Copia o trecho do arquivo para a resposta com FileChannel.transferTo, sem carregar
+     * o arquivo no heap (no motor nio, direto do arquivo para o socket).
+     */
+    private static void transferir(Path arquivo, long inicio, long comprimento, OutputStream os) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            SaidaDireta.enviarArquivo(os, canal, inicio, comprimento);
+        }
+    }
+
+    /**
+     * Interpreta um cabeçalho Range com um único intervalo ("bytes=a-b", "bytes=a-" ou "bytes=-n").
+     * @return {inicio, fim} inclusivos; null para ignorar o Range (inválido ou com vários
+     *         intervalos, respondendo 200 com o arquivo inteiro); INSATISFAZIVEL para 416
+     */
+    private static long[] intervalo(String range, long tamanho) {
+        range = range.trim();
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) return null;
+        String especificacao = range.substring(6).trim();
+        int traco = especificacao.indexOf('-');
+        if (traco < 0) return null;
+        try {
+            String primeiro = especificacao.substring(0, traco).trim();
+            String ultimo = especificacao.substring(traco + 1).trim();
+            long inicio;
+            long fim;
+            if (primeiro.isEmpty()) {
+                // Sufixo: os últimos n bytes
+                if (ultimo.isEmpty()) return null;
+                long sufixo = Long.parseLong(ultimo);
+                if (sufixo <= 0) return INSATISFAZIVEL;
+                inicio = Math.max(0, tamanho - sufixo);
+                fim = tamanho - 1;
+            } else {
+                inicio = Long.parseLong(primeiro);
+                fim = ultimo.isEmpty() ? tamanho - 1 : Math.min(Long.parseLong(ultimo), tamanho - 1);
+                if (fim < inicio && !ultimo.isEmpty() && Long.parseLong(ultimo) < inicio) return null;
+            }
+            if (inicio < 0) return null;
+            if (inicio >= tamanho) return INSATISFAZIVEL;
+            return new long[] {inicio, fim};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String relativo(Path arquivo) {
+        return diretorio.relativize(arquivo).toString().replace('\\', '/');
+    }
+
+    private static String tipoMime(String caminho) {
+        String nome = caminho.toLowerCase(Locale.ROOT);
+        int ponto = nome.lastIndexOf('.');
+        String extensao = ponto < 0 ? "" : nome.substring(ponto + 1);
+        return switch (extensao) {
+            case "html", "htm" -> "text/html; charset=UTF-8";
+            case "css" -> "text/css; charset=UTF-8";
+            case "js" -> "application/javascript; charset=UTF-8";
+            case "json" -> "application/json; charset=UTF-8";
+            case "svg" -> "image/svg+xml";
+            case "png" -> "image/png";
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "gif" -> "image/gif";
+            case "ico" -> "image/x-icon";
+            case "pdf" -> "application/pdf";
+            case "woff2" -> "font/woff2";
+            case "txt" -> "text/plain; charset=UTF-8";
+            default -> "application/octet-stream";
+        };
+    }
+
+    private static boolean comprimivel(String contentType) {
+        return contentType.startsWith("text/") || contentType.startsWith("application/javascript")
+                || contentType.startsWith("application/json") || contentType.startsWith("image/svg");
+    }
+
+    /**
+     * @return Conteúdo comprimido com gzip ou null se não ficar menor
+     */
+    private static byte[] gzip(byte[] conteudo) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(conteudo.length / 2 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(saida)) {
+            gz.write(conteudo);
+        }
+        return saida.size() < conteudo.length ? saida.toByteArray() : null;
+    }
+
+    private static String etag(byte[] conteudo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(conteudo);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,713 @@
+package app.http;
+
+import com.sun.net.httpserver.Headers;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Uma conexão do {@link MotorNio}: interpreta as requisições recebidas e envia as respostas.
+ *
+ * Leitura (sempre na thread do laço): os bytes lidos são interpretados direto do buffer
+ * compartilhado do laço; só o que sobra (requisição pela metade ou requisições seguintes
+ * de um pipelining) é copiado para um buffer próprio, devolvido ao pool quando esvazia.
+ * Há no máximo uma troca em andamento por conexão: as requisições seguintes esperam até
+ * a resposta dela terminar, o que mantém as respostas na ordem dos pedidos.
+ *
+ * Escrita (em qualquer thread, sob a trava): a thread que produz a resposta tenta escrever
+ * no socket na hora, juntando os buffers da fila em uma escrita só. O que não couber fica
+ * na fila e o laço termina de escrever quando o socket aceitar mais (OP_WRITE). Com mais de
+ * LIMITE_FILA bytes na fila, quem escreve espera (cliente lento não faz a memória crescer).
+ *
+ * O fechamento pode ser pedido por qualquer thread, mas o canal é fechado no laço.
+ */
+final class ConexaoNio {
+    // Bytes na fila de saída a partir dos quais quem escreve espera o cliente ler
+    private static final long LIMITE_FILA = 1024 * 1024;
+    private static final byte[] CONTINUAR = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    // Estados da leitura do corpo da requisição
+    private static final int FIXO = 0;
+    private static final int PEDACO_TAMANHO = 1;
+    private static final int PEDACO_DADOS = 2;
+    private static final int PEDACO_FIM = 3;
+    private static final int TRAILER = 4;
+
+    private final MotorNio motor;
+    private final MotorNio.Laco laco;
+    private final PoolBuffers buffers;
+    private final SocketChannel canal;
+    private final InetSocketAddress remoto;
+    private final InetSocketAddress local;
+    SelectionKey chave;
+
+    // ---- Leitura: só na thread do laço ----
+    // Bytes recebidos e ainda não interpretados (em modo de escrita), ou null
+    private ByteBuffer pendente;
+    // Troca em andamento (do despacho até a resposta terminar)
+    private TrocaNio atual;
+    // Corpo da requisição que ainda está chegando, ou null
+    private CorpoRequisicao corpo;
+    private int estadoCorpo;
+    private long restanteCorpo;
+    private boolean algarismo;
+    private boolean extensao;
+    private boolean linhaVazia;
+    // O cliente fechou o lado dele (não há mais o que ler)
+    private boolean fimDaEntrada;
+    // Nenhuma requisição nova: fechar depois da resposta em andamento
+    private boolean fecharAoConcluir;
+    private volatile long ultimaAtividade = System.nanoTime();
+
+    // ---- Escrita: protegida pela trava ----
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition escrito = trava.newCondition();
+    private final ArrayDeque<Pedaco> fila = new ArrayDeque<>();
+    private final ByteBuffer[] juntos = new ByteBuffer[16];
+    private long bytesNaFila;
+    // OP_WRITE pedido: só o laço escreve até a fila esvaziar
+    private volatile boolean aguardandoEscrita;
+    private boolean fecharAposEscrever;
+    private volatile boolean fechado;
+
+    ConexaoNio(MotorNio motor, MotorNio.Laco laco, SocketChannel canal) throws IOException {
+        this.motor = motor;
+        this.laco = laco;
+        this.buffers = motor.buffers();
+        this.canal = canal;
+        this.remoto = (InetSocketAddress) canal.getRemoteAddress();
+        this.local = (InetSocketAddress) canal.getLocalAddress();
+    }
+
+    InetSocketAddress remoto() {
+        return remoto;
+    }
+
+    InetSocketAddress local() {
+        return local;
+    }
+
+    PoolBuffers buffers() {
+        return buffers;
+    }
+
+    boolean noLaco() {
+        return laco.noLaco();
+    }
+
+    // ========== LEITURA ==========
+
+    /**
+     * Socket com dados para ler: lê no buffer pendente (se houver sobra) ou no compartilhado.
+     */
+    void aoPoderLer(ByteBuffer compartilhado) {
+        ByteBuffer destino = pendente;
+        if (destino == null) {
+            destino = compartilhado;
+            destino.clear();
+        }
+        int lidos;
+        try {
+            lidos = canal.read(destino);
+        } catch (IOException e) {
+            fechar();
+            return;
+        }
+        if (lidos < 0) {
+            aoFimDaEntrada();
+            return;
+        }
+        if (lidos == 0) return;
+        ultimaAtividade = System.nanoTime();
+        destino.flip();
+        interpretar(destino);
+        if (fechado) return;
+        guardarSobra(destino);
+        atualizarInteresse();
+    }
+
+    /**
+     * Interpreta requisições e corpos até acabarem os dados ou surgir algo que precise esperar
+     * (troca em andamento, corpo pausado, requisição incompleta).
+     */
+    private void interpretar(ByteBuffer dados) {
+        while (!fechado) {
+            if (corpo != null) {
+                if (!receberCorpo(dados)) return;
+                continue;
+            }
+            if (atual != null || fecharAoConcluir || !dados.hasRemaining()) return;
+            if (!lerRequisicao(dados)) return;
+        }
+    }
+
+    /**
+     * Guarda o que não foi interpretado no buffer pendente (ou o devolve ao pool, se vazio).
+     */
+    private void guardarSobra(ByteBuffer dados) {
+        if (dados == pendente) {
+            if (dados.hasRemaining()) {
+                dados.compact();
+            } else {
+                buffers.devolver(pendente);
+                pendente = null;
+            }
+        } else if (dados.hasRemaining()) {
+            pendente = buffers.obter();
+            pendente.put(dados);
+        }
+    }
+
+    /**
+     * Interpreta o que já estava guardado (depois de uma troca terminar ou de o corpo ser retomado).
+     */
+    private void interpretarPendente() {
+        if (fechado) return;
+        if (pendente != null) {
+            pendente.flip();
+            interpretar(pendente);
+            if (fechado) return;
+            guardarSobra(pendente);
+        }
+        atualizarInteresse();
+    }
+
+    private void aoFimDaEntrada() {
+        fimDaEntrada = true;
+        if (atual == null || corpo != null) {
+            fechar();
+        } else {
+            // Meia conexão: a resposta em andamento ainda pode ser entregue
+            fecharAoConcluir = true;
+            atualizarInteresse();
+        }
+    }
+
+    /**
+     * Interpreta a linha de requisição e os cabeçalhos e despacha a troca.
+     * @return false se os cabeçalhos ainda não chegaram inteiros (ou a requisição foi recusada)
+     */
+    private boolean lerRequisicao(ByteBuffer dados) {
+        // Linhas vazias antes da requisição são ignoradas (RFC 9112, 2.2)
+        int inicio = dados.position();
+        while (inicio < dados.limit() && (dados.get(inicio) == '\r' || dados.get(inicio) == '\n')) {
+            inicio++;
+        }
+        dados.position(inicio);
+        int fim = fimDosCabecalhos(dados, inicio);
+        if (fim < 0) {
+            if (dados.remaining() >= buffers.tamanho()) {
+                recusar(431, "Request Header Fields Too Large", "Cabeçalhos da requisição muito grandes");
+            }
+            return false;
+        }
+        byte[] bloco = new byte[fim - inicio];
+        dados.get(bloco);
+
+        // Linha de requisição: MÉTODO alvo HTTP/1.x
+        int quebra = indiceDe(bloco, 0, '\n');
+        String linha = texto(bloco, 0, quebra);
+        int espaco = linha.indexOf(' ');
+        int ultimoEspaco = linha.lastIndexOf(' ');
+        if (espaco <= 0 || ultimoEspaco == espaco) return requisicaoInvalida();
+        String metodo = linha.substring(0, espaco);
+        String protocolo = linha.substring(ultimoEspaco + 1);
+        if (!protocolo.startsWith("HTTP/1.")) return requisicaoInvalida();
+        URI uri;
+        try {
+            uri = new URI(linha.substring(espaco + 1, ultimoEspaco));
+        } catch (URISyntaxException e) {
+            return requisicaoInvalida();
+        }
+
+        Headers cabecalhos = new Headers();
+        for (int i = quebra + 1; i < bloco.length; ) {
+            int proxima = indiceDe(bloco, i, '\n');
+            String cabecalho = texto(bloco, i, proxima);
+            i = proxima + 1;
+            if (cabecalho.isEmpty()) break;
+            int doisPontos = cabecalho.indexOf(':');
+            if (doisPontos <= 0 || cabecalho.charAt(0) == ' ' || cabecalho.charAt(0) == '\t') {
+                return requisicaoInvalida();
+            }
+            try {
+                cabecalhos.add(cabecalho.substring(0, doisPontos).trim(), cabecalho.substring(doisPontos + 1).trim());
+            } catch (IllegalArgumentException e) {
+                return requisicaoInvalida();
+            }
+        }
+
+        boolean http10 = protocolo.equals("HTTP/1.0");
+        String conexao = cabecalhos.getFirst("Connection");
+        boolean fechar = http10 ? !temToken(conexao, "keep-alive") : temToken(conexao, "close");
+
+        // Corpo: chunked tem precedência sobre Content-Length
+        String transferencia = cabecalhos.getFirst("Transfer-encoding");
+        String tamanho = cabecalhos.getFirst("Content-length");
+        long comprimento = 0;
+        boolean pedacos = false;
+        if (transferencia != null) {
+            if (!temToken(transferencia, "chunked")) return requisicaoInvalida();
+            pedacos = true;
+        } else if (tamanho != null) {
+            try {
+                comprimento = Long.parseLong(tamanho);
+            } catch (NumberFormatException e) {
+                comprimento = -1;
+            }
+            if (comprimento < 0) return requisicaoInvalida();
+        }
+
+        InputStream entrada = InputStream.nullInputStream();
+        if (pedacos || comprimento > 0) {
+            corpo = new CorpoRequisicao(this);
+            entrada = corpo;
+            estadoCorpo = pedacos ? PEDACO_TAMANHO : FIXO;
+            restanteCorpo = comprimento;
+            algarismo = false;
+            extensao = false;
+            if (!http10 && "100-continue".equalsIgnoreCase(cabecalhos.getFirst("Expect"))) {
+                try {
+                    enviar(ByteBuffer.wrap(CONTINUAR), false);
+                } catch (IOException e) {
+                    fechar();
+                    return false;
+                }
+            }
+        }
+        atual = new TrocaNio(this, metodo, uri, protocolo, cabecalhos, entrada, fechar);
+        motor.despachar(atual);
+        return true;
+    }
+
+    /**
+     * @return Posição logo depois da linha vazia que encerra os cabeçalhos, ou -1
+     */
+    private static int fimDosCabecalhos(ByteBuffer dados, int inicio) {
+        int inicioLinha = inicio;
+        for (int i = inicio; i < dados.limit(); i++) {
+            if (dados.get(i) == '\n') {
+                int tamanho = i - inicioLinha;
+                if (tamanho == 0 || (tamanho == 1 && dados.get(inicioLinha) == '\r')) return i + 1;
+                inicioLinha = i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int indiceDe(byte[] bloco, int inicio, char procurado) {
+        for (int i = inicio; i < bloco.length; i++) {
+            if (bloco[i] == procurado) return i;
+        }
+        return bloco.length;
+    }
+
+    /**
+     * Trecho da linha em ISO-8859-1, sem o CR final.
+     */
+    private static String texto(byte[] bloco, int inicio, int fim) {
+        if (fim > inicio && bloco[fim - 1] == '\r') fim--;
+        return new String(bloco, inicio, fim - inicio, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @return true se o valor (lista separada por vírgulas) contém o token, sem diferenciar maiúsculas
+     */
+    private static boolean temToken(String valor, String token) {
+        if (valor == null) return false;
+        for (String parte : valor.split(",")) {
+            if (parte.trim().equalsIgnoreCase(token)) return true;
+        }
+        return false;
+    }
+
+    private boolean requisicaoInvalida() {
+        recusar(400, "Bad Request", "Requisição HTTP inválida");
+        return false;
+    }
+
+    /**
+     * Responde um erro de protocolo (sem passar pelo handler) e fecha a conexão depois do envio.
+     */
+    private void recusar(int status, String frase, String mensagem) {
+        byte[] corpoErro = mensagem.getBytes(StandardCharsets.UTF_8);
+        byte[] cabecalhos = ("HTTP/1.1 " + status + " " + frase + "\r\nContent-Type: text/plain; charset=UTF-8\r\n"
+                + "Content-Length: " + corpoErro.length + "\r\nConnection: close\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        fecharAoConcluir = true;
+        try {
+            enviar(ByteBuffer.wrap(cabecalhos), false);
+            enviar(ByteBuffer.wrap(corpoErro), false);
+        } catch (IOException e) {
+            fechar();
+            return;
+        }
+        encerrarAposEnvio();
+    }
+
+    // ========== CORPO DA REQUISIÇÃO ==========
+
+    /**
+     * Entrega ao corpo os bytes que pertencem a ele (decodificando o chunked).
+     * @return true se o corpo terminou; false se os dados acabaram, o corpo está pausado
+     *         ou o chunked é inválido (nesse caso a conexão é fechada)
+     */
+    private boolean receberCorpo(ByteBuffer dados) {
+        while (dados.hasRemaining()) {
+            switch (estadoCorpo) {
+                case FIXO, PEDACO_DADOS -> {
+                    if (corpo.pausado()) return false;
+                    int quantidade = (int) Math.min(dados.remaining(), restanteCorpo);
+                    corpo.receber(dados, quantidade);
+                    restanteCorpo -= quantidade;
+                    if (restanteCorpo == 0) {
+                        if (estadoCorpo == FIXO) return concluirCorpo();
+                        estadoCorpo = PEDACO_FIM;
+                    }
+                }
+                case PEDACO_TAMANHO -> {
+                    byte b = dados.get();
+                    if (b == '\n') {
+                        if (!algarismo) return corpoInvalido();
+                        estadoCorpo = restanteCorpo == 0 ? TRAILER : PEDACO_DADOS;
+                        linhaVazia = true;
+                        algarismo = false;
+                        extensao = false;
+                    } else if (b == ';') {
+                        extensao = true;
+                    } else if (!extensao && b != '\r' && b != ' ' && b != '\t') {
+                        int digito = Character.digit(b, 16);
+                        if (digito < 0 || restanteCorpo > (Long.MAX_VALUE >> 4)) return corpoInvalido();
+                        restanteCorpo = restanteCorpo * 16 + digito;
+                        algarismo = true;
+                    }
+                }
+                case PEDACO_FIM -> {
+                    byte b = dados.get();
+                    if (b == '\n') {
+                        estadoCorpo = PEDACO_TAMANHO;
+                    } else if (b != '\r') {
+                        return corpoInvalido();
+                    }
+                }
+                default -> {
+                    // Trailer: linhas de cabeçalho ignoradas até a linha vazia
+                    byte b = dados.get();
+                    if (b == '\n') {
+                        if (linhaVazia) return concluirCorpo();
+                        linhaVazia = true;
+                    } else if (b != '\r') {
+                        linhaVazia = false;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean concluirCorpo() {
+        corpo.terminar();
+        corpo = null;
+        return true;
+    }
+
+    private boolean corpoInvalido() {
+        corpo.falhar(new IOException("Corpo chunked inválido"));
+        corpo = null;
+        fechar();
+        return false;
+    }
+
+    /**
+     * Chamado pelo corpo quando o handler consumiu o suficiente para voltar a receber.
+     */
+    void retomarCorpo() {
+        laco.agendar(this::interpretarPendente);
+    }
+
+    // ========== FIM DA TROCA ==========
+
+    /**
+     * Chamado quando a resposta da troca termina (em qualquer thread).
+     * @param troca Troca concluída
+     * @param fechar true se a conexão não deve ser reutilizada
+     */
+    void concluir(TrocaNio troca, boolean fechar) {
+        laco.agendar(() -> aoConcluir(troca, fechar));
+    }
+
+    private void aoConcluir(TrocaNio troca, boolean fechar) {
+        if (troca != atual) return; // a conexão já foi fechada
+        atual = null;
+        motor.trocaConcluida();
+        if (fechar || fecharAoConcluir) {
+            fecharAoConcluir = true;
+            encerrarAposEnvio();
+            return;
+        }
+        // O handler não leu o corpo inteiro: o restante é descartado antes da próxima requisição
+        if (corpo != null) corpo.descartar();
+        interpretarPendente();
+    }
+
+    /**
+     * Fecha a conexão assim que a fila de saída esvaziar.
+     */
+    private void encerrarAposEnvio() {
+        trava.lock();
+        try {
+            if (fila.isEmpty()) {
+                fechar();
+            } else {
+                fecharAposEscrever = true;
+            }
+        } finally {
+            trava.unlock();
+        }
+        atualizarInteresse();
+    }
+
+    /**
+     * @return true se a conexão está esperando o cliente (sem troca, recebendo corpo ou
+     *         esperando para escrever) há mais que o limite
+     */
+    boolean ociosa(long agora, long limiteNanos) {
+        boolean esperandoCliente = atual == null || (corpo != null && !corpo.pausado()) || aguardandoEscrita;
+        return esperandoCliente && agora - ultimaAtividade > limiteNanos;
+    }
+
+    // ========== ESCRITA ==========
+
+    /**
+     * Enfileira o buffer e tenta escrevê-lo. Espera se a fila passou do limite (exceto no laço).
+     * @param dados Bytes entre a posição e o limite
+     * @param doPool true se o buffer veio do pool (volta para ele depois de escrito)
+     * @throws IOException Se a conexão foi fechada
+     */
+    void enviar(ByteBuffer dados, boolean doPool) throws IOException {
+        enfileirar(null, new Pedaco(dados, doPool, null, 0, dados.remaining()), false);
+    }
+
+    /**
+     * Enfileira um buffer do pool (ex: os cabeçalhos) seguido de conteúdo que não é copiado,
+     * para os dois saírem na mesma escrita.
+     * @param doPool Buffer do pool enviado antes (null se não houver)
+     * @param conteudo Bytes que não serão mais alterados
+     * @throws IOException Se a conexão foi fechada
+     */
+    void enviar(ByteBuffer doPool, ByteBuffer conteudo) throws IOException {
+        enfileirar(pedacoDoPool(doPool), new Pedaco(conteudo, false, null, 0, conteudo.remaining()), false);
+    }
+
+    /**
+     * Envia o trecho do arquivo com transferTo e espera até ele ser escrito por inteiro.
+     * Não pode ser chamado no laço (ver SaidaResposta.transferir).
+     * @param doPool Buffer do pool enviado antes do arquivo (null se não houver)
+     * @throws IOException Se a conexão foi fechada ou o arquivo não pôde ser lido
+     */
+    void transferir(ByteBuffer doPool, FileChannel arquivo, long posicao, long comprimento) throws IOException {
+        enfileirar(pedacoDoPool(doPool), new Pedaco(null, false, arquivo, posicao, comprimento), true);
+    }
+
+    private static Pedaco pedacoDoPool(ByteBuffer dados) {
+        return dados == null ? null : new Pedaco(dados, true, null, 0, dados.remaining());
+    }
+
+    /**
+     * @param anterior Pedaço enfileirado antes (pode ser null)
+     * @param pedaco Pedaço enfileirado por último
+     * @param esperarConclusao true para esperar até o último pedaço ser escrito
+     */
+    private void enfileirar(Pedaco anterior, Pedaco pedaco, boolean esperarConclusao) throws IOException {
+        trava.lock();
+        try {
+            if (fechado) {
+                if (anterior != null) anterior.liberar(buffers);
+                pedaco.liberar(buffers);
+                throw new IOException("Conexão fechada");
+            }
+            if (anterior != null) {
+                fila.add(anterior);
+                bytesNaFila += anterior.restante;
+            }
+            fila.add(pedaco);
+            bytesNaFila += pedaco.restante;
+            if (!aguardandoEscrita) {
+                try {
+                    escreverFila();
+                } catch (IOException e) {
+                    fechar();
+                    throw e;
+                }
+                if (!fila.isEmpty()) {
+                    aguardandoEscrita = true;
+                    laco.executar(this::atualizarInteresse);
+                }
+            }
+            if (laco.noLaco()) return;
+            while (!fechado && (esperarConclusao ? !pedaco.concluido : bytesNaFila > LIMITE_FILA)) {
+                try {
+                    escrito.await();
+                } catch (InterruptedException e) {
+                    // Ex: o vigia do feed de eventos interrompe quem ficou preso escrevendo
+                    Thread.currentThread().interrupt();
+                    fechar();
+                    throw new InterruptedIOException("Escrita interrompida");
+                }
+            }
+            if (esperarConclusao && !pedaco.concluido) throw new IOException("Conexão fechada");
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Socket aceita mais dados: continua a fila (no laço).
+     */
+    void aoPoderEscrever() {
+        trava.lock();
+        try {
+            escreverFila();
+            if (fila.isEmpty()) {
+                aguardandoEscrita = false;
+                if (fecharAposEscrever) {
+                    fechar();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            fechar();
+            return;
+        } finally {
+            trava.unlock();
+        }
+        atualizarInteresse();
+    }
+
+    /**
+     * Escreve o que o socket aceitar, juntando os buffers seguidos em uma escrita só.
+     * Chamado com a trava.
+     */
+    private void escreverFila() throws IOException {
+        while (!fila.isEmpty()) {
+            Pedaco primeiro = fila.peekFirst();
+            long escritos;
+            if (primeiro.arquivo != null) {
+                escritos = primeiro.arquivo.transferTo(primeiro.posicao, primeiro.restante, canal);
+                if (escritos == 0 && primeiro.posicao >= primeiro.arquivo.size()) {
+                    throw new EOFException("Arquivo menor que o trecho enviado");
+                }
+                primeiro.posicao += escritos;
+                primeiro.restante -= escritos;
+                if (primeiro.restante == 0) {
+                    fila.pollFirst();
+                    primeiro.concluido = true;
+                }
+            } else {
+                int quantidade = 0;
+                for (Pedaco pedaco : fila) {
+                    if (pedaco.arquivo != null || quantidade == juntos.length) break;
+                    juntos[quantidade++] = pedaco.dados;
+                }
+                escritos = canal.write(juntos, 0, quantidade);
+                Arrays.fill(juntos, 0, quantidade, null);
+                while (!fila.isEmpty() && fila.peekFirst().arquivo == null && !fila.peekFirst().dados.hasRemaining()) {
+                    fila.pollFirst().liberar(buffers);
+                }
+            }
+            bytesNaFila -= escritos;
+            if (escritos == 0) return;
+            ultimaAtividade = System.nanoTime();
+            escrito.signalAll();
+        }
+    }
+
+    /**
+     * Ajusta o interesse do seletor ao estado da conexão (no laço).
+     */
+    private void atualizarInteresse() {
+        if (fechado || !chave.isValid()) return;
+        boolean ler = !fimDaEntrada && !fecharAoConcluir
+                && (atual == null ? corpo == null || !corpo.pausado() : corpo != null && !corpo.pausado());
+        int interesse = (ler ? SelectionKey.OP_READ : 0) | (aguardandoEscrita ? SelectionKey.OP_WRITE : 0);
+        if (chave.interestOps() != interesse) chave.interestOps(interesse);
+    }
+
+    // ========== FECHAMENTO ==========
+
+    /**
+     * Fecha a conexão (em qualquer thread): descarta a fila, acorda quem espera para escrever
+     * e agenda o fechamento do canal no laço.
+     */
+    void fechar() {
+        trava.lock();
+        try {
+            if (fechado) return;
+            fechado = true;
+            for (Pedaco pedaco : fila) {
+                pedaco.liberar(buffers);
+            }
+            fila.clear();
+            bytesNaFila = 0;
+            escrito.signalAll();
+        } finally {
+            trava.unlock();
+        }
+        laco.executar(this::fecharCanal);
+    }
+
+    private void fecharCanal() {
+        if (chave != null) chave.cancel();
+        MotorNio.fecharSilenciosamente(canal);
+        if (pendente != null) {
+            buffers.devolver(pendente);
+            pendente = null;
+        }
+        if (corpo != null) {
+            corpo.falhar(new EOFException("Conexão fechada antes do fim do corpo"));
+            corpo = null;
+        }
+        if (atual != null) {
+            atual = null;
+            motor.trocaConcluida();
+        }
+        motor.conexaoFechada();
+    }
+
+    /**
+     * Item da fila de saída: um buffer ou um trecho de arquivo.
+     */
+    private static final class Pedaco {
+        final ByteBuffer dados;
+        final boolean doPool;
+        final FileChannel arquivo;
+        long posicao;
+        long restante;
+        boolean concluido;
+
+        Pedaco(ByteBuffer dados, boolean doPool, FileChannel arquivo, long posicao, long restante) {
+            this.dados = dados;
+            this.doPool = doPool;
+            this.arquivo = arquivo;
+            this.posicao = posicao;
+            this.restante = restante;
+        }
+
+        void liberar(PoolBuffers buffers) {
+            if (doPool) buffers.devolver(dados);
+        }
+    }
+}
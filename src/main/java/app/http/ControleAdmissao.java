@@ -0,0 +1,430 @@
+package app.http;
+
+import app.json.EscritorJson;
+import app.metricas.Metricas;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controle de admissão: decide, antes de executar o handler, se a requisição será atendida.
+ *
+ * Três proteções independentes:
+ * - Taxa por cliente (filtro): token bucket por IP ou, se X-Api-Key for uma das chaves
+ *   configuradas, por chave. Chaves desconhecidas são ignoradas (inventar chaves não cria
+ *   baldes novos). Acima da taxa o cliente recebe 429 com Retry-After calculado para
+ *   quando haverá ficha.
+ * - Espera na fila (filtro): requisições que passaram tempo demais na fila do pool recebem 503
+ *   sem executar o handler (o cliente provavelmente já desistiu; atendê-las só atrasa as demais).
+ * - Concorrência por rota (Roteador): cada rota pode ter um limite de execuções simultâneas
+ *   (ex: no máximo 2 importações em lote); acima dele a resposta é 503.
+ *
+ * O token bucket usa a forma GCRA: em vez de contar fichas, cada cliente guarda em um único
+ * AtomicLong o instante teórico em que o balde estaria cheio de novo. Cada requisição avança
+ * esse instante em 1/taxa com um compare-and-set, sem travas nem threads de reposição.
+ * Um balde cujo instante já passou está cheio e é idêntico a um balde novo: a varredura
+ * periódica o remove sem perder informação. Uma única thread de varredura atende todos os
+ * controles iniciados; close() retira o controle dela.
+ *
+ * Os limites podem ser alterados em tempo de execução em /admin/admissao (GET lê, POST altera),
+ * acessível só pelo loopback ou, com -Dalunos.admin.chave, com essa chave em X-Api-Key.
+ *
+ * Propriedades: -Dalunos.admissao.taxa (requisições/s por cliente; padrão 0 = sem limite),
+ * -Dalunos.admissao.rajada, -Dalunos.admissao.chaves (chaves de API aceitas, separadas por vírgula), -Dalunos.admissao.esperaMaximaMs (0 = sem limite),
+ * -Dalunos.admissao.rotas (ex: "POST /api/alunos/batch=2,GET /api/alunos/search=16"),
+ * -Dalunos.admissao.maximoClientes, -Dalunos.admin.chave.
+ */
+public final class ControleAdmissao implements AutoCloseable {
+    private static final long NANOS_POR_SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+    // Clientes acima do máximo dividem um único balde
+    private static final String CHAVE_EXCEDENTE = "excedente";
+    private static final String PREFIXO_ADMIN = "/admin/";
+    private static final long INTERVALO_VARREDURA_SEGUNDOS = 10;
+
+    private static final byte[] CORPO_429 =
+            "{\"erro\":\"Limite de requisições excedido, tente novamente\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CORPO_503_ESPERA =
+            "{\"erro\":\"Servidor sobrecarregado, tente novamente\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CORPO_503_ROTA =
+            "{\"erro\":\"Muitas requisições simultâneas nesta rota, tente novamente\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CORPO_403 = "{\"erro\":\"Acesso negado\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static final LongAdder RECUSADAS_TAXA = Metricas.contador("admissao_recusadas_taxa");
+    private static final LongAdder RECUSADAS_ESPERA = Metricas.contador("admissao_recusadas_espera");
+    private static final LongAdder RECUSADAS_ROTA = Metricas.contador("admissao_recusadas_rota");
+
+    // Controles com varredura iniciada, percorridos pela thread de varredura compartilhada
+    private static final Set<ControleAdmissao> VARRIDOS = ConcurrentHashMap.newKeySet();
+    private static final ScheduledExecutorService VARREDURA = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "admissao-varredura");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        VARREDURA.scheduleWithFixedDelay(() -> VARRIDOS.forEach(ControleAdmissao::removerBaldesCheios),
+                INTERVALO_VARREDURA_SEGUNDOS, INTERVALO_VARREDURA_SEGUNDOS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Taxa por cliente já convertida para o GCRA. Imutável: taxa e rajada mudam juntas.
+     * @param taxa Requisições por segundo (0 = sem limite)
+     * @param rajada Requisições aceitas de uma vez com o balde cheio
+     * @param intervaloNanos Custo de cada requisição (1/taxa)
+     * @param toleranciaNanos Quanto o instante teórico pode estar à frente do relógio
+     */
+    private record Limite(int taxa, int rajada, long intervaloNanos, long toleranciaNanos) {
+        static Limite de(int taxa, int rajada) {
+            if (taxa < 0 || rajada < 1) {
+                throw new IllegalArgumentException("Taxa deve ser >= 0 e rajada >= 1");
+            }
+            long intervalo = taxa == 0 ? 0 : NANOS_POR_SEGUNDO / taxa;
+            return new Limite(taxa, rajada, intervalo, intervalo * (rajada - 1));
+        }
+    }
+
+    /**
+     * Limite de execuções simultâneas de uma rota.
+     */
+    public static final class Vaga {
+        private volatile int limite;                       // 0 = sem limite
+        private final AtomicInteger emAndamento = new AtomicInteger();
+        private final LongAdder recusadas = new LongAdder();
+
+        private Vaga(int limite) {
+            this.limite = limite;
+        }
+
+        /**
+         * Ocupa uma vaga. Se retornar true, {@link #sair()} deve ser chamado ao final.
+         * @return false se a rota já estiver no limite
+         */
+        public boolean entrar() {
+            int maximo = limite;
+            while (true) {
+                int atual = emAndamento.get();
+                if (maximo > 0 && atual >= maximo) {
+                    recusadas.increment();
+                    RECUSADAS_ROTA.increment();
+                    return false;
+                }
+                if (emAndamento.compareAndSet(atual, atual + 1)) return true;
+            }
+        }
+
+        /**
+         * Libera a vaga ocupada por {@link #entrar()}.
+         */
+        public void sair() {
+            emAndamento.decrementAndGet();
+        }
+
+        /**
+         * Responde 503 à requisição recusada por {@link #entrar()}.
+         * @param exchange Objeto HTTP exchange
+         * @throws IOException Se houver erro ao enviar a resposta
+         */
+        public void recusar(HttpExchange exchange) throws IOException {
+            responder(exchange, 503, 1, CORPO_503_ROTA);
+        }
+    }
+
+    private volatile Limite limite;
+    private volatile long esperaMaximaNanos;
+    private final int maximoClientes;
+    private final Set<String> chavesClientes;
+    private final byte[] chaveAdmin;                       // null = só loopback
+
+    // Cliente -> instante teórico (System.nanoTime) em que o balde estará cheio
+    private final ConcurrentMap<String, AtomicLong> clientes = new ConcurrentHashMap<>();
+    // Nome da rota (ex: "POST /api/alunos/batch") -> vaga; limites configurados antes do registro da rota
+    private final ConcurrentMap<String, Vaga> vagas = new ConcurrentHashMap<>();
+
+    /**
+     * @param taxa Requisições por segundo por cliente (0 = sem limite)
+     * @param rajada Requisições aceitas de uma vez com o balde cheio
+     * @param esperaMaximaMs Tempo máximo na fila do pool (0 = sem limite)
+     * @param maximoClientes Clientes com balde próprio; os demais dividem um balde
+     * @param chavesClientes Chaves de API com balde próprio (as demais requisições são limitadas por IP)
+     * @param chaveAdmin Chave exigida em /admin/ (null = só loopback)
+     */
+    public ControleAdmissao(int taxa, int rajada, long esperaMaximaMs, int maximoClientes,
+                            Set<String> chavesClientes, String chaveAdmin) {
+        this.limite = Limite.de(taxa, rajada);
+        this.esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        this.maximoClientes = maximoClientes;
+        this.chavesClientes = Set.copyOf(chavesClientes);
+        this.chaveAdmin = chaveAdmin == null || chaveAdmin.isEmpty() ? null : chaveAdmin.getBytes(StandardCharsets.UTF_8);
+        Metricas.medidor("admissao_clientes", clientes::size);
+    }
+
+    /**
+     * Cria o controle com as propriedades -Dalunos.admissao.* e inicia a varredura dos baldes.
+     * @return Controle de admissão configurado
+     */
+    public static ControleAdmissao daConfiguracao() {
+        int taxa = Integer.getInteger("alunos.admissao.taxa", 0);
+        Set<String> chaves = new HashSet<>();
+        for (String chave : System.getProperty("alunos.admissao.chaves", "").split(",")) {
+            if (!chave.isBlank()) chaves.add(chave.trim());
+        }
+        ControleAdmissao controle = new ControleAdmissao(taxa,
+                Integer.getInteger("alunos.admissao.rajada", Math.max(1, taxa * 2)),
+                Long.getLong("alunos.admissao.esperaMaximaMs", 1000),
+                Integer.getInteger("alunos.admissao.maximoClientes", 100_000),
+                chaves,
+                System.getProperty("alunos.admin.chave"));
+        String rotas = System.getProperty("alunos.admissao.rotas",
+                "POST /api/alunos/batch=2,POST /api/alunos/stats/verificar=1");
+        for (String item : rotas.split(",")) {
+            int igual = item.lastIndexOf('=');
+            if (igual < 0) continue;
+            controle.vaga(item.substring(0, igual).trim()).limite = Integer.parseInt(item.substring(igual + 1).trim());
+        }
+        controle.iniciarVarredura();
+        return controle;
+    }
+
+    /**
+     * Vaga da rota, criada sem limite na primeira vez (usado pelo Roteador ao registrar rotas).
+     * @param rota Nome da rota (ex: "POST /api/alunos/batch")
+     * @return Vaga compartilhada por todas as requisições da rota
+     */
+    public Vaga vaga(String rota) {
+        return vagas.computeIfAbsent(rota, nome -> new Vaga(0));
+    }
+
+    // ========== TAXA POR CLIENTE ==========
+
+    /**
+     * Consome uma ficha do balde do cliente.
+     * @param cliente Chave do cliente
+     * @return 0 se a requisição foi aceita, senão nanossegundos até haver ficha
+     */
+    long consumir(String cliente) {
+        Limite atual = limite;
+        if (atual.intervaloNanos == 0) return 0;
+        AtomicLong balde = clientes.get(cliente);
+        if (balde == null) {
+            if (clientes.size() >= maximoClientes) cliente = CHAVE_EXCEDENTE;
+            balde = clientes.computeIfAbsent(cliente, chave -> new AtomicLong(System.nanoTime()));
+        }
+        while (true) {
+            long agora = System.nanoTime();
+            long cheio = balde.get();
+            // Balde cheio (instante teórico no passado): parte de agora
+            long teorico = cheio - agora < 0 ? agora : cheio;
+            long adiantamento = teorico - agora;
+            if (adiantamento > atual.toleranciaNanos) {
+                return adiantamento - atual.toleranciaNanos;
+            }
+            if (balde.compareAndSet(cheio, teorico + atual.intervaloNanos)) return 0;
+        }
+    }
+
+    /**
+     * @return Chave de API, se for uma das configuradas, ou o IP do cliente
+     */
+    private String cliente(HttpExchange exchange) {
+        if (!chavesClientes.isEmpty()) {
+            String chave = exchange.getRequestHeaders().getFirst("X-Api-Key");
+            if (chave != null && chavesClientes.contains(chave)) return "chave:" + chave;
+        }
+        InetSocketAddress remoto = exchange.getRemoteAddress();
+        return remoto.getAddress() == null ? remoto.getHostString() : remoto.getAddress().getHostAddress();
+    }
+
+    /**
+     * Passa a remover a cada 10 s os baldes cheios (equivalentes a um balde novo).
+     */
+    private void iniciarVarredura() {
+        VARRIDOS.add(this);
+    }
+
+    /**
+     * Retira o controle da varredura periódica.
+     */
+    @Override
+    public void close() {
+        VARRIDOS.remove(this);
+    }
+
+    /**
+     * Remove os baldes cujo instante teórico já passou. Uma requisição concorrente pode
+     * ainda consumir o balde removido; no pior caso o cliente ganha uma ficha extra.
+     * @return Quantidade de baldes removidos
+     */
+    int removerBaldesCheios() {
+        long agora = System.nanoTime();
+        int removidos = 0;
+        for (Map.Entry<String, AtomicLong> cliente : clientes.entrySet()) {
+            long cheio = cliente.getValue().get();
+            if (cheio - agora <= 0 && clientes.remove(cliente.getKey(), cliente.getValue())) {
+                removidos++;
+            }
+        }
+        return removidos;
+    }
+
+    // ========== FILTRO ==========
+
+    /**
+     * @return Filtro que aplica a espera máxima na fila e a taxa por cliente
+     *         (os caminhos /admin/ não são limitados)
+     */
+    public Filter filtro() {
+        return new Filter() {
+            @Override
+            public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+                if (exchange.getRequestURI().getPath().startsWith(PREFIXO_ADMIN)) {
+                    chain.doFilter(exchange);
+                    return;
+                }
+                long esperaMaxima = esperaMaximaNanos;
+                if (esperaMaxima > 0 && ExecutorHttp.esperaNaFila() > esperaMaxima) {
+                    RECUSADAS_ESPERA.increment();
+                    responder(exchange, 503, 1, CORPO_503_ESPERA);
+                    return;
+                }
+                long atraso = consumir(cliente(exchange));
+                if (atraso > 0) {
+                    RECUSADAS_TAXA.increment();
+                    // Arredonda para cima: antes disso o cliente seria recusado de novo
+                    responder(exchange, 429, (atraso + NANOS_POR_SEGUNDO - 1) / NANOS_POR_SEGUNDO, CORPO_429);
+                    return;
+                }
+                chain.doFilter(exchange);
+            }
+
+            @Override
+            public String description() {
+                return "Limita a taxa por cliente e descarta requisições que esperaram demais na fila";
+            }
+        };
+    }
+
+    // ========== ADMINISTRAÇÃO ==========
+
+    /**
+     * Ação de rota (Roteador.Acao) de /admin/admissao.
+     * GET: configuração e contadores atuais.
+     * POST: altera a configuração pelos parâmetros da query string
+     * (taxa, rajada, esperaMaximaMs e rota + limite) e responde como o GET.
+     * @param exchange Objeto HTTP exchange
+     * @param id Não utilizado
+     * @throws IOException Se houver erro ao enviar a resposta
+     */
+    public void responder(HttpExchange exchange, int id) throws IOException {
+        if (!autorizado(exchange)) {
+            responder(exchange, 403, 0, CORPO_403);
+            return;
+        }
+        if (exchange.getRequestMethod().equals("POST")) {
+            try {
+                alterar(ParametrosConsulta.extrair(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException e) {
+                EscritorJson erro = EscritorJson.daThread();
+                erro.escreverBruto("{\"erro\":").escreverTexto(e.getMessage()).escreverByte('}');
+                responder(exchange, 400, 0, erro.paraArray());
+                return;
+            }
+        }
+        EscritorJson json = EscritorJson.daThread();
+        escreverEstado(json);
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        responder(exchange, 200, 0, json.paraArray());
+    }
+
+    /**
+     * Aplica os parâmetros presentes; os ausentes continuam como estão.
+     */
+    private void alterar(Map<String, String> parametros) {
+        try {
+            if (parametros.containsKey("taxa") || parametros.containsKey("rajada")) {
+                Limite atual = limite;
+                int taxa = Integer.parseInt(parametros.getOrDefault("taxa", String.valueOf(atual.taxa)));
+                int rajada = Integer.parseInt(parametros.getOrDefault("rajada", String.valueOf(atual.rajada)));
+                limite = Limite.de(taxa, rajada);
+            }
+            if (parametros.containsKey("esperaMaximaMs")) {
+                long espera = Long.parseLong(parametros.get("esperaMaximaMs"));
+                if (espera < 0) throw new IllegalArgumentException("esperaMaximaMs deve ser >= 0");
+                esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(espera);
+            }
+            if (parametros.containsKey("rota")) {
+                Vaga vaga = vagas.get(parametros.get("rota"));
+                if (vaga == null) throw new IllegalArgumentException("Rota desconhecida: " + parametros.get("rota"));
+                int maximo = Integer.parseInt(parametros.getOrDefault("limite", "0"));
+                if (maximo < 0) throw new IllegalArgumentException("limite deve ser >= 0");
+                vaga.limite = maximo;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor numérico inválido: " + e.getMessage());
+        }
+    }
+
+    private void escreverEstado(EscritorJson json) {
+        Limite atual = limite;
+        json.escreverBruto("{\"taxa\":").escreverInt(atual.taxa)
+            .escreverBruto(",\"rajada\":").escreverInt(atual.rajada)
+            .escreverBruto(",\"esperaMaximaMs\":").escreverLong(TimeUnit.NANOSECONDS.toMillis(esperaMaximaNanos))
+            .escreverBruto(",\"clientes\":").escreverInt(clientes.size())
+            .escreverBruto(",\"recusadasTaxa\":").escreverLong(RECUSADAS_TAXA.sum())
+            .escreverBruto(",\"recusadasEspera\":").escreverLong(RECUSADAS_ESPERA.sum())
+            .escreverBruto(",\"rotas\":[");
+        boolean primeira = true;
+        for (Map.Entry<String, Vaga> rota : new TreeMap<>(vagas).entrySet()) {
+            if (!primeira) json.escreverByte(',');
+            primeira = false;
+            Vaga vaga = rota.getValue();
+            json.escreverBruto("{\"rota\":").escreverTexto(rota.getKey())
+                .escreverBruto(",\"limite\":").escreverInt(vaga.limite)
+                .escreverBruto(",\"emAndamento\":").escreverInt(vaga.emAndamento.get())
+                .escreverBruto(",\"recusadas\":").escreverLong(vaga.recusadas.sum())
+                .escreverByte('}');
+        }
+        json.escreverBruto("]}");
+    }
+
+    /**
+     * Com chave configurada exige X-Api-Key igual (comparação em tempo constante);
+     * sem chave, só aceita conexões do loopback.
+     */
+    private boolean autorizado(HttpExchange exchange) {
+        if (chaveAdmin != null) {
+            String enviada = exchange.getRequestHeaders().getFirst("X-Api-Key");
+            return enviada != null && MessageDigest.isEqual(chaveAdmin, enviada.getBytes(StandardCharsets.UTF_8));
+        }
+        InetSocketAddress remoto = exchange.getRemoteAddress();
+        return remoto.getAddress() != null && remoto.getAddress().isLoopbackAddress();
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * @param repetirEmSegundos Valor do Retry-After (0 = sem o cabeçalho)
+     */
+    private static void responder(HttpExchange exchange, int status, long repetirEmSegundos, byte[] corpo)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        if (repetirEmSegundos > 0) {
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(repetirEmSegundos));
+        }
+        RespostaHttp.enviar(exchange, status, corpo);
+    }
+}
@@ -0,0 +1,129 @@
+package app.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Corpo de uma requisição do {@link MotorNio}, entregue ao handler enquanto chega.
+ *
+ * O laço da conexão acrescenta os blocos recebidos e o handler os lê em outra thread.
+ * Quando há mais de LIMITE bytes esperando, o laço para de ler o socket (o TCP segura o
+ * cliente) até o handler consumir metade. Fechar o stream (ou terminar a troca) antes do
+ * fim descarta o restante.
+ */
+final class CorpoRequisicao extends InputStream {
+    private static final int LIMITE = 256 * 1024;
+
+    private final ConexaoNio conexao;
+    private final ArrayDeque<byte[]> blocos = new ArrayDeque<>();
+    private int posicaoPrimeiro;
+    private long disponivel;
+    private boolean terminado;
+    private boolean pausado;
+    private boolean descartando;
+    private IOException erro;
+    private final byte[] umByte = new byte[1];
+
+    CorpoRequisicao(ConexaoNio conexao) {
+        this.conexao = conexao;
+    }
+
+    // ========== LADO DO LAÇO ==========
+
+    /**
+     * Copia os próximos bytes do buffer (ou os pula, se o corpo está sendo descartado).
+     */
+    synchronized void receber(ByteBuffer origem, int quantidade) {
+        if (descartando) {
+            origem.position(origem.position() + quantidade);
+            return;
+        }
+        byte[] bloco = new byte[quantidade];
+        origem.get(bloco);
+        blocos.add(bloco);
+        disponivel += quantidade;
+        if (disponivel >= LIMITE) pausado = true;
+        notifyAll();
+    }
+
+    synchronized boolean pausado() {
+        return pausado;
+    }
+
+    synchronized void terminar() {
+        terminado = true;
+        notifyAll();
+    }
+
+    synchronized void falhar(IOException causa) {
+        if (terminado) return;
+        erro = causa;
+        notifyAll();
+    }
+
+    /**
+     * O handler não quer o restante do corpo: o que já chegou e o que ainda vier é jogado fora.
+     */
+    synchronized void descartar() {
+        descartando = true;
+        blocos.clear();
+        posicaoPrimeiro = 0;
+        disponivel = 0;
+        if (pausado) {
+            pausado = false;
+            conexao.retomarCorpo();
+        }
+    }
+
+    // ========== LADO DO HANDLER ==========
+
+    @Override
+    public synchronized int read() throws IOException {
+        return read(umByte, 0, 1) < 0 ? -1 : umByte[0] & 0xff;
+    }
+
+    @Override
+    public synchronized int read(byte[] destino, int inicio, int tamanho) throws IOException {
+        if (tamanho == 0) return 0;
+        while (blocos.isEmpty()) {
+            if (descartando || terminado) return -1;
+            if (erro != null) throw erro;
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Leitura do corpo interrompida");
+            }
+        }
+        byte[] primeiro = blocos.peekFirst();
+        int lidos = Math.min(tamanho, primeiro.length - posicaoPrimeiro);
+        System.arraycopy(primeiro, posicaoPrimeiro, destino, inicio, lidos);
+        posicaoPrimeiro += lidos;
+        if (posicaoPrimeiro == primeiro.length) {
+            blocos.pollFirst();
+            posicaoPrimeiro = 0;
+        }
+        disponivel -= lidos;
+        if (pausado && disponivel < LIMITE / 2) {
+            pausado = false;
+            conexao.retomarCorpo();
+        }
+        return lidos;
+    }
+
+    @Override
+    public synchronized int available() {
+        return (int) Math.min(Integer.MAX_VALUE, disponivel);
+    }
+
+    /**
+     * Descarta o que ainda vier do corpo (como o HttpServer do JDK, que drena o restante).
+     */
+    @Override
+    public void close() {
+        descartar();
+    }
+}
@@ -0,0 +1,46 @@
+package app.http;
+
+import app.json.EscritorJson;
+import app.metricas.Metricas;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * GET /metrics: exporta as métricas no formato de texto do Prometheus.
+ * Com ?formato=json (ou Accept: application/json) responde em JSON, com percentis.
+ */
+public final class EndpointMetricas {
+
+    private EndpointMetricas() {
+    }
+
+    /**
+     * Ação de rota (Roteador.Acao) que responde com as métricas atuais.
+     * @param exchange Objeto HTTP exchange
+     * @param id Não utilizado
+     * @throws IOException Se houver erro ao enviar a resposta
+     */
+    public static void responder(HttpExchange exchange, int id) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String aceita = exchange.getRequestHeaders().getFirst("Accept");
+        boolean json = (query != null && query.contains("formato=json"))
+                || (aceita != null && aceita.contains("application/json"));
+
+        byte[] corpo;
+        if (json) {
+            EscritorJson escritor = EscritorJson.daThread();
+            Metricas.escreverJson(escritor);
+            corpo = escritor.paraArray();
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        } else {
+            StringBuilder texto = new StringBuilder(8 * 1024);
+            Metricas.escreverPrometheus(texto);
+            corpo = texto.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=UTF-8");
+        }
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        // O texto do Prometheus passa de dezenas de KB: comprime se o coletor aceitar
+        RespostaHttp.enviar(exchange, 200, corpo);
+    }
+}
@@ -0,0 +1,269 @@
+package app.http;
+
+import app.json.AlunoJson;
+import app.json.EscritorJson;
+import app.metricas.Metricas;
+import app.repository.Alteracao;
+import app.repository.RegistroAlteracoes;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GET /alunos/events: feed de alterações em Server-Sent Events.
+ *
+ * Cada cliente recebe os eventos "criado", "atualizado" e "removido" (com ID e versão
+ * do aluno, e o aluno completo nos dois primeiros), lidos do {@link RegistroAlteracoes}.
+ * O id de cada evento é "época-sequência"; ao reconectar, o navegador envia o último
+ * em Last-Event-ID e o feed continua dali.
+ *
+ * O handler só envia os cabeçalhos e entrega a conexão a uma thread própria do feed,
+ * liberando o pool HTTP. Cada cliente lê o buffer no seu ritmo, em lotes (uma escrita
+ * por lote), então não há fila por cliente e a memória não cresce com clientes lentos:
+ * - quem fica mais de "capacidade" alterações para trás recebe o evento "reset"
+ *   (deve recarregar a lista) e é desconectado
+ * - quem fica parado numa escrita por mais de alunos.eventos.limiteEscritaMs é
+ *   desconectado (a thread é interrompida, o que fecha o socket)
+ * - acima de alunos.eventos.clientes conexões, novos clientes recebem 503
+ *
+ * Sem alterações, um comentário é enviado a cada 15 segundos para detectar conexões mortas.
+ * Uma única thread de vigia atende todos os feeds abertos; close() retira o feed da vigia
+ * e desconecta os clientes.
+ */
+public final class EventosAlunos implements AutoCloseable {
+    private static final int MAXIMO_CLIENTES = Integer.getInteger("alunos.eventos.clientes", 256);
+    private static final long LIMITE_ESCRITA_MS = Long.getLong("alunos.eventos.limiteEscritaMs", 10_000);
+    private static final long PULSO_SEGUNDOS = 15;
+    // Alterações lidas do buffer por vez (e enviadas numa única escrita)
+    private static final int LOTE = 256;
+
+    private static final byte[] PULSO = ascii(": pulso\n\n");
+    private static final byte[] RECONEXAO = ascii("retry: 2000\n\n");
+    private static final byte[] CORPO_503 = ascii("{\"erro\":\"Limite de clientes do feed atingido\"}");
+
+    private static final LongAdder DESCARTADOS = Metricas.contador("eventos_clientes_descartados");
+
+    // Feeds abertos, verificados a cada segundo pela vigia compartilhada
+    private static final Set<EventosAlunos> ABERTOS = ConcurrentHashMap.newKeySet();
+    private static final ScheduledExecutorService VIGIA = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "eventos-vigia");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        VIGIA.scheduleWithFixedDelay(() -> ABERTOS.forEach(EventosAlunos::descartarTravados),
+                1, 1, TimeUnit.SECONDS);
+    }
+
+    private final RegistroAlteracoes alteracoes;
+    private final Set<Cliente> clientes = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger conectados = new AtomicInteger();
+    private final AtomicInteger numeroThread = new AtomicInteger();
+    private final ExecutorService threads = Executors.newCachedThreadPool(tarefa -> {
+        Thread thread = new Thread(tarefa, "eventos-" + numeroThread.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param alteracoes Buffer de alterações do repositório
+     */
+    public EventosAlunos(RegistroAlteracoes alteracoes) {
+        this.alteracoes = alteracoes;
+        Metricas.medidor("eventos_clientes", conectados::get);
+        ABERTOS.add(this);
+    }
+
+    /**
+     * Retira o feed da vigia e desconecta os clientes conectados.
+     */
+    @Override
+    public void close() {
+        ABERTOS.remove(this);
+        clientes.forEach(Cliente::descartar);
+        threads.shutdown();
+    }
+
+    /**
+     * Ação de rota (Roteador.Acao) que abre o feed para o cliente.
+     * @param exchange Objeto HTTP exchange
+     * @param id Não utilizado
+     * @throws IOException Se houver erro ao enviar os cabeçalhos
+     */
+    public void responder(HttpExchange exchange, int id) throws IOException {
+        if (RespostaHttp.cabeca(exchange)) {
+            // HEAD não abre o feed: só os cabeçalhos que o GET enviaria
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=UTF-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        if (conectados.incrementAndGet() > MAXIMO_CLIENTES) {
+            conectados.decrementAndGet();
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.getResponseHeaders().set("Retry-After", "5");
+            RespostaHttp.enviar(exchange, 503, CORPO_503);
+            return;
+        }
+        try {
+            Cliente cliente = new Cliente(exchange, posicaoInicial(exchange.getRequestHeaders().getFirst("Last-Event-ID")));
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=UTF-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0); // 0 = sem tamanho (chunked)
+            clientes.add(cliente);
+            threads.execute(cliente);
+        } catch (IOException | RuntimeException e) {
+            conectados.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Sequência a partir da qual o cliente deve receber eventos: a do Last-Event-ID
+     * (se for desta instância), ou a atual para quem está conectando pela primeira vez.
+     * @param ultimo Cabeçalho Last-Event-ID enviado pelo cliente, ou null
+     * @return Última sequência já recebida, ou -1 se o cliente precisa recarregar tudo
+     */
+    long posicaoInicial(String ultimo) {
+        long atual = alteracoes.ultimaSequencia();
+        if (ultimo == null || ultimo.isBlank()) return atual;
+        int traco = ultimo.lastIndexOf('-');
+        if (traco < 0 || !ultimo.substring(0, traco).equals(alteracoes.epoca())) return -1;
+        try {
+            long sequencia = Long.parseLong(ultimo.substring(traco + 1).trim());
+            return sequencia <= atual ? sequencia : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Desconecta os clientes parados numa escrita há mais tempo que o limite.
+     */
+    private void descartarTravados() {
+        long agora = System.nanoTime();
+        for (Cliente cliente : clientes) {
+            long desde = cliente.escrevendoDesde;
+            if (desde != 0 && agora - desde > TimeUnit.MILLISECONDS.toNanos(LIMITE_ESCRITA_MS)) {
+                cliente.descartar();
+            }
+        }
+    }
+
+    /**
+     * Conexão de um cliente, atendida por uma thread do feed até desconectar.
+     */
+    private final class Cliente implements Runnable {
+        private final HttpExchange exchange;
+        private long apos;
+        private volatile Thread thread;
+        // Início da escrita em andamento (System.nanoTime) ou 0 fora de uma escrita
+        private volatile long escrevendoDesde;
+        private volatile boolean descartado;
+
+        Cliente(HttpExchange exchange, long apos) {
+            this.exchange = exchange;
+            this.apos = apos;
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            EscritorJson buffer = new EscritorJson();
+            Alteracao[] lote = new Alteracao[LOTE];
+            try (OutputStream os = exchange.getResponseBody()) {
+                buffer.escreverBytes(RECONEXAO);
+                if (apos < 0) {
+                    // Last-Event-ID antigo demais ou de outra instância
+                    apos = alteracoes.ultimaSequencia();
+                    escreverReset(buffer);
+                }
+                enviar(os, buffer);
+
+                while (!descartado) {
+                    int lidas = alteracoes.ler(apos, lote);
+                    if (lidas == RegistroAlteracoes.PERDIDO) {
+                        // Ficou para trás mais que a capacidade do buffer: descarta o cliente
+                        apos = alteracoes.ultimaSequencia();
+                        escreverReset(buffer);
+                        enviar(os, buffer);
+                        DESCARTADOS.increment();
+                        return;
+                    }
+                    if (lidas > 0) {
+                        for (int i = 0; i < lidas; i++) {
+                            escreverEvento(buffer, lote[i]);
+                        }
+                        apos = lote[lidas - 1].sequencia();
+                        enviar(os, buffer);
+                    } else if (!alteracoes.aguardar(apos, PULSO_SEGUNDOS, TimeUnit.SECONDS)) {
+                        buffer.escreverBytes(PULSO);
+                        enviar(os, buffer);
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // Cliente desconectou (ou foi descartado pela vigia)
+            } finally {
+                clientes.remove(this);
+                conectados.decrementAndGet();
+                exchange.close();
+            }
+        }
+
+        private void enviar(OutputStream os, EscritorJson buffer) throws IOException {
+            escrevendoDesde = System.nanoTime();
+            try {
+                buffer.escreverEm(os);
+                os.flush();
+            } finally {
+                escrevendoDesde = 0;
+                buffer.limpar();
+            }
+        }
+
+        private void escreverEvento(EscritorJson buffer, Alteracao alteracao) {
+            buffer.escreverBruto("id: ").escreverBruto(alteracoes.epoca()).escreverByte('-')
+                  .escreverLong(alteracao.sequencia())
+                  .escreverBruto("\nevent: ").escreverBruto(alteracao.tipo().evento())
+                  .escreverBruto("\ndata: {\"id\":").escreverInt(alteracao.id())
+                  .escreverBruto(",\"versao\":").escreverLong(alteracao.versao());
+            if (alteracao.aluno() != null) {
+                buffer.escreverBruto(",\"aluno\":");
+                AlunoJson.escrever(buffer, alteracao.aluno());
+            }
+            buffer.escreverBruto("}\n\n");
+        }
+
+        private void escreverReset(EscritorJson buffer) {
+            buffer.escreverBruto("id: ").escreverBruto(alteracoes.epoca()).escreverByte('-').escreverLong(apos)
+                  .escreverBruto("\nevent: reset\ndata: {}\n\n");
+        }
+
+        /**
+         * Interrompe a thread do cliente: uma escrita bloqueada no socket é abortada
+         * e o canal é fechado.
+         */
+        void descartar() {
+            if (descartado) return;
+            descartado = true;
+            DESCARTADOS.increment();
+            Thread atual = thread;
+            if (atual != null) atual.interrupt();
+        }
+    }
+
+    private static byte[] ascii(String texto) {
+        return texto.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,158 @@
+package app.http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Modelo de execução configurável para os motores HTTP ({@link MotorHttp}).
+ *
+ * Sem executor, o HttpServer atende todas as requisições na sua única thread de
+ * despacho (no motor nio, em uma única thread separada dos laços). Aqui é possível escolher (via propriedades de sistema):
+ * - pool (padrão): pool limitado de threads de plataforma com fila limitada; quando
+ *   a fila enche, a requisição recebe 503 com Retry-After, sem ocupar o pool
+ * - virtual: uma virtual thread por requisição (JDK 21+; em JDKs anteriores usa o pool)
+ * - despachante: comportamento antigo, tudo na thread de despacho
+ *
+ * No pool, o tempo que cada requisição esperou na fila fica disponível em
+ * {@link #esperaNaFila()} (usado pelo {@link ControleAdmissao} para descartar
+ * requisições que já esperaram demais).
+ *
+ * Propriedades: -Dalunos.http.executor, -Dalunos.http.threads, -Dalunos.http.fila,
+ * -Dalunos.http.backlog (fila de conexões pendentes do socket; 0 = padrão do sistema).
+ */
+public final class ExecutorHttp {
+    // Marca as requisições rejeitadas pelo pool (executadas na thread de despacho)
+    private static final ThreadLocal<Boolean> REJEITADA = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    // Instante (System.nanoTime) em que a tarefa em execução entrou na fila do pool; 0 = desconhecido
+    private static final ThreadLocal<long[]> ENFILEIRADA_EM = ThreadLocal.withInitial(() -> new long[1]);
+
+    private static final byte[] CORPO_503 =
+            "{\"erro\":\"Servidor sobrecarregado, tente novamente\"}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Filtro que responde 503 às requisições rejeitadas pelo pool.
+     * Deve ser adicionado a todos os contextos do servidor.
+     */
+    public static final Filter FILTRO_SOBRECARGA = new Filter() {
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            if (!REJEITADA.get()) {
+                chain.doFilter(exchange);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            RespostaHttp.enviar(exchange, 503, CORPO_503);
+        }
+
+        @Override
+        public String description() {
+            return "Responde 503 quando o pool de threads está cheio";
+        }
+    };
+
+    private ExecutorHttp() {
+    }
+
+    /**
+     * @return Nanossegundos que a requisição atual esperou na fila do pool
+     *         (0 fora do pool ou em outros modos de execução)
+     */
+    public static long esperaNaFila() {
+        long desde = ENFILEIRADA_EM.get()[0];
+        return desde == 0 ? 0 : System.nanoTime() - desde;
+    }
+
+    /**
+     * @return Tamanho da fila de conexões pendentes para HttpServer.create
+     */
+    public static int backlog() {
+        return Integer.getInteger("alunos.http.backlog", 0);
+    }
+
+    /**
+     * Cria o executor conforme -Dalunos.http.executor.
+     * @return Executor para HttpServer.setExecutor (null = thread de despacho)
+     */
+    public static Executor criar() {
+        String modo = System.getProperty("alunos.http.executor", "pool");
+        return switch (modo) {
+            case "pool" -> criarPool();
+            case "virtual" -> criarVirtual();
+            case "despachante" -> null;
+            default -> throw new IllegalArgumentException("Modo de executor desconhecido: " + modo);
+        };
+    }
+
+    /**
+     * Pool limitado de threads de plataforma. Quando todas as threads estão ocupadas
+     * e a fila está cheia, a tarefa roda na própria thread de despacho, mas marcada
+     * como rejeitada: o FILTRO_SOBRECARGA responde 503 sem executar o handler.
+     */
+    private static ExecutorService criarPool() {
+        int processadores = Runtime.getRuntime().availableProcessors();
+        int threads = Integer.getInteger("alunos.http.threads", Math.max(4, processadores * 2));
+        int fila = Integer.getInteger("alunos.http.fila", 1000);
+        RejectedExecutionHandler responder503 = (tarefa, executor) -> {
+            REJEITADA.set(Boolean.TRUE);
+            try {
+                tarefa.run();
+            } finally {
+                REJEITADA.set(Boolean.FALSE);
+            }
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(fila), fabricaDeThreads(), responder503) {
+            @Override
+            public void execute(Runnable tarefa) {
+                // Registra quando a tarefa entrou na fila (lido por esperaNaFila())
+                long enfileirada = System.nanoTime();
+                super.execute(() -> {
+                    long[] inicio = ENFILEIRADA_EM.get();
+                    inicio[0] = enfileirada;
+                    try {
+                        tarefa.run();
+                    } finally {
+                        inicio[0] = 0;
+                    }
+                });
+            }
+        };
+        pool.prestartAllCoreThreads();
+        return pool;
+    }
+
+    /**
+     * Uma virtual thread por requisição. Usa reflexão porque o projeto compila para o
+     * Java 17; em JDKs sem virtual threads cai para o pool limitado.
+     */
+    private static ExecutorService criarVirtual() {
+        try {
+            Method fabrica = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Aviso: virtual threads indisponíveis neste JDK, usando pool de threads");
+            return criarPool();
+        }
+    }
+
+    private static ThreadFactory fabricaDeThreads() {
+        AtomicInteger contador = new AtomicInteger();
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, "http-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package app.http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Servidor HTTP que atende as requisições com um HttpHandler e uma cadeia de filtros.
+ *
+ * O handler e os filtros são as interfaces do com.sun.net.httpserver, então o mesmo
+ * {@link Roteador} (API, métricas, administração e arquivos estáticos) roda sobre
+ * qualquer motor:
+ * - jdk (padrão): com.sun.net.httpserver.HttpServer
+ * - nio: {@link MotorNio}, laço de eventos próprio sobre seletores java.nio, com
+ *   pipelining HTTP/1.1, buffers diretos reaproveitados e envio sem cópia
+ */
+public interface MotorHttp {
+
+    /**
+     * Cria o motor escolhido por -Dalunos.http.motor=jdk ou nio, com o executor de
+     * {@link ExecutorHttp#criar()}.
+     * @param endereco Endereço e porta em que o servidor escuta
+     * @param handler Handler de todas as requisições
+     * @param filtros Filtros aplicados antes do handler, em ordem
+     * @return Motor pronto para iniciar
+     * @throws IOException Se a porta não puder ser aberta
+     */
+    static MotorHttp daConfiguracao(InetSocketAddress endereco, HttpHandler handler, List<Filter> filtros)
+            throws IOException {
+        return criar(System.getProperty("alunos.http.motor", "jdk"), endereco, handler, filtros, ExecutorHttp.criar());
+    }
+
+    /**
+     * @param motor "jdk" ou "nio"
+     * @param endereco Endereço e porta em que o servidor escuta (porta 0 = qualquer uma livre)
+     * @param handler Handler de todas as requisições
+     * @param filtros Filtros aplicados antes do handler, em ordem
+     * @param executor Executor das requisições (null = thread de despacho, só no jdk)
+     * @return Motor pronto para iniciar
+     * @throws IOException Se a porta não puder ser aberta
+     */
+    static MotorHttp criar(String motor, InetSocketAddress endereco, HttpHandler handler, List<Filter> filtros,
+                           Executor executor) throws IOException {
+        return switch (motor) {
+            case "jdk" -> new MotorJdk(endereco, handler, filtros, executor);
+            case "nio" -> new MotorNio(endereco, handler, filtros, executor);
+            default -> throw new IllegalArgumentException("Motor HTTP desconhecido: " + motor);
+        };
+    }
+
+    /**
+     * Começa a aceitar conexões.
+     */
+    void iniciar();
+
+    /**
+     * Para de aceitar conexões e fecha as existentes.
+     * @param segundos Tempo máximo de espera pelas requisições em andamento
+     */
+    void parar(int segundos);
+
+    /**
+     * @return Endereço em que o servidor está escutando (com a porta real, se foi 0)
+     */
+    InetSocketAddress endereco();
+}
@@ -0,0 +1,40 @@
+package app.http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Motor sobre o com.sun.net.httpserver.HttpServer do JDK, com um único contexto "/".
+ */
+final class MotorJdk implements MotorHttp {
+    private final HttpServer servidor;
+
+    MotorJdk(InetSocketAddress endereco, HttpHandler handler, List<Filter> filtros, Executor executor)
+            throws IOException {
+        servidor = HttpServer.create(endereco, ExecutorHttp.backlog());
+        HttpContext raiz = servidor.createContext("/", handler);
+        raiz.getFilters().addAll(filtros);
+        servidor.setExecutor(executor);
+    }
+
+    @Override
+    public void iniciar() {
+        servidor.start();
+    }
+
+    @Override
+    public void parar(int segundos) {
+        servidor.stop(segundos);
+    }
+
+    @Override
+    public InetSocketAddress endereco() {
+        return servidor.getAddress();
+    }
+}
@@ -0,0 +1,322 @@
+package app.http;
+
+import app.metricas.Metricas;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Motor HTTP/1.1 próprio, com laços de eventos sobre seletores java.nio.
+ *
+ * Uma thread aceita as conexões e as distribui em rodízio entre os laços; cada laço é uma
+ * thread com um Selector que lê, interpreta os cabeçalhos e escreve nos sockets sem
+ * bloquear. Os handlers continuam rodando no executor (o mesmo do motor jdk, ver
+ * {@link ExecutorHttp}), com uma {@link TrocaNio} no lugar da exchange do JDK.
+ *
+ * Diferenças em relação ao HttpServer do JDK:
+ * - pipelining: requisições enviadas em sequência na mesma conexão ficam guardadas e são
+ *   atendidas uma de cada vez, na ordem, sem esperar a próxima leitura do socket
+ * - cabeçalhos e corpo da resposta vão para buffers diretos reaproveitados
+ *   ({@link PoolBuffers}): uma resposta pequena sai em uma única escrita
+ * - envio sem cópia ({@link SaidaDireta}): conteúdo imutável (os arquivos estáticos em
+ *   memória) vai para o socket sem ser copiado e arquivos grandes saem por transferTo
+ * - uma conexão ociosa custa só o seu estado (nenhum buffer nem thread)
+ *
+ * Propriedades: -Dalunos.http.nio.lacos (padrão: processadores), -Dalunos.http.nio.buffer
+ * (bytes por buffer; limita o tamanho dos cabeçalhos da requisição), -Dalunos.http.nio.retidos
+ * (buffers guardados na lista livre), -Dalunos.http.nio.ociosoMs (tempo até fechar uma conexão
+ * sem requisição em andamento, ou parada no meio de uma requisição).
+ */
+final class MotorNio implements MotorHttp {
+    private static final LongAdder CONEXOES_ACEITAS = Metricas.contador("http_nio_conexoes_aceitas");
+    private static final AtomicInteger CONEXOES_ABERTAS = new AtomicInteger();
+
+    static {
+        Metricas.medidor("http_nio_conexoes_abertas", CONEXOES_ABERTAS::get);
+    }
+
+    private final ServerSocketChannel servidor;
+    private final Laco[] lacos;
+    private final HttpHandler handler;
+    private final List<Filter> filtros;
+    private final Executor executor;
+    private final PoolBuffers buffers;
+    private final long ociosoNanos;
+    // Trocas em andamento (parar() espera por elas)
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private volatile boolean parado;
+    private int proximoLaco;
+
+    /**
+     * @param endereco Endereço e porta em que o servidor escuta
+     * @param handler Handler de todas as requisições
+     * @param filtros Filtros aplicados antes do handler, em ordem
+     * @param executor Executor das requisições (null = uma única thread para todas)
+     * @throws IOException Se a porta não puder ser aberta
+     */
+    MotorNio(InetSocketAddress endereco, HttpHandler handler, List<Filter> filtros, Executor executor)
+            throws IOException {
+        this.handler = handler;
+        this.filtros = List.copyOf(filtros);
+        // No modo "despachante" os handlers rodam em série, mas nunca no laço: um handler
+        // lendo o corpo da requisição esperaria pelo próprio laço que o recebe
+        this.executor = executor != null ? executor : Executors.newSingleThreadExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "http-despachante");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.buffers = new PoolBuffers(Integer.getInteger("alunos.http.nio.buffer", 16 * 1024),
+                Integer.getInteger("alunos.http.nio.retidos", 1024));
+        this.ociosoNanos = Long.getLong("alunos.http.nio.ociosoMs", 30_000) * 1_000_000;
+        int quantidade = Integer.getInteger("alunos.http.nio.lacos", Runtime.getRuntime().availableProcessors());
+        this.lacos = new Laco[Math.max(1, quantidade)];
+        for (int i = 0; i < lacos.length; i++) {
+            lacos[i] = new Laco(i);
+        }
+        servidor = ServerSocketChannel.open();
+        servidor.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        servidor.bind(endereco, ExecutorHttp.backlog());
+    }
+
+    @Override
+    public void iniciar() {
+        for (Laco laco : lacos) {
+            laco.thread.start();
+        }
+        Thread aceitador = new Thread(this::aceitar, "http-nio-aceitador");
+        aceitador.setDaemon(true);
+        aceitador.start();
+    }
+
+    @Override
+    public void parar(int segundos) {
+        parado = true;
+        try {
+            servidor.close();
+        } catch (IOException e) {
+            // Já fechado
+        }
+        long limite = System.nanoTime() + segundos * 1_000_000_000L;
+        while (emAndamento.get() > 0 && System.nanoTime() < limite) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Laco laco : lacos) {
+            laco.seletor.wakeup();
+        }
+    }
+
+    @Override
+    public InetSocketAddress endereco() {
+        try {
+            return (InetSocketAddress) servidor.getLocalAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // ========== ACEITAÇÃO ==========
+
+    /**
+     * Aceita conexões (bloqueando) e entrega cada uma ao próximo laço.
+     */
+    private void aceitar() {
+        while (!parado) {
+            SocketChannel canal;
+            try {
+                canal = servidor.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                // Ex: limite de arquivos abertos; espera um pouco em vez de girar no erro
+                System.err.println("Motor nio: falha ao aceitar conexão (" + e + ")");
+                dormir(100);
+                continue;
+            }
+            try {
+                canal.configureBlocking(false);
+                canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException e) {
+                fecharSilenciosamente(canal);
+                continue;
+            }
+            CONEXOES_ACEITAS.increment();
+            Laco laco = lacos[proximoLaco];
+            proximoLaco = (proximoLaco + 1) % lacos.length;
+            laco.executar(() -> laco.registrar(canal));
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static void fecharSilenciosamente(SocketChannel canal) {
+        try {
+            canal.close();
+        } catch (IOException e) {
+            // Já fechado
+        }
+    }
+
+    // ========== LAÇO DE EVENTOS ==========
+
+    /**
+     * Thread com um Selector. Todo o estado de leitura das conexões (e o fechamento delas)
+     * é alterado só aqui; as outras threads pedem trabalho por executar().
+     */
+    final class Laco implements Runnable {
+        final Thread thread;
+        final Selector seletor;
+        private final Queue<Runnable> tarefas = new ConcurrentLinkedQueue<>();
+        // true = já foi pedido um wakeup() que o laço ainda não consumiu
+        private final AtomicBoolean acordado = new AtomicBoolean();
+        // Buffer de leitura compartilhado pelas conexões deste laço
+        private ByteBuffer leitura;
+        private long ultimaVarredura = System.nanoTime();
+
+        Laco(int indice) throws IOException {
+            seletor = Selector.open();
+            // Não é daemon (como a thread de despacho do HttpServer): mantém o processo vivo até parar()
+            thread = new Thread(this, "http-nio-" + indice);
+        }
+
+        /**
+         * Executa a tarefa na thread do laço (imediatamente, se já estiver nela).
+         */
+        void executar(Runnable tarefa) {
+            if (Thread.currentThread() == thread) {
+                tarefa.run();
+                return;
+            }
+            tarefas.add(tarefa);
+            if (acordado.compareAndSet(false, true)) seletor.wakeup();
+        }
+
+        /**
+         * Executa a tarefa na thread do laço, sempre depois do evento que está sendo tratado
+         * (nunca reentrando nele, mesmo se chamado no próprio laço).
+         */
+        void agendar(Runnable tarefa) {
+            tarefas.add(tarefa);
+            if (Thread.currentThread() != thread && acordado.compareAndSet(false, true)) seletor.wakeup();
+        }
+
+        boolean noLaco() {
+            return Thread.currentThread() == thread;
+        }
+
+        void registrar(SocketChannel canal) {
+            try {
+                ConexaoNio conexao = new ConexaoNio(MotorNio.this, this, canal);
+                conexao.chave = canal.register(seletor, SelectionKey.OP_READ, conexao);
+                CONEXOES_ABERTAS.incrementAndGet();
+            } catch (IOException e) {
+                fecharSilenciosamente(canal);
+            }
+        }
+
+        @Override
+        public void run() {
+            leitura = buffers.obter();
+            while (!parado) {
+                try {
+                    // Com tarefas agendadas pelo próprio laço, só consulta o que já está pronto
+                    if (tarefas.isEmpty()) {
+                        seletor.select(1000);
+                    } else {
+                        seletor.selectNow();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Motor nio: falha no seletor (" + e + ")");
+                    break;
+                }
+                acordado.set(false);
+                for (Runnable tarefa = tarefas.poll(); tarefa != null; tarefa = tarefas.poll()) {
+                    tarefa.run();
+                }
+                Iterator<SelectionKey> prontas = seletor.selectedKeys().iterator();
+                while (prontas.hasNext()) {
+                    SelectionKey chave = prontas.next();
+                    prontas.remove();
+                    ConexaoNio conexao = (ConexaoNio) chave.attachment();
+                    if (!chave.isValid()) continue;
+                    if (chave.isWritable()) conexao.aoPoderEscrever();
+                    if (chave.isValid() && chave.isReadable()) conexao.aoPoderLer(leitura);
+                }
+                long agora = System.nanoTime();
+                if (agora - ultimaVarredura >= 1_000_000_000L) {
+                    ultimaVarredura = agora;
+                    fecharOciosas(agora);
+                }
+            }
+            for (SelectionKey chave : seletor.keys()) {
+                ((ConexaoNio) chave.attachment()).fechar();
+            }
+            try {
+                seletor.close();
+            } catch (IOException e) {
+                // Encerrando
+            }
+        }
+
+        private void fecharOciosas(long agora) {
+            for (SelectionKey chave : seletor.keys()) {
+                ConexaoNio conexao = (ConexaoNio) chave.attachment();
+                if (conexao.ociosa(agora, ociosoNanos)) conexao.fechar();
+            }
+        }
+    }
+
+    // ========== USADO PELAS CONEXÕES ==========
+
+    PoolBuffers buffers() {
+        return buffers;
+    }
+
+    /**
+     * Executa a cadeia de filtros e o handler no executor.
+     */
+    void despachar(TrocaNio troca) {
+        emAndamento.incrementAndGet();
+        try {
+            executor.execute(() -> troca.executar(filtros, handler));
+        } catch (RuntimeException e) {
+            // Executor encerrado
+            troca.conexao().fechar();
+        }
+    }
+
+    void trocaConcluida() {
+        emAndamento.decrementAndGet();
+    }
+
+    void conexaoFechada() {
+        CONEXOES_ABERTAS.decrementAndGet();
+    }
+}
@@ -0,0 +1,35 @@
+package app.http;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Leitura dos parâmetros da query string (ex: "q=ana&limit=20"), usada pela API e pelas
+ * rotas de administração.
+ */
+public final class ParametrosConsulta {
+
+    private ParametrosConsulta() {
+    }
+
+    /**
+     * Decodifica os pares chave=valor (em UTF-8). Parâmetros sem "=" ficam com valor vazio;
+     * com a chave repetida, vale a última.
+     * @param query Query string ainda codificada (URI.getRawQuery()), ou null
+     * @return Parâmetros decodificados (vazio se não houver query)
+     */
+    public static Map<String, String> extrair(String query) {
+        Map<String, String> parametros = new HashMap<>();
+        if (query == null || query.isEmpty()) return parametros;
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            String chave = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(chave, StandardCharsets.UTF_8),
+                           URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+}
@@ -0,0 +1,72 @@
+package app.http;
+
+import app.metricas.Metricas;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers diretos de tamanho fixo reaproveitados entre conexões do {@link MotorNio}.
+ *
+ * Um buffer direto é escrito no socket sem a cópia extra que a JVM faz com buffers do
+ * heap, mas é caro de alocar e só é liberado pelo GC. Por isso os buffers são fatiados
+ * de blocos de LOTE buffers e devolvidos à lista livre depois de enviados. A lista guarda
+ * no máximo "retidos" buffers; os demais ficam para o GC (o bloco é liberado quando todas
+ * as suas fatias deixam de ser usadas).
+ */
+final class PoolBuffers {
+    private static final int LOTE = 64;
+
+    private static final LongAdder CRIADOS = Metricas.contador("http_nio_buffers_criados");
+
+    private final int tamanho;
+    private final int retidos;
+    private final ConcurrentLinkedQueue<ByteBuffer> livres = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger quantidadeLivres = new AtomicInteger();
+
+    /**
+     * @param tamanho Capacidade de cada buffer em bytes
+     * @param retidos Máximo de buffers guardados na lista livre
+     */
+    PoolBuffers(int tamanho, int retidos) {
+        this.tamanho = tamanho;
+        this.retidos = retidos;
+        Metricas.medidor("http_nio_buffers_livres", quantidadeLivres::get);
+    }
+
+    /**
+     * @return Capacidade de cada buffer em bytes
+     */
+    int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * @return Buffer vazio (posição 0, limite = capacidade)
+     */
+    ByteBuffer obter() {
+        ByteBuffer buffer = livres.poll();
+        if (buffer != null) {
+            quantidadeLivres.decrementAndGet();
+            return buffer.clear();
+        }
+        // Lista vazia: aloca um bloco novo, fica com a primeira fatia e guarda as outras
+        ByteBuffer bloco = ByteBuffer.allocateDirect(tamanho * LOTE);
+        CRIADOS.add(LOTE);
+        for (int i = 1; i < LOTE; i++) {
+            devolver(bloco.slice(i * tamanho, tamanho));
+        }
+        return bloco.slice(0, tamanho);
+    }
+
+    /**
+     * Devolve um buffer obtido em obter(). Ele não pode mais ser usado por quem devolveu.
+     * @param buffer Buffer a reaproveitar
+     */
+    void devolver(ByteBuffer buffer) {
+        if (quantidadeLivres.get() >= retidos) return;
+        quantidadeLivres.incrementAndGet();
+        livres.add(buffer);
+    }
+}
@@ -0,0 +1,455 @@
+package app.http;
+
+import app.json.EscritorJson;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Envio das respostas da API: compressão negociada e ciclo de vida da exchange.
+ *
+ * Compressão:
+ * - gzip ou deflate conforme o Accept-Encoding (gzip tem preferência; "q=0" recusa)
+ * - só para JSON e texto (nunca text/event-stream) e a partir de um tamanho mínimo:
+ *   respostas pequenas custariam CPU para economizar quase nada (ou até crescer)
+ * - listas em streaming são comprimidas enquanto são escritas, sem montar o corpo em memória
+ * - Deflaters e buffers de saída são reutilizados de um pool limitado (não por thread:
+ *   com threads virtuais cada requisição teria os seus); os que sobram são encerrados
+ * - com compressão a ETag passa a ser fraca (W/), pois os bytes enviados mudam com a codificação
+ *
+ * Ciclo de vida (para a conexão HTTP/1.1 continuar reutilizável):
+ * - corpo vazio é enviado com tamanho -1 (com 0 o servidor usaria chunked)
+ * - em HEAD só os cabeçalhos são enviados (com o Content-Length do corpo sem compressão,
+ *   quando conhecido), então as ações de GET atendem HEAD sem mudanças
+ * - o stream de resposta é sempre fechado, o que encerra a exchange
+ * - em respostas de erro, o corpo da requisição que o handler não leu é descartado;
+ *   sem isso o servidor fecha a conexão quando sobra mais do que ele mesmo descarta (64 KB)
+ *
+ * Propriedades: -Dalunos.http.compressao (false desliga), -Dalunos.http.compressao.minimo
+ * (bytes), -Dalunos.http.compressao.nivel (1 a 9), -Dalunos.http.compressao.pool (compressores
+ * mantidos para reuso), -Dalunos.http.descarteMaximo (bytes).
+ */
+public final class RespostaHttp {
+    private static final boolean COMPRESSAO = !"false".equals(System.getProperty("alunos.http.compressao"));
+    private static final int TAMANHO_MINIMO = Integer.getInteger("alunos.http.compressao.minimo", 1024);
+    private static final int NIVEL = Integer.getInteger("alunos.http.compressao.nivel", 4);
+    // Corpo de requisição descartado antes de responder um erro; acima disso a conexão é fechada
+    private static final long DESCARTE_MAXIMO = Long.getLong("alunos.http.descarteMaximo", 1024 * 1024);
+    // Buffers de saída maiores que isso não ficam retidos pela thread
+    private static final int CAPACIDADE_RETIDA = 1024 * 1024;
+
+    // Destino dos bytes descartados (o conteúdo nunca é lido, então pode ser compartilhado)
+    private static final byte[] DESCARTE = new byte[8 * 1024];
+
+    // Compressores livres; acima da capacidade, os devolvidos são encerrados (liberando a memória nativa)
+    private static final BlockingQueue<Compressor> COMPRESSORES = new ArrayBlockingQueue<>(Math.max(1,
+            Integer.getInteger("alunos.http.compressao.pool", 2 * Runtime.getRuntime().availableProcessors())));
+
+    /**
+     * Codificações de conteúdo suportadas.
+     */
+    public enum Codificacao {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String nome;
+
+        Codificacao(String nome) {
+            this.nome = nome;
+        }
+
+        /**
+         * @return Valor do cabeçalho Content-Encoding
+         */
+        public String nome() {
+            return nome;
+        }
+    }
+
+    /**
+     * Conteúdo já pronto para ser copiado para um stream.
+     */
+    @FunctionalInterface
+    private interface Conteudo {
+        void escreverEm(OutputStream os) throws IOException;
+    }
+
+    private RespostaHttp() {
+    }
+
+    // ========== ENVIO ==========
+
+    /**
+     * Envia o corpo, comprimido se o cliente aceitar e compensar, e encerra a exchange.
+     * O Content-Type deve estar definido nos cabeçalhos da resposta.
+     * @param exchange Objeto HTTP exchange
+     * @param status Código de status HTTP
+     * @param corpo Corpo da resposta
+     * @throws IOException Se houver erro ao enviar a resposta
+     */
+    public static void enviar(HttpExchange exchange, int status, EscritorJson corpo) throws IOException {
+        enviar(exchange, status, corpo.tamanho(), corpo::escreverEm);
+    }
+
+    /**
+     * Envia o corpo, comprimido se o cliente aceitar e compensar, e encerra a exchange.
+     * O Content-Type deve estar definido nos cabeçalhos da resposta.
+     * @param exchange Objeto HTTP exchange
+     * @param status Código de status HTTP
+     * @param corpo Corpo da resposta
+     * @throws IOException Se houver erro ao enviar a resposta
+     */
+    public static void enviar(HttpExchange exchange, int status, byte[] corpo) throws IOException {
+        enviar(exchange, status, corpo.length, os -> os.write(corpo));
+    }
+
+    private static void enviar(HttpExchange exchange, int status, int tamanho, Conteudo conteudo) throws IOException {
+        if (status >= 400) descartarCorpo(exchange);
+        if (cabeca(exchange)) {
+            // O Content-Length descreve o corpo que o GET enviaria; passar o tamanho em
+            // sendResponseHeaders faria o servidor esperar esses bytes
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(tamanho));
+            exchange.sendResponseHeaders(status, -1);
+            exchange.getResponseBody().close();
+            return;
+        }
+        Codificacao codificacao = negociar(exchange);
+        if (codificacao != null && tamanho >= TAMANHO_MINIMO) {
+            Compressor compressor = emprestar();
+            try {
+                Buffer comprimido = compressor.comprimir(codificacao, conteudo);
+                if (comprimido.size() < tamanho) {
+                    marcarCodificacao(exchange, codificacao);
+                    exchange.sendResponseHeaders(status, comprimido.size());
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        comprimido.writeTo(os);
+                    }
+                    return;
+                }
+            } finally {
+                devolver(compressor);
+            }
+        }
+        // -1 indica corpo vazio; com 0 o servidor usaria chunked
+        exchange.sendResponseHeaders(status, tamanho == 0 ? -1 : tamanho);
+        try (OutputStream os = exchange.getResponseBody()) {
+            conteudo.escreverEm(os);
+        }
+    }
+
+    /**
+     * Envia os cabeçalhos de uma resposta de tamanho desconhecido (chunked) e devolve o
+     * stream do corpo, que comprime enquanto é escrito se o cliente aceitar.
+     * Fechar o stream encerra a exchange.
+     * @param exchange Objeto HTTP exchange
+     * @param status Código de status HTTP
+     * @return Stream do corpo da resposta
+     * @throws IOException Se houver erro ao enviar os cabeçalhos
+     */
+    public static OutputStream transmitir(HttpExchange exchange, int status) throws IOException {
+        if (cabeca(exchange)) {
+            // Só os cabeçalhos: o que o chamador escrever é descartado
+            exchange.sendResponseHeaders(status, -1);
+            return new SaidaDescartada(exchange.getResponseBody());
+        }
+        Codificacao codificacao = negociar(exchange);
+        if (codificacao != null) marcarCodificacao(exchange, codificacao);
+        exchange.sendResponseHeaders(status, 0); // 0 = tamanho desconhecido (chunked)
+        OutputStream corpo = exchange.getResponseBody();
+        if (codificacao == null) return corpo;
+        // O compressor volta ao pool quando o stream é fechado
+        Compressor compressor = emprestar();
+        return new SaidaComprimida(corpo, compressor.deflater(codificacao), codificacao == Codificacao.GZIP, compressor);
+    }
+
+    /**
+     * Abandona um stream de transmitir() depois de uma falha no meio do corpo: não escreve
+     * o rodapé gzip nem fecha o stream (o que terminaria o chunked normalmente e faria
+     * um corpo truncado parecer completo), só devolve o compressor ao pool. O chamador
+     * deve deixar a exceção escapar, para o servidor derrubar a conexão.
+     * @param os Stream devolvido por transmitir()
+     */
+    public static void abortar(OutputStream os) {
+        if (os instanceof SaidaComprimida comprimida) comprimida.abortar();
+    }
+
+    /**
+     * @return true se a requisição é HEAD (resposta sem corpo)
+     */
+    public static boolean cabeca(HttpExchange exchange) {
+        return "HEAD".equals(exchange.getRequestMethod());
+    }
+
+    /**
+     * Stream de uma resposta a HEAD: ignora o corpo e, ao fechar, encerra a exchange.
+     */
+    private static final class SaidaDescartada extends FilterOutputStream {
+        SaidaDescartada(OutputStream destino) {
+            super(destino);
+        }
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int inicio, int tamanho) {
+        }
+    }
+
+    // ========== NEGOCIAÇÃO ==========
+
+    /**
+     * @return Codificação a usar nesta resposta, ou null para enviar sem compressão
+     *         (desligada, tipo não comprimível ou não aceita pelo cliente)
+     */
+    private static Codificacao negociar(HttpExchange exchange) {
+        if (!COMPRESSAO) return null;
+        String tipo = exchange.getResponseHeaders().getFirst("Content-Type");
+        if (tipo == null || tipo.startsWith("text/event-stream")
+                || !(tipo.startsWith("application/json") || tipo.startsWith("text/"))) {
+            return null;
+        }
+        // A resposta depende do Accept-Encoding mesmo quando sai sem compressão
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        String aceita = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (aceita(aceita, "gzip")) return Codificacao.GZIP;
+        if (aceita(aceita, "deflate")) return Codificacao.DEFLATE;
+        return null;
+    }
+
+    /**
+     * @param acceptEncoding Valor do cabeçalho Accept-Encoding (pode ser null)
+     * @param codificacao Codificação procurada (ex: "gzip")
+     * @return true se a codificação foi listada sem "q=0"
+     */
+    static boolean aceita(String acceptEncoding, String codificacao) {
+        if (acceptEncoding == null) return false;
+        for (String parte : acceptEncoding.split(",")) {
+            String[] itens = parte.trim().split(";");
+            if (itens[0].trim().equalsIgnoreCase(codificacao)) {
+                // "gzip;q=0" significa recusado
+                return itens.length < 2 || !itens[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static void marcarCodificacao(HttpExchange exchange, Codificacao codificacao) {
+        Headers resposta = exchange.getResponseHeaders();
+        resposta.set("Content-Encoding", codificacao.nome());
+        String etag = resposta.getFirst("ETag");
+        if (etag != null && etag.startsWith("\"")) {
+            resposta.set("ETag", "W/" + etag);
+        }
+    }
+
+    // ========== CICLO DE VIDA ==========
+
+    /**
+     * Lê e descarta o que sobrou do corpo da requisição (até DESCARTE_MAXIMO bytes).
+     * Se ainda sobrar, avisa o cliente com "Connection: close" que a conexão não será reutilizada.
+     */
+    private static void descartarCorpo(HttpExchange exchange) throws IOException {
+        InputStream corpo = exchange.getRequestBody();
+        long restante = DESCARTE_MAXIMO;
+        while (restante > 0) {
+            int lidos = corpo.read(DESCARTE, 0, (int) Math.min(DESCARTE.length, restante));
+            if (lidos < 0) return;
+            restante -= lidos;
+        }
+        if (corpo.read() >= 0) {
+            exchange.getResponseHeaders().set("Connection", "close");
+        }
+    }
+
+    // ========== COMPRESSÃO ==========
+
+    /**
+     * Buffer de saída reutilizável (expõe o array interno sem cópia).
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(16 * 1024);
+        }
+
+        int capacidade() {
+            return buf.length;
+        }
+    }
+
+    /**
+     * @return Compressor livre do pool, ou um novo se todos estiverem em uso
+     */
+    private static Compressor emprestar() {
+        Compressor compressor = COMPRESSORES.poll();
+        return compressor != null ? compressor : new Compressor();
+    }
+
+    /**
+     * Devolve o compressor ao pool ou, com o pool cheio, encerra os seus Deflaters.
+     */
+    private static void devolver(Compressor compressor) {
+        compressor.liberar();
+        if (!COMPRESSORES.offer(compressor)) compressor.encerrar();
+    }
+
+    /**
+     * Deflaters e buffer reutilizados entre respostas. O Deflater guarda ~256 KB de estado
+     * nativo: criá-lo por resposta custaria mais do que a própria compressão de respostas médias.
+     */
+    private static final class Compressor {
+        private Deflater gzip;                 // deflate puro (nowrap), com cabeçalho gzip escrito à mão
+        private Deflater zlib;                 // formato zlib, que é o "deflate" do HTTP
+        private Buffer buffer = new Buffer();
+
+        /**
+         * Comprime o conteúdo inteiro no buffer do compressor.
+         */
+        Buffer comprimir(Codificacao codificacao, Conteudo conteudo) throws IOException {
+            buffer.reset();
+            try (OutputStream saida = new SaidaComprimida(buffer, deflater(codificacao),
+                    codificacao == Codificacao.GZIP, null)) {
+                conteudo.escreverEm(saida);
+            }
+            return buffer;
+        }
+
+        /**
+         * Descarta o buffer se ele cresceu demais (uma resposta grande não deve reter memória).
+         */
+        void liberar() {
+            if (buffer.capacidade() > CAPACIDADE_RETIDA) buffer = new Buffer();
+        }
+
+        /**
+         * Libera o estado nativo dos Deflaters (o compressor não pode mais ser usado).
+         */
+        void encerrar() {
+            if (gzip != null) gzip.end();
+            if (zlib != null) zlib.end();
+        }
+
+        /**
+         * @return Deflater da codificação, pronto para um novo fluxo
+         */
+        Deflater deflater(Codificacao codificacao) {
+            Deflater deflater;
+            if (codificacao == Codificacao.GZIP) {
+                if (gzip == null) gzip = new Deflater(NIVEL, true);
+                deflater = gzip;
+            } else {
+                if (zlib == null) zlib = new Deflater(NIVEL, false);
+                deflater = zlib;
+            }
+            deflater.reset();
+            return deflater;
+        }
+    }
+
+    /**
+     * Stream que comprime o que recebe e escreve no destino. No formato gzip, escreve
+     * o cabeçalho na abertura e o CRC-32 e o tamanho original ao fechar. Ao fechar, devolve
+     * ao pool o compressor dono do Deflater (se houver).
+     */
+    private static final class SaidaComprimida extends FilterOutputStream {
+        // Magic, método deflate, sem flags, sem data, sem flags extras, sistema desconhecido
+        private static final byte[] CABECALHO_GZIP = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+        private final Deflater deflater;
+        private final CRC32 crc;                   // só no gzip
+        private final Compressor dono;             // null = o chamador devolve o compressor
+        private final byte[] saida = new byte[8 * 1024];
+        private final byte[] umByte = new byte[1];
+        private boolean fechado;
+
+        SaidaComprimida(OutputStream destino, Deflater deflater, boolean gzip, Compressor dono) throws IOException {
+            super(destino);
+            this.deflater = deflater;
+            this.crc = gzip ? new CRC32() : null;
+            this.dono = dono;
+            if (gzip) destino.write(CABECALHO_GZIP);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            umByte[0] = (byte) b;
+            write(umByte, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int inicio, int tamanho) throws IOException {
+            if (tamanho == 0) return;
+            if (crc != null) crc.update(b, inicio, tamanho);
+            deflater.setInput(b, inicio, tamanho);
+            while (!deflater.needsInput()) {
+                descarregar();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Envia o que já foi comprimido sem quebrar o fluxo (SYNC_FLUSH)
+            int produzidos;
+            do {
+                produzidos = deflater.deflate(saida, 0, saida.length, Deflater.SYNC_FLUSH);
+                out.write(saida, 0, produzidos);
+            } while (produzidos == saida.length);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (fechado) return;
+            fechado = true;
+            try {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    descarregar();
+                }
+                if (crc != null) {
+                    escreverInt32(crc.getValue());
+                    escreverInt32(deflater.getBytesRead());   // tamanho original módulo 2^32
+                }
+            } finally {
+                try {
+                    out.close();
+                } finally {
+                    if (dono != null) devolver(dono);
+                }
+            }
+        }
+
+        /**
+         * Encerra sem terminar o fluxo comprimido (o Deflater é reiniciado no próximo uso).
+         */
+        void abortar() {
+            if (fechado) return;
+            fechado = true;
+            if (dono != null) devolver(dono);
+        }
+
+        private void descarregar() throws IOException {
+            int produzidos = deflater.deflate(saida);
+            if (produzidos > 0) out.write(saida, 0, produzidos);
+        }
+
+        /**
+         * Escreve 4 bytes em little-endian (formato do rodapé gzip).
+         */
+        private void escreverInt32(long valor) throws IOException {
+            out.write((int) valor & 0xff);
+            out.write((int) (valor >> 8) & 0xff);
+            out.write((int) (valor >> 16) & 0xff);
+            out.write((int) (valor >> 24) & 0xff);
+        }
+    }
+}
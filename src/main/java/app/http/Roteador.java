@@ -0,0 +1,347 @@
+package app.http;
+
+import app.metricas.Metricas;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Roteador HTTP com tabela de rotas pré-compilada em uma árvore de segmentos.
+ *
+ * As rotas são registradas uma vez na inicialização (ex: "/api/alunos/{id}") e cada
+ * requisição percorre o caminho segmento a segmento, comparando in-place com
+ * regionMatches e convertendo o {id} direto dos caracteres: nenhuma regex, split
+ * ou substring por requisição.
+ *
+ * - Caminho encontrado com método registrado: executa a ação (HEAD usa a ação do GET,
+ *   e o envio da resposta omite o corpo)
+ * - Caminho encontrado sem o método: 405 com o cabeçalho Allow
+ * - Caminho desconhecido: handler padrão (ex: arquivos estáticos) ou 404; sob um prefixo
+ *   reservado (ex: "/api"), sempre o 404 em JSON do roteador
+ *
+ * Cada requisição é medida (latência, status e bytes enviados) nas métricas da rota
+ * encontrada, identificada pelo padrão registrado (ex: "GET /api/alunos/{id}").
+ *
+ * Com um {@link ControleAdmissao}, cada rota ocupa uma vaga durante a execução da ação;
+ * acima do limite de execuções simultâneas da rota a resposta é 503.
+ */
+public final class Roteador implements HttpHandler {
+    // Marcador de segmento numérico nos padrões de rota
+    private static final String PARAMETRO_ID = "{id}";
+
+    private static final byte[] CORPO_404 = "{\"erro\":\"Rota não encontrada\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CORPO_405 = "{\"erro\":\"Método não suportado\"}".getBytes(StandardCharsets.UTF_8);
+
+    // Métricas das requisições que não caem em nenhuma rota registrada
+    private static final Metricas.Rota MEDICAO_PADRAO = Metricas.rota("padrao");
+    private static final Metricas.Rota MEDICAO_404 = Metricas.rota("nao_encontrada");
+    private static final Metricas.Rota MEDICAO_405 = Metricas.rota("metodo_nao_permitido");
+
+    /**
+     * Ação executada por uma rota.
+     */
+    @FunctionalInterface
+    public interface Acao {
+        /**
+         * @param exchange Objeto HTTP exchange
+         * @param id Valor do segmento {id} ou -1 se a rota não tiver parâmetro
+         * @throws IOException Se houver erro ao enviar a resposta
+         */
+        void executar(HttpExchange exchange, int id) throws IOException;
+    }
+
+    /**
+     * Nó da árvore: um segmento do caminho.
+     */
+    private static final class No {
+        String[] literais = new String[0];
+        No[] filhos = new No[0];
+        No numerico;                       // filho que aceita {id}
+        String[] metodos = new String[0];
+        Acao[] acoes = new Acao[0];
+        Metricas.Rota[] medicoes = new Metricas.Rota[0];
+        ControleAdmissao.Vaga[] vagas = new ControleAdmissao.Vaga[0];
+        String permitidos;                 // valor pronto do cabeçalho Allow
+    }
+
+    private final No raiz = new No();
+    private String[] reservados = new String[0];
+    private HttpHandler padrao;
+    private ControleAdmissao admissao;
+    private int rotas;
+
+    /**
+     * Registra uma rota.
+     * @param metodo Método HTTP (GET, POST, ...)
+     * @param padrao Caminho, com "{id}" nos segmentos numéricos (ex: "/api/alunos/{id}")
+     * @param acao Ação executada quando a rota é encontrada
+     * @return O próprio roteador, para encadear chamadas
+     */
+    public Roteador rota(String metodo, String padrao, Acao acao) {
+        No no = raiz;
+        for (String segmento : padrao.split("/")) {
+            if (segmento.isEmpty()) continue;
+            no = segmento.equals(PARAMETRO_ID) ? filhoNumerico(no) : filhoLiteral(no, segmento);
+        }
+        for (String existente : no.metodos) {
+            if (existente.equals(metodo)) {
+                throw new IllegalStateException("Rota duplicada: " + metodo + " " + padrao);
+            }
+        }
+        no.metodos = Arrays.copyOf(no.metodos, no.metodos.length + 1);
+        no.metodos[no.metodos.length - 1] = metodo;
+        no.acoes = Arrays.copyOf(no.acoes, no.acoes.length + 1);
+        no.acoes[no.acoes.length - 1] = acao;
+        no.medicoes = Arrays.copyOf(no.medicoes, no.medicoes.length + 1);
+        no.medicoes[no.medicoes.length - 1] = Metricas.rota(metodo + " " + padrao);
+        no.vagas = Arrays.copyOf(no.vagas, no.vagas.length + 1);
+        no.vagas[no.vagas.length - 1] = admissao == null ? null : admissao.vaga(metodo + " " + padrao);
+        no.permitidos = permitidos(no.metodos);
+        rotas++;
+        return this;
+    }
+
+    /**
+     * Define o controle de admissão que limita as execuções simultâneas de cada rota.
+     * Deve ser chamado antes de registrar as rotas.
+     * @param admissao Controle de admissão
+     * @return O próprio roteador, para encadear chamadas
+     */
+    public Roteador admissao(ControleAdmissao admissao) {
+        if (rotas > 0) {
+            throw new IllegalStateException("O controle de admissão deve ser definido antes das rotas");
+        }
+        this.admissao = admissao;
+        return this;
+    }
+
+    /**
+     * Define o handler usado quando nenhuma rota corresponde ao caminho.
+     * @param handler Handler padrão (ex: arquivos estáticos)
+     * @return O próprio roteador, para encadear chamadas
+     */
+    public Roteador padrao(HttpHandler handler) {
+        this.padrao = handler;
+        return this;
+    }
+
+    /**
+     * Reserva um prefixo para as rotas registradas: caminhos sob ele que não correspondem
+     * a nenhuma rota (ex: "/api/alunos/abc") recebem o 404 em JSON em vez do handler padrão.
+     * @param prefixo Prefixo sem barra final (ex: "/api")
+     * @return O próprio roteador, para encadear chamadas
+     */
+    public Roteador reservar(String prefixo) {
+        reservados = Arrays.copyOf(reservados, reservados.length + 1);
+        reservados[reservados.length - 1] = prefixo;
+        return this;
+    }
+
+    /**
+     * Encontra a rota da requisição e executa a ação correspondente.
+     * @param exchange Objeto HTTP exchange
+     * @throws IOException Se houver erro ao enviar a resposta
+     */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        long inicio = System.nanoTime();
+        ContadorSaida saida = new ContadorSaida(exchange.getResponseBody());
+        exchange.setStreams(null, saida);
+        Metricas.Rota medicao = MEDICAO_PADRAO;
+        try {
+            medicao = despachar(exchange);
+        } finally {
+            int status = exchange.getResponseCode();
+            medicao.registrar(status < 0 ? 500 : status, saida.total, System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Percorre a árvore e executa a ação, o handler padrão ou a resposta de erro.
+     * @return Métricas da rota que atendeu a requisição
+     */
+    private Metricas.Rota despachar(HttpExchange exchange) throws IOException {
+        String caminho = exchange.getRequestURI().getPath();
+        No no = raiz;
+        int id = -1;
+        int tamanho = caminho.length();
+        int inicio = 0;
+        while (no != null && inicio < tamanho) {
+            if (caminho.charAt(inicio) == '/') {
+                inicio++;
+                continue; // ignora barras repetidas ou no final
+            }
+            int fim = caminho.indexOf('/', inicio);
+            if (fim < 0) fim = tamanho;
+            No proximo = literal(no, caminho, inicio, fim);
+            if (proximo == null && no.numerico != null) {
+                id = lerId(caminho, inicio, fim);
+                if (id >= 0) proximo = no.numerico;
+            }
+            no = proximo;
+            inicio = fim;
+        }
+
+        if (no == null || no.metodos.length == 0) {
+            if (padrao != null && !reservado(caminho)) {
+                padrao.handle(exchange);
+                return MEDICAO_PADRAO;
+            }
+            responder(exchange, 404, CORPO_404);
+            return MEDICAO_404;
+        }
+
+        String metodo = exchange.getRequestMethod();
+        int i = indice(no, metodo);
+        if (i < 0 && metodo.equals("HEAD")) i = indice(no, "GET");
+        if (i >= 0) {
+            ControleAdmissao.Vaga vaga = no.vagas[i];
+            if (vaga == null) {
+                no.acoes[i].executar(exchange, id);
+            } else if (vaga.entrar()) {
+                try {
+                    no.acoes[i].executar(exchange, id);
+                } finally {
+                    vaga.sair();
+                }
+            } else {
+                vaga.recusar(exchange);
+            }
+            return no.medicoes[i];
+        }
+        exchange.getResponseHeaders().set("Allow", no.permitidos);
+        responder(exchange, 405, CORPO_405); // Method Not Allowed
+        return MEDICAO_405;
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static int indice(No no, String metodo) {
+        for (int i = 0; i < no.metodos.length; i++) {
+            if (no.metodos[i].equals(metodo)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return Valor do cabeçalho Allow (HEAD acompanha o GET)
+     */
+    private static String permitidos(String[] metodos) {
+        List<String> lista = new ArrayList<>(Arrays.asList(metodos));
+        int get = lista.indexOf("GET");
+        if (get >= 0 && !lista.contains("HEAD")) lista.add(get + 1, "HEAD");
+        return String.join(", ", lista);
+    }
+
+    private boolean reservado(String caminho) {
+        for (String prefixo : reservados) {
+            if (caminho.startsWith(prefixo)
+                    && (caminho.length() == prefixo.length() || caminho.charAt(prefixo.length()) == '/')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static No literal(No no, String caminho, int inicio, int fim) {
+        int comprimento = fim - inicio;
+        String[] literais = no.literais;
+        for (int i = 0; i < literais.length; i++) {
+            String literal = literais[i];
+            if (literal.length() == comprimento && caminho.regionMatches(inicio, literal, 0, comprimento)) {
+                return no.filhos[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Converte o segmento em um id não negativo, sem criar strings.
+     * @return O id ou -1 se o segmento não for um número int válido
+     */
+    private static int lerId(CharSequence texto, int inicio, int fim) {
+        if (inicio >= fim || fim - inicio > 10) return -1;
+        long valor = 0;
+        for (int i = inicio; i < fim; i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            valor = valor * 10 + (c - '0');
+        }
+        return valor > Integer.MAX_VALUE ? -1 : (int) valor;
+    }
+
+    private static No filhoLiteral(No no, String segmento) {
+        for (int i = 0; i < no.literais.length; i++) {
+            if (no.literais[i].equals(segmento)) return no.filhos[i];
+        }
+        No filho = new No();
+        no.literais = Arrays.copyOf(no.literais, no.literais.length + 1);
+        no.literais[no.literais.length - 1] = segmento;
+        no.filhos = Arrays.copyOf(no.filhos, no.filhos.length + 1);
+        no.filhos[no.filhos.length - 1] = filho;
+        return filho;
+    }
+
+    private static No filhoNumerico(No no) {
+        if (no.numerico == null) no.numerico = new No();
+        return no.numerico;
+    }
+
+    /**
+     * Conta os bytes escritos no corpo da resposta.
+     */
+    private static final class ContadorSaida extends FilterOutputStream implements SaidaDireta {
+        long total;
+
+        ContadorSaida(OutputStream destino) {
+            super(destino);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            total++;
+        }
+
+        @Override
+        public void write(byte[] b, int inicio, int tamanho) throws IOException {
+            out.write(b, inicio, tamanho);
+            total += tamanho;
+        }
+
+        // Repassa o envio sem cópia quando o stream do motor o oferece (ver SaidaDireta)
+        @Override
+        public void escrever(ByteBuffer conteudo) throws IOException {
+            int tamanho = conteudo.remaining();
+            if (out instanceof SaidaDireta direta) {
+                direta.escrever(conteudo);
+            } else if (conteudo.hasArray()) {
+                out.write(conteudo.array(), conteudo.arrayOffset() + conteudo.position(), tamanho);
+            } else {
+                byte[] copia = new byte[tamanho];
+                conteudo.duplicate().get(copia);
+                out.write(copia);
+            }
+            total += tamanho;
+        }
+
+        @Override
+        public void transferir(FileChannel arquivo, long posicao, long comprimento) throws IOException {
+            SaidaDireta.enviarArquivo(out, arquivo, posicao, comprimento);
+            total += comprimento;
+        }
+    }
+
+    private static void responder(HttpExchange exchange, int status, byte[] corpo) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        RespostaHttp.enviar(exchange, status, corpo);
+    }
+}
@@ -0,0 +1,80 @@
+package app.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Stream de resposta que aceita conteúdo sem cópia intermediária.
+ *
+ * Implementado pelo corpo das respostas do {@link MotorNio}: em vez de passar pelo
+ * write(byte[]) e ser copiado para os buffers da conexão, o conteúdo vai direto
+ * para o socket. Quem envia conteúdo imutável (ex: {@link CacheAtivos}) verifica se o
+ * stream da resposta implementa esta interface e, se não, usa o write comum (os métodos
+ * estáticos fazem essa escolha).
+ */
+public interface SaidaDireta {
+
+    /**
+     * Envia bytes que não serão mais alterados: sem cópia se o stream for uma SaidaDireta.
+     * @param os Stream da resposta
+     * @param conteudo Array imutável
+     * @param inicio Primeiro byte
+     * @param tamanho Quantidade de bytes
+     * @throws IOException Se houver erro ao enviar
+     */
+    static void enviar(OutputStream os, byte[] conteudo, int inicio, int tamanho) throws IOException {
+        if (os instanceof SaidaDireta direta) {
+            direta.escrever(ByteBuffer.wrap(conteudo, inicio, tamanho));
+        } else {
+            os.write(conteudo, inicio, tamanho);
+        }
+    }
+
+    /**
+     * Envia um trecho do arquivo: direto para o socket se o stream for uma SaidaDireta,
+     * senão com FileChannel.transferTo para o stream, sem carregar o arquivo no heap.
+     * @param os Stream da resposta
+     * @param arquivo Canal aberto para leitura
+     * @param posicao Primeiro byte do trecho
+     * @param comprimento Quantidade de bytes
+     * @throws IOException Se houver erro de leitura ou ao enviar
+     */
+    static void enviarArquivo(OutputStream os, FileChannel arquivo, long posicao, long comprimento)
+            throws IOException {
+        if (os instanceof SaidaDireta direta) {
+            direta.transferir(arquivo, posicao, comprimento);
+            return;
+        }
+        WritableByteChannel destino = Channels.newChannel(os);
+        long restante = comprimento;
+        while (restante > 0) {
+            long enviados = arquivo.transferTo(posicao, restante, destino);
+            if (enviados <= 0) break; // arquivo encolheu desde a carga
+            posicao += enviados;
+            restante -= enviados;
+        }
+    }
+
+    /**
+     * Envia o buffer sem copiá-lo. Ele é lido depois que o método retorna, então não
+     * pode ser alterado (use um buffer imutável ou um duplicate()).
+     * @param conteudo Bytes entre a posição e o limite do buffer
+     * @throws IOException Se a conexão foi fechada
+     */
+    void escrever(ByteBuffer conteudo) throws IOException;
+
+    /**
+     * Transfere um trecho do arquivo direto para o socket (FileChannel.transferTo, que
+     * usa sendfile quando o sistema oferece). Retorna depois de enviar o trecho inteiro,
+     * então o canal pode ser fechado em seguida.
+     * @param arquivo Canal aberto para leitura
+     * @param posicao Primeiro byte do trecho
+     * @param comprimento Quantidade de bytes
+     * @throws IOException Se houver erro de leitura ou a conexão foi fechada
+     */
+    void transferir(FileChannel arquivo, long posicao, long comprimento) throws IOException;
+}
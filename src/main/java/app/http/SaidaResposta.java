@@ -0,0 +1,299 @@
+package app.http;
+
+import com.sun.net.httpserver.Headers;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stream de resposta de uma {@link TrocaNio}: cabeçalhos e corpo são escritos em buffers
+ * diretos do pool, enviados à conexão quando enchem, no flush() e no close(). Uma resposta
+ * pequena (cabeçalhos e corpo no mesmo buffer) sai em uma única escrita no socket.
+ *
+ * No modo chunked, cada buffer enviado é um pedaço: o início do buffer reserva 8 bytes
+ * para o tamanho (6 dígitos hexadecimais com zeros à esquerda e CRLF) e o fim reserva
+ * 2 bytes para o CRLF, preenchidos quando o buffer é enviado.
+ */
+final class SaidaResposta extends OutputStream implements SaidaDireta {
+    static final int SEM_CORPO = 0;
+    static final int FIXO = 1;
+    static final int CHUNKED = 2;
+    static final int ATE_FECHAR = 3;
+
+    private static final int RESERVA_PEDACO = 8;
+    private static final byte[] HEXADECIMAL = "0123456789abcdef".getBytes();
+    private static final byte[] FIM_CHUNKED = {'0', '\r', '\n', '\r', '\n'};
+
+    private final TrocaNio troca;
+    private final ConexaoNio conexao;
+    private final PoolBuffers buffers;
+    private final byte[] umByte = new byte[1];
+    private ByteBuffer atual;
+    private int modo = -1;
+    // Bytes que ainda faltam no modo FIXO
+    private long restante;
+    // Posição do pedaço aberto no buffer atual (modo CHUNKED), ou -1
+    private int inicioPedaco = -1;
+    private boolean fechada;
+
+    SaidaResposta(TrocaNio troca, ConexaoNio conexao) {
+        this.troca = troca;
+        this.conexao = conexao;
+        this.buffers = conexao.buffers();
+    }
+
+    /**
+     * Escreve a linha de status e os cabeçalhos (enviados junto com o início do corpo).
+     */
+    void iniciar(int status, Headers cabecalhos, int modo, long tamanho) throws IOException {
+        ascii("HTTP/1.1 ");
+        ascii(Integer.toString(status));
+        ascii(" ");
+        ascii(frase(status));
+        ascii("\r\n");
+        for (Map.Entry<String, List<String>> cabecalho : cabecalhos.entrySet()) {
+            for (String valor : cabecalho.getValue()) {
+                ascii(cabecalho.getKey());
+                ascii(": ");
+                ascii(valor);
+                ascii("\r\n");
+            }
+        }
+        ascii("\r\n");
+        this.modo = modo;
+        this.restante = tamanho;
+    }
+
+    // ========== CORPO ==========
+
+    @Override
+    public void write(int b) throws IOException {
+        umByte[0] = (byte) b;
+        write(umByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int inicio, int tamanho) throws IOException {
+        verificar(tamanho);
+        while (tamanho > 0) {
+            garantirEspaco();
+            int quantidade = Math.min(tamanho, livre());
+            atual.put(b, inicio, quantidade);
+            inicio += quantidade;
+            tamanho -= quantidade;
+            if (livre() == 0) enviarAtual();
+        }
+    }
+
+    /**
+     * Fora do chunked, o buffer vai para a fila da conexão sem cópia (depois do que já foi escrito).
+     */
+    @Override
+    public void escrever(ByteBuffer conteudo) throws IOException {
+        int tamanho = conteudo.remaining();
+        verificar(tamanho);
+        if (tamanho == 0) return;
+        if (modo != CHUNKED) {
+            conexao.enviar(retirarAtual(), conteudo.duplicate());
+            return;
+        }
+        ByteBuffer origem = conteudo.duplicate();
+        while (origem.hasRemaining()) {
+            garantirEspaco();
+            int quantidade = Math.min(origem.remaining(), livre());
+            atual.put(origem.slice(origem.position(), quantidade));
+            origem.position(origem.position() + quantidade);
+            if (livre() == 0) enviarAtual();
+        }
+    }
+
+    /**
+     * Fora do chunked e fora do laço, o trecho sai com transferTo direto do arquivo para o
+     * socket. Nos outros casos (chunked, ou a troca rodando no próprio laço, que não pode
+     * esperar o socket), o arquivo é lido para os buffers do pool.
+     */
+    @Override
+    public void transferir(FileChannel arquivo, long posicao, long comprimento) throws IOException {
+        verificar(comprimento);
+        if (comprimento == 0) return;
+        if (modo != CHUNKED && !conexao.noLaco()) {
+            conexao.transferir(retirarAtual(), arquivo, posicao, comprimento);
+            return;
+        }
+        while (comprimento > 0) {
+            garantirEspaco();
+            int quantidade = (int) Math.min(comprimento, livre());
+            int limite = atual.limit();
+            atual.limit(atual.position() + quantidade);
+            int lidos = arquivo.read(atual, posicao);
+            atual.limit(limite);
+            if (lidos < 0) throw new EOFException("Arquivo menor que o trecho enviado");
+            posicao += lidos;
+            comprimento -= lidos;
+            if (livre() == 0) enviarAtual();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!fechada && modo >= 0) enviarAtual();
+    }
+
+    /**
+     * Termina a resposta (último pedaço no chunked) e libera a conexão para a próxima requisição.
+     */
+    @Override
+    public void close() throws IOException {
+        if (fechada) return;
+        fechada = true;
+        if (modo < 0) {
+            // Fechado sem cabeçalhos: a conexão não pode ser reutilizada
+            conexao.fechar();
+            return;
+        }
+        try {
+            if (modo == CHUNKED) {
+                if (atual == null) atual = buffers.obter();
+                fecharPedaco();
+                if (atual.remaining() < FIM_CHUNKED.length) {
+                    enviarAtual();
+                    atual = buffers.obter();
+                }
+                atual.put(FIM_CHUNKED);
+            }
+            enviarAtual();
+        } finally {
+            troca.concluida(modo == ATE_FECHAR || (modo == FIXO && restante > 0));
+        }
+    }
+
+    private void verificar(long tamanho) throws IOException {
+        if (fechada) throw new IOException("Stream da resposta fechado");
+        if (modo < 0) throw new IOException("sendResponseHeaders ainda não foi chamado");
+        if (tamanho == 0) return;
+        if (modo == SEM_CORPO) throw new IOException("Resposta sem corpo");
+        if (modo == FIXO) {
+            if (tamanho > restante) throw new IOException("Corpo maior que o Content-length declarado");
+            restante -= tamanho;
+        }
+    }
+
+    // ========== BUFFERS ==========
+
+    /**
+     * Garante um buffer com espaço (e, no chunked, com um pedaço aberto).
+     */
+    private void garantirEspaco() throws IOException {
+        if (atual == null) atual = buffers.obter();
+        if (modo == CHUNKED && inicioPedaco < 0) {
+            if (atual.remaining() < RESERVA_PEDACO + 3) {
+                enviarAtual();
+                atual = buffers.obter();
+            }
+            inicioPedaco = atual.position();
+            atual.position(inicioPedaco + RESERVA_PEDACO);
+        }
+    }
+
+    /**
+     * @return Espaço para o corpo no buffer atual (no chunked, sem os 2 bytes do CRLF final)
+     */
+    private int livre() {
+        return modo == CHUNKED ? atual.remaining() - 2 : atual.remaining();
+    }
+
+    /**
+     * Preenche o tamanho e o CRLF do pedaço aberto (ou o remove, se vazio).
+     */
+    private void fecharPedaco() {
+        if (inicioPedaco < 0) return;
+        int tamanho = atual.position() - inicioPedaco - RESERVA_PEDACO;
+        if (tamanho == 0) {
+            atual.position(inicioPedaco);
+        } else {
+            for (int i = 0; i < 6; i++) {
+                atual.put(inicioPedaco + i, HEXADECIMAL[(tamanho >> (4 * (5 - i))) & 0xf]);
+            }
+            atual.put(inicioPedaco + 6, (byte) '\r');
+            atual.put(inicioPedaco + 7, (byte) '\n');
+            atual.put((byte) '\r').put((byte) '\n');
+        }
+        inicioPedaco = -1;
+    }
+
+    /**
+     * Entrega o buffer atual à conexão.
+     */
+    private void enviarAtual() throws IOException {
+        ByteBuffer pronto = retirarAtual();
+        if (pronto != null) conexao.enviar(pronto, true);
+    }
+
+    /**
+     * @return Buffer atual pronto para envio (pedaço fechado, em modo de leitura), ou null se
+     *         não havia nada escrito (um buffer vazio volta para o pool)
+     */
+    private ByteBuffer retirarAtual() {
+        if (atual == null) return null;
+        fecharPedaco();
+        ByteBuffer pronto = atual.flip();
+        atual = null;
+        if (pronto.hasRemaining()) return pronto;
+        buffers.devolver(pronto);
+        return null;
+    }
+
+    /**
+     * Escreve texto dos cabeçalhos (ISO-8859-1, como o HttpServer do JDK).
+     */
+    private void ascii(String texto) throws IOException {
+        for (int i = 0; i < texto.length(); i++) {
+            if (atual == null) {
+                atual = buffers.obter();
+            } else if (!atual.hasRemaining()) {
+                enviarAtual();
+                atual = buffers.obter();
+            }
+            atual.put((byte) texto.charAt(i));
+        }
+    }
+
+    /**
+     * @return Frase da linha de status
+     */
+    private static String frase(int status) {
+        return switch (status) {
+            case 100 -> "Continue";
+            case 200 -> "OK";
+            case 201 -> "Created";
+            case 202 -> "Accepted";
+            case 204 -> "No Content";
+            case 206 -> "Partial Content";
+            case 301 -> "Moved Permanently";
+            case 302 -> "Found";
+            case 304 -> "Not Modified";
+            case 400 -> "Bad Request";
+            case 401 -> "Unauthorized";
+            case 403 -> "Forbidden";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 409 -> "Conflict";
+            case 411 -> "Length Required";
+            case 412 -> "Precondition Failed";
+            case 413 -> "Payload Too Large";
+            case 415 -> "Unsupported Media Type";
+            case 416 -> "Range Not Satisfiable";
+            case 422 -> "Unprocessable Entity";
+            case 429 -> "Too Many Requests";
+            case 431 -> "Request Header Fields Too Large";
+            case 500 -> "Internal Server Error";
+            case 501 -> "Not Implemented";
+            case 503 -> "Service Unavailable";
+            default -> "";
+        };
+    }
+}
@@ -0,0 +1,242 @@
+package app.http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HttpExchange do {@link MotorNio}, com a mesma semântica da exchange do HttpServer do JDK
+ * para que os handlers e filtros existentes funcionem sem mudanças:
+ * - sendResponseHeaders(status, n): n > 0 é o tamanho exato, 0 é tamanho desconhecido
+ *   (chunked) e -1 é sem corpo; HEAD, 204 e 304 nunca têm corpo
+ * - a troca termina quando o stream de resposta (ou a própria troca) é fechado
+ * - fechar a troca sem ter enviado os cabeçalhos fecha a conexão
+ *
+ * Não há HttpContext (o motor tem um único handler) nem autenticação.
+ */
+final class TrocaNio extends HttpExchange {
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+    // Cabeçalho Date do segundo atual (recalculado uma vez por segundo)
+    private static volatile Data dataAtual = new Data(0, "");
+
+    private final ConexaoNio conexao;
+    private final String metodo;
+    private final URI uri;
+    private final String protocolo;
+    private final Headers requisicao;
+    private final Headers resposta = new Headers();
+    private final SaidaResposta saida;
+    private InputStream entrada;
+    private OutputStream saidaAtual;
+    private Map<String, Object> atributos;
+    private int status = -1;
+    private boolean fechar;
+    private boolean cabecalhosEnviados;
+
+    /**
+     * @param conexao Conexão que recebeu a requisição
+     * @param metodo Método HTTP
+     * @param uri Alvo da requisição
+     * @param protocolo Versão (ex: HTTP/1.1)
+     * @param requisicao Cabeçalhos da requisição
+     * @param corpo Corpo da requisição (vazio se não houver)
+     * @param fechar true se o cliente não quer reutilizar a conexão
+     */
+    TrocaNio(ConexaoNio conexao, String metodo, URI uri, String protocolo, Headers requisicao, InputStream corpo,
+             boolean fechar) {
+        this.conexao = conexao;
+        this.metodo = metodo;
+        this.uri = uri;
+        this.protocolo = protocolo;
+        this.requisicao = requisicao;
+        this.entrada = corpo;
+        this.fechar = fechar;
+        this.saida = new SaidaResposta(this, conexao);
+        this.saidaAtual = saida;
+    }
+
+    ConexaoNio conexao() {
+        return conexao;
+    }
+
+    /**
+     * Executa os filtros e o handler (na thread do executor). Uma exceção que escapa
+     * fecha a conexão, como no HttpServer do JDK.
+     */
+    void executar(List<Filter> filtros, HttpHandler handler) {
+        try {
+            new Filter.Chain(filtros, handler).doFilter(this);
+        } catch (IOException | RuntimeException e) {
+            conexao.fechar();
+        }
+    }
+
+    /**
+     * Chamado pelo stream de resposta ao ser fechado.
+     * @param incompleta true se o corpo não chegou ao tamanho declarado ou só termina com o fim da conexão
+     */
+    void concluida(boolean incompleta) {
+        conexao.concluir(this, fechar || incompleta);
+    }
+
+    // ========== REQUISIÇÃO ==========
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requisicao;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return metodo;
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return entrada;
+    }
+
+    @Override
+    public String getProtocol() {
+        return protocolo;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return conexao.remoto();
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return conexao.local();
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    // ========== RESPOSTA ==========
+
+    @Override
+    public Headers getResponseHeaders() {
+        return resposta;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return saidaAtual;
+    }
+
+    @Override
+    public int getResponseCode() {
+        return status;
+    }
+
+    @Override
+    public void sendResponseHeaders(int codigo, long tamanho) throws IOException {
+        if (cabecalhosEnviados) throw new IOException("Cabeçalhos da resposta já enviados");
+        cabecalhosEnviados = true;
+        status = codigo;
+        int modo;
+        if (codigo < 200 || codigo == 204 || codigo == 304 || metodo.equals("HEAD")) {
+            // Sem corpo; em HEAD e 304 o Content-Length (se definido pelo handler) descreve o recurso
+            modo = SaidaResposta.SEM_CORPO;
+            tamanho = 0;
+            if (codigo < 200 || codigo == 204) resposta.remove("Content-length");
+        } else if (tamanho == 0) {
+            if (protocolo.equals("HTTP/1.0")) {
+                // Cliente HTTP/1.0 não entende chunked: o fim do corpo é o fim da conexão
+                modo = SaidaResposta.ATE_FECHAR;
+                fechar = true;
+            } else {
+                modo = SaidaResposta.CHUNKED;
+                resposta.set("Transfer-encoding", "chunked");
+            }
+        } else {
+            modo = SaidaResposta.FIXO;
+            if (tamanho < 0) tamanho = 0;
+            resposta.set("Content-length", Long.toString(tamanho));
+        }
+        if ("close".equalsIgnoreCase(resposta.getFirst("Connection"))) fechar = true;
+        if (fechar) resposta.set("Connection", "close");
+        resposta.set("Date", data());
+        saida.iniciar(codigo, resposta, modo, tamanho);
+    }
+
+    @Override
+    public void close() {
+        if (!cabecalhosEnviados) {
+            // Mesmo comportamento do JDK: sem resposta, a conexão não pode ser reutilizada
+            conexao.fechar();
+            return;
+        }
+        try {
+            saida.close();
+        } catch (IOException e) {
+            conexao.fechar();
+        }
+    }
+
+    @Override
+    public void setStreams(InputStream novaEntrada, OutputStream novaSaida) {
+        if (novaEntrada != null) entrada = novaEntrada;
+        if (novaSaida != null) saidaAtual = novaSaida;
+    }
+
+    @Override
+    public Object getAttribute(String nome) {
+        return atributos == null ? null : atributos.get(nome);
+    }
+
+    @Override
+    public void setAttribute(String nome, Object valor) {
+        if (atributos == null) atributos = new HashMap<>();
+        if (valor == null) {
+            atributos.remove(nome);
+        } else {
+            atributos.put(nome, valor);
+        }
+    }
+
+    /**
+     * @return Valor do cabeçalho Date (formatado no máximo uma vez por segundo)
+     */
+    private static String data() {
+        long segundo = System.currentTimeMillis() / 1000;
+        Data atual = dataAtual;
+        if (atual.segundo() != segundo) {
+            atual = new Data(segundo, FORMATO_DATA.format(ZonedDateTime.now(ZoneOffset.UTC)));
+            dataAtual = atual;
+        }
+        return atual.valor();
+    }
+
+    private record Data(long segundo, String valor) {
+    }
+}
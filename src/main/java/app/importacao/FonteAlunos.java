@@ -0,0 +1,30 @@
+package app.importacao;
+
+import app.model.Aluno;
+import java.io.IOException;
+
+/**
+ * Fonte incremental de alunos para a importação em lote (NDJSON ou CSV).
+ */
+interface FonteAlunos {
+
+    /**
+     * Lê o próximo registro.
+     * @return O aluno lido ou null quando a fonte terminou
+     * @throws IOException Se houver erro de leitura no stream
+     * @throws app.json.JsonInvalidoException Se o registro JSON estiver malformado
+     * @throws RegistroInvalidoException Se o registro CSV estiver malformado
+     */
+    Aluno proximo() throws IOException;
+
+    /**
+     * @return Linha (a partir de 1) onde começou o último registro lido
+     */
+    int linha();
+
+    /**
+     * Descarta o restante do registro atual depois de um erro de formato.
+     * @throws IOException Se houver erro de leitura no stream
+     */
+    void descartarRegistro() throws IOException;
+}
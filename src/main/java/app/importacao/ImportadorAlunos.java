@@ -0,0 +1,153 @@
+package app.importacao;
+
+import app.json.JsonInvalidoException;
+import app.json.LeitorAlunoJson;
+import app.model.Aluno;
+import app.repository.PersistenciaIndisponivelException;
+import app.service.AlunoService;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Importa alunos em lote a partir de um stream NDJSON ou CSV de tamanho arbitrário.
+ *
+ * O stream é lido de forma incremental; cada registro é validado e os válidos são
+ * acumulados em lotes de TAMANHO_LOTE, gravados com {@link AlunoService#salvarLote}
+ * (que reserva os IDs do lote inteiro de uma vez). A memória usada depende do
+ * tamanho do lote, não do tamanho do arquivo.
+ *
+ * Se a persistência parar de gravar no meio da importação, o lote que falhou é rejeitado
+ * inteiro (o repositório desfaz o que já tinha salvo dele) e a importação para ali; os
+ * lotes anteriores continuam salvos e o relatório indica o motivo da interrupção.
+ */
+public class ImportadorAlunos {
+    // Quantidade de alunos gravados por lote
+    public static final int TAMANHO_LOTE = 1000;
+
+    // Tamanho máximo de cada registro (linha NDJSON ou registro CSV)
+    private static final int LIMITE_REGISTRO = LeitorAlunoJson.LIMITE_PADRAO;
+
+    // Formatos aceitos
+    public enum Formato { NDJSON, CSV }
+
+    private final AlunoService service;
+
+    public ImportadorAlunos(AlunoService service) {
+        this.service = service;
+    }
+
+    /**
+     * Importa todos os registros do stream.
+     * @param in Stream com os registros
+     * @param formato Formato do stream
+     * @return Relatório com a quantidade importada, os erros por linha e, se a gravação
+     *         falhou no meio, o motivo da interrupção
+     * @throws IOException Se houver erro de leitura no stream
+     */
+    public ResultadoImportacao importar(InputStream in, Formato formato) throws IOException {
+        FonteAlunos fonte = formato == Formato.CSV
+                ? new LeitorAlunoCsv(in, LIMITE_REGISTRO)
+                : fonteNdjson(in);
+        ResultadoImportacao resultado = new ResultadoImportacao();
+        List<Aluno> lote = new ArrayList<>(TAMANHO_LOTE);
+        int[] linhas = new int[TAMANHO_LOTE];
+
+        while (true) {
+            Aluno aluno;
+            try {
+                aluno = fonte.proximo();
+            } catch (JsonInvalidoException | RegistroInvalidoException e) {
+                resultado.rejeitar(fonte.linha(), e.getMessage());
+                fonte.descartarRegistro();
+                continue;
+            }
+            if (aluno == null) break;
+
+            String erro = validar(aluno);
+            if (erro != null) {
+                resultado.rejeitar(fonte.linha(), erro);
+                continue;
+            }
+            linhas[lote.size()] = fonte.linha();
+            lote.add(aluno);
+            if (lote.size() == TAMANHO_LOTE && !gravar(lote, linhas, resultado)) {
+                return resultado;
+            }
+        }
+        gravar(lote, linhas, resultado);
+        return resultado;
+    }
+
+    /**
+     * Valida os campos de um aluno.
+     * @param aluno Aluno lido
+     * @return Mensagem de erro ou null se o aluno é válido
+     */
+    static String validar(Aluno aluno) {
+        if (aluno.getNome() == null || aluno.getNome().isBlank()) return "nome é obrigatório";
+        if (aluno.getIdade() < 0 || aluno.getIdade() > 150) return "idade fora do intervalo 0-150";
+        if (aluno.getEmail() == null || aluno.getEmail().indexOf('@') < 1) return "email inválido";
+        if (aluno.getCurso() == null || aluno.getCurso().isBlank()) return "curso é obrigatório";
+        return null;
+    }
+
+    /**
+     * Grava o lote e rejeita as linhas que não entraram.
+     * @return false se a persistência parou de gravar (a importação deve parar)
+     */
+    private boolean gravar(List<Aluno> lote, int[] linhas, ResultadoImportacao resultado) {
+        if (lote.isEmpty()) return true;
+        try {
+            resultado.registrarImportados(service.salvarLote(lote));
+        } catch (PersistenciaIndisponivelException e) {
+            // Nenhum aluno do lote ficou salvo
+            for (int i = 0; i < lote.size(); i++) {
+                resultado.rejeitar(linhas[i], "não gravado: " + e.getMessage());
+            }
+            resultado.interromper(e.getMessage());
+            lote.clear();
+            return false;
+        }
+        for (int i = 0; i < lote.size(); i++) {
+            // Alunos rejeitados pelo repositório continuam sem ID
+            Aluno aluno = lote.get(i);
+            if (aluno.getId() == 0) {
+                resultado.rejeitar(linhas[i], motivoRejeicao(aluno));
+            }
+        }
+        lote.clear();
+        return true;
+    }
+
+    /**
+     * O repositório só recusa alunos de um lote pelo email; o dono atual identifica o aluno
+     * que já tem o email (cadastrado antes ou em uma linha anterior da própria importação).
+     */
+    private String motivoRejeicao(Aluno aluno) {
+        Aluno dono = service.buscarPorEmail(aluno.getEmail());
+        if (dono == null) return "email em uso por outro cadastro: " + aluno.getEmail();
+        return "email já cadastrado (aluno " + dono.getId() + "): " + aluno.getEmail();
+    }
+
+    private static FonteAlunos fonteNdjson(InputStream in) {
+        LeitorAlunoJson leitor = LeitorAlunoJson.paraNdjson(in, LIMITE_REGISTRO);
+        return new FonteAlunos() {
+            @Override
+            public Aluno proximo() throws IOException {
+                return leitor.lerAluno();
+            }
+
+            @Override
+            public int linha() {
+                return leitor.linha();
+            }
+
+            @Override
+            public void descartarRegistro() throws IOException {
+                leitor.descartarLinha();
+            }
+        };
+    }
+}
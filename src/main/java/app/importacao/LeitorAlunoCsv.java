@@ -0,0 +1,167 @@
+package app.importacao;
+
+import app.model.Aluno;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Leitor CSV incremental no formato nome,idade,email,curso (RFC 4180).
+ *
+ * Lê o stream em uma única passada através de um buffer fixo, aceita campos entre
+ * aspas (com vírgulas, quebras de linha e aspas duplicadas) e ignora um cabeçalho
+ * opcional na primeira linha. Cada registro é lido por inteiro antes de ser validado,
+ * então um registro inválido não compromete o seguinte.
+ */
+final class LeitorAlunoCsv implements FonteAlunos {
+    private static final int CAMPOS = 4;
+
+    private final InputStream in;
+    private final int limiteBytes;
+    private final byte[] buffer = new byte[8192];
+    private int posicao;
+    private int limite;
+
+    // Campos do registro atual (bytes UTF-8 acumulados por campo)
+    private final byte[][] campos = new byte[CAMPOS][64];
+    private final int[] tamanhos = new int[CAMPOS];
+
+    // Marca o registro atual como grande demais (os bytes excedentes não são acumulados)
+    private boolean excedeu;
+
+    private int quebrasDeLinha;
+    private int linhaRegistro;
+    private boolean primeiroRegistro = true;
+
+    /**
+     * @param in Stream com o CSV
+     * @param limiteBytes Quantidade máxima de bytes aceita por registro
+     */
+    LeitorAlunoCsv(InputStream in, int limiteBytes) {
+        this.in = in;
+        this.limiteBytes = limiteBytes;
+    }
+
+    @Override
+    public Aluno proximo() throws IOException {
+        while (true) {
+            int quantidade = lerRegistro();
+            if (quantidade == -1) return null;
+            if (quantidade == 1 && tamanhos[0] == 0) continue; // linha em branco
+            if (primeiroRegistro) {
+                primeiroRegistro = false;
+                if (quantidade == CAMPOS && campoIgual(1, "idade")) continue; // cabeçalho
+            }
+            if (quantidade != CAMPOS) {
+                throw new RegistroInvalidoException("esperados " + CAMPOS + " campos (nome,idade,email,curso), encontrados " + quantidade);
+            }
+            int idade;
+            try {
+                idade = Integer.parseInt(texto(1).trim());
+            } catch (NumberFormatException e) {
+                throw new RegistroInvalidoException("o campo 'idade' deve ser um número inteiro");
+            }
+            return new Aluno(texto(0), idade, texto(2), texto(3));
+        }
+    }
+
+    @Override
+    public int linha() {
+        return linhaRegistro;
+    }
+
+    @Override
+    public void descartarRegistro() {
+        // lerRegistro sempre consome o registro inteiro, mesmo quando ele é inválido
+    }
+
+    /**
+     * Lê um registro completo para os campos.
+     * @return Quantidade de campos lidos ou -1 no fim do stream
+     */
+    private int lerRegistro() throws IOException {
+        linhaRegistro = quebrasDeLinha + 1;
+        int c = ler();
+        if (c == -1) return -1;
+        int campo = 0;
+        int lidos = 0;
+        excedeu = false;
+        boolean malformado = false;
+        tamanhos[0] = 0;
+        boolean entreAspas = false;
+        boolean inicioCampo = true;
+        while (c != -1) {
+            if (++lidos > limiteBytes) excedeu = true;
+            if (entreAspas) {
+                if (c == '"') {
+                    if (espiar() == '"') {
+                        ler();
+                        acumular(campo, '"');
+                    } else {
+                        entreAspas = false;
+                        int prox = espiar();
+                        if (prox != ',' && prox != '\n' && prox != '\r' && prox != -1) malformado = true;
+                    }
+                } else {
+                    acumular(campo, c);
+                }
+            } else if (c == '"' && inicioCampo) {
+                entreAspas = true;
+            } else if (c == ',') {
+                campo++;
+                if (campo < CAMPOS) tamanhos[campo] = 0;
+                inicioCampo = true;
+                c = ler();
+                continue;
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                acumular(campo, c);
+            }
+            inicioCampo = false;
+            c = ler();
+        }
+        if (entreAspas) throw new RegistroInvalidoException("campo entre aspas não terminado");
+        if (excedeu) throw new RegistroInvalidoException("registro excede o limite de " + limiteBytes + " bytes");
+        if (malformado) throw new RegistroInvalidoException("conteúdo inesperado após aspas de fechamento");
+        return campo + 1;
+    }
+
+    private void acumular(int campo, int b) {
+        if (campo >= CAMPOS || excedeu) return; // campos extras são só contados
+        byte[] atual = campos[campo];
+        if (tamanhos[campo] == atual.length) {
+            atual = campos[campo] = Arrays.copyOf(atual, atual.length * 2);
+        }
+        atual[tamanhos[campo]++] = (byte) b;
+    }
+
+    private String texto(int campo) {
+        return new String(campos[campo], 0, tamanhos[campo], StandardCharsets.UTF_8);
+    }
+
+    private boolean campoIgual(int campo, String valor) {
+        return texto(campo).trim().equalsIgnoreCase(valor);
+    }
+
+    private int espiar() throws IOException {
+        if (posicao == limite && !preencher()) return -1;
+        return buffer[posicao] & 0xFF;
+    }
+
+    private int ler() throws IOException {
+        if (posicao == limite && !preencher()) return -1;
+        int b = buffer[posicao++] & 0xFF;
+        if (b == '\n') quebrasDeLinha++;
+        return b;
+    }
+
+    private boolean preencher() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        posicao = 0;
+        limite = n;
+        return true;
+    }
+}
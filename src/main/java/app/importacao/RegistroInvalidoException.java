@@ -0,0 +1,15 @@
+package app.importacao;
+
+/**
+ * Exceção lançada quando um registro CSV da importação está malformado.
+ */
+public class RegistroInvalidoException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param mensagem Descrição do problema encontrado
+     */
+    public RegistroInvalidoException(String mensagem) {
+        super(mensagem);
+    }
+}
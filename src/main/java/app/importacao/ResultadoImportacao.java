@@ -0,0 +1,63 @@
+package app.importacao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Relatório de uma importação em lote: quantos registros entraram, quantos foram
+ * rejeitados e o motivo de cada rejeição (limitado aos primeiros MAX_ERROS). Se a
+ * importação parou antes do fim do stream, também guarda o motivo.
+ */
+public class ResultadoImportacao {
+    // Quantidade máxima de erros detalhados guardados no relatório
+    public static final int MAX_ERROS = 1000;
+
+    /**
+     * Erro em um registro específico da importação.
+     * @param linha Linha (a partir de 1) onde o registro começa
+     * @param mensagem Motivo da rejeição
+     */
+    public record ErroLinha(int linha, String mensagem) { }
+
+    private int importados;
+    private int rejeitados;
+    private final List<ErroLinha> erros = new ArrayList<>();
+    private String interrupcao;
+
+    void registrarImportados(int quantidade) {
+        importados += quantidade;
+    }
+
+    void rejeitar(int linha, String mensagem) {
+        rejeitados++;
+        if (erros.size() < MAX_ERROS) {
+            erros.add(new ErroLinha(linha, mensagem));
+        }
+    }
+
+    void interromper(String motivo) {
+        interrupcao = motivo;
+    }
+
+    /**
+     * @return Quantidade de alunos salvos
+     */
+    public int getImportados() { return importados; }
+
+    /**
+     * @return Quantidade de registros rejeitados
+     */
+    public int getRejeitados() { return rejeitados; }
+
+    /**
+     * @return Erros detalhados (no máximo MAX_ERROS)
+     */
+    public List<ErroLinha> getErros() { return Collections.unmodifiableList(erros); }
+
+    /**
+     * @return Motivo pelo qual a importação parou antes do fim do stream, ou null se ela
+     *         leu todos os registros (as linhas seguintes não foram lidas)
+     */
+    public String getInterrupcao() { return interrupcao; }
+}
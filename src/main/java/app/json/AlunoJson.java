@@ -0,0 +1,58 @@
+package app.json;
+
+import app.model.Aluno;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializador JSON dedicado para {@link Aluno}.
+ *
+ * Escreve os seis campos direto em um {@link EscritorJson} (UTF-8, com escape),
+ * sem String.format e sem Strings intermediárias.
+ */
+public final class AlunoJson {
+    // Trechos fixos do objeto JSON (nomes dos campos)
+    private static final byte[] CAMPO_ID = ascii("{\"id\":");
+    private static final byte[] CAMPO_NOME = ascii(",\"nome\":");
+    private static final byte[] CAMPO_IDADE = ascii(",\"idade\":");
+    private static final byte[] CAMPO_EMAIL = ascii(",\"email\":");
+    private static final byte[] CAMPO_CURSO = ascii(",\"curso\":");
+    private static final byte[] CAMPO_VERSAO = ascii(",\"versao\":");
+
+    private AlunoJson() {
+    }
+
+    /**
+     * Escreve o aluno como objeto JSON.
+     * @param escritor Buffer de destino
+     * @param aluno Aluno a ser serializado
+     */
+    public static void escrever(EscritorJson escritor, Aluno aluno) {
+        escritor.escreverBytes(CAMPO_ID).escreverInt(aluno.getId())
+                .escreverBytes(CAMPO_NOME).escreverTexto(aluno.getNome())
+                .escreverBytes(CAMPO_IDADE).escreverInt(aluno.getIdade())
+                .escreverBytes(CAMPO_EMAIL).escreverTexto(aluno.getEmail())
+                .escreverBytes(CAMPO_CURSO).escreverTexto(aluno.getCurso())
+                .escreverBytes(CAMPO_VERSAO).escreverLong(aluno.getVersao())
+                .escreverByte('}');
+    }
+
+    /**
+     * Escreve uma lista de alunos como array JSON.
+     * @param escritor Buffer de destino
+     * @param alunos Alunos a serem serializados
+     */
+    public static void escreverLista(EscritorJson escritor, Iterable<Aluno> alunos) {
+        escritor.escreverByte('[');
+        boolean primeiro = true;
+        for (Aluno aluno : alunos) {
+            if (!primeiro) escritor.escreverByte(',');
+            escrever(escritor, aluno);
+            primeiro = false;
+        }
+        escritor.escreverByte(']');
+    }
+
+    private static byte[] ascii(String trecho) {
+        return trecho.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,359 @@
+package app.json;
+
+import app.metricas.Metricas;
+import app.model.Aluno;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache limitado dos bytes JSON já codificados de cada aluno (o objeto que
+ * {@link AlunoJson#escrever} produziria), para GET /alunos/{id} e para montar listas.
+ *
+ * Chave: ID e versão. Cada gravação gera uma versão nova, então um trecho só é usado
+ * se a versão guardada for a do aluno lido: um trecho desatualizado nunca é enviado,
+ * mesmo que a invalidação chegue depois da leitura. A invalidação ({@link #invalidar})
+ * só libera a memória mais cedo.
+ *
+ * Despejo no estilo W-TinyLFU, com tamanho em bytes:
+ * - uma janela pequena (1% da capacidade) recebe todo trecho novo, em ordem de chegada
+ * - quem sai da janela disputa a área principal com a próxima vítima dela (escolhida
+ *   por CLOCK, que dá uma segunda chance aos trechos lidos desde a última passada):
+ *   fica quem foi acessado mais vezes, segundo um contador aproximado de frequência
+ *   (count-min sketch de 4 bits, com os contadores divididos por 2 periodicamente)
+ * - uma varredura (ex: listar tudo) passa pela janela sem expulsar os trechos quentes
+ *
+ * Leituras não usam lock (mapa concorrente + bit de uso); só a admissão de trechos novos
+ * e a invalidação sincronizam no cache.
+ */
+public final class CacheJsonAlunos {
+    // Estimativa do custo de cada entrada além dos bytes do JSON (mapa, chave e objeto)
+    private static final int SOBRECARGA_ENTRADA = 96;
+    // Tamanho médio esperado de um trecho, usado para dimensionar o contador de frequência
+    private static final int TAMANHO_MEDIO = 128;
+
+    private static final LongAdder ACERTOS = Metricas.contador("cache_json_acertos");
+    private static final LongAdder FALTAS = Metricas.contador("cache_json_faltas");
+
+    /**
+     * JSON de uma versão de um aluno.
+     */
+    private static final class Trecho {
+        final int id;
+        final long versao;
+        final byte[] bytes;
+        volatile boolean usado;        // lido desde a última passada do CLOCK
+        boolean naJanela;              // campos abaixo: só com o lock do cache
+        boolean descartado;
+
+        Trecho(int id, long versao, byte[] bytes) {
+            this.id = id;
+            this.versao = versao;
+            this.bytes = bytes;
+        }
+
+        int peso() {
+            return bytes.length + SOBRECARGA_ENTRADA;
+        }
+    }
+
+    private final long capacidade;
+    private final long capacidadeJanela;
+    private final ConcurrentMap<Integer, Trecho> trechos = new ConcurrentHashMap<>();
+    private final FrequenciaAproximada frequencia;
+
+    // Ordem de despejo (com o lock do cache). Trechos descartados saem quando chegam à frente
+    private final ArrayDeque<Trecho> janela = new ArrayDeque<>();
+    private final ArrayDeque<Trecho> principal = new ArrayDeque<>();
+    private long bytes;
+    private long bytesJanela;
+    private int descartadosNasFilas;
+
+    /**
+     * @param capacidadeBytes Memória máxima estimada (0 = cache desligado)
+     */
+    public CacheJsonAlunos(long capacidadeBytes) {
+        this.capacidade = capacidadeBytes;
+        this.capacidadeJanela = Math.max(capacidadeBytes / 100, 1);
+        this.frequencia = new FrequenciaAproximada((int) Math.min(capacidadeBytes / TAMANHO_MEDIO, 1 << 24));
+        Metricas.medidor("cache_json_bytes", () -> bytes);
+        Metricas.medidor("cache_json_entradas", trechos::size);
+        Metricas.medidor("cache_json_acertos_percentual", CacheJsonAlunos::percentualAcertos);
+    }
+
+    /**
+     * Cria o cache com -Dalunos.cache.json.bytes (padrão 32 MB).
+     * @return Cache configurado
+     */
+    public static CacheJsonAlunos daConfiguracao() {
+        return new CacheJsonAlunos(Long.getLong("alunos.cache.json.bytes", 32L * 1024 * 1024));
+    }
+
+    // ========== LEITURA ==========
+
+    /**
+     * Escreve o aluno como {@link AlunoJson#escrever}, copiando os bytes do cache quando
+     * a versão bate; senão codifica, e o trecho novo concorre a uma vaga no cache.
+     * @param escritor Buffer de destino
+     * @param aluno Aluno a ser serializado
+     */
+    public void escrever(EscritorJson escritor, Aluno aluno) {
+        escrever(escritor, aluno, true);
+    }
+
+    /**
+     * Como {@link #escrever(EscritorJson, Aluno)}, mas sem guardar o trecho em caso de falta.
+     * Para varreduras de todos os alunos, que só passariam pelo cache.
+     * @param escritor Buffer de destino
+     * @param aluno Aluno a ser serializado
+     */
+    public void escreverSemGuardar(EscritorJson escritor, Aluno aluno) {
+        escrever(escritor, aluno, false);
+    }
+
+    /**
+     * Escreve os alunos como {@link AlunoJson#escreverLista}, usando os trechos do cache.
+     * @param escritor Buffer de destino
+     * @param alunos Alunos a serem serializados
+     */
+    public void escreverLista(EscritorJson escritor, Iterable<Aluno> alunos) {
+        escritor.escreverByte('[');
+        boolean primeiro = true;
+        for (Aluno aluno : alunos) {
+            if (!primeiro) escritor.escreverByte(',');
+            escrever(escritor, aluno);
+            primeiro = false;
+        }
+        escritor.escreverByte(']');
+    }
+
+    private void escrever(EscritorJson escritor, Aluno aluno, boolean guardar) {
+        if (capacidade == 0) {
+            AlunoJson.escrever(escritor, aluno);
+            return;
+        }
+        int id = aluno.getId();
+        frequencia.registrar(id);
+        Trecho trecho = trechos.get(id);
+        if (trecho != null && trecho.versao == aluno.getVersao()) {
+            if (!trecho.usado) trecho.usado = true;
+            escritor.escreverBytes(trecho.bytes);
+            ACERTOS.increment();
+            return;
+        }
+        FALTAS.increment();
+        int inicio = escritor.tamanho();
+        AlunoJson.escrever(escritor, aluno);
+        if (guardar) {
+            admitir(new Trecho(id, aluno.getVersao(), escritor.copiarDesde(inicio)));
+        }
+    }
+
+    /**
+     * @return Acertos em relação ao total de consultas, em % (0 sem consultas)
+     */
+    private static long percentualAcertos() {
+        long acertos = ACERTOS.sum();
+        long total = acertos + FALTAS.sum();
+        return total == 0 ? 0 : acertos * 100 / total;
+    }
+
+    // ========== INVALIDAÇÃO ==========
+
+    /**
+     * Descarta o trecho do aluno (chamado a cada alteração no repositório).
+     * @param id ID do aluno alterado ou removido
+     */
+    public void invalidar(int id) {
+        if (capacidade == 0) return;
+        Trecho trecho = trechos.remove(id);
+        if (trecho != null) {
+            synchronized (this) {
+                descartar(trecho);
+            }
+        }
+    }
+
+    // ========== DESPEJO ==========
+
+    /**
+     * Coloca o trecho novo na janela; quem sair dela disputa a área principal.
+     */
+    private synchronized void admitir(Trecho novo) {
+        if (novo.peso() > capacidade) return;
+        Trecho anterior = trechos.put(novo.id, novo);
+        if (anterior != null) descartar(anterior);
+        novo.naJanela = true;
+        janela.addLast(novo);
+        bytes += novo.peso();
+        bytesJanela += novo.peso();
+        while (bytesJanela > capacidadeJanela) {
+            Trecho candidato = janela.pollFirst();
+            if (candidato.descartado) {
+                descartadosNasFilas--;
+                continue;
+            }
+            candidato.naJanela = false;
+            bytesJanela -= candidato.peso();
+            promover(candidato);
+        }
+        if (descartadosNasFilas > trechos.size()) compactar();
+    }
+
+    /**
+     * Passa o trecho da janela para a área principal, expulsando as vítimas que foram
+     * acessadas menos vezes que ele. Se uma vítima for mais frequente, o trecho sai.
+     */
+    private void promover(Trecho candidato) {
+        int frequenciaCandidato = frequencia.estimar(candidato.id);
+        while (bytes > capacidade) {
+            Trecho vitima = proximaVitima();
+            if (vitima == null) break;
+            if (frequenciaCandidato > frequencia.estimar(vitima.id)) {
+                trechos.remove(vitima.id, vitima);
+                descartar(vitima);
+                descartadosNasFilas--;             // já saiu da fila
+            } else {
+                principal.addFirst(vitima);        // continua sendo a próxima vítima
+                trechos.remove(candidato.id, candidato);
+                descartar(candidato);
+                descartadosNasFilas--;             // já saiu da janela
+                return;
+            }
+        }
+        principal.addLast(candidato);
+    }
+
+    /**
+     * CLOCK: o primeiro trecho da fila que não foi lido desde a última passada.
+     * Os lidos perdem a marca e vão para o fim da fila.
+     * @return Vítima (já retirada da fila) ou null se a área principal estiver vazia
+     */
+    private Trecho proximaVitima() {
+        int limite = 2 * principal.size();
+        Trecho trecho;
+        while ((trecho = principal.pollFirst()) != null) {
+            if (trecho.descartado) {
+                descartadosNasFilas--;
+                continue;
+            }
+            if (trecho.usado && limite-- > 0) {
+                trecho.usado = false;
+                principal.addLast(trecho);
+                continue;
+            }
+            return trecho;
+        }
+        return null;
+    }
+
+    /**
+     * Marca o trecho como descartado e desconta o seu peso (com o lock do cache).
+     * Ele continua na fila até chegar à frente ou até a próxima compactação.
+     */
+    private void descartar(Trecho trecho) {
+        if (trecho.descartado) return;
+        trecho.descartado = true;
+        bytes -= trecho.peso();
+        if (trecho.naJanela) bytesJanela -= trecho.peso();
+        descartadosNasFilas++;
+    }
+
+    /**
+     * Remove os descartados das filas (quando são mais que os trechos válidos, por exemplo
+     * com muitas invalidações e o cache abaixo da capacidade, sem despejos).
+     */
+    private void compactar() {
+        janela.removeIf(trecho -> trecho.descartado);
+        principal.removeIf(trecho -> trecho.descartado);
+        descartadosNasFilas = 0;
+    }
+
+    /**
+     * Contador aproximado de acessos por ID (count-min sketch com contadores de 4 bits).
+     *
+     * Cada ID incrementa 4 contadores escolhidos por hashes diferentes; a estimativa é
+     * o menor deles. A cada 10 acessos por entrada esperada, todos os contadores são
+     * divididos por 2, para que a frequência reflita o uso recente.
+     *
+     * Atualizado sem lock: cada contador sobe por CAS na palavra de 16 contadores e para
+     * em 15, então um incremento concorrente nunca transborda para o contador vizinho.
+     * A contagem de amostras e o envelhecimento podem perder um incremento ou outro, o
+     * que só reduz um pouco a precisão de uma estimativa que já é aproximada.
+     */
+    private static final class FrequenciaAproximada {
+        private static final long[] SEMENTES = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long METADE = 0x7777777777777777L;
+
+        private final AtomicLongArray tabela; // 16 contadores de 4 bits por long
+        private final int mascara;
+        private final int limiteAmostras;
+        private final AtomicInteger amostras = new AtomicInteger();
+        private final AtomicBoolean envelhecendo = new AtomicBoolean();
+
+        FrequenciaAproximada(int entradasEsperadas) {
+            int tamanho = Integer.highestOneBit(Math.max(entradasEsperadas, 64) - 1) << 1;
+            this.tabela = new AtomicLongArray(tamanho);
+            this.mascara = tamanho - 1;
+            this.limiteAmostras = 10 * tamanho;
+        }
+
+        void registrar(int id) {
+            boolean incrementou = false;
+            for (int i = 0; i < SEMENTES.length; i++) {
+                int posicao = posicao(id, i);
+                incrementou |= incrementar((posicao >>> 4) & mascara, (posicao & 15) << 2);
+            }
+            if (incrementou && amostras.incrementAndGet() >= limiteAmostras) envelhecer();
+        }
+
+        /**
+         * @return false se o contador já estava saturado (15)
+         */
+        private boolean incrementar(int indice, int deslocamento) {
+            long atual;
+            do {
+                atual = tabela.get(indice);
+                if (((atual >>> deslocamento) & 0xF) == 15) return false;
+            } while (!tabela.compareAndSet(indice, atual, atual + (1L << deslocamento)));
+            return true;
+        }
+
+        int estimar(int id) {
+            int minimo = 15;
+            for (int i = 0; i < SEMENTES.length; i++) {
+                int posicao = posicao(id, i);
+                int contador = (int) (tabela.get((posicao >>> 4) & mascara) >>> ((posicao & 15) << 2)) & 0xF;
+                minimo = Math.min(minimo, contador);
+            }
+            return minimo;
+        }
+
+        /**
+         * Divide todos os contadores por 2. Só uma thread envelhece de cada vez; as que
+         * chegarem durante a passada seguem sem esperar.
+         */
+        private void envelhecer() {
+            if (!envelhecendo.compareAndSet(false, true)) return;
+            try {
+                if (amostras.get() < limiteAmostras) return;
+                for (int i = 0; i < tabela.length(); i++) {
+                    tabela.getAndUpdate(i, contadores -> (contadores >>> 1) & METADE);
+                }
+                amostras.set(amostras.get() / 2);
+            } finally {
+                envelhecendo.set(false);
+            }
+        }
+
+        private static int posicao(int id, int i) {
+            long h = (id + SEMENTES[i]) * SEMENTES[i];
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package app.json;
+
+import app.model.Aluno;
+
+/**
+ * Campos de um aluno lidos de um JSON parcial (ex: corpo de PATCH).
+ * Campos ausentes ficam null; versao fica 0 quando não foi informada.
+ *
+ * @param nome Nome ou null
+ * @param idade Idade ou null
+ * @param email Email ou null
+ * @param curso Curso ou null
+ * @param versao Versão informada no corpo ou 0
+ */
+public record CamposAluno(String nome, Integer idade, String email, String curso, long versao) {
+
+    /**
+     * Cria um novo aluno com os campos informados sobre os dados de "base".
+     * @param base Aluno atual
+     * @return Novo aluno (com o mesmo ID de base e versão ainda não atribuída)
+     */
+    public Aluno aplicarEm(Aluno base) {
+        Aluno aluno = new Aluno(
+                nome != null ? nome : base.getNome(),
+                idade != null ? idade : base.getIdade(),
+                email != null ? email : base.getEmail(),
+                curso != null ? curso : base.getCurso());
+        aluno.setId(base.getId());
+        return aluno;
+    }
+}
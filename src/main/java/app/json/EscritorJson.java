@@ -0,0 +1,273 @@
+package app.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Buffer de bytes reutilizável que escreve JSON diretamente em UTF-8.
+ *
+ * Evita String.format, boxing de inteiros e Strings intermediárias: números são
+ * convertidos dígito a dígito e textos são escapados e codificados em UTF-8 direto
+ * no array interno. Cada thread pode reaproveitar a sua instância através de
+ * {@link #daThread()}, então o custo de alocação por resposta fica constante.
+ *
+ * Não é thread-safe: cada instância deve ser usada por uma thread de cada vez.
+ */
+public final class EscritorJson {
+    // Capacidade inicial e limite acima do qual o buffer da thread é descartado
+    private static final int CAPACIDADE_INICIAL = 1024;
+    private static final int CAPACIDADE_RETIDA = 64 * 1024;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    // Uma instância por thread, reaproveitada entre requisições
+    private static final ThreadLocal<EscritorJson> DA_THREAD = ThreadLocal.withInitial(EscritorJson::new);
+
+    private byte[] bytes;
+    private int tamanho;
+
+    public EscritorJson() {
+        this(CAPACIDADE_INICIAL);
+    }
+
+    public EscritorJson(int capacidade) {
+        this.bytes = new byte[capacidade];
+    }
+
+    /**
+     * Retorna o buffer reutilizável da thread atual, já vazio.
+     * Buffers que cresceram demais são trocados por um novo para não reter memória.
+     * @return Escritor pronto para uso
+     */
+    public static EscritorJson daThread() {
+        EscritorJson escritor = DA_THREAD.get();
+        if (escritor.bytes.length > CAPACIDADE_RETIDA) {
+            escritor = new EscritorJson();
+            DA_THREAD.set(escritor);
+        }
+        escritor.limpar();
+        return escritor;
+    }
+
+    // ========== ESCRITA ==========
+
+    /**
+     * Descarta o conteúdo, mantendo o array para reaproveitamento.
+     */
+    public void limpar() {
+        tamanho = 0;
+    }
+
+    /**
+     * Escreve um único byte (ex: '[', ',', '{').
+     * @param b Byte a ser escrito
+     * @return O próprio escritor (para encadear chamadas)
+     */
+    public EscritorJson escreverByte(int b) {
+        garantirEspaco(1);
+        bytes[tamanho++] = (byte) b;
+        return this;
+    }
+
+    /**
+     * Escreve um trecho fixo sem escapar (ex: nomes de campos já com aspas).
+     * O texto é codificado em UTF-8.
+     * @param trecho Texto literal
+     * @return O próprio escritor
+     */
+    public EscritorJson escreverBruto(String trecho) {
+        for (int i = 0; i < trecho.length(); i++) {
+            i = escreverCaractere(trecho, i);
+        }
+        return this;
+    }
+
+    /**
+     * Escreve bytes já codificados (ex: fragmentos pré-renderizados).
+     * @param origem Bytes a copiar
+     * @return O próprio escritor
+     */
+    public EscritorJson escreverBytes(byte[] origem) {
+        garantirEspaco(origem.length);
+        System.arraycopy(origem, 0, bytes, tamanho, origem.length);
+        tamanho += origem.length;
+        return this;
+    }
+
+    /**
+     * Escreve um inteiro em decimal sem criar Strings.
+     * @param valor Número a ser escrito
+     * @return O próprio escritor
+     */
+    public EscritorJson escreverInt(int valor) {
+        if (valor == Integer.MIN_VALUE) {
+            return escreverBruto("-2147483648");
+        }
+        garantirEspaco(11);
+        if (valor < 0) {
+            bytes[tamanho++] = '-';
+            valor = -valor;
+        }
+        // Conta os dígitos e preenche de trás para frente
+        int digitos = 1;
+        for (int v = valor; v >= 10; v /= 10) digitos++;
+        int pos = tamanho + digitos;
+        tamanho = pos;
+        do {
+            bytes[--pos] = (byte) ('0' + valor % 10);
+            valor /= 10;
+        } while (valor != 0);
+        return this;
+    }
+
+    /**
+     * Escreve um long em decimal sem criar Strings (as versões dos alunos passam de 2^31).
+     * @param valor Número a ser escrito
+     * @return O próprio escritor
+     */
+    public EscritorJson escreverLong(long valor) {
+        if (valor >= Integer.MIN_VALUE && valor <= Integer.MAX_VALUE) {
+            return escreverInt((int) valor);
+        }
+        if (valor == Long.MIN_VALUE) {
+            return escreverBruto("-9223372036854775808");
+        }
+        garantirEspaco(20);
+        if (valor < 0) {
+            bytes[tamanho++] = '-';
+            valor = -valor;
+        }
+        // Conta os dígitos e preenche de trás para frente
+        int digitos = 1;
+        for (long v = valor; v >= 10; v /= 10) digitos++;
+        int pos = tamanho + digitos;
+        tamanho = pos;
+        do {
+            bytes[--pos] = (byte) ('0' + valor % 10);
+            valor /= 10;
+        } while (valor != 0);
+        return this;
+    }
+
+    /**
+     * Escreve um texto JSON entre aspas, escapando aspas, barras e caracteres de controle.
+     * null é escrito como o literal null.
+     * @param texto Texto a ser escrito
+     * @return O próprio escritor
+     */
+    public EscritorJson escreverTexto(String texto) {
+        if (texto == null) {
+            return escreverBruto("null");
+        }
+        escreverByte('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"' || c == '\\') {
+                garantirEspaco(2);
+                bytes[tamanho++] = '\\';
+                bytes[tamanho++] = (byte) c;
+            } else if (c < 0x20) {
+                escreverControle(c);
+            } else {
+                i = escreverCaractere(texto, i);
+            }
+        }
+        return escreverByte('"');
+    }
+
+    // ========== LEITURA DO CONTEÚDO ==========
+
+    /**
+     * @return Quantidade de bytes escritos
+     */
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Copia o conteúdo para o stream informado (sem criar arrays intermediários).
+     * @param os Stream de destino
+     * @throws IOException Se houver erro de escrita
+     */
+    public void escreverEm(OutputStream os) throws IOException {
+        os.write(bytes, 0, tamanho);
+    }
+
+    /**
+     * @param inicio Posição inicial (ex: o tamanho() antes de escrever um trecho)
+     * @return Cópia dos bytes escritos a partir da posição
+     */
+    public byte[] copiarDesde(int inicio) {
+        return Arrays.copyOfRange(bytes, inicio, tamanho);
+    }
+
+    /**
+     * @return Cópia exata do conteúdo escrito
+     */
+    public byte[] paraArray() {
+        return Arrays.copyOf(bytes, tamanho);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Codifica em UTF-8 o caractere na posição i (tratando pares substitutos).
+     * @return Índice do último char consumido
+     */
+    private int escreverCaractere(String texto, int i) {
+        char c = texto.charAt(i);
+        if (c < 0x80) {
+            garantirEspaco(1);
+            bytes[tamanho++] = (byte) c;
+        } else if (c < 0x800) {
+            garantirEspaco(2);
+            bytes[tamanho++] = (byte) (0xC0 | (c >> 6));
+            bytes[tamanho++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < texto.length()
+                   && Character.isLowSurrogate(texto.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, texto.charAt(i + 1));
+            garantirEspaco(4);
+            bytes[tamanho++] = (byte) (0xF0 | (cp >> 18));
+            bytes[tamanho++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            bytes[tamanho++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            bytes[tamanho++] = (byte) (0x80 | (cp & 0x3F));
+            return i + 1;
+        } else if (Character.isSurrogate(c)) {
+            // Substituto isolado não é UTF-8 válido
+            escreverByte('?');
+        } else {
+            garantirEspaco(3);
+            bytes[tamanho++] = (byte) (0xE0 | (c >> 12));
+            bytes[tamanho++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[tamanho++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+
+    private void escreverControle(char c) {
+        garantirEspaco(6);
+        bytes[tamanho++] = '\\';
+        switch (c) {
+            case '\n' -> bytes[tamanho++] = 'n';
+            case '\r' -> bytes[tamanho++] = 'r';
+            case '\t' -> bytes[tamanho++] = 't';
+            case '\b' -> bytes[tamanho++] = 'b';
+            case '\f' -> bytes[tamanho++] = 'f';
+            default -> {
+                bytes[tamanho++] = 'u';
+                bytes[tamanho++] = '0';
+                bytes[tamanho++] = '0';
+                bytes[tamanho++] = HEX[c >> 4];
+                bytes[tamanho++] = HEX[c & 0xF];
+            }
+        }
+    }
+
+    private void garantirEspaco(int adicional) {
+        int necessario = tamanho + adicional;
+        if (necessario > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(necessario, bytes.length << 1));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package app.json;
+
+import app.repository.EstatisticasAlunos;
+import app.repository.EstatisticasIdade;
+import java.util.Map;
+
+/**
+ * Serializador JSON das estatísticas de GET /alunos/stats.
+ *
+ * Formato: {"total":{...},"cursos":{"ADS":{...}}}, em que cada grupo tem quantidade,
+ * mediaIdade (duas casas decimais), idadeMinima, idadeMaxima e faixasEtarias
+ * ({"0-9":n,"10-19":n,...,"100+":n}, sempre com todas as faixas).
+ */
+public final class EstatisticasJson {
+
+    private EstatisticasJson() {
+    }
+
+    /**
+     * Escreve as estatísticas como objeto JSON.
+     * @param escritor Buffer de destino
+     * @param estatisticas Estatísticas do total e dos cursos
+     */
+    public static void escrever(EscritorJson escritor, EstatisticasAlunos estatisticas) {
+        escritor.escreverBruto("{\"total\":");
+        escreverGrupo(escritor, estatisticas.total());
+        escritor.escreverBruto(",\"cursos\":{");
+        boolean primeiro = true;
+        for (Map.Entry<String, EstatisticasIdade> curso : estatisticas.porCurso().entrySet()) {
+            if (!primeiro) escritor.escreverByte(',');
+            escritor.escreverTexto(curso.getKey()).escreverByte(':');
+            escreverGrupo(escritor, curso.getValue());
+            primeiro = false;
+        }
+        escritor.escreverBruto("}}");
+    }
+
+    private static void escreverGrupo(EscritorJson escritor, EstatisticasIdade grupo) {
+        escritor.escreverBruto("{\"quantidade\":").escreverLong(grupo.quantidade())
+                .escreverBruto(",\"mediaIdade\":");
+        escreverCentesimos(escritor, Math.round(grupo.mediaIdade() * 100));
+        escritor.escreverBruto(",\"idadeMinima\":").escreverInt(grupo.idadeMinima())
+                .escreverBruto(",\"idadeMaxima\":").escreverInt(grupo.idadeMaxima())
+                .escreverBruto(",\"faixasEtarias\":{");
+        long[] faixas = grupo.faixas();
+        for (int i = 0; i < faixas.length; i++) {
+            if (i > 0) escritor.escreverByte(',');
+            int inicio = i * EstatisticasIdade.LARGURA_FAIXA;
+            escritor.escreverByte('"').escreverInt(inicio);
+            if (i == faixas.length - 1) {
+                escritor.escreverByte('+');
+            } else {
+                escritor.escreverByte('-').escreverInt(inicio + EstatisticasIdade.LARGURA_FAIXA - 1);
+            }
+            escritor.escreverBruto("\":").escreverLong(faixas[i]);
+        }
+        escritor.escreverBruto("}}");
+    }
+
+    /**
+     * Escreve um valor em centésimos como número decimal (ex: 2133 -> 21.33).
+     */
+    private static void escreverCentesimos(EscritorJson escritor, long centesimos) {
+        if (centesimos < 0) {
+            escritor.escreverByte('-');
+            centesimos = -centesimos;
+        }
+        long fracao = centesimos % 100;
+        escritor.escreverLong(centesimos / 100).escreverByte('.');
+        if (fracao < 10) escritor.escreverByte('0');
+        escritor.escreverLong(fracao);
+    }
+}
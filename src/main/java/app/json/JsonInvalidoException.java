@@ -0,0 +1,16 @@
+package app.json;
+
+/**
+ * Exceção lançada quando o JSON recebido está malformado, incompleto,
+ * excede o tamanho permitido ou não contém os campos esperados.
+ */
+public class JsonInvalidoException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param mensagem Descrição do problema encontrado
+     */
+    public JsonInvalidoException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -0,0 +1,418 @@
+package app.json;
+
+import app.model.Aluno;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Leitor JSON de passada única que monta {@link Aluno} direto do {@link InputStream}.
+ *
+ * Lê os bytes uma única vez, em ordem, através de um buffer pequeno: não carrega o
+ * corpo inteiro na memória nem cria uma String com o documento. Aceita espaços,
+ * escapes (incluindo \\uXXXX), campos em qualquer ordem, campos desconhecidos
+ * (ignorados), "versao" opcional e "idade" tanto como número quanto como texto numérico.
+ *
+ * Pode ler vários objetos seguidos do mesmo stream, um por chamada a
+ * {@link #lerAluno()}. O limite de tamanho vale para cada objeto. No modo NDJSON
+ * ({@link #paraNdjson}) cada objeto deve caber em uma linha, e depois de um erro
+ * {@link #descartarLinha()} pula para o próximo registro.
+ *
+ * Qualquer problema de formato gera {@link JsonInvalidoException}.
+ */
+public final class LeitorAlunoJson {
+    // Limite padrão de bytes por objeto
+    public static final int LIMITE_PADRAO = 16 * 1024;
+
+    // Profundidade máxima de objetos/arrays aninhados em campos ignorados
+    private static final int PROFUNDIDADE_MAXIMA = 32;
+
+    private final InputStream in;
+    private final int limiteBytes;
+    private final boolean umPorLinha;
+    private final byte[] buffer = new byte[4096];
+    private int posicao;
+    private int limite;
+
+    // Bytes consumidos no total e no objeto atual
+    private long lidosTotal;
+    private int lidosObjeto;
+
+    // Controle de linhas (para relatórios de erro no NDJSON)
+    private int quebrasDeLinha;
+    private int linhaObjeto;
+    private int ultimoLido = -1;
+    private boolean dentroDeObjeto;
+
+    // Acumulador reaproveitado para textos (chaves e valores)
+    private final StringBuilder texto = new StringBuilder(64);
+
+    /**
+     * @param in Stream com o JSON
+     * @param limiteBytes Quantidade máxima de bytes aceita por objeto
+     */
+    public LeitorAlunoJson(InputStream in, int limiteBytes) {
+        this(in, limiteBytes, false);
+    }
+
+    private LeitorAlunoJson(InputStream in, int limiteBytes, boolean umPorLinha) {
+        this.in = in;
+        this.limiteBytes = limiteBytes;
+        this.umPorLinha = umPorLinha;
+    }
+
+    /**
+     * Cria um leitor para NDJSON (um objeto por linha).
+     * @param in Stream com as linhas
+     * @param limiteBytes Quantidade máxima de bytes aceita por linha
+     * @return Leitor em modo NDJSON
+     */
+    public static LeitorAlunoJson paraNdjson(InputStream in, int limiteBytes) {
+        return new LeitorAlunoJson(in, limiteBytes, true);
+    }
+
+    /**
+     * Lê um único objeto e exige que não haja mais nada no stream além de espaços.
+     * @param in Stream com o JSON (ex: corpo de um POST)
+     * @param limiteBytes Quantidade máxima de bytes aceita
+     * @return O aluno lido (sem ID)
+     * @throws IOException Se houver erro de leitura no stream
+     */
+    public static Aluno lerUnico(InputStream in, int limiteBytes) throws IOException {
+        LeitorAlunoJson leitor = new LeitorAlunoJson(in, limiteBytes);
+        Aluno aluno = leitor.lerAluno();
+        if (aluno == null) {
+            throw new JsonInvalidoException("Corpo da requisição vazio");
+        }
+        if (leitor.pularEspacos() != -1) {
+            throw leitor.erro("conteúdo extra após o objeto");
+        }
+        return aluno;
+    }
+
+    /**
+     * Lê um único objeto parcial (ex: corpo de um PATCH): nenhum campo é obrigatório.
+     * @param in Stream com o JSON
+     * @param limiteBytes Quantidade máxima de bytes aceita
+     * @return Os campos presentes no objeto
+     * @throws IOException Se houver erro de leitura no stream
+     */
+    public static CamposAluno lerCampos(InputStream in, int limiteBytes) throws IOException {
+        LeitorAlunoJson leitor = new LeitorAlunoJson(in, limiteBytes);
+        CamposAluno campos = leitor.lerObjeto();
+        if (campos == null) {
+            throw new JsonInvalidoException("Corpo da requisição vazio");
+        }
+        if (leitor.pularEspacos() != -1) {
+            throw leitor.erro("conteúdo extra após o objeto");
+        }
+        return campos;
+    }
+
+    /**
+     * Lê o próximo objeto do stream.
+     * @return O aluno lido (sem ID) ou null se o stream terminou
+     * @throws IOException Se houver erro de leitura no stream
+     */
+    public Aluno lerAluno() throws IOException {
+        CamposAluno campos = lerObjeto();
+        if (campos == null) return null;
+        if (campos.nome() == null) throw new JsonInvalidoException("Campo obrigatório ausente: nome");
+        if (campos.idade() == null) throw new JsonInvalidoException("Campo obrigatório ausente: idade");
+        if (campos.email() == null) throw new JsonInvalidoException("Campo obrigatório ausente: email");
+        if (campos.curso() == null) throw new JsonInvalidoException("Campo obrigatório ausente: curso");
+        Aluno aluno = new Aluno(campos.nome(), campos.idade(), campos.email(), campos.curso());
+        aluno.setVersao(campos.versao());
+        return aluno;
+    }
+
+    /**
+     * Lê o próximo objeto sem exigir campos.
+     * @return Os campos lidos ou null se o stream terminou
+     */
+    private CamposAluno lerObjeto() throws IOException {
+        dentroDeObjeto = false;
+        int c = pularEspacos();
+        if (c == -1) return null;
+        lidosObjeto = 0;
+        linhaObjeto = quebrasDeLinha + 1;
+        dentroDeObjeto = true;
+        esperar('{');
+
+        String nome = null, email = null, curso = null;
+        Integer idade = null;
+        long versao = 0;
+
+        c = pularEspacos();
+        if (c == '}') {
+            ler();
+        } else {
+            while (true) {
+                esperar('"');
+                lerConteudoTexto();
+                pularEspacos();
+                esperar(':');
+                pularEspacos();
+                if ("nome".contentEquals(texto)) {
+                    nome = lerValorTexto("nome");
+                } else if ("email".contentEquals(texto)) {
+                    email = lerValorTexto("email");
+                } else if ("curso".contentEquals(texto)) {
+                    curso = lerValorTexto("curso");
+                } else if ("idade".contentEquals(texto)) {
+                    idade = lerValorInteiro("idade");
+                } else if ("versao".contentEquals(texto)) {
+                    versao = lerValorLong("versao");
+                } else {
+                    pularValor(0);
+                }
+                c = pularEspacos();
+                ler();
+                if (c == '}') break;
+                if (c != ',') throw erro("esperado ',' ou '}'");
+                pularEspacos();
+            }
+        }
+
+        dentroDeObjeto = false;
+        return new CamposAluno(nome, idade, email, curso, versao);
+    }
+
+    /**
+     * @return Número da linha (a partir de 1) onde começou o último objeto lido
+     */
+    public int linha() {
+        return linhaObjeto;
+    }
+
+    /**
+     * Descarta o restante da linha atual; usado para seguir para o próximo
+     * registro NDJSON depois de um erro.
+     * @throws IOException Se houver erro de leitura no stream
+     */
+    public void descartarLinha() throws IOException {
+        dentroDeObjeto = false;
+        if (ultimoLido == '\n') return;
+        int c;
+        while ((c = espiar()) != -1) {
+            // Usa o buffer direto para não contar os bytes descartados no limite do objeto
+            posicao++;
+            if (c == '\n') {
+                quebrasDeLinha++;
+                ultimoLido = c;
+                return;
+            }
+        }
+    }
+
+    // ========== VALORES ==========
+
+    private String lerValorTexto(String campo) throws IOException {
+        if (espiar() != '"') throw erro("o campo '" + campo + "' deve ser texto");
+        ler();
+        lerConteudoTexto();
+        return texto.toString();
+    }
+
+    /**
+     * Lê um inteiro escrito como número (20) ou como texto ("20").
+     */
+    private int lerValorInteiro(String campo) throws IOException {
+        long valor = lerValorLong(campo);
+        if (valor > Integer.MAX_VALUE || valor < Integer.MIN_VALUE) {
+            throw erro("o campo '" + campo + "' deve ser um número inteiro");
+        }
+        return (int) valor;
+    }
+
+    /**
+     * Lê um long (até 18 dígitos) escrito como número ou como texto numérico.
+     */
+    private long lerValorLong(String campo) throws IOException {
+        boolean entreAspas = espiar() == '"';
+        if (entreAspas) ler();
+        boolean negativo = espiar() == '-';
+        if (negativo) ler();
+        long valor = 0;
+        int digitos = 0;
+        while (espiar() >= '0' && espiar() <= '9') {
+            valor = valor * 10 + (ler() - '0');
+            if (++digitos > 18) break;
+        }
+        if (negativo) valor = -valor;
+        if (digitos == 0 || digitos > 18) {
+            throw erro("o campo '" + campo + "' deve ser um número inteiro");
+        }
+        if (entreAspas) {
+            if (espiar() != '"') throw erro("o campo '" + campo + "' deve ser um número inteiro");
+            ler();
+        } else {
+            int c = espiar();
+            if (c == '.' || c == 'e' || c == 'E') throw erro("o campo '" + campo + "' deve ser um número inteiro");
+        }
+        return valor;
+    }
+
+    /**
+     * Lê o conteúdo de um texto (a aspa inicial já foi consumida) para o acumulador,
+     * decodificando UTF-8 e escapes.
+     */
+    private void lerConteudoTexto() throws IOException {
+        texto.setLength(0);
+        while (true) {
+            int b = ler();
+            if (b == -1) throw erro("texto não terminado");
+            if (b == '"') return;
+            if (b == '\\') {
+                lerEscape();
+            } else if (b < 0x20) {
+                throw erro("caractere de controle dentro de texto");
+            } else if (b < 0x80) {
+                texto.append((char) b);
+            } else {
+                lerMultibyte(b);
+            }
+        }
+    }
+
+    private void lerEscape() throws IOException {
+        int c = ler();
+        switch (c) {
+            case '"' -> texto.append('"');
+            case '\\' -> texto.append('\\');
+            case '/' -> texto.append('/');
+            case 'b' -> texto.append('\b');
+            case 'f' -> texto.append('\f');
+            case 'n' -> texto.append('\n');
+            case 'r' -> texto.append('\r');
+            case 't' -> texto.append('\t');
+            case 'u' -> {
+                int unidade = 0;
+                for (int i = 0; i < 4; i++) {
+                    int d = Character.digit(ler(), 16);
+                    if (d < 0) throw erro("escape \\u inválido");
+                    unidade = (unidade << 4) | d;
+                }
+                texto.append((char) unidade);
+            }
+            default -> throw erro("escape inválido");
+        }
+    }
+
+    /**
+     * Decodifica uma sequência UTF-8 de 2 a 4 bytes iniciada por b.
+     */
+    private void lerMultibyte(int b) throws IOException {
+        int extras;
+        int codigo;
+        if ((b & 0xE0) == 0xC0) { extras = 1; codigo = b & 0x1F; }
+        else if ((b & 0xF0) == 0xE0) { extras = 2; codigo = b & 0x0F; }
+        else if ((b & 0xF8) == 0xF0) { extras = 3; codigo = b & 0x07; }
+        else throw erro("UTF-8 inválido");
+        for (int i = 0; i < extras; i++) {
+            int cont = ler();
+            if (cont == -1 || (cont & 0xC0) != 0x80) throw erro("UTF-8 inválido");
+            codigo = (codigo << 6) | (cont & 0x3F);
+        }
+        if (!Character.isValidCodePoint(codigo)) throw erro("UTF-8 inválido");
+        texto.appendCodePoint(codigo);
+    }
+
+    /**
+     * Consome um valor qualquer (usado para campos desconhecidos).
+     */
+    private void pularValor(int profundidade) throws IOException {
+        if (profundidade > PROFUNDIDADE_MAXIMA) throw erro("aninhamento profundo demais");
+        int c = espiar();
+        if (c == '"') {
+            ler();
+            lerConteudoTexto();
+        } else if (c == '{' || c == '[') {
+            int fechamento = c == '{' ? '}' : ']';
+            ler();
+            if (pularEspacos() == fechamento) {
+                ler();
+                return;
+            }
+            while (true) {
+                if (c == '{') {
+                    esperar('"');
+                    lerConteudoTexto();
+                    pularEspacos();
+                    esperar(':');
+                    pularEspacos();
+                }
+                pularValor(profundidade + 1);
+                int separador = pularEspacos();
+                ler();
+                if (separador == fechamento) return;
+                if (separador != ',') throw erro("esperado ',' ou '" + (char) fechamento + "'");
+                pularEspacos();
+            }
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            while ((c = espiar()) == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+                ler();
+            }
+        } else if (c == 't') {
+            esperarLiteral("true");
+        } else if (c == 'f') {
+            esperarLiteral("false");
+        } else if (c == 'n') {
+            esperarLiteral("null");
+        } else {
+            throw erro("valor inesperado");
+        }
+    }
+
+    // ========== LEITURA DE BYTES ==========
+
+    private void esperar(int esperado) throws IOException {
+        if (ler() != esperado) throw erro("esperado '" + (char) esperado + "'");
+    }
+
+    private void esperarLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (ler() != literal.charAt(i)) throw erro("literal inválido");
+        }
+    }
+
+    /**
+     * Pula espaços em branco e retorna o próximo byte sem consumi-lo (-1 no fim).
+     * No modo NDJSON a quebra de linha não é pulada dentro de um objeto.
+     */
+    private int pularEspacos() throws IOException {
+        int c;
+        while ((c = espiar()) == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            if (c == '\n' && umPorLinha && dentroDeObjeto) break;
+            ler();
+        }
+        return c;
+    }
+
+    private int espiar() throws IOException {
+        if (posicao == limite && !preencher()) return -1;
+        return buffer[posicao] & 0xFF;
+    }
+
+    private int ler() throws IOException {
+        if (posicao == limite && !preencher()) return -1;
+        if (++lidosObjeto > limiteBytes) {
+            throw new JsonInvalidoException("JSON excede o limite de " + limiteBytes + " bytes");
+        }
+        lidosTotal++;
+        ultimoLido = buffer[posicao++] & 0xFF;
+        if (ultimoLido == '\n') quebrasDeLinha++;
+        return ultimoLido;
+    }
+
+    private boolean preencher() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        posicao = 0;
+        limite = n;
+        return true;
+    }
+
+    private JsonInvalidoException erro(String detalhe) {
+        return new JsonInvalidoException("JSON inválido na posição " + lidosTotal + ": " + detalhe);
+    }
+}
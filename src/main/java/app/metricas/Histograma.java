@@ -0,0 +1,114 @@
+package app.metricas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências sem locks, no estilo do HdrHistogram.
+ *
+ * Os valores (em nanossegundos) caem em baldes log-lineares: cada potência de 2 é
+ * dividida em 8 sub-baldes, o que dá erro relativo de no máximo 12,5% em qualquer
+ * escala, de nanossegundos a horas, com um array fixo de 488 contadores.
+ * Registrar um valor custa um incremento atômico no balde e dois LongAdder
+ * (soma e máximo); não há alocação nem lock.
+ */
+public final class Histograma {
+    // 2^3 = 8 sub-baldes por potência de 2
+    private static final int BITS_SUB = 3;
+    private static final int SUB_BALDES = 1 << BITS_SUB;
+    private static final int BALDES = (64 - BITS_SUB - 1) * SUB_BALDES + SUB_BALDES;
+
+    private final AtomicLongArray baldes = new AtomicLongArray(BALDES);
+    private final LongAdder soma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Registra uma medição.
+     * @param nanos Duração em nanossegundos (valores negativos contam como 0)
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(nanos, 0);
+        baldes.getAndIncrement(indice(valor));
+        soma.add(valor);
+        maximo.accumulate(valor);
+    }
+
+    /**
+     * @return Quantidade de medições registradas
+     */
+    public long contagem() {
+        long total = 0;
+        for (int i = 0; i < BALDES; i++) {
+            total += baldes.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @return Soma de todas as medições, em nanossegundos
+     */
+    public long soma() {
+        return soma.sum();
+    }
+
+    /**
+     * @return Maior medição registrada, em nanossegundos
+     */
+    public long maximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Conta as medições menores ou iguais ao limite (usado nos baldes "le" do Prometheus).
+     * Baldes que atravessam o limite não são contados, então o valor é aproximado para baixo.
+     * @param limiteNanos Limite em nanossegundos
+     * @return Quantidade de medições até o limite
+     */
+    public long contagemAte(long limiteNanos) {
+        long total = 0;
+        for (int i = 0; i < BALDES && limiteSuperior(i) <= limiteNanos; i++) {
+            total += baldes.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Calcula um percentil a partir dos baldes.
+     * @param percentil Valor entre 0 e 100
+     * @return Limite superior do balde que contém o percentil, em nanossegundos
+     */
+    public long percentil(double percentil) {
+        long[] copia = new long[BALDES];
+        long total = 0;
+        for (int i = 0; i < BALDES; i++) {
+            copia[i] = baldes.get(i);
+            total += copia[i];
+        }
+        if (total == 0) return 0;
+        long alvo = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < BALDES; i++) {
+            acumulado += copia[i];
+            if (acumulado >= alvo) return Math.min(limiteSuperior(i), maximo());
+        }
+        return maximo();
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static int indice(long valor) {
+        if (valor < SUB_BALDES) return (int) valor;
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (expoente - BITS_SUB)) & (SUB_BALDES - 1);
+        return (expoente - BITS_SUB + 1) * SUB_BALDES + sub;
+    }
+
+    private static long limiteSuperior(int indice) {
+        if (indice < SUB_BALDES) return indice;
+        int expoente = indice / SUB_BALDES + BITS_SUB - 1;
+        int sub = indice % SUB_BALDES;
+        long inicio = (long) (SUB_BALDES + sub) << (expoente - BITS_SUB);
+        return inicio + (1L << (expoente - BITS_SUB)) - 1;
+    }
+}
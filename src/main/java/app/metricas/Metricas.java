@@ -0,0 +1,238 @@
+package app.metricas;
+
+import app.json.EscritorJson;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registro global das métricas da aplicação.
+ *
+ * - Rotas HTTP: latência (histograma), requisições por classe de status e bytes enviados
+ * - Temporizadores: duração das operações do repositório (contagem = quantidade de chamadas)
+ * - Contadores: eventos avulsos (ex: erros internos)
+ * - Medidores: valores lidos no momento da coleta (ex: quantidade de alunos)
+ *
+ * Os objetos de métrica são criados uma vez (normalmente em campos static final) e
+ * atualizados sem lock; os mapas do registro só são consultados na criação e na coleta.
+ * A exportação segue o formato de texto do Prometheus ou JSON.
+ */
+public final class Metricas {
+    // Limites dos baldes exportados ao Prometheus, em segundos
+    private static final double[] LIMITES_SEGUNDOS = {
+        0.00001, 0.00005, 0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005,
+        0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static final Map<String, Rota> ROTAS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Histograma> TEMPORIZADORES = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongAdder> CONTADORES = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongSupplier> MEDIDORES = new ConcurrentSkipListMap<>();
+
+    /**
+     * Métricas de uma rota HTTP.
+     */
+    public static final class Rota {
+        private final Histograma latencia = new Histograma();
+        private final LongAdder bytes = new LongAdder();
+        // Requisições por classe de status: índice 1 = 1xx ... 5 = 5xx
+        private final LongAdder[] porStatus = new LongAdder[6];
+
+        private Rota() {
+            for (int i = 1; i < porStatus.length; i++) {
+                porStatus[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Registra uma requisição atendida.
+         * @param status Código de status HTTP (fora de 100-599 conta como 5xx)
+         * @param bytesEnviados Bytes escritos no corpo da resposta
+         * @param nanos Duração do atendimento em nanossegundos
+         */
+        public void registrar(int status, long bytesEnviados, long nanos) {
+            int classe = status / 100;
+            porStatus[classe >= 1 && classe <= 5 ? classe : 5].increment();
+            bytes.add(bytesEnviados);
+            latencia.registrar(nanos);
+        }
+
+        /**
+         * @return true se a rota já atendeu alguma requisição (rotas sem uso não são exportadas)
+         */
+        boolean usada() {
+            return latencia.contagem() > 0;
+        }
+    }
+
+    private Metricas() {
+    }
+
+    /**
+     * @param nome Nome da rota (ex: "GET /api/alunos/{id}")
+     * @return As métricas da rota (criadas na primeira chamada)
+     */
+    public static Rota rota(String nome) {
+        return ROTAS.computeIfAbsent(nome, n -> new Rota());
+    }
+
+    /**
+     * @param nome Nome da operação (ex: "buscarPorId")
+     * @return Histograma de duração da operação (criado na primeira chamada)
+     */
+    public static Histograma temporizador(String nome) {
+        return TEMPORIZADORES.computeIfAbsent(nome, n -> new Histograma());
+    }
+
+    /**
+     * @param nome Nome do contador (ex: "erros_internos")
+     * @return O contador (criado na primeira chamada)
+     */
+    public static LongAdder contador(String nome) {
+        return CONTADORES.computeIfAbsent(nome, n -> new LongAdder());
+    }
+
+    /**
+     * Registra (ou substitui) um medidor, lido a cada coleta.
+     * @param nome Nome do medidor (ex: "repositorio_tamanho")
+     * @param leitura Função que devolve o valor atual
+     */
+    public static void medidor(String nome, LongSupplier leitura) {
+        MEDIDORES.put(nome, leitura);
+    }
+
+    // ========== EXPORTAÇÃO ==========
+
+    /**
+     * Escreve todas as métricas no formato de texto do Prometheus (versão 0.0.4).
+     * @param saida Destino do texto
+     */
+    public static void escreverPrometheus(StringBuilder saida) {
+        saida.append("# HELP alunos_http_requisicoes_total Requisições HTTP atendidas por rota e classe de status\n")
+             .append("# TYPE alunos_http_requisicoes_total counter\n");
+        ROTAS.forEach((nome, rota) -> {
+            for (int classe = 1; classe <= 5; classe++) {
+                long total = rota.porStatus[classe].sum();
+                if (total == 0) continue;
+                saida.append("alunos_http_requisicoes_total{rota=\"").append(rotulo(nome))
+                     .append("\",status=\"").append(classe).append("xx\"} ").append(total).append('\n');
+            }
+        });
+
+        saida.append("# HELP alunos_http_bytes_enviados_total Bytes enviados no corpo das respostas\n")
+             .append("# TYPE alunos_http_bytes_enviados_total counter\n");
+        ROTAS.forEach((nome, rota) -> {
+            if (rota.usada()) {
+                saida.append("alunos_http_bytes_enviados_total{rota=\"").append(rotulo(nome))
+                     .append("\"} ").append(rota.bytes.sum()).append('\n');
+            }
+        });
+
+        saida.append("# HELP alunos_http_latencia_segundos Latência das requisições HTTP\n")
+             .append("# TYPE alunos_http_latencia_segundos histogram\n");
+        ROTAS.forEach((nome, rota) -> {
+            if (rota.usada()) {
+                escreverHistograma(saida, "alunos_http_latencia_segundos", "rota", nome, rota.latencia);
+            }
+        });
+
+        saida.append("# HELP alunos_repositorio_operacao_segundos Duração das operações do repositório\n")
+             .append("# TYPE alunos_repositorio_operacao_segundos histogram\n");
+        TEMPORIZADORES.forEach((nome, histograma) ->
+                escreverHistograma(saida, "alunos_repositorio_operacao_segundos", "operacao", nome, histograma));
+
+        CONTADORES.forEach((nome, contador) -> saida.append("# TYPE alunos_").append(nome).append("_total counter\n")
+                .append("alunos_").append(nome).append("_total ").append(contador.sum()).append('\n'));
+        MEDIDORES.forEach((nome, leitura) -> saida.append("# TYPE alunos_").append(nome).append(" gauge\n")
+                .append("alunos_").append(nome).append(' ').append(leitura.getAsLong()).append('\n'));
+    }
+
+    /**
+     * Escreve todas as métricas em JSON, com percentis já calculados (em microssegundos).
+     * @param saida Buffer de destino
+     */
+    public static void escreverJson(EscritorJson saida) {
+        saida.escreverBruto("{\"rotas\":{");
+        boolean primeiro = true;
+        for (Map.Entry<String, Rota> entrada : ROTAS.entrySet()) {
+            Rota rota = entrada.getValue();
+            if (!rota.usada()) continue;
+            if (!primeiro) saida.escreverByte(',');
+            saida.escreverTexto(entrada.getKey()).escreverBruto(":{\"status\":{");
+            boolean primeiraClasse = true;
+            for (int classe = 1; classe <= 5; classe++) {
+                long total = rota.porStatus[classe].sum();
+                if (total == 0) continue;
+                if (!primeiraClasse) saida.escreverByte(',');
+                saida.escreverByte('"').escreverInt(classe).escreverBruto("xx\":").escreverBruto(Long.toString(total));
+                primeiraClasse = false;
+            }
+            saida.escreverBruto("},\"bytes\":").escreverBruto(Long.toString(rota.bytes.sum()))
+                 .escreverBruto(",\"latencia\":");
+            escreverResumo(saida, rota.latencia);
+            saida.escreverByte('}');
+            primeiro = false;
+        }
+
+        saida.escreverBruto("},\"repositorio\":{");
+        primeiro = true;
+        for (Map.Entry<String, Histograma> entrada : TEMPORIZADORES.entrySet()) {
+            if (!primeiro) saida.escreverByte(',');
+            saida.escreverTexto(entrada.getKey()).escreverByte(':');
+            escreverResumo(saida, entrada.getValue());
+            primeiro = false;
+        }
+
+        saida.escreverBruto("},\"contadores\":{");
+        primeiro = true;
+        for (Map.Entry<String, LongAdder> entrada : CONTADORES.entrySet()) {
+            if (!primeiro) saida.escreverByte(',');
+            saida.escreverTexto(entrada.getKey()).escreverByte(':')
+                 .escreverBruto(Long.toString(entrada.getValue().sum()));
+            primeiro = false;
+        }
+
+        saida.escreverBruto("},\"medidores\":{");
+        primeiro = true;
+        for (Map.Entry<String, LongSupplier> entrada : MEDIDORES.entrySet()) {
+            if (!primeiro) saida.escreverByte(',');
+            saida.escreverTexto(entrada.getKey()).escreverByte(':')
+                 .escreverBruto(Long.toString(entrada.getValue().getAsLong()));
+            primeiro = false;
+        }
+        saida.escreverBruto("}}");
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static void escreverHistograma(StringBuilder saida, String metrica, String rotulo,
+                                           String valor, Histograma histograma) {
+        String etiqueta = rotulo + "=\"" + rotulo(valor) + "\"";
+        for (double limite : LIMITES_SEGUNDOS) {
+            saida.append(metrica).append("_bucket{").append(etiqueta).append(",le=\"").append(limite).append("\"} ")
+                 .append(histograma.contagemAte((long) (limite * 1_000_000_000L))).append('\n');
+        }
+        long contagem = histograma.contagem();
+        saida.append(metrica).append("_bucket{").append(etiqueta).append(",le=\"+Inf\"} ").append(contagem).append('\n')
+             .append(metrica).append("_sum{").append(etiqueta).append("} ").append(histograma.soma() / 1e9).append('\n')
+             .append(metrica).append("_count{").append(etiqueta).append("} ").append(contagem).append('\n');
+    }
+
+    private static void escreverResumo(EscritorJson saida, Histograma histograma) {
+        saida.escreverBruto("{\"contagem\":").escreverBruto(Long.toString(histograma.contagem()))
+             .escreverBruto(",\"somaUs\":").escreverBruto(Long.toString(histograma.soma() / 1000))
+             .escreverBruto(",\"p50Us\":").escreverBruto(Long.toString(histograma.percentil(50) / 1000))
+             .escreverBruto(",\"p90Us\":").escreverBruto(Long.toString(histograma.percentil(90) / 1000))
+             .escreverBruto(",\"p99Us\":").escreverBruto(Long.toString(histograma.percentil(99) / 1000))
+             .escreverBruto(",\"maxUs\":").escreverBruto(Long.toString(histograma.maximo() / 1000))
+             .escreverByte('}');
+    }
+
+    /**
+     * Escapa o valor de um rótulo do Prometheus (barra invertida, aspas e quebra de linha).
+     */
+    private static String rotulo(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
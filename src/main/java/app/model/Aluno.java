@@ -13,6 +13,7 @@ public class Aluno {
     private final int idade;        // Idade do aluno (imutável após criação)
     private final String email;     // Email do aluno (imutável após criação)
     private final String curso;     // Curso que o aluno está matriculado (imutável após criação)
+    private long versao;            // Versão do registro (muda a cada alteração; usada na ETag)
 
     /**
      * Construtor para criar uma nova instância de Aluno.
@@ -55,14 +56,25 @@ public class Aluno {
      */
     public String getCurso() { return curso; }
 
-    // ========== SETTER ==========
+    /**
+     * @return A versão do registro (0 enquanto não foi salvo)
+     */
+    public long getVersao() { return versao; }
+
+    // ========== SETTERS ==========
     /**
      * Define o ID do aluno.
-     * Este é o único setter pois os outros atributos são final (imutáveis).
+     * Os dados do aluno são final (imutáveis): editar significa salvar um novo objeto.
      * @param id Novo ID do aluno
      */
     public void setId(int id) { this.id = id; }
 
+    /**
+     * Define a versão do registro (atribuída pelo repositório a cada gravação).
+     * @param versao Nova versão
+     */
+    public void setVersao(long versao) { this.versao = versao; }
+
     // ========== MÉTODOS SOBRESCRITOS ==========
     /**
      * Retorna uma representação em String do objeto Aluno.
@@ -0,0 +1,350 @@
+package app.replicacao;
+
+import static app.replicacao.ProtocoloReplicacao.*;
+
+import app.http.RespostaHttp;
+import app.json.EscritorJson;
+import app.metricas.Metricas;
+import app.model.Aluno;
+import app.repository.Alteracao;
+import app.repository.AlunoRepository;
+import app.repository.CopiaReplicacao;
+import app.repository.RegistroAlteracoes;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lado líder da replicação: aceita réplicas por TCP e envia a cada uma o registro
+ * ordenado de mutações do repositório.
+ *
+ * Cada réplica tem uma thread que lê o {@link RegistroAlteracoes} no ritmo dela, como
+ * o feed de eventos faz com os navegadores: não há fila por réplica, e a memória do
+ * líder não cresce com réplicas lentas. A réplica informa a última sequência aplicada
+ * ao se conectar; se ela for de outra inicialização do líder ou já tiver sido
+ * sobrescrita no buffer (réplica atrasada demais), o líder envia antes um instantâneo
+ * completo ({@link AlunoRepository#copiarParaReplicacao()}) e continua dali.
+ *
+ * Sem alterações, um pulso com a última sequência e o próximo ID é enviado a cada
+ * pulsoMs; a réplica responde cada pulso com a sequência que já aplicou, o que dá o
+ * atraso de cada réplica em /admin/replicacao. Uma réplica que não lê nem confirma
+ * nada por limiteSilencioMs é desconectada (e reconecta quando puder).
+ *
+ * A porta só é aberta no endereço configurado (loopback por padrão) e cada réplica
+ * precisa provar que conhece o segredo compartilhado antes de receber qualquer dado
+ * (ver {@link ProtocoloReplicacao}).
+ */
+public final class LiderReplicacao implements Replicacao {
+    // Alterações lidas do buffer por vez
+    private static final int LOTE = 512;
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private static final LongAdder ALTERACOES_ENVIADAS = Metricas.contador("replicacao_alteracoes_enviadas");
+    private static final LongAdder INSTANTANEOS_ENVIADOS = Metricas.contador("replicacao_instantaneos_enviados");
+
+    private final AlunoRepository repositorio;
+    private final RegistroAlteracoes alteracoes;
+    private final InetAddress endereco;
+    private final int porta;
+    private final byte[] segredo;
+    private final long pulsoMs;
+    private final long limiteSilencioNanos;
+    private final Set<Seguidor> seguidores = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger numeroThread = new AtomicInteger();
+    private volatile ServerSocket servidor;
+    private volatile boolean fechado;
+
+    /**
+     * @param repositorio Repositório replicado
+     * @param endereco Endereço local em que a porta é aberta
+     * @param porta Porta TCP em que as réplicas se conectam
+     * @param segredo Segredo compartilhado com as réplicas (não pode ser vazio)
+     * @param pulsoMs Intervalo dos pulsos enviados sem alterações
+     * @param limiteSilencioMs Tempo sem leitura nem confirmação até a réplica ser desconectada
+     */
+    public LiderReplicacao(AlunoRepository repositorio, InetAddress endereco, int porta, String segredo,
+                           long pulsoMs, long limiteSilencioMs) {
+        if (segredo == null || segredo.isEmpty()) {
+            throw new IllegalArgumentException("O líder da replicação exige um segredo compartilhado");
+        }
+        this.repositorio = repositorio;
+        this.alteracoes = repositorio.alteracoes();
+        this.endereco = endereco;
+        this.porta = porta;
+        this.segredo = segredo.getBytes(StandardCharsets.UTF_8);
+        this.pulsoMs = pulsoMs;
+        this.limiteSilencioNanos = TimeUnit.MILLISECONDS.toNanos(limiteSilencioMs);
+    }
+
+    @Override
+    public void iniciar() throws IOException {
+        servidor = new ServerSocket(porta, 0, endereco);
+        // O accept acorda a cada pulso para desconectar réplicas caladas
+        servidor.setSoTimeout((int) Math.max(1, pulsoMs));
+        Metricas.medidor("replicacao_seguidores", seguidores::size);
+        Metricas.medidor("replicacao_sequencia", alteracoes::ultimaSequencia);
+        Thread aceitador = new Thread(this::aceitarContinuamente, "replicacao-lider");
+        aceitador.setDaemon(true);
+        aceitador.start();
+        System.out.println("Replicação: líder aceitando réplicas em "
+                + endereco.getHostAddress() + ":" + servidor.getLocalPort());
+    }
+
+    private void aceitarContinuamente() {
+        while (!fechado) {
+            try {
+                Socket socket = servidor.accept();
+                Seguidor seguidor = new Seguidor(socket);
+                seguidores.add(seguidor);
+                Thread thread = new Thread(seguidor, "replicacao-seguidor-" + numeroThread.incrementAndGet());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (SocketTimeoutException e) {
+                // Nenhuma réplica nova neste intervalo
+            } catch (IOException e) {
+                if (!fechado) e.printStackTrace();
+            }
+            descartarCalados();
+        }
+    }
+
+    /**
+     * Fecha o socket das réplicas que não leram nem confirmaram nada dentro do limite;
+     * a thread da réplica, parada numa escrita, recebe uma exceção e termina.
+     */
+    private void descartarCalados() {
+        long agora = System.nanoTime();
+        for (Seguidor seguidor : seguidores) {
+            if (agora - Math.max(seguidor.ultimoProgresso, seguidor.ultimaConfirmacao) > limiteSilencioNanos) {
+                System.err.println("Replicação: réplica " + seguidor.endereco + " sem resposta; desconectando");
+                seguidor.fechar();
+            }
+        }
+    }
+
+    // ========== ESTADO ==========
+
+    @Override
+    public void responder(HttpExchange exchange, int id) throws IOException {
+        long topo = alteracoes.ultimaSequencia();
+        long agora = System.currentTimeMillis();
+        List<Seguidor> ordenados = new ArrayList<>(seguidores);
+        ordenados.sort(Comparator.comparingLong(s -> s.conectadoEm));
+
+        EscritorJson json = EscritorJson.daThread();
+        json.escreverBruto("{\"papel\":\"lider\",\"porta\":").escreverInt(porta)
+            .escreverBruto(",\"epoca\":").escreverTexto(alteracoes.epoca())
+            .escreverBruto(",\"sequencia\":").escreverLong(topo)
+            .escreverBruto(",\"proximoId\":").escreverInt(repositorio.proximoId())
+            .escreverBruto(",\"seguidores\":[");
+        boolean primeiro = true;
+        for (Seguidor seguidor : ordenados) {
+            if (!primeiro) json.escreverByte(',');
+            primeiro = false;
+            json.escreverBruto("{\"endereco\":").escreverTexto(seguidor.endereco)
+                .escreverBruto(",\"conectadoHaMs\":").escreverLong(agora - seguidor.conectadoEm)
+                .escreverBruto(",\"enviada\":").escreverLong(seguidor.enviada)
+                .escreverBruto(",\"confirmada\":").escreverLong(seguidor.confirmada)
+                .escreverBruto(",\"atrasoAlteracoes\":").escreverLong(Math.max(0, topo - seguidor.confirmada))
+                .escreverBruto(",\"instantaneos\":").escreverInt(seguidor.instantaneos)
+                .escreverByte('}');
+        }
+        json.escreverBruto("]}");
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        RespostaHttp.enviar(exchange, 200, json);
+    }
+
+    @Override
+    public void close() {
+        fechado = true;
+        try {
+            if (servidor != null) servidor.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (Seguidor seguidor : seguidores) {
+            seguidor.fechar();
+        }
+    }
+
+    // ========== RÉPLICA CONECTADA ==========
+
+    /**
+     * Uma réplica conectada e a thread que envia as alterações a ela.
+     */
+    private final class Seguidor implements Runnable {
+        private final Socket socket;
+        private final String endereco;
+        private final long conectadoEm = System.currentTimeMillis();
+        private final Alteracao[] lote = new Alteracao[LOTE];
+
+        // Última sequência enviada e última confirmada (aplicada) pela réplica
+        private volatile long enviada;
+        private volatile long confirmada;
+        private volatile int instantaneos;
+        // Instantes (nanoTime) da última escrita concluída no socket e da última confirmação
+        private volatile long ultimoProgresso = System.nanoTime();
+        private volatile long ultimaConfirmacao = System.nanoTime();
+
+        private DataInputStream entrada;
+        private DataOutputStream saida;
+
+        Seguidor(Socket socket) {
+            this.socket = socket;
+            this.endereco = socket.getRemoteSocketAddress().toString().replaceFirst("^/", "");
+        }
+
+        @Override
+        public void run() {
+            try (socket) {
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout((int) TimeUnit.NANOSECONDS.toMillis(limiteSilencioNanos));
+                entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                // Cada escrita que chega ao socket conta como progresso (réplica lendo)
+                saida = new DataOutputStream(new BufferedOutputStream(new FilterOutputStream(socket.getOutputStream()) {
+                    @Override
+                    public void write(byte[] b, int inicio, int tamanho) throws IOException {
+                        out.write(b, inicio, tamanho);
+                        ultimoProgresso = System.nanoTime();
+                    }
+                }, TAMANHO_BUFFER));
+
+                byte[] desafio = novoDesafio();
+                saida.writeInt(MAGICO);
+                saida.writeInt(VERSAO);
+                saida.write(desafio);
+                saida.flush();
+                if (entrada.readInt() != MAGICO || entrada.readInt() != VERSAO) {
+                    throw new IOException("Protocolo de replicação incompatível");
+                }
+                byte[] assinatura = new byte[TAMANHO_ASSINATURA];
+                entrada.readFully(assinatura);
+                if (!MessageDigest.isEqual(assinatura, assinar(segredo, desafio))) {
+                    throw new IOException("Réplica não autenticada (segredo diferente)");
+                }
+                String epoca = entrada.readUTF();
+                long apos = entrada.readLong();
+                confirmada = apos;
+                System.out.println("Replicação: réplica " + endereco + " conectada (sequência " + apos + ")");
+
+                // Continua de onde a réplica parou se essas alterações ainda estão no buffer
+                boolean continuar = epoca.equals(alteracoes.epoca()) && apos <= alteracoes.ultimaSequencia()
+                        && alteracoes.ler(apos, new Alteracao[0]) != RegistroAlteracoes.PERDIDO;
+                if (!continuar) {
+                    apos = enviarInstantaneo();
+                }
+                transmitir(apos);
+            } catch (IOException | InterruptedException e) {
+                if (!fechado) {
+                    System.err.println("Replicação: réplica " + endereco + " desconectada (" + e + ")");
+                }
+            } finally {
+                seguidores.remove(this);
+            }
+        }
+
+        /**
+         * Envia as alterações seguintes a "apos" até a conexão cair.
+         */
+        private void transmitir(long apos) throws IOException, InterruptedException {
+            while (!fechado) {
+                int lidas = alteracoes.ler(apos, lote);
+                if (lidas == RegistroAlteracoes.PERDIDO) {
+                    // Ficou para trás mais que a capacidade do buffer: recomeça do estado completo
+                    apos = enviarInstantaneo();
+                } else if (lidas > 0) {
+                    for (int i = 0; i < lidas; i++) {
+                        escreverAlteracao(lote[i]);
+                    }
+                    apos = lote[lidas - 1].sequencia();
+                    enviada = apos;
+                    ALTERACOES_ENVIADAS.add(lidas);
+                    // Lote incompleto: alcançou o fim do buffer, então descarrega
+                    if (lidas < LOTE) enviarPulso();
+                } else if (!alteracoes.aguardar(apos, pulsoMs, TimeUnit.MILLISECONDS)) {
+                    enviarPulso();
+                }
+            }
+        }
+
+        private void escreverAlteracao(Alteracao alteracao) throws IOException {
+            switch (alteracao.tipo()) {
+                case CRIADO, ATUALIZADO -> {
+                    saida.writeByte(alteracao.tipo() == Alteracao.Tipo.CRIADO ? CRIADO : ATUALIZADO);
+                    saida.writeLong(alteracao.sequencia());
+                    escreverAluno(saida, alteracao.id(), alteracao.versao(), alteracao.aluno());
+                }
+                case REMOVIDO -> {
+                    saida.writeByte(REMOVIDO);
+                    saida.writeLong(alteracao.sequencia());
+                    saida.writeInt(alteracao.id());
+                }
+            }
+        }
+
+        /**
+         * Envia o estado completo e devolve a sequência a partir da qual a réplica continua.
+         */
+        private long enviarInstantaneo() throws IOException {
+            long inicio = System.nanoTime();
+            CopiaReplicacao copia = repositorio.copiarParaReplicacao();
+            saida.writeByte(INSTANTANEO);
+            saida.writeUTF(copia.epoca());
+            saida.writeLong(copia.sequencia());
+            saida.writeInt(copia.proximoId());
+            saida.writeInt(copia.alunos().size());
+            for (Aluno aluno : copia.alunos()) {
+                escreverAluno(saida, aluno.getId(), aluno.getVersao(), aluno);
+            }
+            enviada = copia.sequencia();
+            instantaneos++;
+            INSTANTANEOS_ENVIADOS.increment();
+            enviarPulso();
+            System.out.printf("Replicação: instantâneo com %d alunos enviado a %s em %d ms%n",
+                    copia.alunos().size(), endereco, (System.nanoTime() - inicio) / 1_000_000);
+            return copia.sequencia();
+        }
+
+        /**
+         * Envia o pulso, descarrega o buffer e lê as confirmações que já chegaram.
+         */
+        private void enviarPulso() throws IOException {
+            saida.writeByte(PULSO);
+            saida.writeLong(alteracoes.ultimaSequencia());
+            saida.writeInt(repositorio.proximoId());
+            saida.flush();
+            while (entrada.available() >= TAMANHO_CONFIRMACAO) {
+                if (entrada.readByte() != CONFIRMACAO) throw new IOException("Quadro inesperado da réplica");
+                confirmada = entrada.readLong();
+                ultimaConfirmacao = System.nanoTime();
+            }
+        }
+
+        void fechar() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Já fechado
+            }
+        }
+    }
+}
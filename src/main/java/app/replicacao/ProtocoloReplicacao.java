@@ -0,0 +1,117 @@
+package app.replicacao;
+
+import app.model.Aluno;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Formato binário da conexão TCP entre o líder e as réplicas.
+ *
+ * A réplica abre a conexão e o líder envia [mágico][versão][desafio]: bytes aleatórios
+ * novos a cada conexão. A réplica se apresenta com [mágico][versão][assinatura][época]
+ * [sequência]: o HMAC-SHA256 do desafio com o segredo compartilhado (o segredo nunca
+ * passa pela rede e uma assinatura capturada não serve para outra conexão), a época e a
+ * última sequência do líder que já aplicou (época vazia na primeira conexão). Com a
+ * assinatura errada o líder fecha a conexão sem enviar nada.
+ * O líder responde com uma sequência de quadros, cada um começando pelo tipo (1 byte):
+ * - INSTANTANEO [época][sequência][próximo ID][quantidade] seguido dos alunos
+ * - CRIADO / ATUALIZADO [sequência][aluno]
+ * - REMOVIDO [sequência][id]
+ * - PULSO [última sequência do líder][próximo ID]
+ *
+ * A cada pulso a réplica devolve CONFIRMACAO [sequência aplicada]. Um aluno é
+ * [id][versão][idade][nome][email][curso]; textos são [tamanho][UTF-8], com tamanho -1 para null.
+ */
+final class ProtocoloReplicacao {
+    static final int MAGICO = 0x414C5250; // "ALRP"
+    static final int VERSAO = 2;
+    static final int TAMANHO_DESAFIO = 32;
+    static final int TAMANHO_ASSINATURA = 32;    // HMAC-SHA256
+
+    // Quadros do líder para a réplica
+    static final byte INSTANTANEO = 1;
+    static final byte CRIADO = 2;
+    static final byte ATUALIZADO = 3;
+    static final byte REMOVIDO = 4;
+    static final byte PULSO = 5;
+
+    // Quadro da réplica para o líder
+    static final byte CONFIRMACAO = 6;
+    static final int TAMANHO_CONFIRMACAO = 1 + 8;
+
+    // Maior texto aceito (protege a réplica de um quadro corrompido)
+    private static final int MAIOR_TEXTO = 1024 * 1024;
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    private ProtocoloReplicacao() {
+    }
+
+    static byte[] novoDesafio() {
+        byte[] desafio = new byte[TAMANHO_DESAFIO];
+        ALEATORIO.nextBytes(desafio);
+        return desafio;
+    }
+
+    /**
+     * @return HMAC-SHA256 do desafio com o segredo compartilhado
+     */
+    static byte[] assinar(byte[] segredo, byte[] desafio) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(segredo, "HmacSHA256"));
+            return mac.doFinal(desafio);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 indisponível", e);
+        }
+    }
+
+    static void escreverAluno(DataOutputStream out, int id, long versao, Aluno aluno) throws IOException {
+        out.writeInt(id);
+        out.writeLong(versao);
+        out.writeInt(aluno.getIdade());
+        escreverTexto(out, aluno.getNome());
+        escreverTexto(out, aluno.getEmail());
+        escreverTexto(out, aluno.getCurso());
+    }
+
+    static Aluno lerAluno(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        long versao = in.readLong();
+        int idade = in.readInt();
+        String nome = lerTexto(in);
+        String email = lerTexto(in);
+        String curso = lerTexto(in);
+        Aluno aluno = new Aluno(nome, idade, email, curso);
+        aluno.setId(id);
+        aluno.setVersao(versao);
+        return aluno;
+    }
+
+    private static void escreverTexto(DataOutputStream out, String texto) throws IOException {
+        if (texto == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String lerTexto(DataInputStream in) throws IOException {
+        int tamanho = in.readInt();
+        if (tamanho == -1) return null;
+        if (tamanho < 0 || tamanho > MAIOR_TEXTO) {
+            throw new IOException("Texto inválido no fluxo de replicação (" + tamanho + " bytes)");
+        }
+        byte[] bytes = new byte[tamanho];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,113 @@
+package app.replicacao;
+
+import app.http.RespostaHttp;
+import app.json.EscritorJson;
+import app.repository.AlunoRepository;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Papel desta instância na replicação entre processos.
+ *
+ * O líder ({@link LiderReplicacao}) aceita réplicas por TCP e envia a elas, em ordem,
+ * todas as mutações do repositório (criações, atualizações, remoções e os IDs reservados).
+ * Cada réplica ({@link SeguidorReplicacao}) aplica o que recebe no próprio repositório,
+ * atende só leituras e informa o atraso em relação ao líder. Uma réplica que fica para
+ * trás mais do que o registro de alterações do líder guarda (-Dalunos.eventos.capacidade)
+ * recebe de novo o estado completo.
+ *
+ * Vários processos na mesma máquina formam um grupo, por exemplo:
+ * java -Dalunos.replicacao.papel=lider -Dalunos.replicacao.segredo=s3nh4 -Dalunos.http.porta=8080 app.WebServer
+ * java -Dalunos.replicacao.papel=seguidor -Dalunos.replicacao.segredo=s3nh4 -Dalunos.http.porta=8081 app.WebServer
+ * Para aceitar réplicas de outras máquinas, o líder precisa de -Dalunos.replicacao.endereco
+ * (a porta só é aberta no loopback por padrão).
+ */
+public interface Replicacao extends AutoCloseable {
+
+    /**
+     * Sem replicação: a instância atende leituras e escritas sozinha.
+     */
+    Replicacao NENHUMA = new Replicacao() {
+        @Override public void iniciar() { }
+
+        @Override
+        public void responder(HttpExchange exchange, int id) throws IOException {
+            EscritorJson json = EscritorJson.daThread();
+            json.escreverBruto("{\"papel\":\"nenhum\"}");
+            enviarEstado(exchange, json);
+        }
+
+        @Override public void close() { }
+    };
+
+    /**
+     * Cria o papel escolhido pelas propriedades de sistema:
+     * -Dalunos.replicacao.papel=nenhum (padrão), lider ou seguidor,
+     * -Dalunos.replicacao.segredo (obrigatório no líder e nas réplicas: só quem o conhece replica),
+     * -Dalunos.replicacao.endereco=127.0.0.1 (endereço local em que o líder abre a porta; 0.0.0.0 = todos),
+     * -Dalunos.replicacao.porta=9090 (porta em que o líder aceita réplicas),
+     * -Dalunos.replicacao.lider=localhost:9090 (endereço do líder, no seguidor),
+     * -Dalunos.replicacao.pulsoMs=1000 (intervalo dos pulsos do líder sem alterações),
+     * -Dalunos.replicacao.limiteSilencioMs=10000 (tempo sem notícias até a conexão ser refeita).
+     * @param repositorio Repositório replicado (no seguidor, passa a ser somente leitura)
+     * @return Replicação configurada (ainda não iniciada)
+     */
+    static Replicacao daConfiguracao(AlunoRepository repositorio) {
+        String papel = System.getProperty("alunos.replicacao.papel", "nenhum");
+        long pulsoMs = Long.getLong("alunos.replicacao.pulsoMs", 1000);
+        long limiteSilencioMs = Long.getLong("alunos.replicacao.limiteSilencioMs", 10_000);
+        String segredo = System.getProperty("alunos.replicacao.segredo");
+        return switch (papel) {
+            case "nenhum" -> NENHUMA;
+            case "lider" -> new LiderReplicacao(repositorio, enderecoLider(),
+                    Integer.getInteger("alunos.replicacao.porta", 9090), segredo, pulsoMs, limiteSilencioMs);
+            case "seguidor" -> new SeguidorReplicacao(repositorio,
+                    System.getProperty("alunos.replicacao.lider", "localhost:9090"), segredo, limiteSilencioMs);
+            default -> throw new IllegalArgumentException("Papel de replicação desconhecido: " + papel);
+        };
+    }
+
+    /**
+     * Abre a porta (líder) ou a conexão com o líder (seguidor), em threads próprias.
+     * @throws IOException Se a porta do líder não puder ser aberta
+     */
+    void iniciar() throws IOException;
+
+    /**
+     * Ação de rota (Roteador.Acao) de GET /admin/replicacao: papel, sequências e atraso.
+     * @param exchange Objeto HTTP exchange
+     * @param id Não utilizado
+     * @throws IOException Se houver erro ao enviar a resposta
+     */
+    void responder(HttpExchange exchange, int id) throws IOException;
+
+    /**
+     * Encerra as conexões e as threads da replicação.
+     */
+    @Override
+    void close();
+
+    /**
+     * @return Endereço de -Dalunos.replicacao.endereco, ou o loopback se não configurado
+     */
+    private static InetAddress enderecoLider() {
+        String endereco = System.getProperty("alunos.replicacao.endereco");
+        if (endereco == null || endereco.isBlank()) return InetAddress.getLoopbackAddress();
+        try {
+            return InetAddress.getByName(endereco.trim());
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Endereço de replicação inválido: " + endereco, e);
+        }
+    }
+
+    /**
+     * Envia o estado já escrito em JSON, sem cache.
+     */
+    private static void enviarEstado(HttpExchange exchange, EscritorJson json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        RespostaHttp.enviar(exchange, 200, json);
+    }
+}
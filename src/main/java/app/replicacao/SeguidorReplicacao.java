@@ -0,0 +1,287 @@
+package app.replicacao;
+
+import static app.replicacao.ProtocoloReplicacao.*;
+
+import app.http.RespostaHttp;
+import app.json.EscritorJson;
+import app.metricas.Metricas;
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lado réplica da replicação: conecta ao líder, aplica as mutações recebidas no
+ * repositório local (que fica somente leitura) e mede o atraso.
+ *
+ * As mutações são aplicadas na ordem do líder, com os mesmos IDs e versões
+ * ({@link AlunoRepository#aplicarReplicado}), e publicadas no registro de alterações
+ * local, então o feed de eventos e o cache de JSON desta instância continuam coerentes.
+ *
+ * Um instantâneo do líder é aplicado sobre o estado atual: cada aluno recebido é gravado
+ * (os de versão igual são pulados) e os que não vieram são removidos. A réplica continua
+ * respondendo leituras enquanto isso, com uma mistura do estado antigo e do novo.
+ *
+ * Atraso informado em /admin/replicacao e em /metrics:
+ * - atrasoAlteracoes: alterações que o líder já anunciou e ainda não foram aplicadas
+ * - atrasoMs: há quanto tempo a réplica não está em dia com o último pulso do líder
+ *   (0 quando está em dia; cresce enquanto estiver desconectada ou aplicando um instantâneo)
+ *
+ * Se a conexão cair (ou o líder ficar calado por limiteSilencioMs), a réplica reconecta
+ * com espera crescente e continua da última sequência aplicada.
+ */
+public final class SeguidorReplicacao implements Replicacao {
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    private static final long ESPERA_MINIMA_MS = 100;
+    private static final long ESPERA_MAXIMA_MS = 5000;
+
+    private static final LongAdder ALTERACOES_APLICADAS = Metricas.contador("replicacao_alteracoes_aplicadas");
+    private static final LongAdder INSTANTANEOS_APLICADOS = Metricas.contador("replicacao_instantaneos_aplicados");
+    private static final LongAdder RECONEXOES = Metricas.contador("replicacao_reconexoes");
+
+    private final AlunoRepository repositorio;
+    private final String lider;
+    private final String host;
+    private final int porta;
+    private final byte[] segredo;
+    private final int limiteSilencioMs;
+
+    // Época do líder e última sequência dele aplicada aqui
+    private volatile String epocaLider = "";
+    private volatile long aplicada;
+    // Maior sequência anunciada pelo líder
+    private volatile long sequenciaLider;
+    // Último instante (nanoTime) em que a réplica estava em dia com o líder
+    private volatile long emDiaEm = System.nanoTime();
+    private volatile boolean conectado;
+    // Aplicando um instantâneo: o estado local ainda é uma mistura do antigo com o novo
+    private volatile boolean aplicandoInstantaneo;
+    private volatile boolean fechado;
+    private volatile Socket socket;
+
+    /**
+     * @param repositorio Repositório local (passa a ser somente leitura em iniciar())
+     * @param lider Endereço do líder no formato host:porta
+     * @param segredo Segredo compartilhado com o líder (não pode ser vazio)
+     * @param limiteSilencioMs Tempo sem nada do líder até a conexão ser refeita
+     */
+    public SeguidorReplicacao(AlunoRepository repositorio, String lider, String segredo, long limiteSilencioMs) {
+        int separador = lider.lastIndexOf(':');
+        if (separador <= 0) {
+            throw new IllegalArgumentException("Endereço do líder deve ser host:porta: " + lider);
+        }
+        if (segredo == null || segredo.isEmpty()) {
+            throw new IllegalArgumentException("A réplica exige o segredo compartilhado com o líder");
+        }
+        this.repositorio = repositorio;
+        this.lider = lider;
+        this.host = lider.substring(0, separador);
+        this.porta = Integer.parseInt(lider.substring(separador + 1));
+        this.segredo = segredo.getBytes(StandardCharsets.UTF_8);
+        this.limiteSilencioMs = (int) limiteSilencioMs;
+    }
+
+    @Override
+    public void iniciar() {
+        repositorio.bloquearEscritas();
+        Metricas.medidor("replicacao_atraso_alteracoes", this::atrasoAlteracoes);
+        Metricas.medidor("replicacao_atraso_ms", this::atrasoMs);
+        Thread thread = new Thread(this::replicarContinuamente, "replicacao-seguidor");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("Replicação: réplica somente leitura do líder " + lider);
+    }
+
+    /**
+     * @return Alterações anunciadas pelo líder que ainda não foram aplicadas
+     */
+    public long atrasoAlteracoes() {
+        return Math.max(0, sequenciaLider - aplicada);
+    }
+
+    /**
+     * @return Milissegundos desde a última vez em que a réplica estava em dia (0 se está)
+     */
+    public long atrasoMs() {
+        if (conectado && !aplicandoInstantaneo && aplicada >= sequenciaLider) return 0;
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - emDiaEm);
+    }
+
+    // ========== CONEXÃO ==========
+
+    private void replicarContinuamente() {
+        long espera = ESPERA_MINIMA_MS;
+        boolean avisado = false;
+        while (!fechado) {
+            IOException erro = null;
+            try {
+                sincronizar();
+            } catch (IOException e) {
+                erro = e;
+            }
+            if (conectado) {
+                // Estava conectado: recomeça a espera do mínimo
+                conectado = false;
+                espera = ESPERA_MINIMA_MS;
+                avisado = false;
+                RECONEXOES.increment();
+            }
+            // Avisa só na primeira falha seguida (líder fora do ar gera uma por tentativa)
+            if (erro != null && !fechado && !avisado) {
+                System.err.println("Replicação: sem conexão com o líder " + lider + " (" + erro + ")");
+                avisado = true;
+            }
+            if (fechado) return;
+            try {
+                Thread.sleep(espera);
+            } catch (InterruptedException e) {
+                return;
+            }
+            espera = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+        }
+    }
+
+    /**
+     * Conecta, apresenta a última sequência aplicada e aplica os quadros até a conexão cair.
+     */
+    private void sincronizar() throws IOException {
+        try (Socket s = new Socket()) {
+            socket = s;
+            s.connect(new InetSocketAddress(host, porta), limiteSilencioMs);
+            s.setTcpNoDelay(true);
+            s.setSoTimeout(limiteSilencioMs);
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(s.getInputStream(), TAMANHO_BUFFER));
+            DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            if (entrada.readInt() != MAGICO || entrada.readInt() != VERSAO) {
+                throw new IOException("Protocolo de replicação incompatível");
+            }
+            byte[] desafio = new byte[TAMANHO_DESAFIO];
+            entrada.readFully(desafio);
+            saida.writeInt(MAGICO);
+            saida.writeInt(VERSAO);
+            saida.write(assinar(segredo, desafio));
+            saida.writeUTF(epocaLider);
+            saida.writeLong(aplicada);
+            saida.flush();
+
+            while (!fechado) {
+                byte tipo = entrada.readByte();
+                if (!conectado) {
+                    // Só no primeiro quadro: com o segredo errado o líder fecha sem enviar nada
+                    conectado = true;
+                    System.out.println("Replicação: conectado ao líder " + lider + " (sequência " + aplicada + ")");
+                }
+                switch (tipo) {
+                    case INSTANTANEO -> aplicarInstantaneo(entrada);
+                    case CRIADO, ATUALIZADO -> {
+                        long sequencia = entrada.readLong();
+                        repositorio.aplicarReplicado(lerAluno(entrada));
+                        avancar(sequencia);
+                    }
+                    case REMOVIDO -> {
+                        long sequencia = entrada.readLong();
+                        repositorio.removerReplicado(entrada.readInt());
+                        avancar(sequencia);
+                    }
+                    case PULSO -> {
+                        long topo = entrada.readLong();
+                        repositorio.reservarIdsAte(entrada.readInt());
+                        if (topo > sequenciaLider) sequenciaLider = topo;
+                        if (aplicada >= topo) emDiaEm = System.nanoTime();
+                        saida.writeByte(CONFIRMACAO);
+                        saida.writeLong(aplicada);
+                        saida.flush();
+                    }
+                    default -> throw new IOException("Quadro de replicação desconhecido: " + tipo);
+                }
+            }
+        } finally {
+            socket = null;
+        }
+    }
+
+    private void avancar(long sequencia) {
+        aplicada = sequencia;
+        if (sequencia > sequenciaLider) sequenciaLider = sequencia;
+        ALTERACOES_APLICADAS.increment();
+    }
+
+    /**
+     * Aplica o estado completo do líder sobre o local e remove os alunos que não vieram.
+     */
+    private void aplicarInstantaneo(DataInputStream entrada) throws IOException {
+        long inicio = System.nanoTime();
+        String epoca = entrada.readUTF();
+        long sequencia = entrada.readLong();
+        int proximoId = entrada.readInt();
+        int total = entrada.readInt();
+        // O líder pode ter reiniciado (nova época): as sequências anunciadas recomeçam daqui
+        sequenciaLider = sequencia;
+        aplicandoInstantaneo = true;
+        try {
+            BitSet recebidos = new BitSet(proximoId);
+            for (int i = 0; i < total; i++) {
+                Aluno aluno = lerAluno(entrada);
+                repositorio.aplicarReplicado(aluno);
+                recebidos.set(aluno.getId());
+            }
+            int removidos = 0;
+            for (Aluno aluno : repositorio.percorrerTodos()) {
+                if (!recebidos.get(aluno.getId()) && repositorio.removerReplicado(aluno.getId())) {
+                    removidos++;
+                }
+            }
+            repositorio.reservarIdsAte(proximoId);
+
+            // Só agora a réplica passa a refletir essa época (uma queda no meio repete o instantâneo)
+            epocaLider = epoca;
+            aplicada = sequencia;
+            INSTANTANEOS_APLICADOS.increment();
+            System.out.printf("Replicação: instantâneo do líder aplicado (%d alunos, %d removidos) em %d ms%n",
+                    total, removidos, (System.nanoTime() - inicio) / 1_000_000);
+        } finally {
+            aplicandoInstantaneo = false;
+        }
+    }
+
+    // ========== ESTADO ==========
+
+    @Override
+    public void responder(HttpExchange exchange, int id) throws IOException {
+        EscritorJson json = EscritorJson.daThread();
+        json.escreverBruto("{\"papel\":\"seguidor\",\"lider\":").escreverTexto(lider)
+            .escreverBruto(",\"conectado\":").escreverBruto(conectado ? "true" : "false")
+            .escreverBruto(",\"epocaLider\":").escreverTexto(epocaLider)
+            .escreverBruto(",\"aplicada\":").escreverLong(aplicada)
+            .escreverBruto(",\"sequenciaLider\":").escreverLong(sequenciaLider)
+            .escreverBruto(",\"atrasoAlteracoes\":").escreverLong(atrasoAlteracoes())
+            .escreverBruto(",\"atrasoMs\":").escreverLong(atrasoMs())
+            .escreverBruto(",\"instantaneos\":").escreverLong(INSTANTANEOS_APLICADOS.sum())
+            .escreverBruto(",\"reconexoes\":").escreverLong(RECONEXOES.sum())
+            .escreverByte('}');
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        RespostaHttp.enviar(exchange, 200, json);
+    }
+
+    @Override
+    public void close() {
+        fechado = true;
+        Socket atual = socket;
+        try {
+            if (atual != null) atual.close();
+        } catch (IOException e) {
+            // Já fechado
+        }
+    }
+}
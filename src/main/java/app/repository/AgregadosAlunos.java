@@ -0,0 +1,225 @@
+package app.repository;
+
+import app.model.Aluno;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estatísticas de idade mantidas incrementalmente, por curso e no total.
+ *
+ * Cada grupo guarda um contador (LongAdder, que espalha as escritas concorrentes em
+ * células separadas) por idade distinta. Cada inserção ou remoção custa O(1): um
+ * incremento no contador do curso e outro no total. Quantidade, soma, média, mínimo,
+ * máximo e faixas etárias são derivados desses contadores na leitura, que percorre só
+ * as idades distintas (algumas dezenas por grupo), nunca os alunos.
+ *
+ * O repositório chama adicionar/remover/alterar sob o lock do ID do aluno, junto com
+ * a escrita no mapa principal. A leitura não bloqueia: durante escritas concorrentes,
+ * o resumo pode refletir uma delas em um grupo e ainda não no outro.
+ *
+ * Como rede de segurança, {@link Contagens} permite recalcular tudo a partir de um
+ * snapshot do mapa e corrigir qualquer divergência (ver AlunoRepository.verificarEstatisticas).
+ */
+final class AgregadosAlunos {
+    private final Grupo total = new Grupo();
+    // Grupos dos cursos; os que ficam vazios só são descartados em descartarVazios()
+    private final ConcurrentMap<String, Grupo> porCurso = new ConcurrentHashMap<>();
+
+    // ========== ATUALIZAÇÃO ==========
+
+    void adicionar(Aluno aluno) {
+        somar(aluno.getCurso(), aluno.getIdade(), 1);
+    }
+
+    void remover(Aluno aluno) {
+        somar(aluno.getCurso(), aluno.getIdade(), -1);
+    }
+
+    /**
+     * Move o aluno de grupo/idade somente se o curso ou a idade mudaram.
+     */
+    void alterar(Aluno anterior, Aluno novo) {
+        if (!Objects.equals(anterior.getCurso(), novo.getCurso()) || anterior.getIdade() != novo.getIdade()) {
+            remover(anterior);
+            adicionar(novo);
+        }
+    }
+
+    private void somar(String curso, int idade, long variacao) {
+        total.somar(idade, variacao);
+        if (curso != null) {
+            grupo(curso).somar(idade, variacao);
+        }
+    }
+
+    private Grupo grupo(String curso) {
+        Grupo grupo = porCurso.get(curso);
+        return grupo != null ? grupo : porCurso.computeIfAbsent(curso, c -> new Grupo());
+    }
+
+    // ========== LEITURA ==========
+
+    /**
+     * @return Estatísticas do total e de cada curso com alunos
+     */
+    EstatisticasAlunos resumo() {
+        SortedMap<String, EstatisticasIdade> cursos = new TreeMap<>();
+        porCurso.forEach((curso, grupo) -> {
+            EstatisticasIdade estatisticas = grupo.resumo();
+            if (estatisticas.quantidade() > 0) {
+                cursos.put(curso, estatisticas);
+            }
+        });
+        return new EstatisticasAlunos(total.resumo(), cursos);
+    }
+
+    // ========== VERIFICAÇÃO ==========
+
+    /**
+     * Copia os contadores atuais (chamado com todas as escritas bloqueadas).
+     * @return Contagens por curso e idade
+     */
+    Contagens contagens() {
+        Contagens contagens = new Contagens();
+        total.copiarPara(contagens.total);
+        porCurso.forEach((curso, grupo) -> grupo.copiarPara(contagens.cursos(curso)));
+        return contagens;
+    }
+
+    /**
+     * Remove os grupos e contadores zerados (chamado com todas as escritas bloqueadas,
+     * para que nenhum incremento caia em um contador já descartado).
+     */
+    void descartarVazios() {
+        total.descartarVazios();
+        porCurso.values().removeIf(Grupo::descartarVazios);
+    }
+
+    /**
+     * Aplica aos contadores a diferença entre as contagens recalculadas e as que eles
+     * tinham no mesmo instante. Como a correção é uma soma, escritas feitas depois do
+     * instante verificado continuam contadas.
+     * @param contadas Contagens dos contadores no instante do snapshot
+     * @param recalculadas Contagens recalculadas a partir dos alunos do snapshot
+     * @return Quantidade de grupos (cursos e total) que estavam divergentes
+     */
+    int corrigir(Contagens contadas, Contagens recalculadas) {
+        int corrigidos = corrigir(null, contadas.total, recalculadas.total);
+        Set<String> cursos = new HashSet<>(contadas.porCurso.keySet());
+        cursos.addAll(recalculadas.porCurso.keySet());
+        for (String curso : cursos) {
+            corrigidos += corrigir(curso, contadas.porCurso.getOrDefault(curso, Map.of()),
+                    recalculadas.porCurso.getOrDefault(curso, Map.of()));
+        }
+        return corrigidos;
+    }
+
+    private int corrigir(String curso, Map<Integer, Long> contadas, Map<Integer, Long> recalculadas) {
+        Set<Integer> idades = new HashSet<>(contadas.keySet());
+        idades.addAll(recalculadas.keySet());
+        boolean divergente = false;
+        for (Integer idade : idades) {
+            long diferenca = recalculadas.getOrDefault(idade, 0L) - contadas.getOrDefault(idade, 0L);
+            if (diferenca != 0) {
+                (curso == null ? total : grupo(curso)).somar(idade, diferenca);
+                divergente = true;
+            }
+        }
+        return divergente ? 1 : 0;
+    }
+
+    /**
+     * Quantidade de alunos por idade, no total e por curso (resultado parcial ou
+     * completo de uma contagem).
+     */
+    static final class Contagens {
+        private final Map<Integer, Long> total = new HashMap<>();
+        private final Map<String, Map<Integer, Long>> porCurso = new HashMap<>();
+
+        /**
+         * Conta um aluno (acumulador da redução paralela).
+         */
+        void somar(Aluno aluno) {
+            total.merge(aluno.getIdade(), 1L, Long::sum);
+            if (aluno.getCurso() != null) {
+                cursos(aluno.getCurso()).merge(aluno.getIdade(), 1L, Long::sum);
+            }
+        }
+
+        /**
+         * Junta outra contagem a esta (combinador da redução paralela).
+         * @return Esta contagem
+         */
+        Contagens juntar(Contagens outra) {
+            outra.total.forEach((idade, n) -> total.merge(idade, n, Long::sum));
+            outra.porCurso.forEach((curso, idades) -> {
+                Map<Integer, Long> destino = cursos(curso);
+                idades.forEach((idade, n) -> destino.merge(idade, n, Long::sum));
+            });
+            return this;
+        }
+
+        private Map<Integer, Long> cursos(String curso) {
+            return porCurso.computeIfAbsent(curso, c -> new HashMap<>());
+        }
+    }
+
+    /**
+     * Contadores por idade de um grupo de alunos.
+     */
+    private static final class Grupo {
+        private final ConcurrentMap<Integer, LongAdder> porIdade = new ConcurrentHashMap<>();
+
+        void somar(int idade, long variacao) {
+            LongAdder contador = porIdade.get(idade);
+            if (contador == null) {
+                contador = porIdade.computeIfAbsent(idade, i -> new LongAdder());
+            }
+            contador.add(variacao);
+        }
+
+        EstatisticasIdade resumo() {
+            long quantidade = 0;
+            long soma = 0;
+            int minima = Integer.MAX_VALUE;
+            int maxima = Integer.MIN_VALUE;
+            long[] faixas = new long[EstatisticasIdade.FAIXAS];
+            for (Map.Entry<Integer, LongAdder> entrada : porIdade.entrySet()) {
+                long n = entrada.getValue().sum();
+                if (n <= 0) continue;
+                int idade = entrada.getKey();
+                quantidade += n;
+                soma += n * idade;
+                minima = Math.min(minima, idade);
+                maxima = Math.max(maxima, idade);
+                faixas[EstatisticasIdade.faixa(idade)] += n;
+            }
+            return quantidade == 0
+                    ? new EstatisticasIdade(0, 0, 0, 0, faixas)
+                    : new EstatisticasIdade(quantidade, soma, minima, maxima, faixas);
+        }
+
+        void copiarPara(Map<Integer, Long> destino) {
+            porIdade.forEach((idade, contador) -> {
+                long n = contador.sum();
+                if (n != 0) destino.put(idade, n);
+            });
+        }
+
+        /**
+         * @return true se o grupo ficou sem nenhum contador
+         */
+        boolean descartarVazios() {
+            porIdade.values().removeIf(contador -> contador.sum() == 0);
+            return porIdade.isEmpty();
+        }
+    }
+}
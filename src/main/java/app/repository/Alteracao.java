@@ -0,0 +1,37 @@
+package app.repository;
+
+import app.model.Aluno;
+
+/**
+ * Uma mutação publicada pelo repositório no {@link RegistroAlteracoes}.
+ *
+ * @param sequencia Posição no registro (crescente, a partir de 1)
+ * @param tipo O que aconteceu com o aluno
+ * @param id ID do aluno
+ * @param versao Versão do aluno gravada (ou removida)
+ * @param aluno O aluno como ficou, ou null na remoção
+ */
+public record Alteracao(long sequencia, Tipo tipo, int id, long versao, Aluno aluno) {
+
+    /**
+     * Tipos de alteração, com o nome usado no evento enviado aos clientes.
+     */
+    public enum Tipo {
+        CRIADO("criado"),
+        ATUALIZADO("atualizado"),
+        REMOVIDO("removido");
+
+        private final String evento;
+
+        Tipo(String evento) {
+            this.evento = evento;
+        }
+
+        /**
+         * @return Nome do evento (ex: "criado")
+         */
+        public String evento() {
+            return evento;
+        }
+    }
+}
@@ -1,28 +1,257 @@
 package app.repository;
 
+import app.metricas.Histograma;
+import app.metricas.Metricas;
 import app.model.Aluno;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * Classe responsável por armazenar e gerenciar os dados dos alunos em memória.
  * Implementa operações básicas de CRUD (Create, Read, Update, Delete).
+ *
+ * Os alunos ficam em um mapa concorrente indexado pelo ID (chave int primitiva),
+ * então buscar, atualizar e remover custam O(1) e são seguros com várias threads
+ * escrevendo ao mesmo tempo. O mapa é persistente (cada escrita publica uma nova
+ * versão imutável), então listarTodos devolve um {@link Instantaneo} consistente
+ * sem copiar os alunos.
+ *
+ * Além do ID, o repositório mantém índices secundários:
+ * - email (único, sem diferenciar maiúsculas/minúsculas)
+ * - curso (vários alunos por curso)
+ * - idade (permite consultas por faixa etária)
+ * - busca por prefixo em nome e email, sem acentos e ordenada por relevância ({@link IndiceBusca})
+ *
+ * e estatísticas de idade por curso e no total, atualizadas a cada escrita
+ * ({@link AgregadosAlunos}), para que relatórios não precisem percorrer os alunos.
+ *
+ * Escritas sobre o mesmo ID são serializadas por um lock listrado (striped lock),
+ * mantendo os índices coerentes com o mapa principal; escritas em IDs diferentes
+ * continuam em paralelo. Cada gravação recebe uma versão nova (ver {@link Aluno#getVersao()}),
+ * o que permite atualizações condicionais com {@link #atualizar(Aluno, long)}. As consultas pelos índices conferem cada resultado no mapa
+ * principal, então nunca devolvem um aluno que não corresponda ao filtro.
+ *
+ * Toda mutação também é publicada no {@link RegistroAlteracoes} (buffer circular das
+ * últimas alterações), que alimenta o feed de eventos da API.
+ *
+ * Os alunos podem ficar na memória como objetos (padrão) ou em colunas compactas
+ * ({@link Armazenamento#COLUNAR}), para populações muito grandes.
+ *
+ * Opcionalmente, as mutações são repassadas a uma {@link Persistencia} (ex: SQLite),
+ * que é lida uma única vez na criação do repositório; as leituras continuam na memória.
+ * Cada escrita pública só retorna depois de {@link Persistencia#confirmar()} (no journal,
+ * depois do fsync do grupo), chamado fora dos locks listrados. Enquanto a persistência
+ * não consegue gravar, as escritas são recusadas com {@link PersistenciaIndisponivelException}
+ * antes de alterar a memória. Se a gravação falha no meio de uma escrita (no registro ou na
+ * confirmação), a alteração é desfeita na memória sob o lock do ID antes da exceção chegar
+ * ao chamador; se ela já tinha sido publicada no registro de alterações, a reversão também é.
+ *
+ * Para replicação entre processos, o líder captura o estado com {@link #copiarParaReplicacao()}
+ * e envia as alterações seguintes; a réplica fica somente leitura ({@link #bloquearEscritas()})
+ * e aplica o que recebe com {@link #aplicarReplicado(Aluno)} e {@link #removerReplicado(int)},
+ * preservando IDs e versões do líder.
+ *
+ * Cada operação pública tem a duração registrada em um histograma de {@link Metricas}
+ * (a contagem do histograma é a quantidade de chamadas).
  */
 public class AlunoRepository {
-    // Lista para armazenar os alunos (simula um banco de dados em memória)
-    private final List<Aluno> alunos = new ArrayList<>();
-    
+    // Quantidade de locks listrados (potência de 2)
+    private static final int LISTRAS = 64;
+
+    // Quantidade de alterações mantidas para o feed de eventos (-Dalunos.eventos.capacidade)
+    private static final int CAPACIDADE_ALTERACOES = Integer.getInteger("alunos.eventos.capacidade", 4096);
+
+    // Versão esperada que aceita qualquer versão atual (atualização incondicional)
+    public static final long QUALQUER_VERSAO = -1;
+
+    // Dono provisório de um email no índice, enquanto o aluno novo ainda não tem ID
+    // (nenhum aluno tem ID 0, então buscarPorEmail não encontra nada)
+    private static final Integer RESERVADO = 0;
+
+    /**
+     * Formato em que o mapa principal guarda os alunos.
+     */
+    public enum Armazenamento {
+        // Objetos Aluno: as leituras devolvem a própria instância gravada
+        OBJETOS,
+        // Colunas compactas por bloco de 32 IDs ({@link ColunasAlunos}): bem menos memória
+        // por aluno; cada leitura cria um Aluno novo a partir das colunas
+        COLUNAR;
+
+        /**
+         * Lê o formato de -Dalunos.armazenamento=objetos (padrão) ou colunar.
+         * @return Formato configurado
+         */
+        public static Armazenamento daConfiguracao() {
+            String modo = System.getProperty("alunos.armazenamento", "objetos");
+            return switch (modo) {
+                case "objetos" -> OBJETOS;
+                case "colunar" -> COLUNAR;
+                default -> throw new IllegalArgumentException("Modo de armazenamento desconhecido: " + modo);
+            };
+        }
+    }
+
+    // ========== MÉTRICAS ==========
+    private static final Histograma T_LISTAR_TODOS = Metricas.temporizador("listarTodos");
+    private static final Histograma T_LISTAR_PAGINA = Metricas.temporizador("listarPagina");
+    private static final Histograma T_BUSCAR_ID = Metricas.temporizador("buscarPorId");
+    private static final Histograma T_BUSCAR_EMAIL = Metricas.temporizador("buscarPorEmail");
+    private static final Histograma T_LISTAR_CURSO = Metricas.temporizador("listarPorCurso");
+    private static final Histograma T_LISTAR_IDADE = Metricas.temporizador("listarPorFaixaEtaria");
+    private static final Histograma T_BUSCAR = Metricas.temporizador("buscar");
+    private static final Histograma T_SALVAR = Metricas.temporizador("salvar");
+    private static final Histograma T_SALVAR_LOTE = Metricas.temporizador("salvarLote");
+    private static final Histograma T_ATUALIZAR = Metricas.temporizador("atualizar");
+    private static final Histograma T_REMOVER = Metricas.temporizador("remover");
+    private static final Histograma T_ESTATISTICAS = Metricas.temporizador("estatisticas");
+    private static final Histograma T_VERIFICAR_ESTATISTICAS = Metricas.temporizador("verificarEstatisticas");
+    private static final Histograma T_APLICAR_REPLICADO = Metricas.temporizador("aplicarReplicado");
+
+    // Grupos de estatísticas que precisaram de correção em verificarEstatisticas()
+    private static final LongAdder CORRECOES_ESTATISTICAS = Metricas.contador("estatisticas_correcoes");
+
+    // Mapa ID -> aluno (simula um banco de dados em memória), no formato de Armazenamento escolhido
+    private final MapaInteiroConcorrente<Aluno> alunos;
+
     // Contador atômico para gerar IDs únicos para novos alunos
     // AtomicInteger é thread-safe (seguro para uso em ambientes concorrentes)
     private final AtomicInteger proximoId = new AtomicInteger(1);
 
+    // Gerador das versões dos registros. Começa no relógio (em microssegundos) para que
+    // as versões não se repitam entre reinicializações, e fica abaixo de 2^53 para que
+    // o JavaScript do navegador as represente sem perda.
+    private final AtomicLong relogio = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    // ========== ÍNDICES SECUNDÁRIOS ==========
+    // Email normalizado -> ID (índice único)
+    private final ConcurrentMap<String, Integer> porEmail = new ConcurrentHashMap<>();
+    // Curso -> IDs ordenados dos alunos matriculados
+    private final ConcurrentMap<String, NavigableSet<Integer>> porCurso = new ConcurrentHashMap<>();
+    // Idade -> IDs ordenados dos alunos com essa idade
+    private final ConcurrentSkipListMap<Integer, NavigableSet<Integer>> porIdade = new ConcurrentSkipListMap<>();
+    // Tokens de nome e email -> IDs (busca por prefixo)
+    private final IndiceBusca busca = new IndiceBusca();
+    // Estatísticas de idade por curso e no total
+    private final AgregadosAlunos agregados = new AgregadosAlunos();
+
+    // Locks listrados: o ID escolhe qual monitor protege suas escritas
+    private final Object[] travas = new Object[LISTRAS];
+
+    // Últimas alterações, lidas pelos clientes do feed de eventos
+    private final RegistroAlteracoes alteracoes = new RegistroAlteracoes(CAPACIDADE_ALTERACOES);
+
+    // Destino das mutações (Persistencia.NENHUMA no modo somente memória)
+    private final Persistencia persistencia;
+
+    // Identifica esta instância nas ETags (as versões recomeçam a cada inicialização)
+    private final String epoca = Long.toHexString(System.currentTimeMillis());
+
+    // Réplica: as escritas públicas são recusadas; só as mutações do líder são aplicadas
+    private volatile boolean somenteLeitura;
+
+    public AlunoRepository() {
+        this(Persistencia.NENHUMA);
+    }
+
+    /**
+     * Cria o repositório carregando os alunos já gravados na persistência.
+     * @param persistencia Armazenamento durável que recebe as mutações
+     */
+    public AlunoRepository(Persistencia persistencia) {
+        this(persistencia, Armazenamento.daConfiguracao());
+    }
+
     /**
-     * Retorna uma lista com todos os alunos cadastrados.
-     * @return Cópia da lista de alunos (para evitar modificações externas na lista interna)
+     * Cria o repositório carregando os alunos já gravados na persistência.
+     * @param persistencia Armazenamento durável que recebe as mutações
+     * @param armazenamento Formato em que os alunos ficam na memória
      */
-    public List<Aluno> listarTodos() {
-        return new ArrayList<>(alunos); // Retorna uma cópia para proteger a lista original
+    public AlunoRepository(Persistencia persistencia, Armazenamento armazenamento) {
+        for (int i = 0; i < LISTRAS; i++) {
+            travas[i] = new Object();
+        }
+        this.alunos = armazenamento == Armazenamento.COLUNAR
+                ? new MapaInteiroConcorrente<>(new ColunasAlunos())
+                : new MapaInteiroConcorrente<>();
+        this.persistencia = persistencia;
+        int proximo = persistencia.carregar(this::restaurar, alunos::remove);
+        proximoId.set(Math.max(proximo, proximoId.get()));
+        reconstruirIndices();
+        persistencia.vincularEstado(percorrerTodos());
+        Metricas.medidor("repositorio_tamanho", alunos::size);
+    }
+
+    /**
+     * Retorna todos os alunos cadastrados, na ordem de inserção.
+     * Como os IDs são crescentes, a ordem dos IDs é a própria ordem de inserção.
+     * @return Snapshot imutável do instante da chamada (O(1), sem cópia), com versão e ETag
+     */
+    public Instantaneo listarTodos() {
+        long inicio = System.nanoTime();
+        try {
+            return new Instantaneo(alunos.estado(), epoca);
+        } finally {
+            T_LISTAR_TODOS.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * @return O buffer com as últimas alterações (para o feed de eventos)
+     */
+    public RegistroAlteracoes alteracoes() {
+        return alteracoes;
+    }
+
+    /**
+     * @return Próximo ID a ser reservado (os IDs abaixo dele já foram usados ou descartados)
+     */
+    public int proximoId() {
+        return proximoId.get();
+    }
+
+    /**
+     * Retorna uma página de alunos em ordem de ID, usando o último ID visto como cursor.
+     * O custo é proporcional ao tamanho da página, não ao total de alunos.
+     * @param aposId Cursor: só retorna alunos com ID maior que este (0 para começar do início)
+     * @param limite Quantidade máxima de alunos na página
+     * @return Lista com no máximo "limite" alunos
+     */
+    public List<Aluno> listarPagina(int aposId, int limite) {
+        long inicio = System.nanoTime();
+        try {
+            List<Aluno> pagina = new ArrayList<>(Math.min(limite, 1024));
+            if (aposId == Integer.MAX_VALUE) return pagina;
+            Iterator<Aluno> it = alunos.iterador(aposId + 1);
+            while (pagina.size() < limite && it.hasNext()) {
+                pagina.add(it.next());
+            }
+            return pagina;
+        } finally {
+            T_LISTAR_PAGINA.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Percorre todos os alunos em ordem de ID sem copiar o repositório.
+     * Cada iteração começa em um snapshot novo, do instante em que iterator() é chamado.
+     * @return Iterable sobre os alunos cadastrados
+     */
+    public Iterable<Aluno> percorrerTodos() {
+        return () -> alunos.iterador(0);
     }
 
     /**
@@ -31,26 +260,266 @@ public class AlunoRepository {
      * @return O aluno encontrado ou null se não existir
      */
     public Aluno buscarPorId(int id) {
-        return alunos.stream()
-                   .filter(a -> a.getId() == id) // Filtra alunos com o ID especificado
-                   .findFirst()                  // Pega o primeiro (deveria ser único)
-                   .orElse(null);                // Retorna null se não encontrar
+        long inicio = System.nanoTime();
+        try {
+            return alunos.get(id);
+        } finally {
+            T_BUSCAR_ID.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Busca um aluno pelo email (sem diferenciar maiúsculas/minúsculas).
+     * @param email Email do aluno
+     * @return O aluno encontrado ou null se não existir
+     */
+    public Aluno buscarPorEmail(String email) {
+        long inicio = System.nanoTime();
+        try {
+            if (email == null) return null;
+            Integer id = porEmail.get(normalizarEmail(email));
+            if (id == null) return null;
+            Aluno aluno = alunos.get(id);
+            // Confere no mapa principal (o índice pode estar no meio de uma atualização)
+            return aluno != null && mesmoEmail(email, aluno.getEmail()) ? aluno : null;
+        } finally {
+            T_BUSCAR_EMAIL.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Lista os alunos de um curso, em ordem de ID.
+     * @param curso Nome exato do curso
+     * @return Lista (possivelmente vazia) com os alunos do curso
+     */
+    public List<Aluno> listarPorCurso(String curso) {
+        long inicio = System.nanoTime();
+        try {
+            if (curso == null) return new ArrayList<>();
+            NavigableSet<Integer> ids = porCurso.get(curso);
+            List<Aluno> resultado = new ArrayList<>(ids == null ? 0 : ids.size());
+            if (ids != null) {
+                for (Integer id : ids) {
+                    Aluno aluno = alunos.get(id);
+                    if (aluno != null && curso.equals(aluno.getCurso())) {
+                        resultado.add(aluno);
+                    }
+                }
+            }
+            return resultado;
+        } finally {
+            T_LISTAR_CURSO.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Lista os alunos com idade dentro da faixa informada (limites inclusivos),
+     * ordenados por idade e depois por ID.
+     * @param idadeMinima Menor idade aceita
+     * @param idadeMaxima Maior idade aceita
+     * @return Lista (possivelmente vazia) com os alunos da faixa
+     */
+    public List<Aluno> listarPorFaixaEtaria(int idadeMinima, int idadeMaxima) {
+        long inicio = System.nanoTime();
+        try {
+            List<Aluno> resultado = new ArrayList<>();
+            if (idadeMinima > idadeMaxima) return resultado;
+            Collection<NavigableSet<Integer>> faixas =
+                    porIdade.subMap(idadeMinima, true, idadeMaxima, true).values();
+            for (NavigableSet<Integer> ids : faixas) {
+                for (Integer id : ids) {
+                    Aluno aluno = alunos.get(id);
+                    if (aluno != null && aluno.getIdade() >= idadeMinima && aluno.getIdade() <= idadeMaxima) {
+                        resultado.add(aluno);
+                    }
+                }
+            }
+            return resultado;
+        } finally {
+            T_LISTAR_IDADE.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Busca alunos pelo começo das palavras do nome ou do email (ex: "jo sil" encontra
+     * "José da Silva"), ignorando acentos e maiúsculas. Todos os termos precisam aparecer.
+     * @param consulta Texto digitado
+     * @param limite Quantidade máxima de resultados
+     * @return Os alunos mais relevantes, do mais para o menos relevante
+     */
+    public List<Aluno> buscar(String consulta, int limite) {
+        long inicio = System.nanoTime();
+        try {
+            return busca.buscar(consulta, limite, alunos.estado());
+        } finally {
+            T_BUSCAR.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Estatísticas de idade (quantidade, média, mínimo, máximo e faixas etárias) de
+     * todos os alunos e de cada curso. Não percorre os alunos: lê os agregados mantidos
+     * a cada escrita.
+     * @return Estatísticas atuais
+     */
+    public EstatisticasAlunos estatisticas() {
+        long inicio = System.nanoTime();
+        try {
+            return agregados.resumo();
+        } finally {
+            T_ESTATISTICAS.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Recalcula as estatísticas a partir dos alunos e corrige qualquer divergência nos
+     * agregados. As escritas ficam bloqueadas só enquanto o snapshot e os contadores são
+     * capturados; a contagem em si roda em paralelo (fork-join) sobre o snapshot.
+     * @return Quantidade de grupos (cursos e total) que estavam divergentes
+     */
+    public int verificarEstatisticas() {
+        long inicio = System.nanoTime();
+        try {
+            Captura captura = comTodasAsTravas(0, () -> {
+                Captura atual = new Captura(alunos.estado(), agregados.contagens());
+                agregados.descartarVazios();
+                return atual;
+            });
+            AgregadosAlunos.Contagens recalculadas = captura.estado().reduzir(
+                    AgregadosAlunos.Contagens::new, AgregadosAlunos.Contagens::somar,
+                    AgregadosAlunos.Contagens::juntar);
+            int corrigidos = agregados.corrigir(captura.contadas(), recalculadas);
+            CORRECOES_ESTATISTICAS.add(corrigidos);
+            return corrigidos;
+        } finally {
+            T_VERIFICAR_ESTATISTICAS.registrar(System.nanoTime() - inicio);
+        }
     }
 
     /**
      * Salva um aluno no repositório.
      * Se o aluno não tem ID (ID = 0), é considerado novo e será adicionado.
-     * Se o aluno já tem ID, é considerado existente e será atualizado.
+     * Se o aluno já tem ID, é considerado existente e será atualizado
+     * (se o ID não existir mais, nada acontece); o registro gravado é uma cópia com a
+     * nova versão, e o objeto recebido não é alterado.
      * @param aluno Aluno a ser salvo ou atualizado
+     * @throws EmailDuplicadoException Se o email já pertence a outro aluno
+     * @throws PersistenciaIndisponivelException Se a persistência não gravou a escrita (que é desfeita)
      */
     public void salvar(Aluno aluno) {
-        if (aluno.getId() == 0) {
-            // Aluno novo: atribui um ID e adiciona à lista
-            aluno.setId(proximoId.getAndIncrement()); // Atribui ID e incrementa o contador
-            alunos.add(aluno);
-        } else {
-            // Aluno existente: substitui na lista
-            alunos.replaceAll(a -> a.getId() == aluno.getId() ? aluno : a);
+        long inicio = System.nanoTime();
+        try {
+            verificarEscrita();
+            if (aluno.getId() == 0) {
+                // Aluno novo: reserva o email antes de consumir um ID, para que a recusa
+                // por email duplicado não deixe IDs sem uso
+                String email = reservarEmailNovo(aluno.getEmail());
+                int id = proximoId.getAndIncrement();
+                synchronized (trava(id)) {
+                    if (email != null) porEmail.replace(email, RESERVADO, id);
+                    aluno.setId(id);
+                    aluno.setVersao(relogio.incrementAndGet());
+                    alunos.put(id, aluno);
+                    indexar(aluno);
+                    registrar(null, aluno);
+                }
+                // Espera a gravação fora do lock, para que outras escritas entrem no mesmo grupo
+                confirmar(null, aluno);
+            } else {
+                // Aluno existente: substitui somente se ainda estiver cadastrado
+                int id = aluno.getId();
+                Aluno atual;
+                Aluno gravado;
+                synchronized (trava(id)) {
+                    atual = alunos.get(id);
+                    if (atual == null) return;
+                    gravado = substituir(atual, aluno);
+                }
+                confirmar(atual, gravado);
+            }
+        } finally {
+            T_SALVAR.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Atualiza um aluno existente somente se a versão gravada for a esperada
+     * (controle de concorrência otimista). A troca no mapa é um compare-and-set
+     * sobre o registro lido, sob o lock do ID.
+     * @param novo Novos dados (com o ID do aluno a ser atualizado)
+     * @param versaoEsperada Versão lida pelo cliente ou {@link #QUALQUER_VERSAO}
+     * @return O aluno gravado (uma cópia de "novo" com a nova versão) ou null se o ID não existir
+     * @throws VersaoConflitanteException Se o aluno mudou desde a versão esperada
+     * @throws EmailDuplicadoException Se o novo email já pertence a outro aluno
+     * @throws PersistenciaIndisponivelException Se a persistência não gravou a escrita (que é desfeita)
+     */
+    public Aluno atualizar(Aluno novo, long versaoEsperada) {
+        long inicio = System.nanoTime();
+        try {
+            verificarEscrita();
+            int id = novo.getId();
+            Aluno atual;
+            Aluno gravado;
+            synchronized (trava(id)) {
+                atual = alunos.get(id);
+                if (atual == null) return null;
+                if (versaoEsperada != QUALQUER_VERSAO && versaoEsperada != atual.getVersao()) {
+                    throw new VersaoConflitanteException(id, atual.getVersao());
+                }
+                gravado = substituir(atual, novo);
+            }
+            confirmar(atual, gravado);
+            return gravado;
+        } finally {
+            T_ATUALIZAR.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Salva vários alunos novos de uma vez (importação em lote).
+     * Reserva um bloco de IDs com uma única operação atômica no contador, em vez de
+     * uma por aluno. Os IDs dos alunos rejeitados ficam sem uso.
+     * @param lote Alunos novos (todos com ID = 0)
+     * @return Quantidade de alunos salvos; os rejeitados por email duplicado
+     *         continuam com ID = 0 para que o chamador identifique as falhas
+     * @throws PersistenciaIndisponivelException Se a gravação falhar no meio do lote; os
+     *         alunos já salvos do lote são removidos de novo, então nenhum deles permanece
+     */
+    public int salvarLote(List<Aluno> lote) {
+        long inicio = System.nanoTime();
+        try {
+            verificarEscrita();
+            int base = proximoId.getAndAdd(lote.size());
+            List<Aluno> salvos = new ArrayList<>(lote.size());
+            try {
+                for (int i = 0; i < lote.size(); i++) {
+                    Aluno aluno = lote.get(i);
+                    int id = base + i;
+                    synchronized (trava(id)) {
+                        try {
+                            reservarEmail(aluno.getEmail(), id);
+                        } catch (EmailDuplicadoException e) {
+                            continue;
+                        }
+                        aluno.setId(id);
+                        aluno.setVersao(relogio.incrementAndGet());
+                        alunos.put(id, aluno);
+                        indexar(aluno);
+                        registrar(null, aluno);
+                        salvos.add(aluno);
+                    }
+                }
+                // Um único fsync (no máximo) para o lote inteiro
+                persistencia.confirmar();
+            } catch (RuntimeException e) {
+                for (Aluno salvo : salvos) {
+                    desfazer(null, salvo, true);
+                }
+                throw e;
+            }
+            return salvos.size();
+        } finally {
+            T_SALVAR_LOTE.registrar(System.nanoTime() - inicio);
         }
     }
 
@@ -58,8 +527,385 @@ public class AlunoRepository {
      * Remove um aluno pelo ID.
      * @param id ID do aluno a ser removido
      * @return true se o aluno foi encontrado e removido, false caso contrário
+     * @throws PersistenciaIndisponivelException Se a persistência não gravou a escrita (que é desfeita)
      */
     public boolean remover(int id) {
-        return alunos.removeIf(a -> a.getId() == id); // Remove se o ID corresponder
+        long inicio = System.nanoTime();
+        try {
+            verificarEscrita();
+            Aluno removido = excluir(id);
+            if (removido == null) return false;
+            confirmar(removido, null);
+            return true;
+        } finally {
+            T_REMOVER.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    // ========== REPLICAÇÃO ==========
+
+    /**
+     * Torna o repositório somente leitura: salvar, salvarLote, atualizar e remover passam
+     * a lançar {@link SomenteLeituraException}. Usado pelas réplicas, que só aplicam as
+     * mutações recebidas do líder.
+     */
+    public void bloquearEscritas() {
+        somenteLeitura = true;
+    }
+
+    /**
+     * @return true se as escritas públicas estão bloqueadas (réplica)
+     */
+    public boolean somenteLeitura() {
+        return somenteLeitura;
+    }
+
+    /**
+     * Captura os alunos e a posição do registro de alterações no mesmo instante,
+     * segurando todos os locks listrados só pelo tempo de ler as duas referências
+     * (o mapa é persistente, então os alunos não são copiados).
+     * @return Estado para iniciar uma réplica
+     */
+    public CopiaReplicacao copiarParaReplicacao() {
+        return comTodasAsTravas(0, () -> new CopiaReplicacao(alteracoes.epoca(), alteracoes.ultimaSequencia(),
+                proximoId.get(), new Instantaneo(alunos.estado(), epoca)));
+    }
+
+    /**
+     * Grava um aluno recebido do líder como ele está lá (mesmo ID e versão), criando-o
+     * ou substituindo a versão atual. Se a versão já é a gravada, nada acontece, então
+     * reaplicar uma alteração é seguro.
+     *
+     * O email é atribuído sem checar duplicidade: a ordem das alterações de IDs diferentes
+     * pode trazer por um instante o mesmo email em dois alunos, e a do líder prevalece.
+     * @param aluno Aluno com ID e versão do líder
+     */
+    public void aplicarReplicado(Aluno aluno) {
+        long inicio = System.nanoTime();
+        try {
+            int id = aluno.getId();
+            synchronized (trava(id)) {
+                Aluno atual = alunos.get(id);
+                if (atual != null && atual.getVersao() == aluno.getVersao()) return;
+                if (aluno.getEmail() != null && (atual == null || !mesmoEmail(atual.getEmail(), aluno.getEmail()))) {
+                    porEmail.put(normalizarEmail(aluno.getEmail()), id);
+                }
+                alunos.put(id, aluno);
+                if (atual == null) {
+                    indexar(aluno);
+                    persistencia.registrarInsercao(aluno);
+                    alteracoes.publicar(Alteracao.Tipo.CRIADO, aluno);
+                } else {
+                    reindexar(atual, aluno);
+                    persistencia.registrarAtualizacao(aluno);
+                    alteracoes.publicar(Alteracao.Tipo.ATUALIZADO, aluno);
+                }
+                proximoId.accumulateAndGet(id + 1, Math::max);
+            }
+        } finally {
+            T_APLICAR_REPLICADO.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Remove um aluno removido no líder (sem a verificação de somente leitura).
+     * @param id ID do aluno
+     * @return true se o aluno existia
+     */
+    public boolean removerReplicado(int id) {
+        return excluir(id) != null;
+    }
+
+    /**
+     * Acompanha os IDs reservados no líder, inclusive os que ficaram sem uso (ex: linhas
+     * rejeitadas de um lote).
+     * @param proximo Próximo ID do líder
+     */
+    public void reservarIdsAte(int proximo) {
+        proximoId.accumulateAndGet(proximo, Math::max);
+    }
+
+    private void verificarEscrita() {
+        if (somenteLeitura) throw new SomenteLeituraException();
+        persistencia.verificarDisponivel();
+    }
+
+    /**
+     * @return O aluno removido ou null se o ID não existia
+     */
+    private Aluno excluir(int id) {
+        synchronized (trava(id)) {
+            Aluno removido = alunos.remove(id);
+            if (removido == null) return null;
+            desindexar(removido);
+            registrar(removido, null);
+            return removido;
+        }
+    }
+
+    // ========== GRAVAÇÃO NA PERSISTÊNCIA ==========
+
+    /**
+     * Repassa à persistência uma mutação já aplicada na memória (chamado com o lock do ID)
+     * e a publica no registro de alterações. A memória muda antes do registro para que um
+     * snapshot do journal nunca fique sem uma mutação que já está no log rotacionado.
+     * @param anterior Aluno antes da mutação (null em uma inserção)
+     * @param gravado Aluno depois da mutação (null em uma remoção)
+     * @throws RuntimeException Se a persistência recusar o registro (a mutação é desfeita)
+     */
+    private void registrar(Aluno anterior, Aluno gravado) {
+        try {
+            if (anterior == null) persistencia.registrarInsercao(gravado);
+            else if (gravado == null) persistencia.registrarRemocao(anterior.getId());
+            else persistencia.registrarAtualizacao(gravado);
+        } catch (RuntimeException e) {
+            desfazer(anterior, gravado, false);
+            throw e;
+        }
+        publicar(anterior, gravado);
+    }
+
+    /**
+     * Espera a persistência confirmar a mutação (fora do lock); se a gravação falhou,
+     * desfaz a mutação antes de repassar o erro.
+     */
+    private void confirmar(Aluno anterior, Aluno gravado) {
+        try {
+            persistencia.confirmar();
+        } catch (RuntimeException e) {
+            desfazer(anterior, gravado, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Desfaz uma mutação cuja gravação falhou, se ela ainda for a versão atual do ID (uma
+     * escrita posterior no mesmo ID prevalece). A reversão não é repassada à persistência,
+     * que está recusando gravações.
+     * @param publicada true se a mutação já foi publicada no registro de alterações (a
+     *                  reversão também é); false se ela falhou antes disso
+     */
+    private void desfazer(Aluno anterior, Aluno gravado, boolean publicada) {
+        int id = gravado != null ? gravado.getId() : anterior.getId();
+        synchronized (trava(id)) {
+            Aluno presente = alunos.get(id);
+            boolean vigente = gravado == null
+                    ? presente == null
+                    : presente != null && presente.getVersao() == gravado.getVersao();
+            if (!vigente) return;
+            // O email anterior foi liberado pela mutação e pode já pertencer a outro aluno
+            if (anterior != null && anterior.getEmail() != null
+                    && (gravado == null || !mesmoEmail(anterior.getEmail(), gravado.getEmail()))) {
+                Integer dono = porEmail.putIfAbsent(normalizarEmail(anterior.getEmail()), id);
+                if (dono != null && dono != id) {
+                    System.err.println("Aviso: escrita no aluno " + id + " não foi desfeita (email "
+                            + anterior.getEmail() + " já pertence a outro aluno)");
+                    if (!publicada) publicar(anterior, gravado);
+                    return;
+                }
+            }
+            if (gravado == null) {
+                alunos.put(id, anterior);
+                indexar(anterior);
+            } else if (anterior == null) {
+                alunos.remove(id);
+                desindexar(gravado);
+            } else {
+                alunos.replace(id, presente, anterior);
+                reindexar(gravado, anterior);
+            }
+            if (publicada) publicar(gravado, anterior);
+        }
+    }
+
+    private void publicar(Aluno anterior, Aluno gravado) {
+        if (anterior == null) alteracoes.publicar(Alteracao.Tipo.CRIADO, gravado);
+        else if (gravado == null) alteracoes.publicar(Alteracao.Tipo.REMOVIDO, anterior);
+        else alteracoes.publicar(Alteracao.Tipo.ATUALIZADO, gravado);
+    }
+
+    // ========== MANUTENÇÃO DOS ÍNDICES ==========
+
+    /**
+     * Recoloca um aluno carregado da persistência (já com ID) sem gravá-lo de novo.
+     * Os índices são montados depois, de uma vez, por reconstruirIndices().
+     */
+    private void restaurar(Aluno aluno) {
+        aluno.setVersao(relogio.incrementAndGet());
+        alunos.put(aluno.getId(), aluno);
+        proximoId.accumulateAndGet(aluno.getId() + 1, Math::max);
+    }
+
+    /**
+     * Monta os índices secundários a partir do mapa principal (usado na inicialização).
+     */
+    private void reconstruirIndices() {
+        alunos.forEach(aluno -> {
+            try {
+                reservarEmail(aluno.getEmail(), aluno.getId());
+            } catch (EmailDuplicadoException e) {
+                System.err.println("Aviso: " + e.getMessage() + " (ID " + aluno.getId() + ")");
+            }
+            indexar(aluno);
+        });
+    }
+
+    /**
+     * Troca o registro atual por uma cópia dos novos dados (chamado com o lock do ID).
+     * O aluno publicado é sempre um objeto novo: o recebido pode ser a própria instância
+     * gravada (lida e salva de novo), e mudar a versão dela seria visível a leitores
+     * concorrentes sem nenhuma sincronização.
+     * @return O aluno publicado, com a nova versão
+     * @throws EmailDuplicadoException Se o novo email já pertence a outro aluno
+     */
+    private Aluno substituir(Aluno atual, Aluno novo) {
+        int id = atual.getId();
+        boolean mesmoEmail = mesmoEmail(atual.getEmail(), novo.getEmail());
+        if (!mesmoEmail) {
+            reservarEmail(novo.getEmail(), id);
+        }
+        Aluno gravado = new Aluno(novo.getNome(), novo.getIdade(), novo.getEmail(), novo.getCurso());
+        gravado.setId(id);
+        gravado.setVersao(relogio.incrementAndGet());
+        if (!alunos.replace(id, atual, gravado)) {
+            // Com o lock do ID o registro não muda entre a leitura e a troca; se mudou,
+            // os índices e a persistência não podem seguir adiante
+            if (!mesmoEmail) liberarEmail(novo.getEmail(), id);
+            throw new IllegalStateException("Aluno " + id + " alterado fora do lock do ID");
+        }
+        reindexar(atual, gravado);
+        registrar(atual, gravado);
+        return gravado;
+    }
+
+    private Object trava(int id) {
+        return travas[id & (LISTRAS - 1)];
+    }
+
+    /**
+     * Executa a ação segurando todos os locks listrados (a partir do índice informado),
+     * ou seja, sem nenhuma escrita em andamento.
+     */
+    private <T> T comTodasAsTravas(int listra, Supplier<T> acao) {
+        if (listra == LISTRAS) {
+            return acao.get();
+        }
+        synchronized (travas[listra]) {
+            return comTodasAsTravas(listra + 1, acao);
+        }
+    }
+
+    /**
+     * Mapa e contadores de estatísticas capturados no mesmo instante.
+     */
+    private record Captura(MapaInteiroConcorrente.Estado<Aluno> estado, AgregadosAlunos.Contagens contadas) {
+    }
+
+    /**
+     * Reserva o email para o ID de forma atômica (putIfAbsent).
+     * @throws EmailDuplicadoException Se outro aluno já possui o email
+     */
+    private void reservarEmail(String email, int id) {
+        if (email == null) return;
+        Integer dono = porEmail.putIfAbsent(normalizarEmail(email), id);
+        if (dono != null && dono != id) {
+            throw new EmailDuplicadoException(email);
+        }
+    }
+
+    /**
+     * Reserva o email de um aluno novo com o dono provisório {@link #RESERVADO}.
+     * @return Email normalizado (para trocar o dono pelo ID depois) ou null se não há email
+     * @throws EmailDuplicadoException Se o email já pertence (ou está reservado) a outro aluno
+     */
+    private String reservarEmailNovo(String email) {
+        if (email == null) return null;
+        String chave = normalizarEmail(email);
+        if (porEmail.putIfAbsent(chave, RESERVADO) != null) {
+            throw new EmailDuplicadoException(email);
+        }
+        return chave;
+    }
+
+    private void indexar(Aluno aluno) {
+        indexarCurso(aluno.getCurso(), aluno.getId());
+        indexarIdade(aluno.getIdade(), aluno.getId());
+        busca.indexar(aluno);
+        agregados.adicionar(aluno);
+    }
+
+    private void desindexar(Aluno aluno) {
+        liberarEmail(aluno.getEmail(), aluno.getId());
+        desindexarCurso(aluno.getCurso(), aluno.getId());
+        desindexarIdade(aluno.getIdade(), aluno.getId());
+        busca.desindexar(aluno);
+        agregados.remover(aluno);
+    }
+
+    /**
+     * Atualiza apenas os índices cujos valores mudaram, para que o aluno
+     * não desapareça temporariamente das consultas que continuam válidas.
+     */
+    private void reindexar(Aluno anterior, Aluno novo) {
+        int id = novo.getId();
+        if (!mesmoEmail(anterior.getEmail(), novo.getEmail())) {
+            liberarEmail(anterior.getEmail(), id);
+        }
+        if (!Objects.equals(anterior.getCurso(), novo.getCurso())) {
+            indexarCurso(novo.getCurso(), id);
+            desindexarCurso(anterior.getCurso(), id);
+        }
+        if (anterior.getIdade() != novo.getIdade()) {
+            indexarIdade(novo.getIdade(), id);
+            desindexarIdade(anterior.getIdade(), id);
+        }
+        busca.reindexar(anterior, novo);
+        agregados.alterar(anterior, novo);
+    }
+
+    private void liberarEmail(String email, int id) {
+        if (email != null) {
+            porEmail.remove(normalizarEmail(email), id);
+        }
+    }
+
+    private void indexarCurso(String curso, int id) {
+        if (curso == null) return;
+        // compute é atômico por chave no ConcurrentHashMap, evitando corrida com o descarte
+        porCurso.compute(curso, (chave, ids) -> {
+            NavigableSet<Integer> conjunto = ids != null ? ids : new ConcurrentSkipListSet<>();
+            conjunto.add(id);
+            return conjunto;
+        });
+    }
+
+    private void desindexarCurso(String curso, int id) {
+        if (curso == null) return;
+        // Descarta o conjunto do curso quando ele fica vazio
+        porCurso.computeIfPresent(curso, (chave, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private void indexarIdade(int idade, int id) {
+        porIdade.computeIfAbsent(idade, i -> new ConcurrentSkipListSet<>()).add(id);
+    }
+
+    private void desindexarIdade(int idade, int id) {
+        // As idades formam um domínio pequeno, então os conjuntos vazios são mantidos
+        NavigableSet<Integer> ids = porIdade.get(idade);
+        if (ids != null) {
+            ids.remove(id);
+        }
+    }
+
+    private static boolean mesmoEmail(String a, String b) {
+        if (a == null || b == null) return a == b;
+        return normalizarEmail(a).equals(normalizarEmail(b));
+    }
+
+    private static String normalizarEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,238 @@
+package app.repository;
+
+import app.model.Aluno;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Folhas compactas e colunares para o mapa de alunos (armazenamento "colunar").
+ *
+ * Em vez de 32 referências para objetos Aluno (cada um com três Strings, ou seja, sete
+ * objetos com cabeçalho por aluno), cada folha é um {@link Bloco} imutável com os alunos
+ * de 32 IDs consecutivos guardados em colunas de tipos primitivos:
+ * - idade e versão em int[] e long[]
+ * - curso codificado por dicionário (int[] com o código; cada nome de curso é guardado uma vez)
+ * - nome e email em UTF-8, concatenados em um único byte[] por bloco, com os limites em int[]
+ *
+ * O ID não é guardado: vem da posição na árvore. As colunas têm só as posições ocupadas
+ * (o índice de cada aluno é a quantidade de posições ocupadas antes dele no bloco).
+ *
+ * Os objetos Aluno são criados somente quando alguém lê o registro (buscarPorId, listagens,
+ * busca); cada leitura devolve uma instância nova. Por isso o compare-and-set do mapa
+ * compara a versão (única por gravação) em vez da identidade do objeto.
+ *
+ * Cada gravação copia o bloco inteiro (cerca de 1 KB com 32 alunos), contra uma cópia
+ * de 32 referências nas folhas padrão: escritas ficam um pouco mais caras em troca de
+ * bem menos memória por aluno.
+ */
+final class ColunasAlunos implements MapaInteiroConcorrente.Folhas<Aluno> {
+    // Posições por bloco (igual à largura dos nós do mapa)
+    private static final int LARGURA = 32;
+    private static final int SEM_CURSO = -1;
+
+    // Dicionário de cursos: nome -> código e código -> nome (os códigos nunca são reutilizados)
+    private final ConcurrentMap<String, Integer> codigos = new ConcurrentHashMap<>();
+    private volatile String[] cursos = new String[16];
+    private int quantidadeCursos;
+
+    /**
+     * Alunos de até 32 IDs consecutivos, em colunas. Imutável.
+     */
+    static final class Bloco {
+        private final int base;          // ID da posição 0
+        private final int ocupadas;      // bit i = posição i ocupada
+        private final int nomesNulos;    // bit i = nome null na posição i
+        private final int emailsNulos;   // bit i = email null na posição i
+        private final int[] idades;
+        private final long[] versoes;
+        private final int[] cursos;
+        // Nome do aluno k: texto[limites[2k], limites[2k+1]); email: texto[limites[2k+1], limites[2k+2])
+        private final int[] limites;
+        private final byte[] texto;
+
+        private Bloco(int base, int ocupadas, int nomesNulos, int emailsNulos, int[] idades, long[] versoes,
+                      int[] cursos, int[] limites, byte[] texto) {
+            this.base = base;
+            this.ocupadas = ocupadas;
+            this.nomesNulos = nomesNulos;
+            this.emailsNulos = emailsNulos;
+            this.idades = idades;
+            this.versoes = versoes;
+            this.cursos = cursos;
+            this.limites = limites;
+            this.texto = texto;
+        }
+
+        /**
+         * @return Índice nas colunas do aluno na posição (quantidade de ocupadas antes dela)
+         */
+        private int indice(int posicao) {
+            return Integer.bitCount(ocupadas & ((1 << posicao) - 1));
+        }
+
+        private boolean ocupada(int posicao) {
+            return (ocupadas & (1 << posicao)) != 0;
+        }
+    }
+
+    // ========== FOLHAS ==========
+
+    @Override
+    public Aluno ler(Object folha, int posicao) {
+        Bloco bloco = (Bloco) folha;
+        return bloco.ocupada(posicao) ? materializar(bloco, posicao, bloco.indice(posicao)) : null;
+    }
+
+    @Override
+    public int proxima(Object folha, int aPartir) {
+        int restantes = ((Bloco) folha).ocupadas & (-1 << aPartir);
+        return restantes == 0 ? -1 : Integer.numberOfTrailingZeros(restantes);
+    }
+
+    @Override
+    public boolean contem(Object folha, int posicao, Aluno esperado) {
+        Bloco bloco = (Bloco) folha;
+        return bloco.ocupada(posicao) && bloco.versoes[bloco.indice(posicao)] == esperado.getVersao();
+    }
+
+    @Override
+    public void paraCada(Object folha, Consumer<? super Aluno> acao) {
+        Bloco bloco = (Bloco) folha;
+        int indice = 0;
+        for (int restantes = bloco.ocupadas; restantes != 0; restantes &= restantes - 1) {
+            acao.accept(materializar(bloco, Integer.numberOfTrailingZeros(restantes), indice++));
+        }
+    }
+
+    /**
+     * Monta o bloco novo com a posição da chave alterada, copiando as demais colunas.
+     */
+    @Override
+    public Object gravar(Object folha, int chave, Aluno aluno) {
+        Bloco anterior = (Bloco) folha;
+        int posicao = chave & (LARGURA - 1);
+        int bit = 1 << posicao;
+        int ocupadasAntes = anterior == null ? 0 : anterior.ocupadas;
+        int ocupadas = aluno == null ? ocupadasAntes & ~bit : ocupadasAntes | bit;
+        if (ocupadas == 0) return null;
+
+        int quantidade = Integer.bitCount(ocupadas);
+        int[] idades = new int[quantidade];
+        long[] versoes = new long[quantidade];
+        int[] codigosCurso = new int[quantidade];
+        int[] limites = new int[2 * quantidade + 1];
+        byte[] nome = aluno == null ? null : utf8(aluno.getNome());
+        byte[] email = aluno == null ? null : utf8(aluno.getEmail());
+        byte[] texto = new byte[tamanhoTexto(anterior, posicao)
+                + (nome == null ? 0 : nome.length) + (email == null ? 0 : email.length)];
+
+        int nomesNulos = 0;
+        int emailsNulos = 0;
+        int indice = 0;
+        int fim = 0;
+        int indiceAnterior = 0;
+        for (int restantes = ocupadas | ocupadasAntes; restantes != 0; restantes &= restantes - 1) {
+            int p = Integer.numberOfTrailingZeros(restantes);
+            boolean existia = (ocupadasAntes & (1 << p)) != 0;
+            if (p == posicao) {
+                if (existia) indiceAnterior++;
+                if (aluno == null) continue;
+                idades[indice] = aluno.getIdade();
+                versoes[indice] = aluno.getVersao();
+                codigosCurso[indice] = codigo(aluno.getCurso());
+                limites[2 * indice] = fim;
+                fim = copiar(nome, texto, fim);
+                limites[2 * indice + 1] = fim;
+                fim = copiar(email, texto, fim);
+                if (nome == null) nomesNulos |= 1 << p;
+                if (email == null) emailsNulos |= 1 << p;
+            } else {
+                // Aluno que continua igual: copia das colunas do bloco anterior
+                int k = indiceAnterior++;
+                idades[indice] = anterior.idades[k];
+                versoes[indice] = anterior.versoes[k];
+                codigosCurso[indice] = anterior.cursos[k];
+                int inicio = anterior.limites[2 * k];
+                int tamanho = anterior.limites[2 * k + 2] - inicio;
+                limites[2 * indice] = fim;
+                limites[2 * indice + 1] = fim + anterior.limites[2 * k + 1] - inicio;
+                System.arraycopy(anterior.texto, inicio, texto, fim, tamanho);
+                fim += tamanho;
+                nomesNulos |= anterior.nomesNulos & (1 << p);
+                emailsNulos |= anterior.emailsNulos & (1 << p);
+            }
+            indice++;
+        }
+        limites[2 * quantidade] = fim;
+        return new Bloco(chave & ~(LARGURA - 1), ocupadas, nomesNulos, emailsNulos, idades, versoes,
+                codigosCurso, limites, texto);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private Aluno materializar(Bloco bloco, int posicao, int indice) {
+        int bit = 1 << posicao;
+        int inicioNome = bloco.limites[2 * indice];
+        int inicioEmail = bloco.limites[2 * indice + 1];
+        int fim = bloco.limites[2 * indice + 2];
+        String nome = (bloco.nomesNulos & bit) != 0 ? null
+                : new String(bloco.texto, inicioNome, inicioEmail - inicioNome, StandardCharsets.UTF_8);
+        String email = (bloco.emailsNulos & bit) != 0 ? null
+                : new String(bloco.texto, inicioEmail, fim - inicioEmail, StandardCharsets.UTF_8);
+        int codigo = bloco.cursos[indice];
+        Aluno aluno = new Aluno(nome, bloco.idades[indice], email, codigo == SEM_CURSO ? null : cursos[codigo]);
+        aluno.setId(bloco.base + posicao);
+        aluno.setVersao(bloco.versoes[indice]);
+        return aluno;
+    }
+
+    /**
+     * @return Bytes de texto do bloco anterior, sem os do aluno na posição (que será trocado)
+     */
+    private static int tamanhoTexto(Bloco anterior, int posicao) {
+        if (anterior == null) return 0;
+        int tamanho = anterior.texto.length;
+        if (anterior.ocupada(posicao)) {
+            int k = anterior.indice(posicao);
+            tamanho -= anterior.limites[2 * k + 2] - anterior.limites[2 * k];
+        }
+        return tamanho;
+    }
+
+    /**
+     * @return Código do curso no dicionário (criado na primeira vez que o curso aparece)
+     */
+    private int codigo(String curso) {
+        if (curso == null) return SEM_CURSO;
+        Integer codigo = codigos.get(curso);
+        return codigo != null ? codigo : registrar(curso);
+    }
+
+    private synchronized int registrar(String curso) {
+        Integer existente = codigos.get(curso);
+        if (existente != null) return existente;
+        int codigo = quantidadeCursos++;
+        String[] atuais = cursos;
+        if (codigo == atuais.length) {
+            atuais = Arrays.copyOf(atuais, atuais.length * 2);
+        }
+        atuais[codigo] = curso;
+        // Publica o array antes do código: quem lê o código encontra o nome
+        cursos = atuais;
+        codigos.put(curso, codigo);
+        return codigo;
+    }
+
+    private static byte[] utf8(String texto) {
+        return texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int copiar(byte[] origem, byte[] destino, int posicao) {
+        if (origem == null) return posicao;
+        System.arraycopy(origem, 0, destino, posicao, origem.length);
+        return posicao + origem.length;
+    }
+}
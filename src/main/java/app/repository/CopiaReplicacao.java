@@ -0,0 +1,16 @@
+package app.repository;
+
+/**
+ * Estado completo do repositório capturado junto com a posição do registro de
+ * alterações, para iniciar (ou refazer) uma réplica.
+ *
+ * Nenhuma escrita estava em andamento na captura: os alunos refletem exatamente as
+ * alterações até "sequencia", e a réplica continua a partir da seguinte.
+ *
+ * @param epoca Identificador do registro de alterações (as sequências recomeçam a cada inicialização)
+ * @param sequencia Última alteração refletida nos alunos
+ * @param proximoId Próximo ID a ser reservado pelo repositório
+ * @param alunos Alunos cadastrados no instante da captura
+ */
+public record CopiaReplicacao(String epoca, long sequencia, int proximoId, Instantaneo alunos) {
+}
@@ -0,0 +1,15 @@
+package app.repository;
+
+/**
+ * Exceção lançada quando se tenta salvar um aluno com um email que já pertence a outro aluno.
+ */
+public class EmailDuplicadoException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param email Email que já está cadastrado
+     */
+    public EmailDuplicadoException(String email) {
+        super("Email já cadastrado: " + email);
+    }
+}
@@ -0,0 +1,12 @@
+package app.repository;
+
+import java.util.SortedMap;
+
+/**
+ * Estatísticas de idade de todos os alunos e de cada curso (GET /alunos/stats).
+ *
+ * @param total Estatísticas de todos os alunos
+ * @param porCurso Estatísticas de cada curso com alunos, em ordem alfabética
+ */
+public record EstatisticasAlunos(EstatisticasIdade total, SortedMap<String, EstatisticasIdade> porCurso) {
+}
@@ -0,0 +1,33 @@
+package app.repository;
+
+/**
+ * Estatísticas de idade de um grupo de alunos (um curso ou todos os alunos).
+ *
+ * @param quantidade Quantidade de alunos no grupo
+ * @param somaIdades Soma das idades (base da média)
+ * @param idadeMinima Menor idade do grupo (0 se o grupo estiver vazio)
+ * @param idadeMaxima Maior idade do grupo (0 se o grupo estiver vazio)
+ * @param faixas Quantidade de alunos por faixa etária de {@link #LARGURA_FAIXA} anos
+ *               (0-9, 10-19, ...); a última faixa acumula as idades a partir de 100
+ */
+public record EstatisticasIdade(long quantidade, long somaIdades, int idadeMinima, int idadeMaxima,
+                                long[] faixas) {
+    // Largura e quantidade das faixas etárias do histograma
+    public static final int LARGURA_FAIXA = 10;
+    public static final int FAIXAS = 11;
+
+    /**
+     * @return Média das idades (0 se o grupo estiver vazio)
+     */
+    public double mediaIdade() {
+        return quantidade == 0 ? 0 : (double) somaIdades / quantidade;
+    }
+
+    /**
+     * @param idade Idade de um aluno
+     * @return Índice da faixa etária em {@link #faixas()}
+     */
+    public static int faixa(int idade) {
+        return Math.max(0, Math.min(idade / LARGURA_FAIXA, FAIXAS - 1));
+    }
+}
@@ -0,0 +1,559 @@
+package app.repository;
+
+import app.model.Aluno;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Índice invertido para busca por prefixo (autocompletar) em nome e email.
+ *
+ * Os textos são normalizados sem acentos e em minúsculas ("José" vira "jose"). Cada
+ * palavra do nome é um token, e o email inteiro é mais um token (ex: "ana.silva@x.com"),
+ * então "ana", "silv" e "ana.si" encontram o mesmo aluno. O domínio e as partes do email
+ * não são indexados separadamente: são pouco seletivos e custariam um token por aluno.
+ *
+ * Os tokens ficam em mapas ordenados separados por comprimento. Uma busca por prefixo
+ * percorre os comprimentos em ordem crescente (como uma busca em largura numa trie),
+ * e como tokens mais curtos são mais relevantes, para assim que os K melhores resultados
+ * não podem mais ser superados. Com isso o custo depende de K e da seletividade da
+ * consulta, e não da quantidade de alunos que começam com o prefixo.
+ *
+ * Relevância (menor é melhor), somada para cada termo da consulta:
+ * 2 × (0 se o token é igual ao termo, senão 1 + letras que faltam) + posição do token
+ * (0 primeira palavra do nome, 1 demais palavras, 2 email). Empates ficam por ordem de ID.
+ *
+ * Todos os termos precisam aparecer (E lógico). Cada candidato é conferido no aluno atual,
+ * então o índice nunca devolve um aluno que não corresponda à consulta.
+ */
+final class IndiceBusca {
+    // Quantidade de níveis por comprimento; tokens maiores ficam todos no último
+    private static final int COMPRIMENTO_MAXIMO = 64;
+    // Saltos no máximo por busca (limita consultas de vários termos que quase nunca aparecem juntos)
+    private static final int LIMITE_PASSOS = 200_000;
+    // Quantidade máxima de IDs copiados por vez de uma lista de postagens
+    private static final int BLOCO = 256;
+
+    // Posição do token no aluno (entra na relevância)
+    private static final int PRIMEIRO_NOME = 0;
+    private static final int NOME = 1;
+    private static final int EMAIL = 2;
+
+    // niveis[n]: token com n caracteres -> IDs dos alunos que o contêm, por posição
+    private final ConcurrentSkipListMap<String, Postagens>[] niveis = novosNiveis(COMPRIMENTO_MAXIMO + 1);
+
+    IndiceBusca() {
+        for (int i = 1; i <= COMPRIMENTO_MAXIMO; i++) {
+            niveis[i] = new ConcurrentSkipListMap<>();
+        }
+    }
+
+    /**
+     * Cria o array de níveis (arrays de tipos genéricos só podem ser criados com curinga).
+     */
+    @SuppressWarnings("unchecked")
+    private static ConcurrentSkipListMap<String, Postagens>[] novosNiveis(int quantidade) {
+        return (ConcurrentSkipListMap<String, Postagens>[]) new ConcurrentSkipListMap<?, ?>[quantidade];
+    }
+
+    /**
+     * IDs dos alunos que contêm um token, separados pela posição do token (listas ordenadas).
+     * IDs novos são sempre os maiores, então a inserção normal é um acréscimo no fim.
+     */
+    private static final class Postagens {
+        private final int[][] ids = new int[EMAIL + 1][];
+        private final int[] tamanhos = new int[EMAIL + 1];
+        // Marcada quando as listas esvaziam e saem do mapa (quem a tiver em mãos tenta de novo)
+        private boolean descartada;
+
+        synchronized boolean adicionar(int posicao, int id) {
+            if (descartada) return false;
+            int[] lista = ids[posicao];
+            int tamanho = tamanhos[posicao];
+            if (lista == null) {
+                lista = ids[posicao] = new int[1];
+            }
+            int pos = tamanho == 0 || lista[tamanho - 1] < id ? tamanho : Arrays.binarySearch(lista, 0, tamanho, id);
+            if (pos >= 0 && pos < tamanho) return true;   // já presente
+            if (pos < 0) pos = -pos - 1;
+            if (tamanho == lista.length) {
+                lista = ids[posicao] = Arrays.copyOf(lista, tamanho << 1);
+            }
+            System.arraycopy(lista, pos, lista, pos + 1, tamanho - pos);
+            lista[pos] = id;
+            tamanhos[posicao]++;
+            return true;
+        }
+
+        /**
+         * @return true se todas as listas ficaram vazias (e foram descartadas)
+         */
+        synchronized boolean remover(int posicao, int id) {
+            int tamanho = tamanhos[posicao];
+            int pos = tamanho == 0 ? -1 : Arrays.binarySearch(ids[posicao], 0, tamanho, id);
+            if (pos >= 0) {
+                System.arraycopy(ids[posicao], pos + 1, ids[posicao], pos, tamanho - pos - 1);
+                tamanhos[posicao]--;
+            }
+            descartada = tamanhos[PRIMEIRO_NOME] == 0 && tamanhos[NOME] == 0 && tamanhos[EMAIL] == 0;
+            return descartada;
+        }
+
+        synchronized boolean contem(int posicao) {
+            return tamanhos[posicao] > 0;
+        }
+
+        /**
+         * Copia os próximos IDs maiores que "apos" (o cursor é um valor, não uma
+         * posição, então remoções concorrentes não fazem pular nem repetir IDs).
+         * @return Quantidade copiada (0 no fim da lista)
+         */
+        synchronized int copiar(int posicao, int apos, int[] destino) {
+            int tamanho = tamanhos[posicao];
+            if (tamanho == 0) return 0;
+            int pos = Arrays.binarySearch(ids[posicao], 0, tamanho, apos);
+            pos = pos >= 0 ? pos + 1 : -pos - 1;
+            int quantidade = Math.min(destino.length, tamanho - pos);
+            System.arraycopy(ids[posicao], pos, destino, 0, quantidade);
+            return quantidade;
+        }
+    }
+
+    // ========== MANUTENÇÃO ==========
+
+    void indexar(Aluno aluno) {
+        List<String> nome = tokensNome(aluno.getNome());
+        for (int i = 0; i < nome.size(); i++) {
+            adicionar(nome.get(i), i == 0 ? PRIMEIRO_NOME : NOME, aluno.getId());
+        }
+        String email = tokenEmail(aluno.getEmail());
+        if (email != null) adicionar(email, EMAIL, aluno.getId());
+    }
+
+    void desindexar(Aluno aluno) {
+        List<String> nome = tokensNome(aluno.getNome());
+        for (int i = 0; i < nome.size(); i++) {
+            retirar(nome.get(i), i == 0 ? PRIMEIRO_NOME : NOME, aluno.getId());
+        }
+        String email = tokenEmail(aluno.getEmail());
+        if (email != null) retirar(email, EMAIL, aluno.getId());
+    }
+
+    /**
+     * Atualiza o índice somente se o nome ou o email mudaram.
+     */
+    void reindexar(Aluno anterior, Aluno novo) {
+        if (Objects.equals(anterior.getNome(), novo.getNome())
+                && Objects.equals(anterior.getEmail(), novo.getEmail())) return;
+        // Indexa o novo antes de retirar o antigo para o aluno não sumir das buscas válidas
+        indexar(novo);
+        Set<String> mantidas = new HashSet<>();
+        List<String> nome = tokensNome(novo.getNome());
+        for (int i = 0; i < nome.size(); i++) {
+            mantidas.add((i == 0 ? PRIMEIRO_NOME : NOME) + nome.get(i));
+        }
+        List<String> nomeAnterior = tokensNome(anterior.getNome());
+        for (int i = 0; i < nomeAnterior.size(); i++) {
+            int posicao = i == 0 ? PRIMEIRO_NOME : NOME;
+            if (!mantidas.contains(posicao + nomeAnterior.get(i))) {
+                retirar(nomeAnterior.get(i), posicao, anterior.getId());
+            }
+        }
+        String email = tokenEmail(anterior.getEmail());
+        if (email != null && !email.equals(tokenEmail(novo.getEmail()))) {
+            retirar(email, EMAIL, anterior.getId());
+        }
+    }
+
+    private void adicionar(String token, int posicao, int id) {
+        ConcurrentSkipListMap<String, Postagens> nivel = nivel(token.length());
+        while (!nivel.computeIfAbsent(token, t -> new Postagens()).adicionar(posicao, id)) {
+            // A lista encontrada acabou de ser descartada: cria outra
+            Thread.onSpinWait();
+        }
+    }
+
+    private void retirar(String token, int posicao, int id) {
+        ConcurrentSkipListMap<String, Postagens> nivel = nivel(token.length());
+        Postagens postagens = nivel.get(token);
+        if (postagens != null && postagens.remover(posicao, id)) {
+            nivel.remove(token, postagens);
+        }
+    }
+
+    // ========== BUSCA ==========
+
+    /**
+     * Busca os alunos mais relevantes para a consulta.
+     *
+     * A parcela de cada termo na relevância (componente) só depende do nível e da posição
+     * do token, então os alunos com relevância total S estão nas combinações de componentes
+     * que somam S. As somas são visitadas em ordem crescente e, em cada combinação, as
+     * listas dos termos são intersectadas por saltos (leapfrog): cada lista pula direto
+     * para o maior ID visto nas outras com uma busca binária, sem percorrer os alunos que
+     * só têm parte dos termos. A busca termina na primeira soma que completa K resultados.
+     *
+     * @param consulta Texto digitado (um ou mais termos; o último pode estar incompleto)
+     * @param limite Quantidade máxima de resultados
+     * @param alunos Versão do mapa usada para conferir os candidatos
+     * @return Alunos em ordem de relevância (lista vazia se a consulta não tem termos)
+     */
+    List<Aluno> buscar(String consulta, int limite, MapaInteiroConcorrente.Estado<Aluno> alunos) {
+        List<Aluno> resultado = new ArrayList<>();
+        List<String> termos = termosConsulta(consulta);
+        if (termos.isEmpty() || limite <= 0) return resultado;
+
+        Termo[] busca = new Termo[termos.size()];
+        int somaMaxima = 0;
+        for (int i = 0; i < busca.length; i++) {
+            busca[i] = new Termo(termos.get(i));
+            // Um termo sem nenhum token no índice não tem como aparecer em todos os campos
+            if (!busca[i].existe()) return resultado;
+            somaMaxima += busca[i].componenteMaximo;
+        }
+
+        Set<Integer> vistos = new HashSet<>();
+        int[] passos = {0};
+        for (int soma = 0; soma <= somaMaxima && resultado.size() < limite; soma++) {
+            // IDs com relevância exatamente "soma", de todas as combinações (menores primeiro)
+            TreeSet<Integer> nestaSoma = new TreeSet<>();
+            combinar(busca, 0, soma, new Segmento[busca.length], nestaSoma, limite - resultado.size(), passos);
+            for (Integer id : nestaSoma) {
+                Aluno aluno = alunos.get(id);
+                // Confere no mapa: o índice pode estar no meio de uma atualização
+                if (aluno == null || relevancia(aluno, termos) != soma || !vistos.add(id)) continue;
+                resultado.add(aluno);
+                if (resultado.size() == limite) break;
+            }
+            if (passos[0] > LIMITE_PASSOS) break;
+        }
+        return resultado;
+    }
+
+    /**
+     * Escolhe recursivamente um segmento por termo, com componentes somando "soma",
+     * e guarda em "destino" os menores IDs presentes em todos os segmentos escolhidos.
+     */
+    private static void combinar(Termo[] termos, int indice, int soma, Segmento[] escolhidos,
+                                 TreeSet<Integer> destino, int quantidade, int[] passos) {
+        if (passos[0] > LIMITE_PASSOS) return;
+        Termo termo = termos[indice];
+        if (indice == termos.length - 1) {
+            Segmento segmento = termo.segmento(soma);
+            if (segmento == null) return;
+            escolhidos[indice] = segmento;
+            intersectar(escolhidos, destino, quantidade, passos);
+            return;
+        }
+        for (int componente = 0; componente <= Math.min(soma, termo.componenteMaximo); componente++) {
+            Segmento segmento = termo.segmento(componente);
+            if (segmento == null) continue;
+            escolhidos[indice] = segmento;
+            combinar(termos, indice + 1, soma - componente, escolhidos, destino, quantidade, passos);
+        }
+    }
+
+    /**
+     * Intersecção por saltos: o alvo é o maior ID encontrado até agora, e cada segmento
+     * pula para o primeiro ID maior ou igual ao alvo até todos concordarem.
+     */
+    private static void intersectar(Segmento[] segmentos, TreeSet<Integer> destino, int quantidade, int[] passos) {
+        Uniao[] unioes = new Uniao[segmentos.length];
+        for (int i = 0; i < segmentos.length; i++) {
+            unioes[i] = new Uniao(segmentos[i]);
+        }
+        int alvo = 0;
+        while (true) {
+            // Já há IDs menores suficientes desta soma: os próximos não entrariam
+            if (destino.size() >= quantidade && alvo > destino.last()) return;
+            boolean iguais = true;
+            for (Uniao uniao : unioes) {
+                passos[0]++;
+                int id = uniao.buscar(alvo);
+                if (id < 0) return;
+                if (id != alvo) {
+                    alvo = id;
+                    iguais = false;
+                    break;
+                }
+            }
+            if (!iguais) continue;
+            destino.add(alvo);
+            if (destino.size() > quantidade) destino.pollLast();
+            if (alvo == Integer.MAX_VALUE || passos[0] > LIMITE_PASSOS) return;
+            alvo++;
+        }
+    }
+
+    /**
+     * Um termo da consulta e as listas de postagens de cada componente.
+     * O componente é a parcela do termo na relevância: 2 × distância + posição do token.
+     */
+    private final class Termo {
+        private final String prefixo;
+        private final int comprimento;
+        final int componenteMaximo;
+        // Segmentos já montados, por componente (VAZIO quando não há listas)
+        private final Segmento[] segmentos;
+        // Listas dos níveis já consultados (cada nível serve a três componentes seguidos)
+        private final List<List<Postagens>> porNivel = new ArrayList<>(COMPRIMENTO_MAXIMO + 1);
+
+        Termo(String termo) {
+            prefixo = termo.length() > COMPRIMENTO_MAXIMO ? termo.substring(0, COMPRIMENTO_MAXIMO) : termo;
+            comprimento = prefixo.length();
+            componenteMaximo = 2 * distancia(COMPRIMENTO_MAXIMO, comprimento) + EMAIL;
+            segmentos = new Segmento[componenteMaximo + 1];
+            for (int i = 0; i <= COMPRIMENTO_MAXIMO; i++) porNivel.add(null);
+        }
+
+        /**
+         * @return true se algum token começa com o termo
+         */
+        boolean existe() {
+            for (int nivel = comprimento; nivel <= COMPRIMENTO_MAXIMO; nivel++) {
+                if (!faixa(nivel).isEmpty()) return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return As listas que contribuem com o componente, ou null se não houver
+         */
+        Segmento segmento(int componente) {
+            if (componente > componenteMaximo) return null;
+            Segmento segmento = segmentos[componente];
+            if (segmento == null) {
+                segmento = montar(componente);
+                segmentos[componente] = segmento;
+            }
+            return segmento == Segmento.VAZIO ? null : segmento;
+        }
+
+        private Segmento montar(int componente) {
+            List<Postagens> listas = new ArrayList<>();
+            List<Integer> posicoes = new ArrayList<>();
+            for (int posicao = PRIMEIRO_NOME; posicao <= EMAIL; posicao++) {
+                int dobro = componente - posicao;
+                if (dobro < 0 || (dobro & 1) != 0) continue;
+                int distancia = dobro / 2;
+                // distância 1 não existe: 0 é o token igual ao termo e 2 já tem uma letra a mais
+                if (distancia == 1) continue;
+                int nivel = distancia == 0 ? comprimento : comprimento + distancia - 1;
+                if (nivel > COMPRIMENTO_MAXIMO) continue;
+                for (Postagens postagens : postagens(nivel)) {
+                    if (postagens.contem(posicao)) {
+                        listas.add(postagens);
+                        posicoes.add(posicao);
+                    }
+                }
+            }
+            return listas.isEmpty() ? Segmento.VAZIO : new Segmento(listas, posicoes);
+        }
+
+        private List<Postagens> postagens(int nivel) {
+            List<Postagens> lista = porNivel.get(nivel);
+            if (lista == null) {
+                lista = new ArrayList<>(faixa(nivel).values());
+                porNivel.set(nivel, lista);
+            }
+            return lista;
+        }
+
+        private Map<String, Postagens> faixa(int nivel) {
+            return niveis[nivel].subMap(prefixo, true, prefixo + Character.MAX_VALUE, false);
+        }
+    }
+
+    /**
+     * Listas de postagens (cada uma filtrada por uma posição) que formam um componente.
+     */
+    private record Segmento(List<Postagens> listas, List<Integer> posicoes) {
+        static final Segmento VAZIO = new Segmento(List.of(), List.of());
+    }
+
+    /**
+     * União dos IDs das listas de um segmento, percorrida em ordem crescente por saltos.
+     */
+    private static final class Uniao {
+        private final Cursor[] cursores;
+
+        Uniao(Segmento segmento) {
+            cursores = new Cursor[segmento.listas().size()];
+            for (int i = 0; i < cursores.length; i++) {
+                cursores[i] = new Cursor(segmento.listas().get(i), segmento.posicoes().get(i));
+            }
+        }
+
+        /**
+         * @return O menor ID maior ou igual a idMinimo em alguma das listas, ou -1
+         */
+        int buscar(int idMinimo) {
+            int menor = -1;
+            for (Cursor cursor : cursores) {
+                int id = cursor.buscar(idMinimo);
+                if (id >= 0 && (menor < 0 || id < menor)) menor = id;
+            }
+            return menor;
+        }
+    }
+
+    /**
+     * Percorre, em blocos, os IDs de uma posição de uma lista de postagens.
+     * Os saltos usam a busca binária da própria lista; o cursor só anda para frente.
+     */
+    private static final class Cursor {
+        private final Postagens postagens;
+        private final int posicao;
+        // Começa pequeno: a maioria dos cursores (tokens raros) tem poucos IDs
+        private int[] bloco = new int[8];
+        private int quantidade;
+        private int atual;
+        private boolean fim;
+
+        Cursor(Postagens postagens, int posicao) {
+            this.postagens = postagens;
+            this.posicao = posicao;
+        }
+
+        /**
+         * @return O menor ID maior ou igual a idMinimo, ou -1
+         */
+        int buscar(int idMinimo) {
+            // Dentro do bloco atual, avança; se o mínimo passou do bloco, salta na lista
+            if (atual < quantidade && bloco[quantidade - 1] < idMinimo) atual = quantidade;
+            while (true) {
+                while (atual < quantidade) {
+                    if (bloco[atual] >= idMinimo) return bloco[atual];
+                    atual++;
+                }
+                if (fim) return -1;
+                int apos = Math.max(idMinimo - 1, quantidade > 0 ? bloco[quantidade - 1] : -1);
+                if (quantidade == bloco.length && bloco.length < BLOCO) {
+                    bloco = new int[bloco.length << 2];
+                }
+                quantidade = postagens.copiar(posicao, apos, bloco);
+                atual = 0;
+                if (quantidade == 0) {
+                    fim = true;
+                    return -1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Calcula a relevância do aluno para os termos.
+     * @return Relevância (menor é melhor) ou -1 se algum termo não aparece no aluno
+     */
+    private static int relevancia(Aluno aluno, List<String> termos) {
+        List<String> nome = tokensNome(aluno.getNome());
+        String email = tokenEmail(aluno.getEmail());
+        int total = 0;
+        for (String termo : termos) {
+            int melhor = Integer.MAX_VALUE;
+            for (int i = 0; i < nome.size(); i++) {
+                String token = nome.get(i);
+                if (token.startsWith(termo)) {
+                    melhor = Math.min(melhor, 2 * distancia(token.length(), termo.length()) + (i == 0 ? PRIMEIRO_NOME : NOME));
+                }
+            }
+            if (email != null && email.startsWith(termo)) {
+                melhor = Math.min(melhor, 2 * distancia(email.length(), termo.length()) + EMAIL);
+            }
+            if (melhor == Integer.MAX_VALUE) return -1;
+            total += melhor;
+        }
+        return total;
+    }
+
+    /**
+     * @return 0 se o token é igual ao termo, senão 1 + caracteres que faltam
+     */
+    private static int distancia(int comprimentoToken, int comprimentoTermo) {
+        return comprimentoToken == comprimentoTermo ? 0 : 1 + comprimentoToken - comprimentoTermo;
+    }
+
+    // ========== NORMALIZAÇÃO ==========
+
+    /**
+     * Separa a consulta em termos. Termos com '@' são comparados com o email inteiro;
+     * os demais são quebrados como o nome (ex: "maria-jo" vira "maria" e "jo").
+     */
+    static List<String> termosConsulta(String consulta) {
+        List<String> termos = new ArrayList<>();
+        if (consulta == null) return termos;
+        for (String parte : consulta.trim().split("\\s+")) {
+            if (parte.indexOf('@') >= 0) {
+                String email = tokenEmail(parte);
+                if (email != null) termos.add(email);
+            } else {
+                termos.addAll(tokensNome(parte));
+            }
+        }
+        return termos;
+    }
+
+    /**
+     * Quebra o texto em palavras (letras e dígitos), sem acentos e em minúsculas.
+     */
+    static List<String> tokensNome(String texto) {
+        List<String> tokens = new ArrayList<>(4);
+        if (texto == null) return tokens;
+        String normalizado = dobrar(texto);
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean parte = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (parte && inicio < 0) {
+                inicio = i;
+            } else if (!parte && inicio >= 0) {
+                tokens.add(normalizado.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return O email sem acentos, sem espaços nas pontas e em minúsculas (null se vazio)
+     */
+    static String tokenEmail(String email) {
+        if (email == null) return null;
+        String normalizado = dobrar(email.trim());
+        return normalizado.isEmpty() ? null : normalizado;
+    }
+
+    /**
+     * Remove acentos (decomposição NFD sem as marcas) e converte para minúsculas.
+     * Textos só com ASCII não passam pelo Normalizer.
+     */
+    private static String dobrar(String texto) {
+        boolean ascii = true;
+        for (int i = 0; i < texto.length() && ascii; i++) {
+            ascii = texto.charAt(i) < 0x80;
+        }
+        if (ascii) return texto.toLowerCase(Locale.ROOT);
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposto.length());
+        for (int i = 0; i < decomposto.length(); i++) {
+            char c = decomposto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private ConcurrentSkipListMap<String, Postagens> nivel(int comprimento) {
+        return niveis[Math.min(comprimento, COMPRIMENTO_MAXIMO)];
+    }
+}
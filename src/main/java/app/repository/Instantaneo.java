@@ -0,0 +1,56 @@
+package app.repository;
+
+import app.model.Aluno;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+
+/**
+ * Visão imutável de todos os alunos em um instante (snapshot).
+ *
+ * Não copia os dados: aponta para a versão do mapa do repositório que estava em vigor
+ * quando foi criada, então escritas posteriores não aparecem e não são bloqueadas.
+ * A ETag identifica a versão e muda a cada escrita no repositório.
+ */
+public final class Instantaneo extends AbstractCollection<Aluno> {
+    private final MapaInteiroConcorrente.Estado<Aluno> estado;
+    private final String epoca;
+
+    /**
+     * @param estado Versão do mapa principal
+     * @param epoca Identificador da instância do repositório (distingue reinícios)
+     */
+    Instantaneo(MapaInteiroConcorrente.Estado<Aluno> estado, String epoca) {
+        this.estado = estado;
+        this.epoca = epoca;
+    }
+
+    /**
+     * @return Iterador em ordem de ID (a ordem de inserção)
+     */
+    @Override
+    public Iterator<Aluno> iterator() {
+        return estado.iterator();
+    }
+
+    /**
+     * @return Quantidade de alunos no instante do snapshot
+     */
+    @Override
+    public int size() {
+        return estado.tamanho();
+    }
+
+    /**
+     * @return Número da versão do repositório (incrementado a cada escrita)
+     */
+    public long versao() {
+        return estado.versao();
+    }
+
+    /**
+     * @return ETag forte, pronta para o cabeçalho HTTP (ex: "\"18c2f0a1b3e-42\"")
+     */
+    public String etag() {
+        return "\"" + epoca + "-" + estado.versao() + "\"";
+    }
+}
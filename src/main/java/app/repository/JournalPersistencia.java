@@ -0,0 +1,704 @@
+package app.repository;
+
+import app.model.Aluno;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Persistência sem banco de dados: log binário só de acréscimo (journal) + snapshots.
+ *
+ * Cada mutação vira um registro [tamanho][crc32][tipo][id][idade][nome][email][curso]
+ * acumulado em um buffer em memória. Uma thread de gravação faz o "group commit":
+ * escreve de uma vez tudo o que se acumulou enquanto o fsync anterior acontecia e
+ * chama force() uma única vez para o grupo inteiro. Cada registro recebe um número de
+ * sequência e {@link #confirmar()} espera até que o fsync do grupo dele termine, então
+ * a resposta só sai depois que a mutação está no disco. Se a escrita ou o fsync falhar
+ * (ou a própria thread de gravação parar), os escritores do grupo recebem
+ * {@link PersistenciaIndisponivelException} e o journal passa a recusar escritas
+ * (depois de um fsync com erro, não se sabe o que chegou ao disco).
+ *
+ * Quando o journal passa de um limite de bytes, o arquivo é rotacionado
+ * (journal-N.log -> journal-N+1.log) e o estado em memória é gravado em
+ * snapshot-N+1.bin através de regiões mapeadas em memória. O snapshot é escrito em um
+ * arquivo temporário, renomeado atomicamente e o diretório recebe fsync antes que as
+ * gerações anteriores sejam apagadas. O snapshot é "fuzzy"
+ * (pode conter mutações posteriores à rotação), o que é seguro porque todos os
+ * registros do journal são idempotentes quando reaplicados em ordem.
+ *
+ * Na inicialização carrega o snapshot mais recente e reaplica os journals a partir
+ * da geração dele; um registro final incompleto ou corrompido (queda no meio de uma
+ * escrita) é descartado e o arquivo é truncado naquele ponto.
+ */
+public class JournalPersistencia implements Persistencia {
+    // Tipos de registro no journal
+    private static final byte INSERCAO = 1;
+    private static final byte ATUALIZACAO = 2;
+    private static final byte REMOCAO = 3;
+
+    // Cabeçalho do snapshot: mágico, versão, próximo ID, quantidade, crc32 do corpo
+    private static final int MAGICO_SNAPSHOT = 0x414C534E; // "ALSN"
+    private static final int VERSAO_SNAPSHOT = 1;
+    private static final int TAMANHO_CABECALHO = 20;
+
+    // Tamanhos dos buffers
+    private static final int BUFFER_INICIAL = 1024 * 1024;
+    private static final int LIMITE_PENDENTE = 8 * 1024 * 1024;
+    private static final int BLOCO_MAPEAMENTO = 64 * 1024 * 1024;
+    private static final int MAIOR_REGISTRO = 16 * 1024 * 1024;
+
+    private static final Pattern ARQUIVO_GERACAO = Pattern.compile("(journal|snapshot)-(\\d+)\\.(log|bin)");
+
+    private final Path diretorio;
+    private final long bytesParaSnapshot;
+
+    // Buffers do group commit: writers escrevem em "pendente", a thread grava "gravando"
+    private final Object monitor = new Object();
+    private ByteBuffer pendente = ByteBuffer.allocate(BUFFER_INICIAL);
+    private ByteBuffer gravando = ByteBuffer.allocate(BUFFER_INICIAL);
+    private final CRC32 crcEscrita = new CRC32();
+    private boolean fechando;
+    // Sequência do último registro anexado (protegida por "monitor")
+    private long anexados;
+
+    // Sequência do último registro com fsync e erro que parou a gravação (protegidos por "confirmados")
+    private final Object confirmados = new Object();
+    private long duravel;
+    private volatile IOException falha;
+    // Último registro anexado por cada thread (o que confirmar() espera)
+    private final ThreadLocal<long[]> ultimoDaThread = ThreadLocal.withInitial(() -> new long[1]);
+
+    // Journal atual (protegido por "canal")
+    private final Object canal = new Object();
+    private FileChannel journal;
+    private int geracao;
+    private long tamanhoJournal;
+
+    private final AtomicInteger maiorId = new AtomicInteger();
+    private final Semaphore pedidoSnapshot = new Semaphore(0);
+    private volatile boolean snapshotEmAndamento;
+    private Iterable<Aluno> estado;
+    private Thread gravador;
+    private Thread snapshotador;
+    // Fecha o journal no encerramento da JVM (removido no close, para não reter o estado)
+    private Thread desligamento;
+
+    /**
+     * @param diretorio Pasta onde ficam os journals e snapshots (criada se não existir)
+     * @param bytesParaSnapshot Tamanho do journal que dispara um novo snapshot
+     */
+    public JournalPersistencia(Path diretorio, long bytesParaSnapshot) {
+        this.diretorio = diretorio;
+        this.bytesParaSnapshot = bytesParaSnapshot;
+        try {
+            Files.createDirectories(diretorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível criar o diretório " + diretorio, e);
+        }
+    }
+
+    // ========== CARGA ==========
+
+    @Override
+    public int carregar(Consumer<Aluno> aoSalvar, IntConsumer aoRemover) {
+        long inicio = System.nanoTime();
+        try {
+            int geracaoSnapshot = maiorGeracao("snapshot");
+            int proximoId = 1;
+            int doSnapshot = 0;
+            if (geracaoSnapshot >= 0) {
+                int[] quantidade = new int[1];
+                proximoId = lerSnapshot(arquivo("snapshot", geracaoSnapshot), aoSalvar, quantidade);
+                doSnapshot = quantidade[0];
+            }
+
+            // Reaplica os journals a partir da geração do snapshot, em ordem
+            long registros = 0;
+            List<Integer> geracoes = geracoes("journal");
+            geracao = Math.max(geracaoSnapshot, 0);
+            for (int g : geracoes) {
+                if (g < geracaoSnapshot) continue;
+                registros += reaplicarJournal(arquivo("journal", g), aoSalvar, aoRemover);
+                geracao = Math.max(geracao, g);
+            }
+            maiorId.accumulateAndGet(proximoId - 1, Math::max);
+
+            journal = FileChannel.open(arquivo("journal", geracao),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            tamanhoJournal = journal.size();
+            sincronizarDiretorio();
+
+            long ms = (System.nanoTime() - inicio) / 1_000_000;
+            System.out.printf("Journal: %d alunos do snapshot + %d registros do log carregados em %d ms%n",
+                    doSnapshot, registros, ms);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao carregar o journal de " + diretorio, e);
+        }
+        iniciarThreads();
+        return maiorId.get() + 1;
+    }
+
+    @Override
+    public void vincularEstado(Iterable<Aluno> estado) {
+        this.estado = estado;
+    }
+
+    /**
+     * Lê um snapshot completo, validando o cabeçalho e o crc32 do corpo.
+     * @return Próximo ID gravado no cabeçalho
+     */
+    private int lerSnapshot(Path arquivo, Consumer<Aluno> aoSalvar, int[] quantidade) throws IOException {
+        try (FileChannel ch = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            ch.read(cabecalho, 0);
+            cabecalho.flip();
+            if (cabecalho.remaining() < TAMANHO_CABECALHO || cabecalho.getInt() != MAGICO_SNAPSHOT
+                    || cabecalho.getInt() != VERSAO_SNAPSHOT) {
+                throw new IOException("Snapshot inválido: " + arquivo);
+            }
+            int proximoId = cabecalho.getInt();
+            int total = cabecalho.getInt();
+            int crcEsperado = cabecalho.getInt();
+
+            LeitorMapeado leitor = new LeitorMapeado(ch, TAMANHO_CABECALHO);
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < total; i++) {
+                // Garante que o registro inteiro está na janela atual (para o crc)
+                leitor.garantir((int) Math.min(MAIOR_REGISTRO, leitor.restante()));
+                long inicio = leitor.posicao();
+                Aluno aluno = leitor.lerAluno();
+                leitor.atualizarCrc(crc, inicio);
+                aoSalvar.accept(aluno);
+            }
+            if ((int) crc.getValue() != crcEsperado) {
+                throw new IOException("Snapshot corrompido (crc32 não confere): " + arquivo);
+            }
+            quantidade[0] = total;
+            return proximoId;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot truncado: " + arquivo, e);
+        }
+    }
+
+    /**
+     * Reaplica um journal, parando (e truncando o arquivo) no primeiro registro inválido.
+     * @return Quantidade de registros reaplicados
+     */
+    private long reaplicarJournal(Path arquivo, Consumer<Aluno> aoSalvar, IntConsumer aoRemover) throws IOException {
+        long registros = 0;
+        try (FileChannel ch = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            LeitorMapeado leitor = new LeitorMapeado(ch, 0);
+            CRC32 crc = new CRC32();
+            long valido = 0;
+            while (leitor.restante() >= 8) {
+                int tamanho = leitor.lerInt();
+                int crcEsperado = leitor.lerInt();
+                if (tamanho <= 0 || tamanho > MAIOR_REGISTRO || leitor.restante() < tamanho) break;
+                long inicioCorpo = leitor.posicao();
+                leitor.garantir(tamanho);
+                crc.reset();
+                leitor.atualizarCrc(crc, inicioCorpo, tamanho);
+                if ((int) crc.getValue() != crcEsperado) break;
+
+                byte tipo = leitor.lerByte();
+                if (tipo == REMOCAO) {
+                    aoRemover.accept(leitor.lerInt());
+                } else if (tipo == INSERCAO || tipo == ATUALIZACAO) {
+                    Aluno aluno = leitor.lerAluno();
+                    maiorId.accumulateAndGet(aluno.getId(), Math::max);
+                    aoSalvar.accept(aluno);
+                } else {
+                    break;
+                }
+                valido = leitor.posicao();
+                registros++;
+            }
+            if (valido < ch.size()) {
+                System.err.println("Aviso: descartando " + (ch.size() - valido)
+                        + " bytes incompletos no fim de " + arquivo.getFileName());
+                ch.truncate(valido);
+            }
+        }
+        return registros;
+    }
+
+    // ========== REGISTRO DAS MUTAÇÕES ==========
+
+    @Override
+    public void verificarDisponivel() {
+        IOException erro = falha;
+        if (erro != null) throw indisponivel(erro);
+    }
+
+    /**
+     * Espera o fsync do grupo que contém o último registro anexado por esta thread.
+     * @throws PersistenciaIndisponivelException Se a gravação desse grupo falhou
+     */
+    @Override
+    public void confirmar() {
+        long alvo = ultimoDaThread.get()[0];
+        synchronized (confirmados) {
+            while (duravel < alvo && falha == null) {
+                try {
+                    confirmados.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrompido aguardando o fsync do journal", e);
+                }
+            }
+            if (duravel < alvo) throw indisponivel(falha);
+        }
+    }
+
+    @Override
+    public void registrarInsercao(Aluno aluno) {
+        maiorId.accumulateAndGet(aluno.getId(), Math::max);
+        anexar(INSERCAO, aluno.getId(), aluno);
+    }
+
+    @Override
+    public void registrarAtualizacao(Aluno aluno) {
+        anexar(ATUALIZACAO, aluno.getId(), aluno);
+    }
+
+    @Override
+    public void registrarRemocao(int id) {
+        anexar(REMOCAO, id, null);
+    }
+
+    /**
+     * Codifica o registro no buffer pendente e guarda sua sequência para {@link #confirmar()}.
+     * Se o buffer atingiu o limite, espera a thread de gravação esvaziá-lo (backpressure).
+     */
+    private void anexar(byte tipo, int id, Aluno aluno) {
+        byte[] nome = null, email = null, curso = null;
+        int corpo = 1 + 4;
+        if (aluno != null) {
+            nome = bytes(aluno.getNome());
+            email = bytes(aluno.getEmail());
+            curso = bytes(aluno.getCurso());
+            corpo += 4 + 4 + 4 + 4 + tamanho(nome) + tamanho(email) + tamanho(curso);
+        }
+        synchronized (monitor) {
+            if (fechando) throw new IllegalStateException("Journal já foi fechado");
+            verificarDisponivel();
+            while (pendente.remaining() < corpo + 8) {
+                if (pendente.capacity() < LIMITE_PENDENTE) {
+                    ByteBuffer maior = ByteBuffer.allocate(Math.max(pendente.capacity() * 2, pendente.position() + corpo + 8));
+                    pendente.flip();
+                    maior.put(pendente);
+                    pendente = maior;
+                } else {
+                    esperar();
+                    verificarDisponivel();
+                }
+            }
+            int inicio = pendente.position();
+            pendente.putInt(corpo).putInt(0).put(tipo).putInt(id);
+            if (aluno != null) {
+                pendente.putInt(aluno.getIdade());
+                escreverTexto(pendente, nome);
+                escreverTexto(pendente, email);
+                escreverTexto(pendente, curso);
+            }
+            crcEscrita.reset();
+            crcEscrita.update(pendente.array(), inicio + 8, corpo);
+            pendente.putInt(inicio + 4, (int) crcEscrita.getValue());
+            ultimoDaThread.get()[0] = ++anexados;
+            monitor.notifyAll();
+        }
+    }
+
+    private static PersistenciaIndisponivelException indisponivel(IOException erro) {
+        return new PersistenciaIndisponivelException("Gravação no journal falhou (" + erro + ")", erro);
+    }
+
+    // ========== GROUP COMMIT ==========
+
+    private void iniciarThreads() {
+        gravador = new Thread(this::gravarContinuamente, "journal-group-commit");
+        gravador.setDaemon(true);
+        gravador.start();
+        snapshotador = new Thread(this::snapshotsContinuamente, "journal-snapshot");
+        snapshotador.setDaemon(true);
+        snapshotador.start();
+        desligamento = new Thread(this::close, "journal-shutdown");
+        Runtime.getRuntime().addShutdownHook(desligamento);
+    }
+
+    private void gravarContinuamente() {
+        try {
+            gravarGrupos();
+        } catch (RuntimeException | Error e) {
+            // Sem esta thread nada mais seria confirmado: quem espera em confirmar() ficaria
+            // preso para sempre, então o journal passa a recusar escritas
+            System.err.println("Aviso: thread de gravação do journal parou; escritas recusadas (" + e + ")");
+            e.printStackTrace();
+            interromperGravacao(new IOException("Thread de gravação do journal parou", e));
+        }
+    }
+
+    private void gravarGrupos() {
+        while (true) {
+            long ultimoDoGrupo;
+            synchronized (monitor) {
+                while (pendente.position() == 0 && !fechando) {
+                    esperar();
+                }
+                if (pendente.position() == 0) return; // fechando e nada pendente
+                // Troca os buffers: o que se acumulou vira um único grupo
+                ByteBuffer grupo = pendente;
+                pendente = gravando;
+                gravando = grupo;
+                ultimoDoGrupo = anexados;
+                monitor.notifyAll();
+            }
+            gravando.flip();
+            try {
+                synchronized (canal) {
+                    while (gravando.hasRemaining()) {
+                        tamanhoJournal += journal.write(gravando);
+                    }
+                    journal.force(false); // um fsync para o grupo inteiro
+                }
+            } catch (IOException e) {
+                // O grupo (e o que vier depois) não é confirmado: quem espera recebe o erro
+                System.err.println("Aviso: falha ao gravar o journal; escritas recusadas (" + e + ")");
+                interromperGravacao(e);
+                return;
+            }
+            synchronized (confirmados) {
+                duravel = ultimoDoGrupo;
+                confirmados.notifyAll();
+            }
+            gravando.clear();
+            if (tamanhoJournal >= bytesParaSnapshot && !snapshotEmAndamento && estado != null) {
+                snapshotEmAndamento = true;
+                pedidoSnapshot.release();
+            }
+        }
+    }
+
+    /**
+     * Marca o journal como indisponível e acorda quem espera uma confirmação ou espaço no buffer.
+     */
+    private void interromperGravacao(IOException erro) {
+        synchronized (confirmados) {
+            falha = erro;
+            confirmados.notifyAll();
+        }
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+
+    private void esperar() {
+        try {
+            monitor.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando o journal", e);
+        }
+    }
+
+    // ========== SNAPSHOTS ==========
+
+    private void snapshotsContinuamente() {
+        while (true) {
+            try {
+                pedidoSnapshot.acquire();
+                gravarSnapshot();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                // O journal continua completo; o próximo pedido tenta um snapshot novo
+                System.err.println("Aviso: falha ao gravar o snapshot do journal (" + e + ")");
+            } finally {
+                snapshotEmAndamento = false;
+            }
+        }
+    }
+
+    /**
+     * Rotaciona o journal e grava o estado atual em snapshot-N.bin (N = nova geração).
+     * Depois que o snapshot está completo no disco, os arquivos de gerações anteriores
+     * são apagados.
+     */
+    private void gravarSnapshot() throws IOException {
+        long inicio = System.nanoTime();
+        int nova;
+        synchronized (canal) {
+            journal.force(false);
+            journal.close();
+            nova = ++geracao;
+            journal = FileChannel.open(arquivo("journal", nova),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            tamanhoJournal = journal.size();
+            sincronizarDiretorio();
+        }
+
+        Path temporario = diretorio.resolve("snapshot-" + nova + ".tmp");
+        int quantidade = 0;
+        try (FileChannel ch = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            EscritorMapeado escritor = new EscritorMapeado(ch, TAMANHO_CABECALHO);
+            CRC32 crc = new CRC32();
+            for (Aluno aluno : estado) {
+                escritor.escreverAluno(aluno, crc);
+                quantidade++;
+            }
+            long fim = escritor.finalizar();
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            cabecalho.putInt(MAGICO_SNAPSHOT).putInt(VERSAO_SNAPSHOT).putInt(maiorId.get() + 1)
+                     .putInt(quantidade).putInt((int) crc.getValue()).flip();
+            ch.write(cabecalho, 0);
+            ch.truncate(fim);
+            ch.force(true);
+        }
+        Files.move(temporario, arquivo("snapshot", nova), StandardCopyOption.ATOMIC_MOVE);
+        // A renomeação precisa estar no disco antes de apagar o snapshot anterior
+        sincronizarDiretorio();
+
+        // Gerações anteriores não são mais necessárias
+        for (String tipo : new String[] {"snapshot", "journal"}) {
+            for (int g : geracoes(tipo)) {
+                if (g < nova) Files.deleteIfExists(arquivo(tipo, g));
+            }
+        }
+        System.out.printf("Journal: snapshot %d com %d alunos gravado em %d ms%n",
+                nova, quantidade, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            if (fechando) return;
+            fechando = true;
+            monitor.notifyAll();
+        }
+        if (desligamento != null && Thread.currentThread() != desligamento) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(desligamento);
+            } catch (IllegalStateException e) {
+                // A JVM já está encerrando
+            }
+        }
+        try {
+            if (gravador != null) gravador.join();
+            if (snapshotador != null) snapshotador.interrupt();
+            synchronized (canal) {
+                if (journal != null) journal.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Aviso: erro ao fechar o journal (" + e + ")");
+        }
+    }
+
+    // ========== ARQUIVOS ==========
+
+    /**
+     * fsync do diretório, para que arquivos criados e renomeados sobrevivam a uma queda.
+     * Em sistemas que não abrem diretórios como arquivo (Windows), não há o que fazer.
+     */
+    private void sincronizarDiretorio() throws IOException {
+        FileChannel dir;
+        try {
+            dir = FileChannel.open(diretorio, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException e) {
+            return;
+        }
+        try (dir) {
+            dir.force(true);
+        }
+    }
+
+    private Path arquivo(String tipo, int geracao) {
+        return diretorio.resolve(tipo + "-" + geracao + (tipo.equals("journal") ? ".log" : ".bin"));
+    }
+
+    private List<Integer> geracoes(String tipo) throws IOException {
+        List<Integer> resultado = new ArrayList<>();
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            arquivos.forEach(p -> {
+                Matcher m = ARQUIVO_GERACAO.matcher(p.getFileName().toString());
+                if (m.matches() && m.group(1).equals(tipo)) {
+                    resultado.add(Integer.parseInt(m.group(2)));
+                }
+            });
+        }
+        resultado.sort(null);
+        return resultado;
+    }
+
+    private int maiorGeracao(String tipo) throws IOException {
+        List<Integer> todas = geracoes(tipo);
+        return todas.isEmpty() ? -1 : todas.get(todas.size() - 1);
+    }
+
+    // ========== CODIFICAÇÃO ==========
+
+    private static byte[] bytes(String texto) {
+        return texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int tamanho(byte[] texto) {
+        return texto == null ? 0 : texto.length;
+    }
+
+    private static void escreverTexto(ByteBuffer destino, byte[] texto) {
+        if (texto == null) {
+            destino.putInt(-1);
+        } else {
+            destino.putInt(texto.length).put(texto);
+        }
+    }
+
+    /**
+     * Lê um arquivo através de janelas mapeadas em memória (até BLOCO_MAPEAMENTO bytes
+     * cada), então arquivos maiores que 2 GB também funcionam.
+     */
+    private static final class LeitorMapeado {
+        private final FileChannel ch;
+        private final long tamanhoArquivo;
+        private MappedByteBuffer janela;
+        private long inicioJanela;
+        private byte[] temporario = new byte[256];
+
+        LeitorMapeado(FileChannel ch, long inicio) throws IOException {
+            this.ch = ch;
+            this.tamanhoArquivo = ch.size();
+            mapear(inicio);
+        }
+
+        long posicao() {
+            return inicioJanela + janela.position();
+        }
+
+        long restante() {
+            return tamanhoArquivo - posicao();
+        }
+
+        void garantir(int bytes) throws IOException {
+            if (janela.remaining() < bytes) {
+                mapear(posicao());
+            }
+        }
+
+        int lerInt() throws IOException {
+            garantir(4);
+            return janela.getInt();
+        }
+
+        byte lerByte() throws IOException {
+            garantir(1);
+            return janela.get();
+        }
+
+        Aluno lerAluno() throws IOException {
+            int id = lerInt();
+            int idade = lerInt();
+            String nome = lerTexto();
+            String email = lerTexto();
+            String curso = lerTexto();
+            Aluno aluno = new Aluno(nome, idade, email, curso);
+            aluno.setId(id);
+            return aluno;
+        }
+
+        /**
+         * Atualiza o crc com os bytes entre "desde" e a posição atual (na janela atual).
+         */
+        void atualizarCrc(CRC32 crc, long desde) {
+            atualizarCrc(crc, desde, (int) (posicao() - desde));
+        }
+
+        void atualizarCrc(CRC32 crc, long desde, int tamanho) {
+            ByteBuffer trecho = janela.duplicate();
+            trecho.position((int) (desde - inicioJanela)).limit((int) (desde - inicioJanela) + tamanho);
+            crc.update(trecho);
+        }
+
+        private String lerTexto() throws IOException {
+            int tamanho = lerInt();
+            if (tamanho < 0) return null;
+            garantir(tamanho);
+            if (temporario.length < tamanho) temporario = new byte[Math.max(tamanho, temporario.length * 2)];
+            janela.get(temporario, 0, tamanho);
+            return new String(temporario, 0, tamanho, StandardCharsets.UTF_8);
+        }
+
+        private void mapear(long inicio) throws IOException {
+            long tamanho = Math.min(BLOCO_MAPEAMENTO, tamanhoArquivo - inicio);
+            janela = ch.map(FileChannel.MapMode.READ_ONLY, inicio, Math.max(tamanho, 0));
+            inicioJanela = inicio;
+        }
+    }
+
+    /**
+     * Escreve registros de snapshot em janelas mapeadas em memória, mapeando a próxima
+     * janela quando a atual não comporta o registro seguinte.
+     */
+    private static final class EscritorMapeado {
+        private final FileChannel ch;
+        private MappedByteBuffer janela;
+        private long inicioJanela;
+
+        EscritorMapeado(FileChannel ch, long inicio) throws IOException {
+            this.ch = ch;
+            mapear(inicio, BLOCO_MAPEAMENTO);
+        }
+
+        void escreverAluno(Aluno aluno, CRC32 crc) throws IOException {
+            byte[] nome = bytes(aluno.getNome());
+            byte[] email = bytes(aluno.getEmail());
+            byte[] curso = bytes(aluno.getCurso());
+            int tamanho = 4 + 4 + 4 + 4 + 4 + tamanho(nome) + tamanho(email) + tamanho(curso);
+            if (janela.remaining() < tamanho) {
+                janela.force();
+                mapear(inicioJanela + janela.position(), Math.max(BLOCO_MAPEAMENTO, tamanho));
+            }
+            int inicio = janela.position();
+            janela.putInt(aluno.getId()).putInt(aluno.getIdade());
+            escreverTexto(janela, nome);
+            escreverTexto(janela, email);
+            escreverTexto(janela, curso);
+            ByteBuffer trecho = janela.duplicate();
+            trecho.position(inicio).limit(janela.position());
+            crc.update(trecho);
+        }
+
+        /**
+         * Força a última janela para o disco.
+         * @return Posição final (tamanho real do arquivo)
+         */
+        long finalizar() {
+            janela.force();
+            return inicioJanela + janela.position();
+        }
+
+        private void mapear(long inicio, int tamanho) throws IOException {
+            janela = ch.map(FileChannel.MapMode.READ_WRITE, inicio, tamanho);
+            inicioJanela = inicio;
+        }
+    }
+}
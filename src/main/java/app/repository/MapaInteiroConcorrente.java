@@ -0,0 +1,471 @@
+package app.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Mapa concorrente com chaves int primitivas (sem boxing), otimizado para IDs densos.
+ *
+ * Os dados ficam em uma árvore de prefixos persistente (imutável) de 32 posições por
+ * nó: a chave é dividida em grupos de 5 bits que escolhem o caminho até a folha. Cada
+ * escrita copia apenas o caminho da raiz até a folha alterada (no máximo 7 nós, 4 com
+ * até 1 milhão de IDs) e publica a nova raiz com compare-and-set.
+ *
+ * Assim, cada versão do mapa é um {@link Estado} imutável: quem o obtém tem uma visão
+ * consistente de um instante, sem copiar nada e sem bloquear as escritas. Leituras
+ * não usam locks; escritas concorrentes só repetem a cópia do caminho se perderem o CAS.
+ * A iteração acontece em ordem crescente de chave (que coincide com a ordem de inserção).
+ *
+ * O formato das folhas (o último nível, com até 32 valores de chaves consecutivas) é
+ * definido por {@link Folhas}: por padrão um array com as referências dos valores, mas
+ * pode ser um bloco compacto que guarda os valores codificados (ex: {@link ColunasAlunos}).
+ *
+ * @param <V> Tipo dos valores armazenados
+ */
+final class MapaInteiroConcorrente<V> {
+    // Cada nó tem 32 posições (1 << 5)
+    private static final int BITS = 5;
+    private static final int LARGURA = 1 << BITS;
+    private static final int MASCARA = LARGURA - 1;
+    // Nós abaixo deste nível (até 1024 chaves) são percorridos por uma única tarefa em reduzir()
+    private static final int NIVEL_PARALELO = 2 * BITS;
+
+    // Versão atual do mapa; substituída inteira a cada escrita
+    private final AtomicReference<Estado<V>> atual;
+
+    /**
+     * Formato das folhas da árvore. Cada folha guarda os valores de até 32 chaves
+     * consecutivas (a posição é chave & 31) e é imutável: gravar devolve uma cópia.
+     * @param <V> Tipo dos valores armazenados
+     */
+    interface Folhas<V> {
+        /**
+         * @return O valor na posição, ou null se ela estiver vazia
+         */
+        V ler(Object folha, int posicao);
+
+        /**
+         * @return A primeira posição ocupada maior ou igual a "aPartir", ou -1 se não houver
+         */
+        int proxima(Object folha, int aPartir);
+
+        /**
+         * @param folha Folha atual (null se ainda não existir)
+         * @param chave Chave completa do valor
+         * @param valor Novo valor, ou null para remover
+         * @return Cópia da folha com a posição alterada, ou null se ela ficar vazia
+         */
+        Object gravar(Object folha, int chave, V valor);
+
+        /**
+         * @return true se o valor na posição é o esperado (usado em compare-and-set)
+         */
+        boolean contem(Object folha, int posicao, V esperado);
+
+        /**
+         * Executa a ação para cada valor da folha, em ordem de posição.
+         */
+        void paraCada(Object folha, Consumer<? super V> acao);
+    }
+
+    /**
+     * Cria um mapa com folhas que guardam as referências dos valores.
+     */
+    MapaInteiroConcorrente() {
+        this(new FolhasDeReferencias<>());
+    }
+
+    /**
+     * @param folhas Formato das folhas
+     */
+    MapaInteiroConcorrente(Folhas<V> folhas) {
+        this.atual = new AtomicReference<>(new Estado<>(folhas, null, 0, 0, 0));
+    }
+
+    /**
+     * Versão imutável do mapa em um instante.
+     * @param <V> Tipo dos valores armazenados
+     */
+    static final class Estado<V> implements Iterable<V> {
+        private final Folhas<V> folhas;
+        private final Object raiz;        // null no mapa vazio
+        private final int deslocamento;   // bits abaixo do nível da raiz (0 = raiz é folha)
+        private final int tamanho;
+        private final long versao;
+
+        private Estado(Folhas<V> folhas, Object raiz, int deslocamento, int tamanho, long versao) {
+            this.folhas = folhas;
+            this.raiz = raiz;
+            this.deslocamento = deslocamento;
+            this.tamanho = tamanho;
+            this.versao = versao;
+        }
+
+        /**
+         * @return Quantidade de chaves presentes nesta versão
+         */
+        int tamanho() {
+            return tamanho;
+        }
+
+        /**
+         * @return Número da versão (incrementado a cada escrita no mapa)
+         */
+        long versao() {
+            return versao;
+        }
+
+        /**
+         * Busca o valor associado à chave nesta versão.
+         * @param chave Chave a ser buscada
+         * @return O valor ou null se a chave não existir
+         */
+        V get(int chave) {
+            Object folha = folha(chave);
+            return folha == null ? null : folhas.ler(folha, chave & MASCARA);
+        }
+
+        /**
+         * Cria um iterador em ordem crescente de chave, começando na chave informada.
+         * @param chaveInicial Primeira chave a ser considerada (inclusiva)
+         * @return Iterador sobre os valores com chave maior ou igual a chaveInicial
+         */
+        Iterator<V> iterador(int chaveInicial) {
+            return new Iterator<>() {
+                private int proxima = proximaChave(Math.max(chaveInicial, 0));
+
+                @Override
+                public boolean hasNext() {
+                    return proxima >= 0;
+                }
+
+                @Override
+                public V next() {
+                    if (proxima < 0) throw new NoSuchElementException();
+                    V valor = get(proxima);
+                    proxima = proxima == Integer.MAX_VALUE ? -1 : proximaChave(proxima + 1);
+                    return valor;
+                }
+            };
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return iterador(0);
+        }
+
+        /**
+         * Percorre todos os valores desta versão em paralelo (fork-join): cada subárvore
+         * grande vira uma tarefa, e os resultados parciais são combinados no final.
+         * @param inicial Cria um resultado parcial vazio (um por tarefa)
+         * @param acumular Acrescenta um valor ao resultado parcial
+         * @param combinar Junta dois resultados parciais
+         * @param <R> Tipo do resultado
+         * @return Resultado com todos os valores acumulados
+         */
+        <R> R reduzir(Supplier<R> inicial, BiConsumer<R, ? super V> acumular, BinaryOperator<R> combinar) {
+            if (raiz == null) return inicial.get();
+            return new Reducao<>(folhas, raiz, deslocamento, inicial, acumular, combinar).invoke();
+        }
+
+        /**
+         * @return true se o valor da chave nesta versão é o esperado
+         */
+        boolean contem(int chave, V esperado) {
+            Object folha = folha(chave);
+            return folha != null && folhas.contem(folha, chave & MASCARA, esperado);
+        }
+
+        /**
+         * @return A folha que contém a chave, ou null se não existir
+         */
+        private Object folha(int chave) {
+            if (!cabe(chave, deslocamento)) return null;
+            Object no = raiz;
+            for (int nivel = deslocamento; nivel > 0 && no != null; nivel -= BITS) {
+                no = ((Object[]) no)[(chave >>> nivel) & MASCARA];
+            }
+            return no;
+        }
+
+        /**
+         * @return A menor chave presente maior ou igual a "aPartir", ou -1 se não houver
+         */
+        private int proximaChave(int aPartir) {
+            return raiz != null && cabe(aPartir, deslocamento) ? proxima(raiz, deslocamento, aPartir) : -1;
+        }
+
+        private int proxima(Object no, int nivel, int aPartir) {
+            // Bits acima deste nível, comuns a toda a subárvore
+            int prefixo = nivel + BITS >= Integer.SIZE ? 0 : aPartir & ~((1 << (nivel + BITS)) - 1);
+            int primeiro = (aPartir >>> nivel) & MASCARA;
+            if (nivel == 0) {
+                int posicao = folhas.proxima(no, primeiro);
+                return posicao < 0 ? -1 : prefixo | posicao;
+            }
+            Object[] filhos = (Object[]) no;
+            for (int i = primeiro; i < LARGURA; i++) {
+                Object filho = filhos[i];
+                if (filho == null) continue;
+                int inicio = i == primeiro ? aPartir : prefixo | (i << nivel);
+                int encontrada = proxima(filho, nivel - BITS, inicio);
+                if (encontrada >= 0) return encontrada;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Tarefa fork-join de Estado.reduzir() sobre uma subárvore.
+     */
+    private static final class Reducao<V, R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final Folhas<V> folhas;
+        private final Object no;
+        private final int nivel;
+        private final Supplier<R> inicial;
+        private final BiConsumer<R, ? super V> acumular;
+        private final BinaryOperator<R> combinar;
+
+        Reducao(Folhas<V> folhas, Object no, int nivel, Supplier<R> inicial,
+                BiConsumer<R, ? super V> acumular, BinaryOperator<R> combinar) {
+            this.folhas = folhas;
+            this.no = no;
+            this.nivel = nivel;
+            this.inicial = inicial;
+            this.acumular = acumular;
+            this.combinar = combinar;
+        }
+
+        @Override
+        protected R compute() {
+            if (nivel < NIVEL_PARALELO) {
+                R resultado = inicial.get();
+                acumularSequencial(no, nivel, resultado);
+                return resultado;
+            }
+            List<Reducao<V, R>> tarefas = new ArrayList<>(LARGURA);
+            for (Object filho : (Object[]) no) {
+                if (filho != null) {
+                    tarefas.add(new Reducao<>(folhas, filho, nivel - BITS, inicial, acumular, combinar));
+                }
+            }
+            invokeAll(tarefas);
+            R resultado = inicial.get();
+            for (Reducao<V, R> tarefa : tarefas) {
+                resultado = combinar.apply(resultado, tarefa.join());
+            }
+            return resultado;
+        }
+
+        private void acumularSequencial(Object atual, int nivelAtual, R resultado) {
+            if (nivelAtual == 0) {
+                folhas.paraCada(atual, valor -> acumular.accept(resultado, valor));
+                return;
+            }
+            for (Object filho : (Object[]) atual) {
+                if (filho != null) {
+                    acumularSequencial(filho, nivelAtual - BITS, resultado);
+                }
+            }
+        }
+    }
+
+    /**
+     * Folhas padrão: array de 32 referências (posição vazia = null).
+     */
+    private static final class FolhasDeReferencias<V> implements Folhas<V> {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V ler(Object folha, int posicao) {
+            return (V) ((Object[]) folha)[posicao];
+        }
+
+        @Override
+        public int proxima(Object folha, int aPartir) {
+            Object[] valores = (Object[]) folha;
+            for (int i = aPartir; i < LARGURA; i++) {
+                if (valores[i] != null) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public Object gravar(Object folha, int chave, V valor) {
+            Object[] copia = folha == null ? new Object[LARGURA] : ((Object[]) folha).clone();
+            copia[chave & MASCARA] = valor;
+            if (valor == null) {
+                // Remoção: descarta a folha se ela ficou vazia
+                for (Object item : copia) {
+                    if (item != null) return copia;
+                }
+                return null;
+            }
+            return copia;
+        }
+
+        @Override
+        public boolean contem(Object folha, int posicao, V esperado) {
+            return ((Object[]) folha)[posicao] == esperado;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void paraCada(Object folha, Consumer<? super V> acao) {
+            for (Object valor : (Object[]) folha) {
+                if (valor != null) acao.accept((V) valor);
+            }
+        }
+    }
+
+    /**
+     * @return A versão atual do mapa (imutável; não acompanha escritas posteriores)
+     */
+    Estado<V> estado() {
+        return atual.get();
+    }
+
+    /**
+     * Busca o valor associado à chave.
+     * @param chave Chave a ser buscada
+     * @return O valor ou null se a chave não existir
+     */
+    V get(int chave) {
+        return atual.get().get(chave);
+    }
+
+    /**
+     * Associa o valor à chave, substituindo qualquer valor anterior.
+     * @param chave Chave (deve ser maior ou igual a zero)
+     * @param valor Valor a ser armazenado (não pode ser null)
+     * @return O valor anterior ou null se a chave não existia
+     */
+    V put(int chave, V valor) {
+        if (chave < 0) {
+            throw new IllegalArgumentException("Chave negativa: " + chave);
+        }
+        while (true) {
+            Estado<V> estado = atual.get();
+            V anterior = estado.get(chave);
+            if (atual.compareAndSet(estado, com(estado, chave, valor, anterior == null ? 1 : 0))) {
+                return anterior;
+            }
+        }
+    }
+
+    /**
+     * Substitui o valor somente se o atual for o esperado (compare-and-set). Com folhas
+     * de referências, "o esperado" é a mesma instância; folhas compactas podem comparar
+     * uma identificação do valor (ex: a versão do aluno).
+     * @param chave Chave a ser atualizada
+     * @param esperado Valor que deve estar armazenado no momento
+     * @param novo Novo valor (não pode ser null)
+     * @return true se a substituição foi feita
+     */
+    boolean replace(int chave, V esperado, V novo) {
+        while (true) {
+            Estado<V> estado = atual.get();
+            if (esperado == null || !estado.contem(chave, esperado)) return false;
+            if (atual.compareAndSet(estado, com(estado, chave, novo, 0))) return true;
+        }
+    }
+
+    /**
+     * Remove a chave do mapa.
+     * @param chave Chave a ser removida
+     * @return O valor removido ou null se a chave não existia
+     */
+    V remove(int chave) {
+        while (true) {
+            Estado<V> estado = atual.get();
+            V anterior = estado.get(chave);
+            if (anterior == null) return null;
+            if (atual.compareAndSet(estado, com(estado, chave, null, -1))) return anterior;
+        }
+    }
+
+    /**
+     * @return Quantidade de chaves presentes
+     */
+    int size() {
+        return atual.get().tamanho;
+    }
+
+    /**
+     * Percorre todos os valores da versão atual em ordem crescente de chave.
+     * @param acao Ação executada para cada valor
+     */
+    void forEach(Consumer<? super V> acao) {
+        atual.get().forEach(acao);
+    }
+
+    /**
+     * Cria um iterador sobre a versão atual, em ordem crescente de chave.
+     * Não copia os dados e não enxerga escritas feitas depois da chamada.
+     * @param chaveInicial Primeira chave a ser considerada (inclusiva)
+     * @return Iterador sobre os valores com chave maior ou igual a chaveInicial
+     */
+    Iterator<V> iterador(int chaveInicial) {
+        return atual.get().iterador(chaveInicial);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * @return true se a chave cabe em uma árvore cuja raiz está no nível informado
+     */
+    private static boolean cabe(int chave, int nivel) {
+        return chave >= 0 && (nivel + BITS >= Integer.SIZE - 1 || (chave >>> (nivel + BITS)) == 0);
+    }
+
+    /**
+     * Cria a próxima versão com a chave alterada, copiando só o caminho até a folha.
+     * @param valor Novo valor ou null para remover
+     * @param variacao Variação do tamanho (+1 inserção, -1 remoção, 0 substituição)
+     */
+    private static <V> Estado<V> com(Estado<V> estado, int chave, V valor, int variacao) {
+        Object raiz = estado.raiz;
+        int nivel = estado.deslocamento;
+        if (valor != null) {
+            // Aumenta a altura até a chave caber (a raiz antiga vira o primeiro filho)
+            while (!cabe(chave, nivel)) {
+                Object[] novaRaiz = new Object[LARGURA];
+                novaRaiz[0] = raiz;
+                raiz = novaRaiz;
+                nivel += BITS;
+            }
+        }
+        return new Estado<>(estado.folhas, copiarCaminho(estado.folhas, raiz, nivel, chave, valor), nivel,
+                estado.tamanho + variacao, estado.versao + 1);
+    }
+
+    /**
+     * @return Cópia do nó com a chave alterada, ou null se o nó ficar vazio
+     */
+    private static <V> Object copiarCaminho(Folhas<V> folhas, Object no, int nivel, int chave, V valor) {
+        if (nivel == 0) {
+            return folhas.gravar(no, chave, valor);
+        }
+        int i = (chave >>> nivel) & MASCARA;
+        Object[] copia = no == null ? new Object[LARGURA] : ((Object[]) no).clone();
+        copia[i] = copiarCaminho(folhas, copia[i], nivel - BITS, chave, valor);
+        if (copia[i] == null) {
+            // Remoção: descarta nós que ficaram vazios
+            for (Object item : copia) {
+                if (item != null) return copia;
+            }
+            return null;
+        }
+        return copia;
+    }
+}
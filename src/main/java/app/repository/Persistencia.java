@@ -0,0 +1,102 @@
+package app.repository;
+
+import app.model.Aluno;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Armazenamento durável usado pelo {@link AlunoRepository}.
+ *
+ * O repositório continua respondendo todas as leituras da memória; a persistência
+ * só recebe as mutações (na ordem em que aconteceram para cada ID) e, na
+ * inicialização, devolve os alunos gravados para aquecer o repositório.
+ */
+public interface Persistencia extends AutoCloseable {
+
+    /**
+     * Persistência vazia: nada é gravado e nada é carregado (modo somente memória).
+     */
+    Persistencia NENHUMA = new Persistencia() {
+        @Override public int carregar(Consumer<Aluno> aoSalvar, IntConsumer aoRemover) { return 1; }
+        @Override public void registrarInsercao(Aluno aluno) { }
+        @Override public void registrarAtualizacao(Aluno aluno) { }
+        @Override public void registrarRemocao(int id) { }
+        @Override public void close() { }
+    };
+
+    /**
+     * Cria a persistência escolhida pelas propriedades de sistema:
+     * -Dalunos.persistencia=memoria (padrão), sqlite ou journal,
+     * -Dalunos.sqlite.arquivo=alunos.db (arquivo do banco no modo sqlite),
+     * -Dalunos.journal.diretorio=dados (pasta do journal/snapshots no modo journal),
+     * -Dalunos.journal.snapshotMb=256 (tamanho do journal que dispara um snapshot).
+     * @return Persistência configurada
+     */
+    static Persistencia daConfiguracao() {
+        String modo = System.getProperty("alunos.persistencia", "memoria");
+        return switch (modo) {
+            case "memoria" -> NENHUMA;
+            case "sqlite" -> new SqlitePersistencia(System.getProperty("alunos.sqlite.arquivo", "alunos.db"));
+            case "journal" -> new JournalPersistencia(
+                    Path.of(System.getProperty("alunos.journal.diretorio", "dados")),
+                    Long.getLong("alunos.journal.snapshotMb", 256) * 1024 * 1024);
+            default -> throw new IllegalArgumentException("Modo de persistência desconhecido: " + modo);
+        };
+    }
+
+    /**
+     * Carrega os alunos gravados, na ordem em que as mutações aconteceram.
+     * Um mesmo ID pode ser entregue mais de uma vez (a última versão vale).
+     * @param aoSalvar Recebe cada aluno (já com ID)
+     * @param aoRemover Recebe o ID de cada aluno removido
+     * @return Próximo ID a ser usado pelo repositório
+     */
+    int carregar(Consumer<Aluno> aoSalvar, IntConsumer aoRemover);
+
+    /**
+     * Dá acesso ao estado atual do repositório, para persistências que gravam
+     * snapshots periódicos. Chamado uma vez, logo após {@link #carregar}.
+     * @param estado Alunos cadastrados (percorrido sem cópia)
+     */
+    default void vincularEstado(Iterable<Aluno> estado) {
+    }
+
+    /**
+     * Chamado pelo repositório antes de cada escrita pública, para recusá-la enquanto a
+     * gravação estiver falhando (nada é alterado na memória).
+     * @throws PersistenciaIndisponivelException Se a persistência não está gravando
+     */
+    default void verificarDisponivel() {
+    }
+
+    /**
+     * Chamado pelo repositório depois de cada escrita pública, já fora dos locks: espera
+     * até que as mutações registradas pela thread atual estejam duráveis (persistências
+     * com escrita assíncrona, como a do SQLite, retornam na hora).
+     * @throws PersistenciaIndisponivelException Se a gravação dessas mutações falhou
+     */
+    default void confirmar() {
+    }
+
+    /**
+     * @param aluno Aluno novo, já com ID
+     */
+    void registrarInsercao(Aluno aluno);
+
+    /**
+     * @param aluno Nova versão de um aluno existente
+     */
+    void registrarAtualizacao(Aluno aluno);
+
+    /**
+     * @param id ID do aluno removido
+     */
+    void registrarRemocao(int id);
+
+    /**
+     * Grava o que estiver pendente e libera os recursos.
+     */
+    @Override
+    void close();
+}
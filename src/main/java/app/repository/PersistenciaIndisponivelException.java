@@ -0,0 +1,17 @@
+package app.repository;
+
+/**
+ * Exceção lançada quando a persistência não consegue gravar: as escritas são recusadas
+ * até que a gravação volte a funcionar, em vez de confirmar mutações que seriam perdidas.
+ */
+public class PersistenciaIndisponivelException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param mensagem Descrição da falha
+     * @param causa Erro original da gravação
+     */
+    public PersistenciaIndisponivelException(String mensagem, Throwable causa) {
+        super(mensagem, causa);
+    }
+}
@@ -0,0 +1,167 @@
+package app.repository;
+
+import app.model.Aluno;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Buffer circular com as últimas alterações do repositório (criações, atualizações e remoções).
+ *
+ * Cada alteração recebe um número de sequência crescente e ocupa a posição
+ * sequência % capacidade, sobrescrevendo a mais antiga. Publicar custa um incremento
+ * atômico e uma escrita no array, sem lock; a memória usada é fixa, não importa
+ * quantos leitores existam nem o quanto estejam atrasados.
+ *
+ * Cada leitor guarda a última sequência que leu. Se ficar mais de "capacidade"
+ * alterações para trás, as que faltam já foram sobrescritas: {@link #ler} devolve
+ * {@link #PERDIDO} e o leitor precisa recarregar o estado completo.
+ *
+ * Quem precisa reagir a toda alteração no momento em que ela acontece (ex: invalidar
+ * um cache) registra um ouvinte em {@link #aoPublicar}, chamado pelo próprio publicador.
+ */
+public final class RegistroAlteracoes {
+    // Retorno de ler() quando as alterações pedidas já foram sobrescritas
+    public static final int PERDIDO = -1;
+
+    private final AtomicReferenceArray<Alteracao> posicoes;
+    private final int mascara;
+    // Última sequência reservada por um publicador
+    private final AtomicLong sequencia = new AtomicLong();
+    // Identifica esta instância (as sequências recomeçam a cada inicialização)
+    private final String epoca = Long.toHexString(System.currentTimeMillis());
+
+    // Leitores parados em aguardar(): os publicadores só acordam alguém se houver
+    private final AtomicInteger aguardando = new AtomicInteger();
+    private final Object sinal = new Object();
+
+    // Chamados a cada publicação (array trocado inteiro ao registrar um novo)
+    @SuppressWarnings("unchecked")
+    private volatile Consumer<Alteracao>[] ouvintes = (Consumer<Alteracao>[]) new Consumer<?>[0];
+
+    /**
+     * @param capacidade Quantidade de alterações mantidas (arredondada para potência de 2)
+     */
+    public RegistroAlteracoes(int capacidade) {
+        int tamanho = capacidade <= 2 ? 2 : Integer.highestOneBit(capacidade - 1) << 1;
+        this.posicoes = new AtomicReferenceArray<>(tamanho);
+        this.mascara = tamanho - 1;
+    }
+
+    /**
+     * Publica uma alteração (chamado pelo repositório com o lock do ID, então as
+     * alterações de um mesmo aluno ficam na ordem em que aconteceram).
+     * @param tipo Tipo da alteração
+     * @param aluno Aluno criado, atualizado ou removido
+     */
+    void publicar(Alteracao.Tipo tipo, Aluno aluno) {
+        long numero = sequencia.incrementAndGet();
+        Alteracao alteracao = new Alteracao(numero, tipo, aluno.getId(), aluno.getVersao(),
+                tipo == Alteracao.Tipo.REMOVIDO ? null : aluno);
+        posicoes.set((int) numero & mascara, alteracao);
+        for (Consumer<Alteracao> ouvinte : ouvintes) {
+            ouvinte.accept(alteracao);
+        }
+        if (aguardando.get() > 0) {
+            synchronized (sinal) {
+                sinal.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Registra um ouvinte chamado a cada alteração publicada, na thread que fez a
+     * alteração e com o lock do ID (deve ser rápido e não pode chamar o repositório).
+     * @param ouvinte Função que recebe cada alteração
+     */
+    public synchronized void aoPublicar(Consumer<Alteracao> ouvinte) {
+        Consumer<Alteracao>[] atuais = ouvintes;
+        Consumer<Alteracao>[] novos = Arrays.copyOf(atuais, atuais.length + 1);
+        novos[atuais.length] = ouvinte;
+        ouvintes = novos;
+    }
+
+    /**
+     * @return Última sequência publicada (0 se nada foi publicado)
+     */
+    public long ultimaSequencia() {
+        return sequencia.get();
+    }
+
+    /**
+     * @return Quantidade de alterações mantidas
+     */
+    public int capacidade() {
+        return mascara + 1;
+    }
+
+    /**
+     * @return Identificador desta instância, para distinguir sequências de antes de um reinício
+     */
+    public String epoca() {
+        return epoca;
+    }
+
+    /**
+     * Copia as alterações seguintes a "apos", em ordem, até encher o destino.
+     * Pode devolver menos do que o disponível se um publicador ainda está gravando
+     * a próxima posição; basta chamar de novo.
+     * @param apos Última sequência já lida
+     * @param destino Array que recebe as alterações
+     * @return Quantidade copiada ou PERDIDO se a próxima alteração já foi sobrescrita
+     */
+    public int ler(long apos, Alteracao[] destino) {
+        long topo = sequencia.get();
+        if (topo - apos > capacidade()) return PERDIDO;
+        int lidas = 0;
+        for (long numero = apos + 1; numero <= topo && lidas < destino.length; numero++) {
+            Alteracao alteracao = posicoes.get((int) numero & mascara);
+            // Posição ainda não gravada (ou com a volta anterior): o publicador está no meio da escrita
+            if (alteracao == null || alteracao.sequencia() < numero) break;
+            if (alteracao.sequencia() > numero) return PERDIDO;
+            destino[lidas++] = alteracao;
+        }
+        return lidas;
+    }
+
+    /**
+     * Espera até a alteração seguinte a "apos" poder ser lida (já gravada pelo publicador,
+     * não só reservada) ou ter sido sobrescrita.
+     * @param apos Última sequência já lida
+     * @param tempo Tempo máximo de espera
+     * @param unidade Unidade do tempo
+     * @return true se {@link #ler} tem o que devolver (alterações ou PERDIDO), false se o tempo acabou
+     * @throws InterruptedException Se a thread for interrompida
+     */
+    public boolean aguardar(long apos, long tempo, TimeUnit unidade) throws InterruptedException {
+        if (pronta(apos)) return true;
+        long limite = System.nanoTime() + unidade.toNanos(tempo);
+        synchronized (sinal) {
+            aguardando.incrementAndGet();
+            try {
+                while (!pronta(apos)) {
+                    long restante = limite - System.nanoTime();
+                    if (restante <= 0) return false;
+                    TimeUnit.NANOSECONDS.timedWait(sinal, restante);
+                }
+                return true;
+            } finally {
+                aguardando.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return true se a alteração seguinte a "apos" já foi gravada ou sobrescrita
+     */
+    private boolean pronta(long apos) {
+        long topo = sequencia.get();
+        if (topo <= apos) return false;
+        if (topo - apos > capacidade()) return true;
+        Alteracao proxima = posicoes.get((int) (apos + 1) & mascara);
+        return proxima != null && proxima.sequencia() > apos;
+    }
+}
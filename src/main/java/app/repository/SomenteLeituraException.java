@@ -0,0 +1,13 @@
+package app.repository;
+
+/**
+ * Exceção lançada quando se tenta gravar em um repositório somente leitura
+ * (réplica que só aplica as mutações recebidas do líder).
+ */
+public class SomenteLeituraException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public SomenteLeituraException() {
+        super("Esta instância é uma réplica somente leitura: envie as escritas ao líder");
+    }
+}
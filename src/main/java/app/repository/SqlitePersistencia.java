@@ -0,0 +1,295 @@
+package app.repository;
+
+import app.metricas.Metricas;
+import app.model.Aluno;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Persistência em SQLite com escrita assíncrona em lote (write-behind).
+ *
+ * As mutações entram em uma fila limitada e retornam imediatamente; uma thread de
+ * gravação esvazia a fila em transações de até TAMANHO_LOTE operações usando
+ * prepared statements em batch. O banco usa WAL com synchronous=NORMAL, então cada
+ * transação custa uma escrita sequencial no log.
+ *
+ * Quando a fila enche, quem escreve espera (backpressure) em vez de perder dados.
+ * No encerramento da JVM a fila é descarregada antes de fechar a conexão.
+ *
+ * Um lote que falha não é descartado: a transação é desfeita e o mesmo lote é gravado
+ * de novo, com espera crescente entre as tentativas. Enquanto isso a persistência fica
+ * indisponível ({@link #verificarDisponivel()}), e as novas escritas são recusadas em vez
+ * de confirmadas; se a thread de gravação morrer, a recusa é permanente.
+ */
+public class SqlitePersistencia implements Persistencia {
+    // Limites da fila e do lote de gravação
+    private static final int CAPACIDADE_FILA = 64 * 1024;
+    private static final int TAMANHO_LOTE = 1000;
+
+    // Espera entre tentativas de gravar um lote que falhou (dobra a cada falha)
+    private static final long ESPERA_INICIAL_MS = 100;
+    private static final long ESPERA_MAXIMA_MS = 5000;
+
+    // Lotes que falharam e foram gravados de novo
+    private static final LongAdder FALHAS_LOTE = Metricas.contador("sqlite_falhas_lote");
+
+    // Uma operação pendente: aluno != null para inserção/atualização, null para remoção
+    private record Operacao(int id, Aluno aluno) { }
+
+    // Marcador usado para encerrar a thread de gravação
+    private static final Operacao FIM = new Operacao(-1, null);
+
+    private final Connection conexao;
+    private final BlockingQueue<Operacao> fila = new ArrayBlockingQueue<>(CAPACIDADE_FILA);
+    private final Thread gravador;
+    private volatile boolean fechada;
+    // Erro da última gravação (null quando a gravação está funcionando)
+    private volatile Exception falha;
+
+    /**
+     * Abre (ou cria) o banco no arquivo informado.
+     * @param arquivo Caminho do arquivo SQLite
+     * @throws IllegalStateException Se não for possível abrir o banco
+     */
+    public SqlitePersistencia(String arquivo) {
+        try {
+            this.conexao = DriverManager.getConnection("jdbc:sqlite:" + arquivo);
+            try (Statement st = conexao.createStatement()) {
+                st.execute("PRAGMA journal_mode=WAL");
+                st.execute("PRAGMA synchronous=NORMAL");
+                st.execute("CREATE TABLE IF NOT EXISTS alunos ("
+                        + "id INTEGER PRIMARY KEY, nome TEXT NOT NULL, idade INTEGER NOT NULL, "
+                        + "email TEXT, curso TEXT)");
+                st.execute("CREATE TABLE IF NOT EXISTS metadados (chave TEXT PRIMARY KEY, valor INTEGER NOT NULL)");
+            }
+            conexao.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Não foi possível abrir o banco SQLite: " + arquivo, e);
+        }
+        this.gravador = new Thread(this::gravarContinuamente, "sqlite-write-behind");
+        this.gravador.setDaemon(true);
+        this.gravador.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "sqlite-shutdown"));
+    }
+
+    @Override
+    public int carregar(Consumer<Aluno> aoSalvar, IntConsumer aoRemover) {
+        int proximoId = 1;
+        try (Statement st = conexao.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT id, nome, idade, email, curso FROM alunos ORDER BY id")) {
+                while (rs.next()) {
+                    Aluno aluno = new Aluno(rs.getString(2), rs.getInt(3), rs.getString(4), rs.getString(5));
+                    aluno.setId(rs.getInt(1));
+                    aoSalvar.accept(aluno);
+                    proximoId = Math.max(proximoId, aluno.getId() + 1);
+                }
+            }
+            try (ResultSet rs = st.executeQuery("SELECT valor FROM metadados WHERE chave = 'proximo_id'")) {
+                if (rs.next()) {
+                    proximoId = Math.max(proximoId, rs.getInt(1));
+                }
+            }
+            conexao.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Erro ao carregar alunos do SQLite", e);
+        }
+        return proximoId;
+    }
+
+    @Override
+    public void verificarDisponivel() {
+        Exception erro = falha;
+        if (erro != null) {
+            throw new PersistenciaIndisponivelException("Gravação no SQLite falhando: " + erro.getMessage(), erro);
+        }
+    }
+
+    @Override
+    public void registrarInsercao(Aluno aluno) {
+        enfileirar(new Operacao(aluno.getId(), aluno));
+    }
+
+    @Override
+    public void registrarAtualizacao(Aluno aluno) {
+        enfileirar(new Operacao(aluno.getId(), aluno));
+    }
+
+    @Override
+    public void registrarRemocao(int id) {
+        enfileirar(new Operacao(id, null));
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (fechada) return;
+            fechada = true;
+        }
+        try {
+            if (gravador.isAlive() && fila.offer(FIM, 30, TimeUnit.SECONDS)) {
+                gravador.join(TimeUnit.SECONDS.toMillis(30));
+            }
+            if (gravador.isAlive() || !fila.isEmpty()) {
+                System.err.println("Aviso: SQLite fechado com gravações pendentes (" + falha + ")");
+            }
+            conexao.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            System.err.println("Aviso: erro ao fechar o SQLite (" + e + ")");
+        }
+    }
+
+    // ========== GRAVAÇÃO EM SEGUNDO PLANO ==========
+
+    private void enfileirar(Operacao operacao) {
+        if (fechada) {
+            throw new IllegalStateException("Persistência SQLite já foi fechada");
+        }
+        if (!gravador.isAlive()) verificarDisponivel();
+        try {
+            // Espera se a fila estiver cheia (backpressure), mas desiste se a gravação parou
+            // de vez: sem isso, quem escreve ficaria preso segurando o lock do ID
+            while (!fila.offer(operacao, ESPERA_INICIAL_MS, TimeUnit.MILLISECONDS)) {
+                if (!gravador.isAlive()) verificarDisponivel();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido ao enfileirar gravação", e);
+        }
+    }
+
+    /**
+     * Laço da thread de gravação: espera a primeira operação, junta as demais já
+     * enfileiradas (até TAMANHO_LOTE) e grava tudo em uma única transação.
+     */
+    private void gravarContinuamente() {
+        List<Operacao> lote = new ArrayList<>(TAMANHO_LOTE);
+        try (PreparedStatement upsert = conexao.prepareStatement(
+                     "INSERT INTO alunos (id, nome, idade, email, curso) VALUES (?, ?, ?, ?, ?) "
+                     + "ON CONFLICT(id) DO UPDATE SET nome = excluded.nome, idade = excluded.idade, "
+                     + "email = excluded.email, curso = excluded.curso");
+             PreparedStatement delete = conexao.prepareStatement("DELETE FROM alunos WHERE id = ?");
+             PreparedStatement sequencia = conexao.prepareStatement(
+                     "INSERT INTO metadados (chave, valor) VALUES ('proximo_id', ?) "
+                     + "ON CONFLICT(chave) DO UPDATE SET valor = max(valor, excluded.valor)")) {
+            boolean fim = false;
+            while (!fim) {
+                lote.add(fila.take());
+                fila.drainTo(lote, TAMANHO_LOTE - 1);
+                fim = lote.remove(FIM);
+                if (!lote.isEmpty()) {
+                    gravarComTentativas(lote, upsert, delete, sequencia);
+                }
+                lote.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            falhar(e);
+        } catch (SQLException | RuntimeException e) {
+            falhar(e);
+        }
+    }
+
+    /**
+     * Grava o lote até conseguir (ou, depois do close, até esgotar o prazo do encerramento).
+     * A cada falha a transação é desfeita e o lote inteiro é montado de novo.
+     */
+    private void gravarComTentativas(List<Operacao> lote, PreparedStatement upsert, PreparedStatement delete,
+                                     PreparedStatement sequencia) throws InterruptedException {
+        long espera = ESPERA_INICIAL_MS;
+        long limite = 0;
+        while (true) {
+            try {
+                gravarLote(lote, upsert, delete, sequencia);
+                if (falha != null) {
+                    System.err.println("Aviso: gravação no SQLite restabelecida");
+                    falha = null;
+                }
+                return;
+            } catch (SQLException e) {
+                FALHAS_LOTE.increment();
+                if (falha == null) {
+                    System.err.println("Aviso: falha ao gravar lote de " + lote.size()
+                            + " operações no SQLite, tentando de novo (" + e + ")");
+                }
+                falha = e;
+                desfazer(upsert, delete);
+            }
+            if (fechada) {
+                if (limite == 0) {
+                    limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(25);
+                } else if (System.nanoTime() > limite) {
+                    System.err.println("Aviso: desistindo de gravar " + lote.size() + " operações no encerramento");
+                    return;
+                }
+            }
+            Thread.sleep(espera);
+            espera = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+        }
+    }
+
+    private void desfazer(PreparedStatement upsert, PreparedStatement delete) {
+        try {
+            upsert.clearBatch();
+            delete.clearBatch();
+            conexao.rollback();
+        } catch (SQLException e) {
+            // A próxima tentativa usa a mesma conexão e vai falhar de novo se ela não se recuperar
+        }
+    }
+
+    /**
+     * A thread de gravação vai parar: as escritas passam a ser recusadas para sempre.
+     */
+    private void falhar(Exception erro) {
+        falha = erro;
+        System.err.println("Aviso: thread de gravação do SQLite parou; escritas recusadas (" + erro + ")");
+    }
+
+    /**
+     * Grava um lote em uma transação.
+     * IDs nunca são reaproveitados e atualizações de um ID removido são ignoradas pelo
+     * repositório, então aplicar todos os upserts antes das remoções chega ao mesmo
+     * estado final que aplicar as operações na ordem original.
+     */
+    private void gravarLote(List<Operacao> lote, PreparedStatement upsert, PreparedStatement delete,
+                            PreparedStatement sequencia) throws SQLException {
+        int maiorId = 0;
+        for (Operacao op : lote) {
+            if (op.aluno() != null) {
+                Aluno aluno = op.aluno();
+                upsert.setInt(1, aluno.getId());
+                upsert.setString(2, aluno.getNome());
+                upsert.setInt(3, aluno.getIdade());
+                upsert.setString(4, aluno.getEmail());
+                upsert.setString(5, aluno.getCurso());
+                upsert.addBatch();
+                maiorId = Math.max(maiorId, aluno.getId());
+            } else {
+                delete.setInt(1, op.id());
+                delete.addBatch();
+            }
+        }
+        upsert.executeBatch();
+        delete.executeBatch();
+        if (maiorId > 0) {
+            // Guarda o próximo ID para não reaproveitar IDs de alunos removidos após reiniciar
+            sequencia.setInt(1, maiorId + 1);
+            sequencia.executeUpdate();
+        }
+        conexao.commit();
+    }
+}
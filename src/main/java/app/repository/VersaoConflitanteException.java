@@ -0,0 +1,17 @@
+package app.repository;
+
+/**
+ * Exceção lançada quando um aluno foi alterado por outra pessoa desde a versão informada
+ * (controle de concorrência otimista).
+ */
+public class VersaoConflitanteException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param id ID do aluno
+     * @param versaoAtual Versão que está gravada no momento
+     */
+    public VersaoConflitanteException(int id, long versaoAtual) {
+        super("O aluno " + id + " foi alterado por outra requisição (versão atual: " + versaoAtual + ")");
+    }
+}
@@ -2,28 +2,86 @@ package app.service;
 
 import app.model.Aluno;
 import app.repository.AlunoRepository;
+import app.repository.EstatisticasAlunos;
+import app.repository.Instantaneo;
+import app.repository.Persistencia;
+import app.repository.RegistroAlteracoes;
 import java.util.List;
 
 public class AlunoService {
     private final AlunoRepository repository;
 
+    /**
+     * Serviço sobre um repositório novo, somente em memória. A persistência configurada
+     * (-Dalunos.persistencia) é aberta uma única vez pelo ponto de entrada e injetada
+     * com {@link #AlunoService(AlunoRepository)}: duas instâncias sobre os mesmos
+     * arquivos corromperiam o journal.
+     */
     public AlunoService() {
-        this.repository = new AlunoRepository();
+        this(new AlunoRepository(Persistencia.NENHUMA));
     }
 
-    public List<Aluno> listarTodos() {
+    public AlunoService(AlunoRepository repository) {
+        this.repository = repository;
+    }
+
+    public Instantaneo listarTodos() {
         return repository.listarTodos();
     }
 
+    public List<Aluno> listarPagina(int aposId, int limite) {
+        return repository.listarPagina(aposId, limite);
+    }
+
+    public Iterable<Aluno> percorrerTodos() {
+        return repository.percorrerTodos();
+    }
+
     public Aluno buscarPorId(int id) {
         return repository.buscarPorId(id);
     }
 
+    public Aluno buscarPorEmail(String email) {
+        return repository.buscarPorEmail(email);
+    }
+
+    public List<Aluno> listarPorCurso(String curso) {
+        return repository.listarPorCurso(curso);
+    }
+
+    public List<Aluno> listarPorFaixaEtaria(int idadeMinima, int idadeMaxima) {
+        return repository.listarPorFaixaEtaria(idadeMinima, idadeMaxima);
+    }
+
     public void salvar(Aluno aluno) {
         repository.salvar(aluno);
     }
 
+    public int salvarLote(List<Aluno> lote) {
+        return repository.salvarLote(lote);
+    }
+
+    public RegistroAlteracoes alteracoes() {
+        return repository.alteracoes();
+    }
+
+    public List<Aluno> buscar(String consulta, int limite) {
+        return repository.buscar(consulta, limite);
+    }
+
+    public EstatisticasAlunos estatisticas() {
+        return repository.estatisticas();
+    }
+
+    public int verificarEstatisticas() {
+        return repository.verificarEstatisticas();
+    }
+
+    public Aluno atualizar(Aluno aluno, long versaoEsperada) {
+        return repository.atualizar(aluno, versaoEsperada);
+    }
+
     public boolean remover(int id) {
         return repository.remover(id);
     }
-}
\ No newline at end of file
+}
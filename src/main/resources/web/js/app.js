@@ -1,11 +1,35 @@
 document.addEventListener('DOMContentLoaded', () => {
     const form = document.getElementById('alunoForm');
     const tabela = document.getElementById('alunosTable').querySelector('tbody');
+    const botaoEnviar = form.querySelector('button[type="submit"]');
+    const campoBusca = document.getElementById('busca');
 
-    // Carregar alunos ao iniciar
+    // Aluno em edição ({ id, versao }) ou null no modo de cadastro
+    let emEdicao = null;
+    // Alunos exibidos na tabela, por ID (usados para preencher o formulário)
+    let alunosPorId = new Map();
+    // Linhas da tabela por ID (atualizadas pelo feed de alterações)
+    let linhasPorId = new Map();
+    // Eventos recebidos enquanto a lista está sendo carregada (aplicados depois)
+    let pendentes = [];
+
+    // Acompanhar as alterações feitas por qualquer pessoa e carregar alunos ao iniciar
+    // (o feed é aberto antes para não perder o que mudar durante o carregamento)
+    const feed = new EventSource('/api/alunos/events');
+    ['criado', 'atualizado', 'removido'].forEach(tipo =>
+        feed.addEventListener(tipo, evento => receberAlteracao(tipo, JSON.parse(evento.data))));
+    // O servidor perdeu parte das alterações deste cliente: recarrega a lista inteira
+    feed.addEventListener('reset', () => carregarAlunos());
     carregarAlunos();
 
-    // Cadastrar novo aluno
+    // Busca enquanto digita (espera uma pausa curta para não enviar uma requisição por tecla)
+    let esperaBusca = null;
+    campoBusca.addEventListener('input', () => {
+        clearTimeout(esperaBusca);
+        esperaBusca = setTimeout(carregarAlunos, 150);
+    });
+
+    // Cadastrar novo aluno ou salvar a edição
     form.addEventListener('submit', (e) => {
         e.preventDefault();
         
@@ -16,6 +40,11 @@ document.addEventListener('DOMContentLoaded', () => {
             curso: document.getElementById('curso').value
         };
 
+        if (emEdicao) {
+            salvarEdicao(aluno);
+            return;
+        }
+
         fetch('/api/alunos', {
             method: 'POST',
             headers: {
@@ -24,39 +53,134 @@ document.addEventListener('DOMContentLoaded', () => {
             body: JSON.stringify(aluno)
         })
         .then(response => response.json())
-        .then(() => {
-            form.reset();
-            carregarAlunos();
-        });
+        .then(() => form.reset());
     });
 
+    // Cancela a edição quando o formulário é limpo
+    form.addEventListener('reset', () => sairDaEdicao());
+
+    // Lista todos os alunos ou, com texto na busca, os mais relevantes
     function carregarAlunos() {
-        fetch('/api/alunos')
+        const consulta = campoBusca.value.trim();
+        const url = consulta
+            ? `/api/alunos/search?q=${encodeURIComponent(consulta)}&limit=20`
+            : '/api/alunos';
+        pendentes = pendentes || [];
+        fetch(url)
             .then(response => response.json())
             .then(alunos => {
+                // Descarta respostas de buscas que já foram substituídas por outra
+                if (campoBusca.value.trim() !== consulta) return;
                 tabela.innerHTML = '';
-                alunos.forEach(aluno => {
-                    const row = tabela.insertRow();
-                    row.innerHTML = `
-                        <td>${aluno.nome}</td>
-                        <td>${aluno.idade}</td>
-                        <td>${aluno.email}</td>
-                        <td>${aluno.curso}</td>
-                        <td>
-                            <button onclick="removerAluno(${aluno.id})">Remover</button>
-                        </td>
-                    `;
-                });
+                alunosPorId = new Map();
+                linhasPorId = new Map();
+                alunos.forEach(aluno => exibirAluno(aluno));
+                // Aplica o que chegou pelo feed durante o carregamento
+                const recebidos = pendentes;
+                pendentes = null;
+                recebidos.forEach(([tipo, dados]) => aplicarAlteracao(tipo, dados));
             });
     }
 
+    function receberAlteracao(tipo, dados) {
+        if (pendentes) {
+            pendentes.push([tipo, dados]);
+        } else {
+            aplicarAlteracao(tipo, dados);
+        }
+    }
+
+    // Aplica um evento do feed à tabela, ignorando versões mais antigas que a exibida
+    function aplicarAlteracao(tipo, dados) {
+        if (tipo === 'removido') {
+            removerLinha(dados.id);
+            return;
+        }
+        const exibido = alunosPorId.get(dados.id);
+        if (exibido && exibido.versao >= dados.versao) return;
+        if (exibido || (tipo === 'criado' && !campoBusca.value.trim())) {
+            // Na busca, alunos novos só aparecem ao buscar de novo (podem não ser relevantes)
+            exibirAluno(dados.aluno);
+        }
+    }
+
+    // Cria a linha do aluno ou atualiza a existente
+    function exibirAluno(aluno) {
+        let row = linhasPorId.get(aluno.id);
+        if (!row) {
+            row = tabela.insertRow();
+            linhasPorId.set(aluno.id, row);
+        }
+        alunosPorId.set(aluno.id, aluno);
+        // Células preenchidas com textContent: os dados vêm do feed e nunca viram HTML
+        row.replaceChildren();
+        [aluno.nome, aluno.idade, aluno.email, aluno.curso].forEach(valor => {
+            row.insertCell().textContent = valor;
+        });
+        const acoes = row.insertCell();
+        acoes.append(
+            criarBotao('Editar', () => window.editarAluno(aluno.id)),
+            criarBotao('Remover', () => window.removerAluno(aluno.id)));
+    }
+
+    function criarBotao(texto, aoClicar) {
+        const botao = document.createElement('button');
+        botao.type = 'button';
+        botao.textContent = texto;
+        botao.addEventListener('click', aoClicar);
+        return botao;
+    }
+
+    function removerLinha(id) {
+        const row = linhasPorId.get(id);
+        if (row) row.remove();
+        linhasPorId.delete(id);
+        alunosPorId.delete(id);
+    }
+
+    // A tabela é atualizada pelo evento "removido" do feed
     window.removerAluno = (id) => {
-        fetch(`/api/alunos/${id}`, { method: 'DELETE' })
-            .then(() => carregarAlunos());
+        fetch(`/api/alunos/${id}`, { method: 'DELETE' });
     };
 
-    
-    function editarAluno(id) {
-    // Implementar lógica de edição
+    // Preenche o formulário com o aluno e guarda a versão lida
+    window.editarAluno = (id) => {
+        const aluno = alunosPorId.get(id);
+        if (!aluno) return;
+        document.getElementById('nome').value = aluno.nome;
+        document.getElementById('idade').value = aluno.idade;
+        document.getElementById('email').value = aluno.email;
+        document.getElementById('curso').value = aluno.curso;
+        emEdicao = { id: aluno.id, versao: aluno.versao };
+        botaoEnviar.textContent = 'Salvar';
+    };
+
+    // Envia a edição com If-Match: se outra pessoa alterou o aluno, o servidor responde 412
+    function salvarEdicao(aluno) {
+        fetch(`/api/alunos/${emEdicao.id}`, {
+            method: 'PUT',
+            headers: {
+                'Content-Type': 'application/json',
+                'If-Match': `"${emEdicao.versao}"`
+            },
+            body: JSON.stringify(aluno)
+        })
+        .then(response => {
+            // A tabela já recebe a nova versão pelo feed
+            if (response.ok || response.status === 412) {
+                if (!response.ok) {
+                    alert('Este aluno foi alterado por outra pessoa. Os dados foram recarregados.');
+                }
+                form.reset();
+                return;
+            }
+            // Outros erros (ex: email duplicado) mantêm o formulário para correção
+            return response.json().then(erro => alert(erro.erro));
+        });
+    }
+
+    function sairDaEdicao() {
+        emEdicao = null;
+        botaoEnviar.textContent = 'Cadastrar';
     }
 });
\ No newline at end of file
@@ -0,0 +1,165 @@
+package app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import app.repository.Persistencia;
+import app.service.AlunoService;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Controle de concorrência otimista do PATCH /alunos/{id}: a versão esperada vem do
+ * If-Match ou do campo "versao" do corpo, e uma versão desatualizada recebe 412.
+ * Também a lista em streaming, que não pode parecer completa quando falha no meio.
+ */
+class AlunoHttpHandlerTest {
+    private final HttpClient cliente = HttpClient.newHttpClient();
+    private AlunoRepository repositorio;
+    private AlunoHttpHandler handler;
+    private HttpServer servidor;
+    private ExecutorService executor;
+    private String base;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        repositorio = new AlunoRepository(Persistencia.NENHUMA, AlunoRepository.Armazenamento.OBJETOS);
+        handler = new AlunoHttpHandler(new AlunoService(repositorio));
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.createContext("/alunos", handler);
+        executor = Executors.newFixedThreadPool(2);
+        servidor.setExecutor(executor);
+        servidor.start();
+        base = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/alunos";
+    }
+
+    @AfterEach
+    void parar() {
+        servidor.stop(0);
+        executor.shutdownNow();
+        handler.close();
+    }
+
+    @Test
+    void patchComIfMatchDesatualizadoRecebe412() throws Exception {
+        String etag = criarAluno();
+
+        HttpResponse<String> primeira = patch("{\"curso\":\"SI\"}", etag);
+        assertEquals(200, primeira.statusCode());
+        String novaEtag = primeira.headers().firstValue("ETag").orElseThrow();
+        assertNotEquals(etag, novaEtag);
+
+        // Outra pessoa ainda tem a versão antiga
+        HttpResponse<String> conflito = patch("{\"curso\":\"ADS\"}", etag);
+        assertEquals(412, conflito.statusCode());
+        assertTrue(get().body().contains("\"curso\":\"SI\""));
+
+        // Com a versão atual a alteração passa
+        assertEquals(200, patch("{\"curso\":\"ADS\"}", novaEtag).statusCode());
+        assertTrue(get().body().contains("\"curso\":\"ADS\""));
+    }
+
+    @Test
+    void patchComVersaoDoCorpoDesatualizadaRecebe412() throws Exception {
+        String etag = criarAluno();
+        String versao = etag.replace("\"", "");
+
+        assertEquals(200, patch("{\"idade\":21,\"versao\":" + versao + "}", null).statusCode());
+        HttpResponse<String> conflito = patch("{\"idade\":30,\"versao\":" + versao + "}", null);
+        assertEquals(412, conflito.statusCode());
+        assertTrue(get().body().contains("\"idade\":21"));
+    }
+
+    @Test
+    void patchSemVersaoAplicaSobreAAtual() throws Exception {
+        criarAluno();
+        assertEquals(200, patch("{\"nome\":\"Ana Maria\"}", null).statusCode());
+        assertEquals(200, patch("{\"idade\":22}", "*").statusCode());
+        String corpo = get().body();
+        assertTrue(corpo.contains("\"nome\":\"Ana Maria\"") && corpo.contains("\"idade\":22"), corpo);
+    }
+
+    @Test
+    void ifMatchQueNaoEVersaoDeAlunoRecebe412() throws Exception {
+        criarAluno();
+        assertEquals(412, patch("{\"curso\":\"SI\"}", "\"abc\"").statusCode());
+    }
+
+    @Test
+    void falhaNoMeioDaListaDerrubaAConexao() throws Exception {
+        // Alunos suficientes para vários blocos já terem sido enviados antes da falha
+        for (int i = 0; i < 500; i++) {
+            repositorio.salvar(new Aluno("Aluno " + i, 20, "aluno" + i + "@x.com", "ADS"));
+        }
+        AlunoComFalha ultimo = new AlunoComFalha();
+        repositorio.salvar(ultimo);
+        ultimo.falhar = true;
+
+        for (String codificacao : List.of("identity", "gzip")) {
+            HttpRequest get = HttpRequest.newBuilder(URI.create(base))
+                    .header("Accept-Encoding", codificacao).GET().build();
+            // Terminar o chunked (ou o gzip) entregaria um array truncado como se estivesse completo
+            assertThrows(IOException.class, () -> cliente.send(get, HttpResponse.BodyHandlers.ofByteArray()),
+                    codificacao);
+        }
+    }
+
+    /**
+     * Cria o aluno 1 e devolve a ETag lida em GET /alunos/1.
+     */
+    private String criarAluno() throws Exception {
+        HttpRequest post = HttpRequest.newBuilder(URI.create(base))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"nome\":\"Ana\",\"idade\":20,\"email\":\"ana@x.com\",\"curso\":\"ADS\"}"))
+                .build();
+        assertEquals(201, cliente.send(post, HttpResponse.BodyHandlers.ofString()).statusCode());
+        return get().headers().firstValue("ETag").orElseThrow();
+    }
+
+    private HttpResponse<String> get() throws Exception {
+        HttpRequest get = HttpRequest.newBuilder(URI.create(base + "/1")).GET().build();
+        return cliente.send(get, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> patch(String corpo, String ifMatch) throws Exception {
+        HttpRequest.Builder pedido = HttpRequest.newBuilder(URI.create(base + "/1"))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(corpo));
+        if (ifMatch != null) pedido.header("If-Match", ifMatch);
+        return cliente.send(pedido.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Aluno que falha ao ser serializado depois de cadastrado.
+     */
+    private static final class AlunoComFalha extends Aluno {
+        volatile boolean falhar;
+
+        AlunoComFalha() {
+            super("Zeca", 20, "zeca@x.com", "ADS");
+        }
+
+        @Override
+        public String getCurso() {
+            if (falhar) throw new IllegalStateException("falha simulada");
+            return super.getCurso();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package app.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Taxa por cliente (GCRA): rajada, espera até a próxima ficha, varredura dos baldes
+ * cheios e o 429 com Retry-After do filtro.
+ */
+class ControleAdmissaoTest {
+    private static final long INTERVALO_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void aceitaARajadaEDepoisEsperaUmIntervalo() {
+        // 10 requisições/s: uma ficha a cada 100 ms, até 3 de uma vez
+        try (ControleAdmissao controle = new ControleAdmissao(10, 3, 0, 100, Set.of(), null)) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(0, controle.consumir("a"));
+            }
+            long espera = controle.consumir("a");
+            assertTrue(espera > 0 && espera <= INTERVALO_NANOS, "espera: " + espera);
+            // Cada cliente tem o próprio balde
+            assertEquals(0, controle.consumir("b"));
+        }
+    }
+
+    @Test
+    void semTaxaNaoLimitaNemCriaBaldes() {
+        try (ControleAdmissao controle = new ControleAdmissao(0, 1, 0, 100, Set.of(), null)) {
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(0, controle.consumir("a"));
+            }
+            assertEquals(0, controle.removerBaldesCheios());
+        }
+    }
+
+    @Test
+    void clientesAcimaDoMaximoDividemUmBalde() {
+        try (ControleAdmissao controle = new ControleAdmissao(10, 1, 0, 1, Set.of(), null)) {
+            assertEquals(0, controle.consumir("a"));
+            assertEquals(0, controle.consumir("b"));
+            assertTrue(controle.consumir("c") > 0);
+        }
+    }
+
+    @Test
+    void varreduraRemoveSoOsBaldesCheios() throws InterruptedException {
+        try (ControleAdmissao controle = new ControleAdmissao(10, 1, 0, 100, Set.of(), null)) {
+            controle.consumir("a");
+            Thread.sleep(150);
+            controle.consumir("b");
+            // O balde de "a" encheu de novo (equivale a um novo); o de "b" acabou de ser usado
+            assertEquals(1, controle.removerBaldesCheios());
+            assertTrue(controle.consumir("b") > 0);
+        }
+    }
+
+    @Test
+    void filtroResponde429ComRetryAfter() throws Exception {
+        HttpServer servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        try (ControleAdmissao controle = new ControleAdmissao(1, 1, 0, 100, Set.of(), null)) {
+            servidor.createContext("/", exchange -> RespostaHttp.enviar(exchange, 200,
+                    "ok".getBytes(StandardCharsets.UTF_8))).getFilters().add(controle.filtro());
+            servidor.start();
+            HttpClient cliente = HttpClient.newHttpClient();
+            HttpRequest get = HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + servidor.getAddress().getPort() + "/x")).build();
+
+            assertEquals(200, cliente.send(get, HttpResponse.BodyHandlers.ofString()).statusCode());
+            HttpResponse<String> recusada = cliente.send(get, HttpResponse.BodyHandlers.ofString());
+            assertEquals(429, recusada.statusCode());
+            // Próxima ficha em até 1 s, arredondado para cima
+            assertEquals("1", recusada.headers().firstValue("Retry-After").orElseThrow());
+        } finally {
+            servidor.stop(0);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package app.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import app.repository.Persistencia;
+import app.repository.RegistroAlteracoes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Posição de onde o feed continua quando o cliente reconecta com Last-Event-ID.
+ */
+class EventosAlunosTest {
+    private final AlunoRepository repositorio = new AlunoRepository(Persistencia.NENHUMA, AlunoRepository.Armazenamento.OBJETOS);
+    private final RegistroAlteracoes alteracoes = repositorio.alteracoes();
+    private final EventosAlunos eventos = new EventosAlunos(alteracoes);
+
+    @AfterEach
+    void fechar() {
+        eventos.close();
+    }
+
+    @Test
+    void primeiraConexaoComecaNaSequenciaAtual() {
+        salvarTres();
+        assertEquals(3, eventos.posicaoInicial(null));
+        assertEquals(3, eventos.posicaoInicial(" "));
+    }
+
+    @Test
+    void reconexaoContinuaDoUltimoEventoRecebido() {
+        salvarTres();
+        assertEquals(1, eventos.posicaoInicial(alteracoes.epoca() + "-1"));
+        assertEquals(3, eventos.posicaoInicial(alteracoes.epoca() + "-3"));
+    }
+
+    @Test
+    void idDeOutraInstanciaOuInvalidoPedeRecarga() {
+        salvarTres();
+        // Outra época: o processo reiniciou e as sequências recomeçaram
+        assertEquals(-1, eventos.posicaoInicial("0-2"));
+        // Sequência que esta instância ainda não publicou
+        assertEquals(-1, eventos.posicaoInicial(alteracoes.epoca() + "-4"));
+        assertEquals(-1, eventos.posicaoInicial(alteracoes.epoca() + "-x"));
+        assertEquals(-1, eventos.posicaoInicial("sem-traco-valido"));
+        assertEquals(-1, eventos.posicaoInicial("42"));
+    }
+
+    private void salvarTres() {
+        for (int i = 1; i <= 3; i++) {
+            repositorio.salvar(new Aluno("Aluno " + i, 20, "aluno" + i + "@x.com", "ADS"));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package app.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Interpretação das requisições pelo {@link ConexaoNio}: corpos chunked que chegam em
+ * pedaços e várias requisições enviadas de uma vez (pipelining), por um socket real.
+ */
+class MotorNioTest {
+    private ExecutorService executor;
+    private MotorHttp motor;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        executor = Executors.newFixedThreadPool(2);
+        motor = MotorHttp.criar("nio", new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                MotorNioTest::ecoar, List.of(), executor);
+        motor.iniciar();
+    }
+
+    @AfterEach
+    void parar() {
+        motor.parar(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Responde "MÉTODO caminho [corpo]" para cada requisição.
+     */
+    private static void ecoar(HttpExchange exchange) throws IOException {
+        byte[] corpo;
+        try (InputStream entrada = exchange.getRequestBody()) {
+            corpo = entrada.readAllBytes();
+        }
+        byte[] resposta = (exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath()
+                + " [" + new String(corpo, StandardCharsets.UTF_8) + "]").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(200, resposta.length);
+        try (OutputStream saida = exchange.getResponseBody()) {
+            saida.write(resposta);
+        }
+    }
+
+    @Test
+    void corpoChunkedEmPedacos() throws Exception {
+        try (Socket socket = conectar()) {
+            OutputStream saida = socket.getOutputStream();
+            // Cada fragmento chega numa leitura separada, cortando tamanho, dados e fim dos pedaços
+            String[] fragmentos = {
+                "POST /eco HTTP/1.1\r\nHost: x\r\nTransfer-",
+                "Encoding: chunked\r\n\r\n4;ext=1\r\nWi",
+                "ki\r\n5\r",
+                "\npedia\r\nE\r\n in\r\n\r\nchunks.\r\n0\r\nX-Fim: 1\r\n",
+                "\r\n"
+            };
+            for (String fragmento : fragmentos) {
+                saida.write(fragmento.getBytes(StandardCharsets.US_ASCII));
+                saida.flush();
+                Thread.sleep(20);
+            }
+            DataInputStream entrada = new DataInputStream(socket.getInputStream());
+            assertEquals("POST /eco [Wikipedia in\r\n\r\nchunks.]", lerResposta(entrada));
+        }
+    }
+
+    @Test
+    void requisicoesEmPipelineRespondidasEmOrdem() throws Exception {
+        try (Socket socket = conectar()) {
+            String pedidos = "POST /primeiro HTTP/1.1\r\nHost: x\r\nTransfer-Encoding: chunked\r\n\r\n"
+                    + "3\r\nabc\r\n0\r\n\r\n"
+                    + "GET /segundo HTTP/1.1\r\nHost: x\r\n\r\n"
+                    + "POST /terceiro HTTP/1.1\r\nHost: x\r\nContent-Length: 5\r\n\r\nfixo!"
+                    + "DELETE /quarto HTTP/1.1\r\nHost: x\r\nContent-Length: 0\r\n\r\n";
+            // Tudo numa única escrita: as requisições seguintes esperam a anterior terminar
+            socket.getOutputStream().write(pedidos.getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+
+            DataInputStream entrada = new DataInputStream(socket.getInputStream());
+            assertEquals("POST /primeiro [abc]", lerResposta(entrada));
+            assertEquals("GET /segundo []", lerResposta(entrada));
+            assertEquals("POST /terceiro [fixo!]", lerResposta(entrada));
+            assertEquals("DELETE /quarto []", lerResposta(entrada));
+        }
+    }
+
+    private Socket conectar() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), motor.endereco().getPort());
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    /**
+     * Lê uma resposta com Content-Length e devolve o corpo.
+     */
+    private static String lerResposta(DataInputStream entrada) throws IOException {
+        String status = lerLinha(entrada);
+        assertTrue(status.startsWith("HTTP/1.1 200"), status);
+        int tamanho = -1;
+        for (String linha = lerLinha(entrada); !linha.isEmpty(); linha = lerLinha(entrada)) {
+            if (linha.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                tamanho = Integer.parseInt(linha.substring(linha.indexOf(':') + 1).trim());
+            }
+        }
+        assertTrue(tamanho >= 0, "Resposta sem Content-Length");
+        byte[] corpo = new byte[tamanho];
+        entrada.readFully(corpo);
+        return new String(corpo, StandardCharsets.UTF_8);
+    }
+
+    private static String lerLinha(InputStream entrada) throws IOException {
+        ByteArrayOutputStream linha = new ByteArrayOutputStream();
+        int b;
+        while ((b = entrada.read()) != '\n') {
+            if (b < 0) throw new IOException("Conexão fechada no meio da resposta");
+            if (b != '\r') linha.write(b);
+        }
+        return linha.toString(StandardCharsets.US_ASCII);
+    }
+}
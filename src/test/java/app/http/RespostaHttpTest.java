@@ -0,0 +1,104 @@
+package app.http;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Negociação do Accept-Encoding e tamanho mínimo para comprimir a resposta.
+ */
+class RespostaHttpTest {
+    private final HttpClient cliente = HttpClient.newHttpClient();
+    private HttpServer servidor;
+    private String base;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // /{n}: JSON com n bytes
+        servidor.createContext("/", exchange -> {
+            int tamanho = Integer.parseInt(exchange.getRequestURI().getPath().substring(1));
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            RespostaHttp.enviar(exchange, 200, corpo(tamanho));
+        });
+        servidor.start();
+        base = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/";
+    }
+
+    @AfterEach
+    void parar() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void aceitaCodificacoesListadasSemQZero() {
+        assertTrue(RespostaHttp.aceita("gzip", "gzip"));
+        assertTrue(RespostaHttp.aceita("deflate, GZIP;q=0.5", "gzip"));
+        assertTrue(RespostaHttp.aceita("br, gzip ; q=1", "gzip"));
+        assertTrue(RespostaHttp.aceita("gzip;q=0.01", "gzip"));
+        // q=0 recusa
+        assertFalse(RespostaHttp.aceita("gzip;q=0", "gzip"));
+        assertFalse(RespostaHttp.aceita("gzip; q=0.000, deflate", "gzip"));
+        assertTrue(RespostaHttp.aceita("gzip; q=0.000, deflate", "deflate"));
+        // Ausente ou só parecida
+        assertFalse(RespostaHttp.aceita(null, "gzip"));
+        assertFalse(RespostaHttp.aceita("", "gzip"));
+        assertFalse(RespostaHttp.aceita("x-gzip", "gzip"));
+    }
+
+    @Test
+    void respostaPequenaSaiSemCompressao() throws Exception {
+        HttpResponse<byte[]> resposta = get(100, "gzip");
+        assertFalse(resposta.headers().firstValue("Content-Encoding").isPresent());
+        // A resposta varia com o Accept-Encoding mesmo quando não foi comprimida
+        assertEquals("Accept-Encoding", resposta.headers().firstValue("Vary").orElseThrow());
+        assertArrayEquals(corpo(100), resposta.body());
+    }
+
+    @Test
+    void respostaGrandeSaiComprimidaSeOClienteAceitar() throws Exception {
+        HttpResponse<byte[]> resposta = get(8 * 1024, "deflate;q=0.5, gzip");
+        assertEquals("gzip", resposta.headers().firstValue("Content-Encoding").orElseThrow());
+        assertTrue(resposta.body().length < 8 * 1024);
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(resposta.body()))) {
+            assertArrayEquals(corpo(8 * 1024), entrada.readAllBytes());
+        }
+
+        HttpResponse<byte[]> semGzip = get(8 * 1024, "gzip;q=0");
+        assertFalse(semGzip.headers().firstValue("Content-Encoding").isPresent());
+        assertArrayEquals(corpo(8 * 1024), semGzip.body());
+    }
+
+    private HttpResponse<byte[]> get(int tamanho, String acceptEncoding) throws Exception {
+        HttpRequest get = HttpRequest.newBuilder(URI.create(base + tamanho))
+                .header("Accept-Encoding", acceptEncoding).GET().build();
+        return cliente.send(get, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * @return Corpo de exatamente "tamanho" bytes (repetitivo, então comprime bem)
+     */
+    private static byte[] corpo(int tamanho) {
+        StringBuilder json = new StringBuilder(tamanho).append('[');
+        while (json.length() < tamanho - 1) {
+            json.append(json.length() % 10 == 0 ? ',' : '1');
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,121 @@
+package app.importacao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import app.repository.Persistencia;
+import app.repository.PersistenciaIndisponivelException;
+import app.service.AlunoService;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Leitura de NDJSON e CSV, rejeição por linha e interrupção quando a persistência falha.
+ */
+class ImportadorAlunosTest {
+
+    private AlunoService service = new AlunoService(new AlunoRepository(Persistencia.NENHUMA, AlunoRepository.Armazenamento.OBJETOS));
+
+    @Test
+    void ndjsonRejeitaSoAsLinhasInvalidas() throws IOException {
+        String ndjson = """
+                {"nome":"Ana","idade":20,"email":"ana@x.com","curso":"ADS"}
+                {"nome":"Bia","idade":
+                {"nome":"Caio","idade":200,"email":"caio@x.com","curso":"ADS"}
+
+                {"nome":"Duda","idade":22,"email":"ANA@x.com","curso":"SI"}
+                {"nome":"Eva","idade":23,"email":"eva@x.com","curso":"SI"}
+                """;
+        ResultadoImportacao resultado = importar(ndjson, ImportadorAlunos.Formato.NDJSON);
+
+        assertEquals(2, resultado.getImportados());
+        assertEquals(3, resultado.getRejeitados());
+        List<ResultadoImportacao.ErroLinha> erros = resultado.getErros();
+        assertEquals(2, erros.get(0).linha());
+        assertEquals(new ResultadoImportacao.ErroLinha(3, "idade fora do intervalo 0-150"), erros.get(1));
+        // O email repetido aponta o aluno que ficou com ele
+        int ana = service.buscarPorEmail("ana@x.com").getId();
+        assertEquals(new ResultadoImportacao.ErroLinha(5, "email já cadastrado (aluno " + ana + "): ANA@x.com"),
+                erros.get(2));
+        assertNull(resultado.getInterrupcao());
+        assertEquals("Eva", service.buscarPorEmail("eva@x.com").getNome());
+    }
+
+    @Test
+    void csvComCabecalhoAspasEQuebraDeLinha() throws IOException {
+        String csv = "nome,idade,email,curso\r\n"
+                + "\"Silva, Ana\",20,ana@x.com,ADS\r\n"
+                + "\"Bia \"\"B\"\"\",21,bia@x.com,\"Sistemas\nde Informação\"\r\n"
+                + "Caio,vinte,caio@x.com,ADS\r\n"
+                + "Duda,22,duda@x.com\r\n"
+                + "Eva,23,eva@x.com,SI\r\n";
+        ResultadoImportacao resultado = importar(csv, ImportadorAlunos.Formato.CSV);
+
+        assertEquals(3, resultado.getImportados());
+        assertEquals(2, resultado.getRejeitados());
+        assertEquals(5, resultado.getErros().get(0).linha());
+        assertEquals(6, resultado.getErros().get(1).linha());
+        assertEquals("Silva, Ana", service.buscarPorEmail("ana@x.com").getNome());
+        Aluno bia = service.buscarPorEmail("bia@x.com");
+        assertEquals("Bia \"B\"", bia.getNome());
+        assertEquals("Sistemas\nde Informação", bia.getCurso());
+        assertNotNull(service.buscarPorEmail("eva@x.com"));
+    }
+
+    @Test
+    void falhaNaPersistenciaRejeitaOLoteEPara() throws IOException {
+        // Aceita o primeiro lote inteiro e falha no meio do segundo
+        service = new AlunoService(new AlunoRepository(new PersistenciaFalhando(ImportadorAlunos.TAMANHO_LOTE * 3 / 2),
+                AlunoRepository.Armazenamento.OBJETOS));
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < ImportadorAlunos.TAMANHO_LOTE * 3; i++) {
+            ndjson.append("{\"nome\":\"Aluno ").append(i).append("\",\"idade\":20,\"email\":\"aluno")
+                  .append(i).append("@x.com\",\"curso\":\"ADS\"}\n");
+        }
+        ResultadoImportacao resultado = importar(ndjson.toString(), ImportadorAlunos.Formato.NDJSON);
+
+        assertEquals(ImportadorAlunos.TAMANHO_LOTE, resultado.getImportados());
+        assertEquals(ImportadorAlunos.TAMANHO_LOTE, resultado.getRejeitados());
+        assertEquals(ImportadorAlunos.TAMANHO_LOTE + 1, resultado.getErros().get(0).linha());
+        assertTrue(resultado.getErros().get(0).mensagem().startsWith("não gravado: "));
+        assertNotNull(resultado.getInterrupcao());
+        // Nada do lote que falhou ficou salvo, e o terceiro nem foi lido
+        assertEquals(ImportadorAlunos.TAMANHO_LOTE, service.listarTodos().size());
+        assertNull(service.buscarPorEmail("aluno" + ImportadorAlunos.TAMANHO_LOTE + "@x.com"));
+    }
+
+    private ResultadoImportacao importar(String conteudo, ImportadorAlunos.Formato formato) throws IOException {
+        return new ImportadorAlunos(service)
+                .importar(new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8)), formato);
+    }
+
+    /**
+     * Persistência que recusa os registros depois de uma quantidade deles.
+     */
+    private static final class PersistenciaFalhando implements Persistencia {
+        private int restantes;
+
+        PersistenciaFalhando(int registros) {
+            this.restantes = registros;
+        }
+
+        @Override public int carregar(Consumer<Aluno> aoSalvar, IntConsumer aoRemover) { return 1; }
+        @Override public void registrarInsercao(Aluno aluno) { registrar(); }
+        @Override public void registrarAtualizacao(Aluno aluno) { registrar(); }
+        @Override public void registrarRemocao(int id) { registrar(); }
+        @Override public void close() { }
+
+        private void registrar() {
+            if (restantes-- <= 0) throw new PersistenciaIndisponivelException("disco cheio", null);
+        }
+    }
+}
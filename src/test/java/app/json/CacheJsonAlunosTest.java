@@ -0,0 +1,61 @@
+package app.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import app.model.Aluno;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Trechos guardados por ID e versão: só a versão guardada é servida do cache.
+ */
+class CacheJsonAlunosTest {
+    private final CacheJsonAlunos cache = new CacheJsonAlunos(1024 * 1024);
+
+    @Test
+    void versaoDiferenteNaoUsaOTrechoGuardado() {
+        assertEquals(json(aluno(1, "Ana")), escrever(aluno(1, "Ana")));
+        // Versão nova (gravação que a invalidação ainda não alcançou): codifica de novo
+        Aluno nova = aluno(2, "Ana Maria");
+        assertEquals(json(nova), escrever(nova));
+        // Agora a guardada é a versão 2
+        assertEquals(json(nova), escrever(aluno(2, "outro conteúdo com a mesma versão")));
+    }
+
+    @Test
+    void mesmaVersaoVemDoCacheAteSerInvalidada() {
+        Aluno ana = aluno(1, "Ana");
+        escrever(ana);
+        // Com a mesma versão, os bytes guardados são usados sem olhar o objeto
+        assertEquals(json(ana), escrever(aluno(1, "Bia")));
+
+        cache.invalidar(7);
+        assertEquals(json(aluno(1, "Bia")), escrever(aluno(1, "Bia")));
+    }
+
+    @Test
+    void semGuardarNaoOcupaOCache() {
+        EscritorJson escritor = new EscritorJson();
+        cache.escreverSemGuardar(escritor, aluno(1, "Ana"));
+        assertEquals(json(aluno(1, "Bia")), escrever(aluno(1, "Bia")));
+    }
+
+    private String escrever(Aluno aluno) {
+        EscritorJson escritor = new EscritorJson();
+        cache.escrever(escritor, aluno);
+        return new String(escritor.paraArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String json(Aluno aluno) {
+        EscritorJson escritor = new EscritorJson();
+        AlunoJson.escrever(escritor, aluno);
+        return new String(escritor.paraArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Aluno aluno(long versao, String nome) {
+        Aluno aluno = new Aluno(nome, 20, "aluno@x.com", "ADS");
+        aluno.setId(7);
+        aluno.setVersao(versao);
+        return aluno;
+    }
+}
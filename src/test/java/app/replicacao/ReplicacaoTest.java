@@ -0,0 +1,123 @@
+package app.replicacao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import app.model.Aluno;
+import app.repository.AlunoRepository;
+import app.repository.Persistencia;
+import app.repository.SomenteLeituraException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Aplicação das mutações do líder na réplica e diferença aplicada pelo instantâneo
+ * (alunos que só existem na réplica são removidos).
+ */
+class ReplicacaoTest {
+    private static final String SEGREDO = "segredo-de-teste";
+
+    private final AlunoRepository lider = new AlunoRepository(Persistencia.NENHUMA, AlunoRepository.Armazenamento.OBJETOS);
+    private final AlunoRepository replica = new AlunoRepository(Persistencia.NENHUMA, AlunoRepository.Armazenamento.OBJETOS);
+    private LiderReplicacao replicacaoLider;
+    private SeguidorReplicacao seguidor;
+
+    @AfterEach
+    void parar() {
+        if (seguidor != null) seguidor.close();
+        if (replicacaoLider != null) replicacaoLider.close();
+    }
+
+    @Test
+    void aplicarReplicadoPulaAVersaoJaGravada() {
+        replica.bloquearEscritas();
+        replica.aplicarReplicado(aluno(3, 10, "Ana"));
+        long sequencia = replica.alteracoes().ultimaSequencia();
+
+        // Reaplicar a mesma versão não grava nem publica de novo
+        replica.aplicarReplicado(aluno(3, 10, "Ana"));
+        assertEquals(sequencia, replica.alteracoes().ultimaSequencia());
+
+        replica.aplicarReplicado(aluno(3, 11, "Ana Maria"));
+        assertEquals("Ana Maria", replica.buscarPorId(3).getNome());
+        assertEquals(11, replica.buscarPorId(3).getVersao());
+        assertEquals(sequencia + 1, replica.alteracoes().ultimaSequencia());
+        // O próximo ID acompanha o do líder
+        assertTrue(replica.proximoId() > 3);
+
+        assertThrows(SomenteLeituraException.class,
+                () -> replica.salvar(new Aluno("Bia", 21, "bia@x.com", "SI")));
+        assertTrue(replica.removerReplicado(3));
+        assertNull(replica.buscarPorId(3));
+    }
+
+    @Test
+    void instantaneoIgualaAReplicaEDepoisSeguemAsAlteracoes() throws Exception {
+        for (String nome : new String[] {"Ana", "Bia", "Caio"}) {
+            lider.salvar(new Aluno(nome, 20, nome.toLowerCase() + "@x.com", "ADS"));
+        }
+        // Estado anterior da réplica: um aluno com outra versão e um que o líder não tem
+        replica.aplicarReplicado(aluno(1, 1_000, "Versão antiga"));
+        replica.aplicarReplicado(aluno(9, 1_001, "Só na réplica"));
+
+        int porta = portaLivre();
+        replicacaoLider = new LiderReplicacao(lider, InetAddress.getLoopbackAddress(), porta, SEGREDO, 50, 5_000);
+        replicacaoLider.iniciar();
+        seguidor = new SeguidorReplicacao(replica, "127.0.0.1:" + porta, SEGREDO, 5_000);
+        seguidor.iniciar();
+
+        esperar(() -> estado(replica).equals(estado(lider)));
+        assertNull(replica.buscarPorId(9));
+        assertTrue(replica.somenteLeitura());
+
+        // Alterações posteriores chegam pelo fluxo contínuo
+        lider.salvar(new Aluno("Duda", 22, "duda@x.com", "SI"));
+        lider.remover(2);
+        esperar(() -> estado(replica).equals(estado(lider)));
+        assertEquals("Duda", replica.buscarPorEmail("duda@x.com").getNome());
+        assertNull(replica.buscarPorId(2));
+        esperar(() -> seguidor.atrasoAlteracoes() == 0);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static Aluno aluno(int id, long versao, String nome) {
+        Aluno aluno = new Aluno(nome, 20, "aluno" + id + "@x.com", "ADS");
+        aluno.setId(id);
+        aluno.setVersao(versao);
+        return aluno;
+    }
+
+    /**
+     * @return ID -> "nome@versão" de todos os alunos
+     */
+    private static Map<Integer, String> estado(AlunoRepository repositorio) {
+        Map<Integer, String> estado = new TreeMap<>();
+        for (Aluno aluno : repositorio.listarTodos()) {
+            estado.put(aluno.getId(), aluno.getNome() + "@" + aluno.getVersao());
+        }
+        return estado;
+    }
+
+    private static int portaLivre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void esperar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + 10_000_000_000L;
+        while (!condicao.getAsBoolean()) {
+            if (System.nanoTime() > limite) throw new AssertionError("réplica não alcançou o líder");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package app.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import app.model.Aluno;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Escritas cuja gravação na persistência falha: a memória, os índices e o registro de
+ * alterações voltam a refletir só o que foi gravado.
+ */
+class AlunoRepositoryTest {
+
+    /**
+     * Persistência que passa a recusar os registros a partir do N-ésimo, ou as confirmações.
+     */
+    private static final class PersistenciaFalhando implements Persistencia {
+        int registrosAteFalhar = Integer.MAX_VALUE;
+        boolean falharConfirmacao;
+
+        @Override public int carregar(Consumer<Aluno> aoSalvar, IntConsumer aoRemover) { return 1; }
+        @Override public void registrarInsercao(Aluno aluno) { registrar(); }
+        @Override public void registrarAtualizacao(Aluno aluno) { registrar(); }
+        @Override public void registrarRemocao(int id) { registrar(); }
+        @Override public void close() { }
+
+        @Override
+        public void confirmar() {
+            if (falharConfirmacao) throw new PersistenciaIndisponivelException("fsync falhou", null);
+        }
+
+        private void registrar() {
+            if (registrosAteFalhar-- <= 0) throw new PersistenciaIndisponivelException("disco cheio", null);
+        }
+    }
+
+    private final PersistenciaFalhando persistencia = new PersistenciaFalhando();
+    private final AlunoRepository repositorio = new AlunoRepository(persistencia, AlunoRepository.Armazenamento.OBJETOS);
+
+    @Test
+    void insercaoRecusadaNoRegistroNaoFicaNaMemoria() {
+        persistencia.registrosAteFalhar = 0;
+        assertThrows(PersistenciaIndisponivelException.class,
+                () -> repositorio.salvar(new Aluno("Ana", 20, "ana@x.com", "ADS")));
+        assertEquals(0, repositorio.listarTodos().size());
+        assertNull(repositorio.buscarPorEmail("ana@x.com"));
+        assertEquals(0, repositorio.buscar("ana", 10).size());
+        assertEquals(0, repositorio.alteracoes().ultimaSequencia());
+
+        // O email ficou livre de novo
+        persistencia.registrosAteFalhar = Integer.MAX_VALUE;
+        repositorio.salvar(new Aluno("Ana", 20, "ana@x.com", "ADS"));
+        assertNotNull(repositorio.buscarPorEmail("ana@x.com"));
+    }
+
+    @Test
+    void atualizacaoNaoConfirmadaVoltaAVersaoAnterior() {
+        Aluno ana = new Aluno("Ana", 20, "ana@x.com", "ADS");
+        repositorio.salvar(ana);
+        long versao = ana.getVersao();
+
+        persistencia.falharConfirmacao = true;
+        Aluno novo = new Aluno("Ana Maria", 21, "ana.maria@x.com", "SI");
+        novo.setId(ana.getId());
+        assertThrows(PersistenciaIndisponivelException.class,
+                () -> repositorio.atualizar(novo, versao));
+
+        Aluno atual = repositorio.buscarPorId(ana.getId());
+        assertEquals(versao, atual.getVersao());
+        assertEquals("Ana", atual.getNome());
+        assertNotNull(repositorio.buscarPorEmail("ana@x.com"));
+        assertNull(repositorio.buscarPorEmail("ana.maria@x.com"));
+        assertEquals(1, repositorio.listarPorCurso("ADS").size());
+        assertEquals(0, repositorio.listarPorCurso("SI").size());
+
+        // A atualização já tinha sido publicada, então a reversão também é
+        List<Alteracao> publicadas = publicadas();
+        assertEquals(3, publicadas.size());
+        assertEquals(Alteracao.Tipo.ATUALIZADO, publicadas.get(2).tipo());
+        assertEquals(versao, publicadas.get(2).versao());
+    }
+
+    @Test
+    void loteInterrompidoNaoDeixaAlunosSalvos() {
+        persistencia.registrosAteFalhar = 2;
+        List<Aluno> lote = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            lote.add(new Aluno("Aluno " + i, 20, "aluno" + i + "@x.com", "ADS"));
+        }
+        assertThrows(PersistenciaIndisponivelException.class, () -> repositorio.salvarLote(lote));
+        assertEquals(0, repositorio.listarTodos().size());
+        assertNull(repositorio.buscarPorEmail("aluno0@x.com"));
+        assertEquals(0, repositorio.estatisticas().total().quantidade());
+
+        // Os dois primeiros foram publicados e removidos de novo; o terceiro nunca apareceu
+        List<Alteracao> publicadas = publicadas();
+        assertEquals(4, publicadas.size());
+        assertEquals(Alteracao.Tipo.REMOVIDO, publicadas.get(2).tipo());
+        assertEquals(Alteracao.Tipo.REMOVIDO, publicadas.get(3).tipo());
+    }
+
+    @Test
+    void remocaoNaoConfirmadaDevolveOAluno() {
+        Aluno ana = new Aluno("Ana", 20, "ana@x.com", "ADS");
+        repositorio.salvar(ana);
+
+        persistencia.falharConfirmacao = true;
+        assertThrows(PersistenciaIndisponivelException.class, () -> repositorio.remover(ana.getId()));
+
+        assertEquals(ana.getVersao(), repositorio.buscarPorId(ana.getId()).getVersao());
+        assertNotNull(repositorio.buscarPorEmail("ana@x.com"));
+        assertEquals(1, repositorio.buscar("ana", 10).size());
+        assertEquals(Alteracao.Tipo.CRIADO, publicadas().get(2).tipo());
+    }
+
+    private List<Alteracao> publicadas() {
+        Alteracao[] destino = new Alteracao[16];
+        int lidas = repositorio.alteracoes().ler(0, destino);
+        return Arrays.asList(destino).subList(0, lidas);
+    }
+}
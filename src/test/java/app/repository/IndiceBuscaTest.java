@@ -0,0 +1,76 @@
+package app.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import app.model.Aluno;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ordem de relevância da busca por prefixo e interseção dos termos da consulta.
+ */
+class IndiceBuscaTest {
+    private final IndiceBusca indice = new IndiceBusca();
+    private final MapaInteiroConcorrente<Aluno> alunos = new MapaInteiroConcorrente<>();
+
+    @Test
+    void ordenaPorRelevanciaEDepoisPorId() {
+        cadastrar(1, "Mariana Souza", "u1@x.com");
+        cadastrar(2, "Ana Silva", "u2@x.com");
+        cadastrar(3, "Anabela Costa", "u3@x.com");
+        cadastrar(4, "Carla Ana", "u4@x.com");
+        cadastrar(5, "Bruno Lima", "ana.b@x.com");
+        cadastrar(6, "Ana Paula", "u6@x.com");
+
+        // Primeiro nome igual ao termo (empate por ID), palavra seguinte igual, primeiro nome
+        // com o termo como prefixo e, por último, o email; "Mariana" não começa com "ana"
+        assertEquals(List.of(2, 6, 4, 3, 5), ids("ana", 10));
+        assertEquals(List.of(2, 6), ids("ana", 2));
+    }
+
+    @Test
+    void todosOsTermosPrecisamAparecer() {
+        cadastrar(1, "Ana Silva", "u1@x.com");
+        cadastrar(2, "Ana Souza", "u2@x.com");
+        cadastrar(3, "Silvio Anastácio", "u3@x.com");
+        cadastrar(4, "Silvia Costa", "u4@x.com");
+
+        assertEquals(List.of(1, 3), ids("ana sil", 10));
+        // Sem acentos e sem diferenciar maiúsculas
+        assertEquals(List.of(3), ids("ANASTÁ", 10));
+        assertEquals(List.of(), ids("ana xyz", 10));
+    }
+
+    @Test
+    void reindexarTrocaOsTokens() {
+        Aluno ana = cadastrar(1, "Ana Silva", "u1@x.com");
+        Aluno novo = aluno(1, "Ana Pereira", "ana.pereira@x.com");
+        alunos.put(1, novo);
+        indice.reindexar(ana, novo);
+
+        assertEquals(List.of(), ids("ana sil", 10));
+        assertEquals(List.of(1), ids("ana per", 10));
+        assertEquals(List.of(1), ids("ana.pe", 10));
+
+        alunos.remove(1);
+        indice.desindexar(novo);
+        assertEquals(List.of(), ids("ana", 10));
+    }
+
+    private Aluno cadastrar(int id, String nome, String email) {
+        Aluno aluno = aluno(id, nome, email);
+        alunos.put(id, aluno);
+        indice.indexar(aluno);
+        return aluno;
+    }
+
+    private static Aluno aluno(int id, String nome, String email) {
+        Aluno aluno = new Aluno(nome, 20, email, "ADS");
+        aluno.setId(id);
+        return aluno;
+    }
+
+    private List<Integer> ids(String consulta, int limite) {
+        return indice.buscar(consulta, limite, alunos.estado()).stream().map(Aluno::getId).toList();
+    }
+}
@@ -0,0 +1,106 @@
+package app.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import app.model.Aluno;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Recarga do journal depois de uma queda no meio da escrita do último registro, e
+ * recusa das escritas quando a thread de gravação para.
+ */
+class JournalPersistenciaTest {
+    // Sem snapshots: todos os registros ficam no primeiro journal
+    private static final long SEM_SNAPSHOT = Long.MAX_VALUE;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void descartaRegistroFinalIncompleto() throws IOException {
+        gravarTresAlunos();
+        Path arquivo = diretorio.resolve("journal-0.log");
+        // Só parte do terceiro registro chegou ao disco
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - 5);
+        }
+        verificarRecargaSemOTerceiro();
+    }
+
+    @Test
+    void descartaRegistroFinalCorrompido() throws IOException {
+        gravarTresAlunos();
+        Path arquivo = diretorio.resolve("journal-0.log");
+        // O último byte do terceiro registro foi gravado com lixo (crc32 não confere)
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer ultimo = ByteBuffer.allocate(1);
+            canal.read(ultimo, canal.size() - 1);
+            ultimo.put(0, (byte) ~ultimo.get(0));
+            ultimo.rewind();
+            canal.write(ultimo, canal.size() - 1);
+        }
+        verificarRecargaSemOTerceiro();
+    }
+
+    @Test
+    void threadDeGravacaoInterrompidaRecusaEscritas() throws InterruptedException {
+        Set<Thread> anteriores = Thread.getAllStackTraces().keySet();
+        try (JournalPersistencia journal = new JournalPersistencia(diretorio, SEM_SNAPSHOT)) {
+            AlunoRepository repositorio = new AlunoRepository(journal, AlunoRepository.Armazenamento.OBJETOS);
+            repositorio.salvar(new Aluno("Aluno 1", 21, "aluno1@x.com", "ADS"));
+            Thread gravador = Thread.getAllStackTraces().keySet().stream()
+                    .filter(t -> t.getName().equals("journal-group-commit") && !anteriores.contains(t))
+                    .findFirst().orElseThrow();
+
+            // Sem a thread ninguém seria confirmado: as escritas passam a ser recusadas
+            gravador.interrupt();
+            gravador.join(10_000);
+            assertFalse(gravador.isAlive());
+            assertThrows(PersistenciaIndisponivelException.class,
+                    () -> repositorio.salvar(new Aluno("Aluno 2", 22, "aluno2@x.com", "ADS")));
+            assertEquals(1, repositorio.listarTodos().size());
+        }
+    }
+
+    private void gravarTresAlunos() {
+        try (JournalPersistencia journal = new JournalPersistencia(diretorio, SEM_SNAPSHOT)) {
+            AlunoRepository repositorio = new AlunoRepository(journal, AlunoRepository.Armazenamento.OBJETOS);
+            for (int i = 1; i <= 3; i++) {
+                repositorio.salvar(new Aluno("Aluno " + i, 20 + i, "aluno" + i + "@x.com", "ADS"));
+            }
+        }
+    }
+
+    /**
+     * O registro danificado é descartado e o arquivo truncado no fim do último íntegro,
+     * então o que for gravado depois da recarga também é lido na próxima.
+     */
+    private void verificarRecargaSemOTerceiro() {
+        try (JournalPersistencia journal = new JournalPersistencia(diretorio, SEM_SNAPSHOT)) {
+            AlunoRepository repositorio = new AlunoRepository(journal, AlunoRepository.Armazenamento.OBJETOS);
+            assertEquals("Aluno 1", repositorio.buscarPorId(1).getNome());
+            assertEquals("Aluno 2", repositorio.buscarPorId(2).getNome());
+            assertNull(repositorio.buscarPorEmail("aluno3@x.com"));
+            assertEquals(2, repositorio.listarTodos().size());
+            repositorio.salvar(new Aluno("Aluno 4", 24, "aluno4@x.com", "ADS"));
+        }
+
+        try (JournalPersistencia journal = new JournalPersistencia(diretorio, SEM_SNAPSHOT)) {
+            AlunoRepository repositorio = new AlunoRepository(journal, AlunoRepository.Armazenamento.OBJETOS);
+            assertEquals(3, repositorio.listarTodos().size());
+            assertNotNull(repositorio.buscarPorEmail("aluno4@x.com"));
+            assertNull(repositorio.buscarPorEmail("aluno3@x.com"));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package app.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Escritas concorrentes (put/remove/replace) na árvore de prefixos e iteração sobre
+ * snapshots durante as escritas.
+ */
+class MapaInteiroConcorrenteTest {
+    private static final int ESCRITORES = 4;
+    private static final int CHAVES_POR_ESCRITOR = 5_000;
+
+    @Test
+    void putERemoveConcorrentesNaoPerdemEscritas() throws Exception {
+        MapaInteiroConcorrente<Integer> mapa = new MapaInteiroConcorrente<>();
+        ExecutorService threads = Executors.newFixedThreadPool(ESCRITORES);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            // Cada escritor grava as chaves i, i + ESCRITORES, ... e depois remove as ímpares
+            // (todos disputam os mesmos nós, então os compare-and-set se repetem)
+            List<Future<?>> escritores = new ArrayList<>();
+            for (int t = 0; t < ESCRITORES; t++) {
+                int primeira = t;
+                escritores.add(threads.submit(() -> {
+                    largada.await();
+                    for (int chave = primeira; chave < ESCRITORES * CHAVES_POR_ESCRITOR; chave += ESCRITORES) {
+                        assertNull(mapa.put(chave, chave));
+                    }
+                    for (int chave = primeira; chave < ESCRITORES * CHAVES_POR_ESCRITOR; chave += ESCRITORES) {
+                        if (chave % 2 == 1) assertEquals(chave, mapa.remove(chave));
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> escritor : escritores) {
+                escritor.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        int total = ESCRITORES * CHAVES_POR_ESCRITOR;
+        assertEquals(total / 2, mapa.size());
+        List<Integer> restantes = new ArrayList<>();
+        mapa.forEach(restantes::add);
+        assertEquals(total / 2, restantes.size());
+        for (int i = 0; i < restantes.size(); i++) {
+            assertEquals(2 * i, restantes.get(i));
+        }
+        assertNull(mapa.get(1));
+        assertEquals(total - 2, mapa.get(total - 2));
+    }
+
+    @Test
+    void replaceSoTrocaOValorEsperado() throws Exception {
+        MapaInteiroConcorrente<Integer> mapa = new MapaInteiroConcorrente<>();
+        Integer inicial = 1000;
+        mapa.put(7, inicial);
+        ExecutorService threads = Executors.newFixedThreadPool(ESCRITORES);
+        try {
+            // Todos tentam trocar o mesmo valor: só um compare-and-set pode vencer
+            List<Future<Boolean>> tentativas = new ArrayList<>();
+            for (int t = 0; t < ESCRITORES; t++) {
+                Integer novo = 2000 + t;
+                tentativas.add(threads.submit(() -> mapa.replace(7, inicial, novo)));
+            }
+            int vencedores = 0;
+            for (Future<Boolean> tentativa : tentativas) {
+                if (tentativa.get(60, TimeUnit.SECONDS)) vencedores++;
+            }
+            assertEquals(1, vencedores);
+        } finally {
+            threads.shutdownNow();
+        }
+        assertTrue(mapa.get(7) >= 2000);
+        assertFalse(mapa.replace(8, inicial, 1));
+        assertEquals(1, mapa.size());
+    }
+
+    @Test
+    void iteracaoDuranteEscritasVeUmaVersaoConsistente() throws Exception {
+        MapaInteiroConcorrente<Integer> mapa = new MapaInteiroConcorrente<>();
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicBoolean escrevendo = new AtomicBoolean(true);
+        try {
+            Future<?> escritor = threads.submit(() -> {
+                largada.await();
+                for (int chave = 0; chave < CHAVES_POR_ESCRITOR; chave++) {
+                    mapa.put(chave, chave);
+                    if (chave % 3 == 0) mapa.remove(chave / 2);
+                }
+                return null;
+            });
+            // Cada iteração percorre uma versão: ordem crescente e tamanho igual ao dela
+            Future<Integer> leitor = threads.submit(() -> {
+                largada.await();
+                int iteracoes = 0;
+                while (escrevendo.get()) {
+                    MapaInteiroConcorrente.Estado<Integer> estado = mapa.estado();
+                    int anterior = -1;
+                    int vistos = 0;
+                    for (Integer valor : estado) {
+                        assertTrue(valor > anterior, "Iteração fora de ordem: " + valor + " após " + anterior);
+                        anterior = valor;
+                        vistos++;
+                    }
+                    assertEquals(estado.tamanho(), vistos);
+                    iteracoes++;
+                }
+                return iteracoes;
+            });
+
+            largada.countDown();
+            escritor.get(60, TimeUnit.SECONDS);
+            escrevendo.set(false);
+            assertTrue(leitor.get(60, TimeUnit.SECONDS) > 0);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void iteradorNaoEnxergaEscritasPosteriores() {
+        MapaInteiroConcorrente<Integer> mapa = new MapaInteiroConcorrente<>();
+        for (int chave = 0; chave < 100; chave++) {
+            mapa.put(chave, chave);
+        }
+        Iterator<Integer> iterador = mapa.iterador(50);
+        mapa.remove(60);
+        mapa.put(100, 100);
+
+        List<Integer> vistos = new ArrayList<>();
+        iterador.forEachRemaining(vistos::add);
+        assertEquals(50, vistos.size());
+        assertEquals(50, vistos.get(0));
+        assertEquals(60, vistos.get(10));
+        assertEquals(99, vistos.get(49));
+        assertEquals(100, mapa.size());
+    }
+}